@@ -0,0 +1,54 @@
+package com.example.graphql.config;
+
+import com.example.graphql.service.CatalogScanCoordinator;
+import com.example.graphql.service.CatalogScanCoordinator.RequestScan;
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.execution.instrumentation.SimplePerformantInstrumentation;
+import graphql.execution.instrumentation.parameters.InstrumentationCreateStateParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationFieldFetchParameters;
+import graphql.schema.DataFetcher;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletionException;
+
+/**
+ * Binds one CatalogScanCoordinator.RequestScan per GraphQL request around every Query root field,
+ * so stats and report fields of the same request share a single catalog scan.
+ * The scan lives in the execution's instrumentation state; ordered first so that it wraps the
+ * original data fetcher and binds on whichever thread the field actually runs.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class CatalogScanScopeInstrumentation extends SimplePerformantInstrumentation {
+
+    @Override
+    public InstrumentationState createState(InstrumentationCreateStateParameters parameters) {
+        return new RequestScanState();
+    }
+
+    @Override
+    public DataFetcher<?> instrumentDataFetcher(DataFetcher<?> dataFetcher,
+                                                InstrumentationFieldFetchParameters parameters,
+                                                InstrumentationState state) {
+        if (!(state instanceof RequestScanState scanState)
+                || !RootFieldExecutionInstrumentation.isQueryRootField(parameters)) {
+            return dataFetcher;
+        }
+        RequestScan scan = scanState.scan;
+        return environment -> CatalogScanCoordinator.withRequestScan(scan, () -> {
+            try {
+                return dataFetcher.get(environment);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    private static class RequestScanState implements InstrumentationState {
+        private final RequestScan scan = new RequestScan();
+    }
+}
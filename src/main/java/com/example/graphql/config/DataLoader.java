@@ -1,28 +1,45 @@
 package com.example.graphql.config;
 
+import com.example.graphql.dto.SaleInput;
 import com.example.graphql.model.Product;
 import com.example.graphql.repository.ProductRepository;
+import com.example.graphql.service.AttributeTypeRegistry;
+import com.example.graphql.service.SalesLedgerService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.SplittableRandom;
 
 @Component
 public class DataLoader implements CommandLineRunner {
 
+    private static final Logger logger = LoggerFactory.getLogger(DataLoader.class);
+
+    private static final long SAMPLE_SALES_SEED = 42;
+
     private final ProductRepository productRepository;
+    private final AttributeTypeRegistry attributeTypes;
+    private final SalesLedgerService salesLedgerService;
 
     @Autowired
-    public DataLoader(ProductRepository productRepository) {
+    public DataLoader(ProductRepository productRepository, AttributeTypeRegistry attributeTypes,
+                      SalesLedgerService salesLedgerService) {
         this.productRepository = productRepository;
+        this.attributeTypes = attributeTypes;
+        this.salesLedgerService = salesLedgerService;
     }
 
     @Override
     public void run(String... args) {
         // Clear existing data
+        salesLedgerService.deleteAll();
         productRepository.deleteAll();
 
         // Define categories for organization
@@ -38,27 +55,45 @@ public class DataLoader implements CommandLineRunner {
         Product laptop = new Product(null, "High-Performance Laptop", "15-inch laptop with the latest processor, 16GB RAM and 512GB SSD", 1299.99, "Electronics", true);
         laptop.setRating(4.7f);
         laptop.setTags(Arrays.asList("computer", "laptop", "portable"));
+        laptop.addCustomAttribute("ram_gb", "16");
+        laptop.addCustomAttribute("storage_gb", "512");
+        laptop.addCustomAttribute("screen_inches", "15");
+        laptop.addCustomAttribute("released", "2024-03-12");
         products.add(laptop);
         
         Product smartphone = new Product(null, "Flagship Smartphone", "Latest model with advanced camera system and all-day battery life", 899.99, "Mobile Phones", true);
         smartphone.setRating(4.8f);
         smartphone.setTags(Arrays.asList("phone", "mobile", "camera", "android"));
+        smartphone.addCustomAttribute("color", "black");
+        smartphone.addCustomAttribute("storage_gb", "256");
+        smartphone.addCustomAttribute("screen_inches", "6.7");
+        smartphone.addCustomAttribute("released", "2024-09-20");
+        smartphone.addCustomAttribute("refurbished", "false");
         products.add(smartphone);
         
         Product tablet = new Product(null, "Pro Tablet", "12-inch tablet for creative professionals with stylus support", 799.99, "Electronics", true);
         tablet.setRating(4.5f);
         tablet.setTags(Arrays.asList("tablet", "stylus", "portable", "graphics"));
+        tablet.addCustomAttribute("color", "silver");
+        tablet.addCustomAttribute("storage_gb", "128");
+        tablet.addCustomAttribute("screen_inches", "12");
+        tablet.addCustomAttribute("released", "2023-11-02");
+        tablet.addCustomAttribute("refurbished", "true");
         products.add(tablet);
         
         // Audio
         Product headphones = new Product(null, "Noise-Cancelling Headphones", "Over-ear wireless headphones with premium sound quality", 249.99, "Audio", true);
         headphones.setRating(4.6f);
         headphones.setTags(Arrays.asList("audio", "wireless", "bluetooth", "noise-cancelling"));
+        headphones.addCustomAttribute("color", "black");
+        headphones.addCustomAttribute("battery_hours", "30");
         products.add(headphones);
         
         Product earbuds = new Product(null, "Wireless Earbuds", "True wireless earbuds with long battery life and water resistance", 159.99, "Audio", true);
         earbuds.setRating(4.4f);
         earbuds.setTags(Arrays.asList("audio", "wireless", "earbuds", "water-resistant"));
+        earbuds.addCustomAttribute("color", "white");
+        earbuds.addCustomAttribute("battery_hours", "8");
         products.add(earbuds);
         
         Product speaker = new Product(null, "Smart Speaker", "Voice-controlled speaker with room-filling sound", 129.99, "Smart Home", true);
@@ -110,9 +145,37 @@ public class DataLoader implements CommandLineRunner {
         webcam.setTags(Arrays.asList("office", "webcam", "video", "conference"));
         products.add(webcam);
         
-        // Save all products
+        // Save all products, registering the types of their custom attributes
+        products.forEach(product -> attributeTypes.canonicalize(product.getCustomAttributes()));
         productRepository.saveAll(products);
         
-        System.out.println("Sample data loaded successfully! Added " + products.size() + " products.");
+        logger.info("Sample data loaded successfully! Added {} products.", products.size());
+
+        int sales = loadSampleSales(products, 365);
+        logger.info("Sample sales loaded successfully! Added {} sales.", sales);
+    }
+
+    /**
+     * Record a few orders of each product per day over the given number of days up to
+     * today, more for better rated products. Each day has its own seed, so a day's sales
+     * are the same on every start, however many days are loaded.
+     */
+    private int loadSampleSales(List<Product> products, int days) {
+        LocalDate today = LocalDate.now();
+        List<SaleInput> sales = new ArrayList<>();
+        for (int day = days - 1; day >= 0; day--) {
+            LocalDate date = today.minusDays(day);
+            SplittableRandom random = new SplittableRandom(SAMPLE_SALES_SEED + date.toEpochDay());
+            for (Product product : products) {
+                int orders = random.nextInt(product.getRating() != null && product.getRating() >= 4.5f ? 4 : 2);
+                for (int order = 0; order < orders; order++) {
+                    sales.add(new SaleInput(product.getId().toString(), 1 + random.nextInt(3), null, date.toString()));
+                }
+            }
+        }
+        for (int from = 0; from < sales.size(); from += SalesLedgerService.MAX_BATCH_SIZE) {
+            salesLedgerService.recordSales(sales.subList(from, Math.min(from + SalesLedgerService.MAX_BATCH_SIZE, sales.size())));
+        }
+        return sales.size();
     }
 } 
\ No newline at end of file
@@ -0,0 +1,61 @@
+package com.example.graphql.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.graphql.GraphQlSourceBuilderCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Configuration for automatic persisted queries and the parsed document cache.
+ * Parsing and validating a large query costs more than executing many cheap ones,
+ * so validated documents are cached by query hash and clients may send only the hash.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.graphql.documents.cache-enabled", havingValue = "true", matchIfMissing = true)
+public class GraphQlDocumentCacheConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(GraphQlDocumentCacheConfig.class);
+
+    @Value("${app.graphql.documents.maximum-size:1000}")
+    private long maximumSize;
+
+    @Value("${app.graphql.documents.max-request-body-size:64KB}")
+    private DataSize maxRequestBodySize;
+
+    @Value("${spring.graphql.path:/graphql}")
+    private String graphQlPath;
+
+    @Bean
+    public PersistedDocumentCache persistedDocumentCache(MeterRegistry meterRegistry) {
+        PersistedDocumentCache cache = new PersistedDocumentCache(maximumSize);
+        CaffeineCacheMetrics.monitor(meterRegistry, cache.getCache(), "graphqlDocuments");
+        logger.info("GraphQL document cache holds up to {} parsed and validated queries", maximumSize);
+        return cache;
+    }
+
+    @Bean
+    public GraphQlSourceBuilderCustomizer persistedQueryCustomizer(PersistedDocumentCache persistedDocumentCache) {
+        return builder -> builder.configureGraphQl(graphQl ->
+                graphQl.preparsedDocumentProvider(new QueryHashPersistedQuerySupport(persistedDocumentCache)));
+    }
+
+    /**
+     * Hash-only requests are only rewritten on the GraphQL HTTP endpoint,
+     * and only JSON bodies up to the configured size are inspected
+     */
+    @Bean
+    public FilterRegistrationBean<PersistedQueryRequestFilter> persistedQueryRequestFilter(ObjectMapper objectMapper) {
+        FilterRegistrationBean<PersistedQueryRequestFilter> registration =
+                new FilterRegistrationBean<>(new PersistedQueryRequestFilter(objectMapper, Math.toIntExact(maxRequestBodySize.toBytes())));
+        registration.addUrlPatterns(graphQlPath);
+        return registration;
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.graphql.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Configuration for how GraphQL Query root fields are executed.
+ *
+ * DIRECT (default) runs data fetchers on the calling servlet thread, one root field after another.
+ * PLATFORM runs root fields concurrently on a bounded pool of platform threads.
+ * VIRTUAL runs root fields concurrently on virtual threads (Java 21+, falls back to PLATFORM otherwise).
+ */
+@Configuration
+public class GraphQlExecutionConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(GraphQlExecutionConfig.class);
+
+    public enum ExecutionMode {
+        DIRECT, PLATFORM, VIRTUAL
+    }
+
+    @Value("${app.graphql.execution.mode:DIRECT}")
+    private ExecutionMode mode;
+
+    @Value("${app.graphql.execution.platform-threads:0}")
+    private int platformThreads;
+
+    @Value("${app.graphql.execution.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${app.graphql.execution.jdbc-permits:${spring.datasource.hikari.maximum-pool-size:10}}")
+    private int jdbcPermits;
+
+    @Value("${app.graphql.execution.read-only-transactions:true}")
+    private boolean readOnlyTransactions;
+
+    @Value("${app.graphql.cost.maximum:10000}")
+    private long maximumCost;
+
+    @Value("${app.graphql.cost.catalog-size:1000}")
+    private int costCatalogSize;
+
+    @Value("${app.graphql.cost.nested-list-size:10}")
+    private int costNestedListSize;
+
+    @Value("${app.graphql.cost.scan:1000}")
+    private int scanCost;
+
+    @Value("${app.graphql.cost.relationship:10}")
+    private int relationshipCost;
+
+    /**
+     * Root-field instrumentation; the executor is kept private to it rather than exposed
+     * as a bean, so Spring Boot's applicationTaskExecutor is still auto-configured.
+     * Ordered last so it wraps the other instrumentations and they run on the worker thread.
+     */
+    @Bean(destroyMethod = "shutdown")
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public RootFieldExecutionInstrumentation rootFieldExecutionInstrumentation(PlatformTransactionManager transactionManager) {
+        TransactionTemplate transactionTemplate = null;
+        if (readOnlyTransactions) {
+            // Query root fields only read, so skip Hibernate dirty checking and flushes
+            transactionTemplate = new TransactionTemplate(transactionManager);
+            transactionTemplate.setReadOnly(true);
+        }
+        return new RootFieldExecutionInstrumentation(createExecutor(), jdbcPermits, transactionTemplate);
+    }
+
+    /**
+     * Rejects operations whose estimated cost exceeds app.graphql.cost.maximum before they execute
+     */
+    @Bean
+    public QueryCostInstrumentation queryCostInstrumentation() {
+        logger.info("GraphQL operations are limited to a query cost of {}", maximumCost);
+        return new QueryCostInstrumentation(
+                new QueryCostCalculator(costCatalogSize, costNestedListSize, scanCost, relationshipCost), maximumCost);
+    }
+
+    private ExecutorService createExecutor() {
+        switch (mode) {
+            case VIRTUAL:
+                ExecutorService virtualExecutor = newVirtualThreadExecutor();
+                if (virtualExecutor != null) {
+                    logger.info("GraphQL root fields execute on virtual threads with {} JDBC permits", jdbcPermits);
+                    return virtualExecutor;
+                }
+                logger.warn("Virtual threads require Java 21+, falling back to PLATFORM execution mode");
+                return newPlatformThreadExecutor();
+            case PLATFORM:
+                return newPlatformThreadExecutor();
+            case DIRECT:
+            default:
+                return null;
+        }
+    }
+
+    private ExecutorService newPlatformThreadExecutor() {
+        int threads = platformThreads > 0 ? platformThreads : Runtime.getRuntime().availableProcessors() * 2;
+        logger.info("GraphQL root fields execute on {} platform threads with {} JDBC permits", threads, jdbcPermits);
+        // Bounded queue; when it is full the request thread resolves the field itself
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("graphql-field-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Looked up reflectively so the application still compiles and runs on Java 17
+     */
+    private ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
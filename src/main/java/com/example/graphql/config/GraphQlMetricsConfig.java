@@ -0,0 +1,28 @@
+package com.example.graphql.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+/**
+ * Configuration for GraphQL resolver and operation metrics, published on /actuator/metrics.
+ * SQL statements are counted by SqlStatementCounter, which is registered with Hibernate
+ * in application.properties.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.graphql.metrics.enabled", havingValue = "true", matchIfMissing = true)
+public class GraphQlMetricsConfig {
+
+    /**
+     * Ordered just inside the root field executor, so resolver timings exclude time
+     * spent waiting for a worker thread
+     */
+    @Bean
+    @Order(Ordered.LOWEST_PRECEDENCE - 1)
+    public GraphQlMetricsInstrumentation graphQlMetricsInstrumentation(MeterRegistry meterRegistry) {
+        return new GraphQlMetricsInstrumentation(meterRegistry);
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.graphql.config;
+
+import graphql.ExecutionResult;
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.execution.instrumentation.SimpleInstrumentationContext;
+import graphql.execution.instrumentation.SimplePerformantInstrumentation;
+import graphql.execution.instrumentation.parameters.InstrumentationCreateStateParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationExecuteOperationParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationExecutionParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationFieldFetchParameters;
+import graphql.schema.DataFetcher;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Instrumentation that records resolver and operation latencies and SQL statement counts.
+ *
+ * graphql.field.latency is timed per non-trivial data fetcher and tagged with its
+ * field coordinate (e.g. Query.allProducts); graphql.operation.latency and
+ * graphql.operation.statements are recorded once per request and tagged with the
+ * operation name (the first MAX_OPERATION_NAMES names, then "other"). Percentiles
+ * are computed in-process by Micrometer's HdrHistogram-backed distribution, and
+ * meters are looked up once per field and then reused.
+ */
+public class GraphQlMetricsInstrumentation extends SimplePerformantInstrumentation {
+
+    static final String FIELD_LATENCY = "graphql.field.latency";
+    static final String OPERATION_LATENCY = "graphql.operation.latency";
+    static final String OPERATION_STATEMENTS = "graphql.operation.statements";
+
+    private static final double[] PERCENTILES = {0.5, 0.95, 0.99};
+
+    /** Operation names are chosen by clients, so only this many get their own meters */
+    static final int MAX_OPERATION_NAMES = 100;
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Timer> fieldTimers = new ConcurrentHashMap<>();
+    private final Map<String, Timer> operationTimers = new ConcurrentHashMap<>();
+    private final Map<String, DistributionSummary> statementSummaries = new ConcurrentHashMap<>();
+
+    public GraphQlMetricsInstrumentation(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public InstrumentationState createState(InstrumentationCreateStateParameters parameters) {
+        return new RequestMetricsState();
+    }
+
+    @Override
+    public InstrumentationContext<ExecutionResult> beginExecution(InstrumentationExecutionParameters parameters,
+                                                                  InstrumentationState state) {
+        RequestMetricsState requestState = (RequestMetricsState) state;
+        long start = System.nanoTime();
+        return SimpleInstrumentationContext.whenCompleted((result, throwable) -> {
+            // Prefer the name from the document, which clients often do not repeat in the request
+            String operation = operationTag(requestState.operationName != null
+                    ? requestState.operationName : parameters.getOperation());
+            String outcome = throwable == null && result != null && result.getErrors().isEmpty() ? "success" : "error";
+            operationTimer(operation, outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            statementSummary(operation).record(requestState.statements.sum());
+        });
+    }
+
+    @Override
+    public InstrumentationContext<ExecutionResult> beginExecuteOperation(InstrumentationExecuteOperationParameters parameters,
+                                                                        InstrumentationState state) {
+        ((RequestMetricsState) state).operationName =
+                parameters.getExecutionContext().getOperationDefinition().getName();
+        return SimpleInstrumentationContext.noOp();
+    }
+
+    @Override
+    public DataFetcher<?> instrumentDataFetcher(DataFetcher<?> dataFetcher,
+                                                InstrumentationFieldFetchParameters parameters,
+                                                InstrumentationState state) {
+        if (parameters.isTrivialDataFetcher()) {
+            return dataFetcher;
+        }
+        LongAdder statements = ((RequestMetricsState) state).statements;
+        Timer timer = fieldTimer(parameters.getExecutionStepInfo().getObjectType().getName()
+                + "." + parameters.getField().getName());
+        return environment -> {
+            long start = System.nanoTime();
+            Object value;
+            try {
+                value = SqlStatementCounter.withCounter(statements, () -> {
+                    try {
+                        return dataFetcher.get(environment);
+                    } catch (RuntimeException e) {
+                        throw e;
+                    } catch (Exception e) {
+                        throw new CompletionException(e);
+                    }
+                });
+            } catch (RuntimeException e) {
+                timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                throw e;
+            }
+            if (value instanceof CompletionStage<?> stage) {
+                return stage.whenComplete((result, throwable) ->
+                        timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+            }
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return value;
+        };
+    }
+
+    private String operationTag(String operationName) {
+        String operation = operationName != null ? operationName : "anonymous";
+        if (!statementSummaries.containsKey(operation) && statementSummaries.size() >= MAX_OPERATION_NAMES) {
+            return "other";
+        }
+        return operation;
+    }
+
+    private Timer fieldTimer(String coordinate) {
+        return fieldTimers.computeIfAbsent(coordinate, field -> Timer.builder(FIELD_LATENCY)
+                .tag("field", field)
+                .publishPercentiles(PERCENTILES)
+                .register(meterRegistry));
+    }
+
+    private Timer operationTimer(String operation, String outcome) {
+        return operationTimers.computeIfAbsent(operation + ":" + outcome, key -> Timer.builder(OPERATION_LATENCY)
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .publishPercentiles(PERCENTILES)
+                .register(meterRegistry));
+    }
+
+    private DistributionSummary statementSummary(String operation) {
+        return statementSummaries.computeIfAbsent(operation, key -> DistributionSummary.builder(OPERATION_STATEMENTS)
+                .tag("operation", operation)
+                .publishPercentiles(PERCENTILES)
+                .register(meterRegistry));
+    }
+
+    private static class RequestMetricsState implements InstrumentationState {
+        private final LongAdder statements = new LongAdder();
+        private volatile String operationName;
+    }
+}
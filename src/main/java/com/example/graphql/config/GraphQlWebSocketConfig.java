@@ -0,0 +1,183 @@
+package com.example.graphql.config;
+
+import jakarta.servlet.ServletContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.graphql.GraphQlProperties;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.ResolvableType;
+import org.springframework.graphql.server.WebGraphQlHandler;
+import org.springframework.graphql.server.webmvc.GraphQlWebSocketHandler;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.GenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.server.standard.ServletServerContainerFactoryBean;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Configuration for the single graphql-transport-ws endpoint.
+ * Replaces the auto-configured GraphQlWebSocketHandler with one that bounds
+ * per-session send buffers and send time, and provides the dedicated
+ * scheduler used to fan subscription events out to subscribers.
+ */
+@Configuration
+public class GraphQlWebSocketConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(GraphQlWebSocketConfig.class);
+
+    @Value("${app.websocket.send-time-limit:10s}")
+    private Duration sendTimeLimit;
+
+    @Value("${app.websocket.send-buffer-size-limit:524288}")
+    private int sendBufferSizeLimit;
+
+    @Value("${app.websocket.overflow-strategy:TERMINATE}")
+    private ConcurrentWebSocketSessionDecorator.OverflowStrategy overflowStrategy;
+
+    @Value("${app.websocket.max-text-message-buffer-size:65536}")
+    private int maxTextMessageBufferSize;
+
+    @Value("${app.websocket.max-session-idle-timeout:0s}")
+    private Duration maxSessionIdleTimeout;
+
+    /**
+     * Container-level limits for all WebSocket sessions
+     */
+    @Bean
+    public ServletServerContainerFactoryBean webSocketContainer() {
+        ServletServerContainerFactoryBean container = new OptionalServerContainerFactoryBean();
+        container.setMaxTextMessageBufferSize(maxTextMessageBufferSize);
+        container.setAsyncSendTimeout(sendTimeLimit.toMillis());
+        if (!maxSessionIdleTimeout.isZero()) {
+            container.setMaxSessionIdleTimeout(maxSessionIdleTimeout.toMillis());
+        }
+        return container;
+    }
+
+    /**
+     * GraphQL WebSocket handler with bounded outbound buffering.
+     * Picked up by Spring Boot's graphQlWebSocketMapping in place of the default handler.
+     */
+    @Bean
+    public GraphQlWebSocketHandler graphQlWebSocketHandler(
+            WebGraphQlHandler webGraphQlHandler,
+            GraphQlProperties properties,
+            HttpMessageConverters converters) {
+        logger.info("GraphQL WebSocket handler configured with sendTimeLimit={}, sendBufferSizeLimit={}, overflowStrategy={}",
+                sendTimeLimit, sendBufferSizeLimit, overflowStrategy);
+        return new BoundedGraphQlWebSocketHandler(
+                webGraphQlHandler,
+                getJsonConverter(converters),
+                properties.getWebsocket().getConnectionInitTimeout(),
+                (int) sendTimeLimit.toMillis(),
+                sendBufferSizeLimit,
+                overflowStrategy);
+    }
+
+    /**
+     * Dedicated scheduler that delivers subscription events, so that mutation
+     * threads are not held up by subscriber fan-out
+     */
+    @Bean(destroyMethod = "dispose")
+    public Scheduler subscriptionOutboundScheduler() {
+        return Schedulers.newSingle("graphql-ws-outbound", true);
+    }
+
+    @SuppressWarnings("unchecked")
+    private HttpMessageConverter<Object> getJsonConverter(HttpMessageConverters converters) {
+        return converters.getConverters().stream()
+                .filter(converter -> converter instanceof GenericHttpMessageConverter<?> generic
+                        && generic.canRead(ResolvableType.forClassWithGenerics(Map.class, String.class, Object.class).getType(),
+                                null, MediaType.APPLICATION_JSON))
+                .findFirst()
+                .map(converter -> (HttpMessageConverter<Object>) converter)
+                .orElseThrow(() -> new IllegalStateException("No JSON converter"));
+    }
+
+    /**
+     * Skips container configuration when no WebSocket ServerContainer exists,
+     * e.g. in mock servlet environments used by @SpringBootTest
+     */
+    static class OptionalServerContainerFactoryBean extends ServletServerContainerFactoryBean {
+
+        private boolean serverContainerAvailable;
+
+        @Override
+        public void setServletContext(ServletContext servletContext) {
+            this.serverContainerAvailable = servletContext.getAttribute("jakarta.websocket.server.ServerContainer") != null;
+            super.setServletContext(servletContext);
+        }
+
+        @Override
+        public void afterPropertiesSet() {
+            if (serverContainerAvailable) {
+                super.afterPropertiesSet();
+            }
+        }
+    }
+
+    /**
+     * GraphQlWebSocketHandler that wraps every session in a
+     * ConcurrentWebSocketSessionDecorator, so slow subscribers are bounded
+     * by buffer size and send time instead of blocking the sending thread
+     */
+    static class BoundedGraphQlWebSocketHandler extends GraphQlWebSocketHandler {
+
+        private final int sendTimeLimit;
+        private final int bufferSizeLimit;
+        private final ConcurrentWebSocketSessionDecorator.OverflowStrategy overflowStrategy;
+        private final Map<String, WebSocketSession> decoratedSessions = new ConcurrentHashMap<>();
+
+        BoundedGraphQlWebSocketHandler(WebGraphQlHandler graphQlHandler,
+                                       HttpMessageConverter<?> converter,
+                                       Duration initTimeout,
+                                       int sendTimeLimit,
+                                       int bufferSizeLimit,
+                                       ConcurrentWebSocketSessionDecorator.OverflowStrategy overflowStrategy) {
+            super(graphQlHandler, converter, initTimeout);
+            this.sendTimeLimit = sendTimeLimit;
+            this.bufferSizeLimit = bufferSizeLimit;
+            this.overflowStrategy = overflowStrategy;
+        }
+
+        @Override
+        public void afterConnectionEstablished(WebSocketSession session) {
+            WebSocketSession decorated = new ConcurrentWebSocketSessionDecorator(
+                    session, sendTimeLimit, bufferSizeLimit, overflowStrategy);
+            decoratedSessions.put(session.getId(), decorated);
+            super.afterConnectionEstablished(decorated);
+        }
+
+        @Override
+        protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
+            super.handleTextMessage(decorated(session), message);
+        }
+
+        @Override
+        public void handleTransportError(WebSocketSession session, Throwable exception) {
+            super.handleTransportError(decorated(session), exception);
+        }
+
+        @Override
+        public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) {
+            WebSocketSession decorated = decoratedSessions.remove(session.getId());
+            super.afterConnectionClosed(decorated != null ? decorated : session, closeStatus);
+        }
+
+        private WebSocketSession decorated(WebSocketSession session) {
+            return decoratedSessions.getOrDefault(session.getId(), session);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.graphql.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import graphql.ExecutionInput;
+import graphql.execution.preparsed.PreparsedDocumentEntry;
+import graphql.execution.preparsed.persisted.PersistedQueryCache;
+import graphql.execution.preparsed.persisted.PersistedQueryCacheMiss;
+import graphql.execution.preparsed.persisted.PersistedQueryNotFound;
+import graphql.execution.preparsed.persisted.PersistedQuerySupport;
+
+/**
+ * Bounded cache of parsed and validated GraphQL documents keyed by query hash.
+ * It doubles as the registry for automatic persisted queries: a hash that is not
+ * cached can only be registered by a request that also carries the query text.
+ * Concurrent misses for the same hash parse and validate the query once.
+ */
+public class PersistedDocumentCache implements PersistedQueryCache {
+
+    private final Cache<Object, PreparsedDocumentEntry> documents;
+
+    /**
+     * @param maximumSize maximum number of cached documents
+     */
+    public PersistedDocumentCache(long maximumSize) {
+        this.documents = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public PreparsedDocumentEntry getPersistedQueryDocument(Object persistedQueryId,
+                                                            ExecutionInput executionInput,
+                                                            PersistedQueryCacheMiss onCacheMiss) throws PersistedQueryNotFound {
+        return documents.get(persistedQueryId, id -> {
+            String query = executionInput.getQuery();
+            if (query == null || query.isBlank() || query.equals(PersistedQuerySupport.PERSISTED_QUERY_MARKER)) {
+                throw new PersistedQueryNotFound(id);
+            }
+            return onCacheMiss.apply(query);
+        });
+    }
+
+    public Cache<Object, PreparsedDocumentEntry> getCache() {
+        return documents;
+    }
+}
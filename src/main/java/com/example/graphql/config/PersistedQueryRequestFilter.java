@@ -0,0 +1,210 @@
+package com.example.graphql.config;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import graphql.execution.preparsed.persisted.PersistedQuerySupport;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Lets hash-only persisted query requests through Spring GraphQL's HTTP handler,
+ * which rejects request bodies without a query. When a POST body carries
+ * extensions.persistedQuery but no query, the persisted query marker is put in
+ * its place; the document cache then resolves the hash or reports PersistedQueryNotFound.
+ *
+ * Only JSON bodies are buffered, and only up to a size limit: a body larger than
+ * that is no hash-only request and is streamed to the handler as it arrives.
+ */
+public class PersistedQueryRequestFilter extends OncePerRequestFilter {
+
+    private static final byte[] PERSISTED_QUERY_KEY = "\"persistedQuery\"".getBytes(StandardCharsets.UTF_8);
+
+    private static final TypeReference<Map<String, Object>> BODY_TYPE = new TypeReference<>() {
+    };
+
+    static final int DEFAULT_MAX_BODY_SIZE = 64 * 1024;
+
+    private final ObjectMapper objectMapper;
+    private final int maxBodySize;
+
+    public PersistedQueryRequestFilter(ObjectMapper objectMapper) {
+        this(objectMapper, DEFAULT_MAX_BODY_SIZE);
+    }
+
+    /**
+     * @param maxBodySize largest request body, in bytes, that is buffered and checked for a persisted query
+     */
+    public PersistedQueryRequestFilter(ObjectMapper objectMapper, int maxBodySize) {
+        if (maxBodySize < 0) {
+            throw new IllegalArgumentException("Maximum body size must not be negative");
+        }
+        this.objectMapper = objectMapper;
+        this.maxBodySize = maxBodySize;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod()) || !isJson(request.getContentType())
+                || request.getContentLengthLong() > maxBodySize;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        ServletInputStream input = request.getInputStream();
+        byte[] body = input.readNBytes(maxBodySize + 1);
+        if (body.length > maxBodySize) {
+            // Without a declared length the limit is only found while reading; replay what was read
+            filterChain.doFilter(new CachedBodyRequest(request, body, input), response);
+            return;
+        }
+        // Only bodies mentioning persistedQuery are parsed here
+        if (contains(body, PERSISTED_QUERY_KEY)) {
+            body = withQueryMarker(body);
+        }
+        filterChain.doFilter(new CachedBodyRequest(request, body, null), response);
+    }
+
+    static boolean isJson(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        try {
+            return MediaType.APPLICATION_JSON.includes(MediaType.parseMediaType(contentType));
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+    }
+
+    private byte[] withQueryMarker(byte[] body) {
+        try {
+            Map<String, Object> request = objectMapper.readValue(body, BODY_TYPE);
+            if (!(request.get("extensions") instanceof Map<?, ?> extensions)
+                    || !(extensions.get("persistedQuery") instanceof Map<?, ?>)) {
+                return body;
+            }
+            if (request.get("query") instanceof String query && StringUtils.hasText(query)) {
+                return body;
+            }
+            request.put("query", PersistedQuerySupport.PERSISTED_QUERY_MARKER);
+            return objectMapper.writeValueAsBytes(request);
+        } catch (IOException e) {
+            // Leave malformed bodies for the GraphQL handler to reject
+            return body;
+        }
+    }
+
+    static boolean contains(byte[] data, byte[] pattern) {
+        outer:
+        for (int i = 0; i <= data.length - pattern.length; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (data[i + j] != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Request whose body has been read into memory, followed by the unread rest
+     * of the original body when reading stopped at the size limit
+     */
+    private static class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+        private final InputStream rest;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body, InputStream rest) {
+            super(request);
+            this.body = body;
+            this.rest = rest;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream head = new ByteArrayInputStream(body);
+            InputStream input = rest == null ? head : new SequenceInputStream(head, rest);
+            return new ServletInputStream() {
+                private boolean finished;
+
+                @Override
+                public boolean isFinished() {
+                    return finished || (rest == null && head.available() == 0);
+                }
+
+                @Override
+                public int available() throws IOException {
+                    return input.available();
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                /**
+                 * The body can always be read without blocking on the client, so the
+                 * listener is told at once that all of it is available
+                 */
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    try {
+                        listener.onDataAvailable();
+                        listener.onAllDataRead();
+                    } catch (IOException e) {
+                        listener.onError(e);
+                    }
+                }
+
+                @Override
+                public int read() throws IOException {
+                    int b = input.read();
+                    finished = b < 0;
+                    return b;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    int n = input.read(b, off, len);
+                    finished = n < 0;
+                    return n;
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public int getContentLength() {
+            return rest == null ? body.length : super.getContentLength();
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return rest == null ? body.length : super.getContentLengthLong();
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.graphql.config;
+
+import graphql.analysis.QueryTraverser;
+import graphql.analysis.QueryVisitorFieldEnvironment;
+import graphql.analysis.QueryVisitorStub;
+import graphql.execution.ExecutionContext;
+import graphql.schema.GraphQLCompositeType;
+import graphql.schema.GraphQLOutputType;
+import graphql.schema.GraphQLTypeUtil;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Estimates what an operation will cost to execute before any data is fetched.
+ *
+ * Every object a field returns costs 1 plus the cost of its selection set, and list
+ * fields are multiplied by the number of items they are expected to return: the page
+ * size for productsWithFilter, maxResults for relationships, the limit for
+ * searchProducts, autocomplete and aggregateProducts, the number of requested
+ * attributes for dynamic products, the number of input products for bulk mutations,
+ * a fixed number of periods for sales reports and an assumed catalog size for unpaged
+ * lists.
+ * Fields that scan the whole catalog or follow relationships add a fixed base cost.
+ * Scalar fields are free, since their values are already loaded with their parent.
+ */
+public class QueryCostCalculator {
+
+    /** Root fields that scan the full catalog */
+    private static final Set<String> SCAN_FIELDS = Set.of(
+            "Query.productStats", "Query.productStatsByCategory", "Query.productStatsByFilter",
+            "Query.aggregateProducts", "Query.salesReportByTimeframe");
+
+    /** Root fields that look up a product and then its related products */
+    private static final Set<String> RELATIONSHIP_FIELDS = Set.of(
+            "Query.relatedProducts", "Query.frequentlyBoughtTogether");
+
+    /** Unpaged lists whose size is bounded only by the catalog */
+    private static final Set<String> CATALOG_LIST_FIELDS = Set.of(
+            "Query.allProducts", "Query.productsByCategory", "Query.dynamicProductQuery");
+
+    private static final int DEFAULT_PAGE_SIZE = 10;
+    private static final int DEFAULT_REPORT_PERIODS = 12;
+
+    private final int catalogSize;
+    private final int nestedListSize;
+    private final int scanCost;
+    private final int relationshipCost;
+
+    /**
+     * @param catalogSize assumed number of items in unpaged product lists
+     * @param nestedListSize assumed number of items in other lists, e.g. distributions
+     * @param scanCost base cost of fields that scan the full catalog
+     * @param relationshipCost base cost of relationship lookups
+     */
+    public QueryCostCalculator(int catalogSize, int nestedListSize, int scanCost, int relationshipCost) {
+        this.catalogSize = catalogSize;
+        this.nestedListSize = nestedListSize;
+        this.scanCost = scanCost;
+        this.relationshipCost = relationshipCost;
+    }
+
+    /**
+     * Calculate the cost of the operation being executed, with variables applied
+     */
+    public long calculate(ExecutionContext executionContext) {
+        QueryTraverser traverser = QueryTraverser.newQueryTraverser()
+                .schema(executionContext.getGraphQLSchema())
+                .document(executionContext.getDocument())
+                .operationName(executionContext.getExecutionInput().getOperationName())
+                .coercedVariables(executionContext.getCoercedVariables())
+                .build();
+
+        // Children are visited before their parent, so each field finds its children's total here
+        Map<QueryVisitorFieldEnvironment, Long> childCosts = new HashMap<>();
+        traverser.visitPostOrder(new QueryVisitorStub() {
+            @Override
+            public void visitField(QueryVisitorFieldEnvironment environment) {
+                if (environment.isTypeNameIntrospectionField()) {
+                    return;
+                }
+                long cost = fieldCost(environment, childCosts.getOrDefault(environment, 0L));
+                childCosts.merge(environment.getParentEnvironment(), cost, QueryCostCalculator::add);
+            }
+        });
+        return childCosts.getOrDefault(null, 0L);
+    }
+
+    long fieldCost(QueryVisitorFieldEnvironment environment, long childCost) {
+        String coordinate = environment.getFieldsContainer().getName() + "." + environment.getFieldDefinition().getName();
+        GraphQLOutputType type = environment.getFieldDefinition().getType();
+
+        long baseCost = 0;
+        if (SCAN_FIELDS.contains(coordinate)) {
+            baseCost = scanCost;
+        } else if (RELATIONSHIP_FIELDS.contains(coordinate)) {
+            baseCost = relationshipCost;
+        }
+
+        if (!(GraphQLTypeUtil.unwrapAll(type) instanceof GraphQLCompositeType)) {
+            return baseCost;
+        }
+        long items = GraphQLTypeUtil.isList(GraphQLTypeUtil.unwrapNonNull(type)) ? listSize(coordinate, environment) : 1;
+        return add(baseCost, multiply(items, add(1, childCost)));
+    }
+
+    private long listSize(String coordinate, QueryVisitorFieldEnvironment environment) {
+        Map<String, Object> arguments = environment.getArguments();
+        switch (coordinate) {
+            case "ProductPage.content":
+                return pageSize(environment.getParentEnvironment());
+            case "Query.relatedProducts":
+            case "Query.frequentlyBoughtTogether":
+                return intArgument(arguments.get("maxResults"), nestedListSize);
+            case "Query.searchProducts":
+            case "Query.autocomplete":
+            case "Query.aggregateProducts":
+                return intArgument(arguments.get("limit"), nestedListSize);
+            case "Query.salesReportByTimeframe":
+                return DEFAULT_REPORT_PERIODS;
+            case "DynamicProduct.attributes":
+                QueryVisitorFieldEnvironment query = environment.getParentEnvironment();
+                return query != null ? sizeOf(query.getArguments().get("attributes")) : nestedListSize;
+            case "Mutation.bulkAddProducts":
+                return sizeOf(arguments.get("products"));
+            default:
+                return CATALOG_LIST_FIELDS.contains(coordinate) ? catalogSize : nestedListSize;
+        }
+    }
+
+    private long pageSize(QueryVisitorFieldEnvironment productsWithFilter) {
+        if (productsWithFilter != null && productsWithFilter.getArguments().get("page") instanceof Map<?, ?> page) {
+            return intArgument(page.get("size"), DEFAULT_PAGE_SIZE);
+        }
+        return DEFAULT_PAGE_SIZE;
+    }
+
+    private static long intArgument(Object value, int defaultValue) {
+        return value instanceof Number number ? Math.max(number.longValue(), 0) : defaultValue;
+    }
+
+    private static long sizeOf(Object value) {
+        return value instanceof Collection<?> collection ? collection.size() : 1;
+    }
+
+    private static long add(long a, long b) {
+        long sum = a + b;
+        return sum < 0 ? Long.MAX_VALUE : sum;
+    }
+
+    private static long multiply(long a, long b) {
+        try {
+            return Math.multiplyExact(a, b);
+        } catch (ArithmeticException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.graphql.config;
+
+import graphql.ExecutionResult;
+import graphql.execution.AbortExecutionException;
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.execution.instrumentation.SimpleInstrumentationContext;
+import graphql.execution.instrumentation.SimplePerformantInstrumentation;
+import graphql.execution.instrumentation.parameters.InstrumentationCreateStateParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationExecuteOperationParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationExecutionParameters;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Instrumentation that calculates the cost of every operation before it executes,
+ * rejects operations over the budget, and reports the cost in the response extensions.
+ * The cost is calculated when execution begins rather than during validation, so it
+ * also applies to documents served from the parsed document cache.
+ */
+public class QueryCostInstrumentation extends SimplePerformantInstrumentation {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryCostInstrumentation.class);
+
+    private final QueryCostCalculator calculator;
+    private final long maximumCost;
+
+    /**
+     * @param calculator cost model
+     * @param maximumCost largest cost an operation may have, 0 or less to only report costs
+     */
+    public QueryCostInstrumentation(QueryCostCalculator calculator, long maximumCost) {
+        this.calculator = calculator;
+        this.maximumCost = maximumCost;
+    }
+
+    @Override
+    public InstrumentationState createState(InstrumentationCreateStateParameters parameters) {
+        return new CostState();
+    }
+
+    @Override
+    public InstrumentationContext<ExecutionResult> beginExecuteOperation(InstrumentationExecuteOperationParameters parameters,
+                                                                        InstrumentationState state) {
+        long cost = calculator.calculate(parameters.getExecutionContext());
+        ((CostState) state).cost = cost;
+        if (maximumCost > 0 && cost > maximumCost) {
+            logger.warn("Rejected operation {} with cost {} over the maximum of {}",
+                    parameters.getExecutionContext().getExecutionInput().getOperationName(), cost, maximumCost);
+            throw new AbortExecutionException("Query cost " + cost + " exceeds the maximum of " + maximumCost
+                    + "; request fewer fields or smaller pages");
+        }
+        return SimpleInstrumentationContext.noOp();
+    }
+
+    @Override
+    public CompletableFuture<ExecutionResult> instrumentExecutionResult(ExecutionResult executionResult,
+                                                                        InstrumentationExecutionParameters parameters,
+                                                                        InstrumentationState state) {
+        long cost = ((CostState) state).cost;
+        if (cost < 0) {
+            // Validation failed, so nothing was costed
+            return CompletableFuture.completedFuture(executionResult);
+        }
+        Map<String, Object> costInfo = new LinkedHashMap<>();
+        costInfo.put("requestedQueryCost", cost);
+        if (maximumCost > 0) {
+            costInfo.put("maximumQueryCost", maximumCost);
+        }
+        return CompletableFuture.completedFuture(
+                executionResult.transform(builder -> builder.addExtension("cost", costInfo)));
+    }
+
+    private static class CostState implements InstrumentationState {
+        private volatile long cost = -1;
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.graphql.config;
+
+import graphql.ExecutionInput;
+import graphql.execution.preparsed.persisted.ApolloPersistedQuerySupport;
+import graphql.execution.preparsed.persisted.PersistedQueryCache;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Automatic persisted queries (Apollo protocol) that also cache plain requests.
+ * Requests carrying extensions.persistedQuery.sha256Hash are looked up by that hash;
+ * requests carrying only query text are keyed by the SHA-256 of the text, so every
+ * hot query skips parsing and validation after its first execution.
+ */
+public class QueryHashPersistedQuerySupport extends ApolloPersistedQuerySupport {
+
+    public QueryHashPersistedQuerySupport(PersistedQueryCache persistedQueryCache) {
+        super(persistedQueryCache);
+    }
+
+    @Override
+    protected Optional<Object> getPersistedQueryId(ExecutionInput executionInput) {
+        Optional<Object> persistedQueryId = super.getPersistedQueryId(executionInput);
+        if (persistedQueryId.isPresent()) {
+            // Hashes are validated case-insensitively, so cache them in one case
+            return persistedQueryId.map(id -> id.toString().toLowerCase(Locale.ROOT));
+        }
+        String query = executionInput.getQuery();
+        if (query == null || query.isBlank()) {
+            return Optional.empty();
+        }
+        return Optional.of(sha256(query));
+    }
+
+    static String sha256(String query) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(query.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
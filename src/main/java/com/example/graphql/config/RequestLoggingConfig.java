@@ -0,0 +1,24 @@
+package com.example.graphql.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration for sampled GraphQL request logging. The appenders themselves are
+ * configured in logback-spring.xml, which makes them asynchronous in the prod profile.
+ */
+@Configuration
+public class RequestLoggingConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestLoggingConfig.class);
+
+    @Bean
+    public SampledRequestLoggingInterceptor sampledRequestLoggingInterceptor(
+            @Value("${app.logging.request-sample-rate:0}") double sampleRate) {
+        logger.info("Logging {}% of GraphQL requests", sampleRate * 100);
+        return new SampledRequestLoggingInterceptor(sampleRate);
+    }
+}
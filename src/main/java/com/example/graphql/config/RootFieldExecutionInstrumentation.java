@@ -0,0 +1,114 @@
+package com.example.graphql.config;
+
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.execution.instrumentation.SimplePerformantInstrumentation;
+import graphql.execution.instrumentation.parameters.InstrumentationFieldFetchParameters;
+import graphql.language.OperationDefinition;
+import graphql.schema.DataFetcher;
+import graphql.schema.DataFetchingEnvironment;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Instrumentation that runs the data fetchers of Query root fields on an executor.
+ * Each root field becomes a CompletableFuture, so graphql-java's async execution
+ * strategy resolves independent root fields of one query concurrently.
+ * A semaphore sized to the JDBC connection pool bounds how many fetchers may
+ * touch the database at once, so cheap threads cannot exhaust the pool.
+ * When a TransactionTemplate is given, each offloaded root field runs in its own
+ * transaction on its worker thread, since a JPA session cannot be shared across threads.
+ */
+public class RootFieldExecutionInstrumentation extends SimplePerformantInstrumentation {
+
+    private final ExecutorService executor;
+    private final Semaphore jdbcPermits;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * @param executor executor for root fields, or null to run fetchers on the calling thread
+     * @param jdbcPermits maximum number of root fields running at once
+     */
+    public RootFieldExecutionInstrumentation(ExecutorService executor, int jdbcPermits) {
+        this(executor, jdbcPermits, null);
+    }
+
+    /**
+     * @param executor executor for root fields, or null to run fetchers on the calling thread
+     * @param jdbcPermits maximum number of root fields running at once
+     * @param transactionTemplate transaction to run each offloaded root field in, or null for none
+     */
+    public RootFieldExecutionInstrumentation(ExecutorService executor, int jdbcPermits,
+                                             TransactionTemplate transactionTemplate) {
+        this.executor = executor;
+        this.jdbcPermits = new Semaphore(jdbcPermits, true);
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @Override
+    public DataFetcher<?> instrumentDataFetcher(DataFetcher<?> dataFetcher,
+                                                InstrumentationFieldFetchParameters parameters,
+                                                InstrumentationState state) {
+        if (executor == null || !isQueryRootField(parameters)) {
+            return dataFetcher;
+        }
+        return environment -> CompletableFuture.supplyAsync(() -> fetch(dataFetcher, environment), executor);
+    }
+
+    private Object fetch(DataFetcher<?> dataFetcher, DataFetchingEnvironment environment) {
+        try {
+            jdbcPermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        }
+        try {
+            if (transactionTemplate != null) {
+                return transactionTemplate.execute(status -> invoke(dataFetcher, environment));
+            }
+            return invoke(dataFetcher, environment);
+        } finally {
+            jdbcPermits.release();
+        }
+    }
+
+    private Object invoke(DataFetcher<?> dataFetcher, DataFetchingEnvironment environment) {
+        try {
+            Object value = dataFetcher.get(environment);
+            // Already-asynchronous results are awaited here so the permit covers their work
+            if (value instanceof CompletionStage<?> stage) {
+                return stage.toCompletableFuture().join();
+            }
+            return value;
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    /**
+     * Only root fields of query operations are offloaded; mutations stay serial
+     * and nested fields are plain property reads on already-loaded objects
+     */
+    static boolean isQueryRootField(InstrumentationFieldFetchParameters parameters) {
+        return !parameters.isTrivialDataFetcher()
+                && parameters.getExecutionStepInfo().getPath().getLevel() == 1
+                && parameters.getExecutionContext().getOperationDefinition().getOperation()
+                        == OperationDefinition.Operation.QUERY;
+    }
+
+    public int getAvailableJdbcPermits() {
+        return jdbcPermits.availablePermits();
+    }
+
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+}
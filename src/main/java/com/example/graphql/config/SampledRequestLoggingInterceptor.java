@@ -0,0 +1,48 @@
+package com.example.graphql.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.graphql.server.WebGraphQlInterceptor;
+import org.springframework.graphql.server.WebGraphQlRequest;
+import org.springframework.graphql.server.WebGraphQlResponse;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logs the operation name, duration and error count of a random sample of GraphQL
+ * requests, so request logging stays affordable under production traffic.
+ * Requests that are not sampled pass through without any extra work.
+ */
+public class SampledRequestLoggingInterceptor implements WebGraphQlInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(SampledRequestLoggingInterceptor.class);
+
+    private final double sampleRate;
+
+    /**
+     * @param sampleRate fraction of requests to log, from 0 (none) to 1 (all)
+     */
+    public SampledRequestLoggingInterceptor(double sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    public Mono<WebGraphQlResponse> intercept(WebGraphQlRequest request, Chain chain) {
+        if (!isSampled()) {
+            return chain.next(request);
+        }
+        long start = System.nanoTime();
+        return chain.next(request).doOnNext(response -> logger.info(
+                "GraphQL request {} operation {} completed in {} ms with {} errors",
+                request.getId(),
+                request.getOperationName() != null ? request.getOperationName() : "anonymous",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+                response.getErrors().size()));
+    }
+
+    boolean isSampled() {
+        return sampleRate >= 1 || (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate);
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.graphql.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Hibernate StatementInspector that counts the SQL statements prepared on behalf of a
+ * GraphQL request. Hibernate instantiates it from the
+ * hibernate.session_factory.statement_inspector property; the request's counter is
+ * bound to whichever thread is running one of its data fetchers.
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final ThreadLocal<LongAdder> CURRENT_COUNTER = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        LongAdder counter = CURRENT_COUNTER.get();
+        if (counter != null) {
+            counter.increment();
+        }
+        return sql;
+    }
+
+    /**
+     * Run an action with statements counted against the given counter
+     */
+    public static <T> T withCounter(LongAdder counter, Supplier<T> action) {
+        LongAdder previous = CURRENT_COUNTER.get();
+        CURRENT_COUNTER.set(counter);
+        try {
+            return action.get();
+        } finally {
+            if (previous != null) {
+                CURRENT_COUNTER.set(previous);
+            } else {
+                CURRENT_COUNTER.remove();
+            }
+        }
+    }
+}
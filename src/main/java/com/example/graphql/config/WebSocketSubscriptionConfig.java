@@ -7,6 +7,7 @@ import org.reactivestreams.Publisher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.graphql.execution.RuntimeWiringConfigurer;
@@ -16,6 +17,8 @@ import reactor.core.publisher.DirectProcessor;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.FluxProcessor;
 import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 
 import java.util.function.Predicate;
 
@@ -38,8 +41,16 @@ public class WebSocketSubscriptionConfig {
         
         private final FluxProcessor<Product, Product> lowStockProcessor;
         private final FluxSink<Product> lowStockSink;
+        
+        // Single worker keeps event order while moving fan-out off the publishing thread
+        private final Scheduler.Worker outboundWorker;
 
         public ProductSubscriptionPublisher() {
+            this(Schedulers.immediate());
+        }
+
+        @Autowired
+        public ProductSubscriptionPublisher(@Qualifier("subscriptionOutboundScheduler") Scheduler outboundScheduler) {
             this.productUpdateProcessor = DirectProcessor.<Product>create().serialize();
             this.productUpdateSink = productUpdateProcessor.sink();
             
@@ -49,6 +60,8 @@ public class WebSocketSubscriptionConfig {
             this.lowStockProcessor = DirectProcessor.<Product>create().serialize();
             this.lowStockSink = lowStockProcessor.sink();
             
+            this.outboundWorker = outboundScheduler.createWorker();
+            
             logger.info("ProductSubscriptionPublisher initialized");
         }
 
@@ -58,9 +71,11 @@ public class WebSocketSubscriptionConfig {
          * @param product The updated product
          */
         public void publishProductUpdate(Product product) {
-            logger.debug("Publishing product update for product ID: {} with operation: {}", 
-                product.getId(), product.getOperation() != null ? product.getOperation() : "UNKNOWN");
-            productUpdateSink.next(product);
+            if (logger.isDebugEnabled()) {
+                logger.debug("Publishing product update for product ID: {} with operation: {}",
+                    product.getId(), product.getOperation() != null ? product.getOperation() : "UNKNOWN");
+            }
+            outboundWorker.schedule(() -> productUpdateSink.next(product));
         }
         
         /**
@@ -70,9 +85,11 @@ public class WebSocketSubscriptionConfig {
          */
         public void publishPriceChange(ProductPriceChange priceChange) {
             Product product = priceChange.getProduct();
-            logger.debug("Publishing price change for product ID: {} with operation: {}", 
-                product.getId(), product.getOperation() != null ? product.getOperation() : "UNKNOWN");
-            priceChangeSink.next(priceChange);
+            if (logger.isDebugEnabled()) {
+                logger.debug("Publishing price change for product ID: {} with operation: {}",
+                    product.getId(), product.getOperation() != null ? product.getOperation() : "UNKNOWN");
+            }
+            outboundWorker.schedule(() -> priceChangeSink.next(priceChange));
         }
         
         /**
@@ -81,9 +98,11 @@ public class WebSocketSubscriptionConfig {
          * @param product The product with low stock
          */
         public void publishLowStockAlert(Product product) {
-            logger.debug("Publishing low stock alert for product ID: {} with operation: {}", 
-                product.getId(), product.getOperation() != null ? product.getOperation() : "UNKNOWN");
-            lowStockSink.next(product);
+            if (logger.isDebugEnabled()) {
+                logger.debug("Publishing low stock alert for product ID: {} with operation: {}",
+                    product.getId(), product.getOperation() != null ? product.getOperation() : "UNKNOWN");
+            }
+            outboundWorker.schedule(() -> lowStockSink.next(product));
         }
 
         /**
@@ -128,19 +147,19 @@ public class WebSocketSubscriptionConfig {
             .type("Subscription", builder -> builder
                 // Subscription for any product updates
                 .dataFetcher("productUpdated", environment -> {
-                    logger.info("Subscription request received for productUpdated");
+                    logger.debug("Subscription request received for productUpdated");
                     return publisher.getProductUpdatePublisher();
                 })
                 // Subscription for price changes with configurable threshold
                 .dataFetcher("productPriceChanged", environment -> {
                     Double minPriceDifference = environment.getArgument("minPriceDifference");
-                    logger.info("Subscription request received for productPriceChanged with minPriceDifference: {}", minPriceDifference);
+                    logger.debug("Subscription request received for productPriceChanged with minPriceDifference: {}", minPriceDifference);
                     return publisher.getPriceChangePublisher(minPriceDifference);
                 })
                 // Subscription for low stock alerts with configurable threshold
                 .dataFetcher("lowStockAlert", environment -> {
                     Integer threshold = environment.getArgument("threshold");
-                    logger.info("Subscription request received for lowStockAlert with threshold: {}", threshold);
+                    logger.debug("Subscription request received for lowStockAlert with threshold: {}", threshold);
                     return publisher.getLowStockPublisher(threshold);
                 })
             );
@@ -1,11 +1,15 @@
 package com.example.graphql.controller;
 
+import com.example.graphql.dto.CustomAttributeInput;
 import com.example.graphql.dto.PageInput;
 import com.example.graphql.dto.ProductFilter;
 import com.example.graphql.dto.ProductInput;
 import com.example.graphql.dto.ProductPage;
 import com.example.graphql.dto.ProductSort;
+import com.example.graphql.model.AttributeDefinition;
+import com.example.graphql.model.AttributeType;
 import com.example.graphql.model.Product;
+import com.example.graphql.service.AttributeTypeRegistry;
 import com.example.graphql.service.ProductService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -16,7 +20,9 @@ import org.springframework.graphql.data.method.annotation.QueryMapping;
 import org.springframework.stereotype.Controller;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Controller
@@ -24,19 +30,21 @@ public class ProductController {
     
     private static final Logger logger = LoggerFactory.getLogger(ProductController.class);
     private final ProductService productService;
+    private final AttributeTypeRegistry attributeTypes;
     
     @Autowired
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService, AttributeTypeRegistry attributeTypes) {
         this.productService = productService;
+        this.attributeTypes = attributeTypes;
     }
     
     // Basic queries
     @QueryMapping
     public List<Product> allProducts() {
         try {
-            logger.info("Fetching all products");
+            logger.debug("Fetching all products");
             List<Product> products = productService.getAllProducts();
-            logger.info("Found {} products", products.size());
+            logger.debug("Found {} products", products.size());
             return products;
         } catch (Exception e) {
             logger.error("Error fetching all products", e);
@@ -47,7 +55,7 @@ public class ProductController {
     @QueryMapping
     public Product productById(@Argument String id) {
         try {
-            logger.info("Fetching product with ID: {}", id);
+            logger.debug("Fetching product with ID: {}", id);
             Long productId = Long.parseLong(id);
             return productService.getProductById(productId).orElse(null);
         } catch (Exception e) {
@@ -59,7 +67,7 @@ public class ProductController {
     @QueryMapping
     public List<Product> productsByCategory(@Argument String category) {
         try {
-            logger.info("Fetching products with category: {}", category);
+            logger.debug("Fetching products with category: {}", category);
             return productService.getProductsByCategory(category);
         } catch (Exception e) {
             logger.error("Error fetching products by category: {}", category, e);
@@ -74,7 +82,7 @@ public class ProductController {
             @Argument ProductSort sort,
             @Argument PageInput page) {
         try {
-            logger.info("Executing advanced product query with filters");
+            logger.debug("Executing advanced product query with filters");
             return productService.getProductsWithFilter(filter, sort, page);
         } catch (Exception e) {
             logger.error("Error executing advanced product query", e);
@@ -102,6 +110,10 @@ public class ProductController {
             Long productId = Long.parseLong(id);
             Product updatedProduct = mapInputToProduct(product);
             updatedProduct.setId(productId);
+            if (product.getAttributes() == null) {
+                // Keep the existing custom attributes
+                updatedProduct.setCustomAttributes(null);
+            }
             
             return productService.updateProduct(productId, updatedProduct).orElse(null);
         } catch (Exception e) {
@@ -153,6 +165,22 @@ public class ProductController {
         }
     }
     
+    @QueryMapping
+    public List<AttributeDefinition> attributeDefinitions() {
+        return attributeTypes.getDefinitions();
+    }
+    
+    @MutationMapping
+    public AttributeDefinition defineAttribute(@Argument String key, @Argument AttributeType type) {
+        try {
+            logger.info("Defining custom attribute {} as {}", key, type);
+            return attributeTypes.define(key, type);
+        } catch (Exception e) {
+            logger.error("Error defining custom attribute {}", key, e);
+            throw e;
+        }
+    }
+    
     // Helper methods
     private Product mapInputToProduct(ProductInput input) {
         Product product = new Product();
@@ -163,6 +191,20 @@ public class ProductController {
         product.setInStock(input.getInStock());
         product.setRating(input.getRating());
         product.setTags(input.getTags());
+        if (input.getAttributes() != null) {
+            product.setCustomAttributes(mapAttributes(input.getAttributes()));
+        }
         return product;
     }
+    
+    private Map<String, String> mapAttributes(List<CustomAttributeInput> attributes) {
+        Map<String, String> values = new HashMap<>();
+        for (CustomAttributeInput attribute : attributes) {
+            if (attribute.getKey() == null || attribute.getKey().isBlank()) {
+                throw new IllegalArgumentException("Custom attribute keys must not be blank");
+            }
+            values.put(attribute.getKey(), attribute.getValue());
+        }
+        return values;
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,21 @@
+package com.example.graphql.dto;
+
+/**
+ * Metric functions of aggregateProducts
+ */
+public enum AggregateFunction {
+    COUNT,
+    SUM,
+    AVG,
+    MIN,
+    MAX,
+    APPROX_DISTINCT,
+    PERCENTILE;
+
+    /**
+     * Whether the function needs a numeric field
+     */
+    public boolean isNumeric() {
+        return this != COUNT && this != APPROX_DISTINCT;
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.graphql.dto;
+
+import java.util.List;
+
+/**
+ * One group of aggregateProducts: the values of the group-by fields, in order and null
+ * for products without a value, the number of products and the requested metrics
+ */
+public class AggregateGroup {
+    private List<String> key;
+    private long count;
+    private List<MetricValue> metrics;
+
+    public AggregateGroup(List<String> key, long count, List<MetricValue> metrics) {
+        this.key = key;
+        this.count = count;
+        this.metrics = metrics;
+    }
+
+    public List<String> getKey() {
+        return key;
+    }
+
+    public void setKey(List<String> key) {
+        this.key = key;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public List<MetricValue> getMetrics() {
+        return metrics;
+    }
+
+    public void setMetrics(List<MetricValue> metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Returns the value of the named metric, null if the group has none
+     */
+    public Double getMetric(String name) {
+        for (MetricValue metric : metrics) {
+            if (metric.getName().equals(name)) {
+                return metric.getValue();
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return "AggregateGroup{" +
+                "key=" + key +
+                ", count=" + count +
+                ", metrics=" + metrics +
+                '}';
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.graphql.dto;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * One metric to compute per group: a function over a field, where COUNT without a field
+ * counts products and with one counts the products that have a value for it
+ */
+public class AggregateMetric {
+    private AggregateFunction function;
+    private String field;
+    private Double percentile;
+    private String alias;
+
+    public AggregateMetric() {
+    }
+
+    public AggregateMetric(AggregateFunction function, String field) {
+        this.function = function;
+        this.field = field;
+    }
+
+    public static AggregateMetric percentile(String field, double percentile) {
+        AggregateMetric metric = new AggregateMetric(AggregateFunction.PERCENTILE, field);
+        metric.setPercentile(percentile);
+        return metric;
+    }
+
+    public AggregateFunction getFunction() {
+        return function;
+    }
+
+    public void setFunction(AggregateFunction function) {
+        this.function = function;
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    public void setField(String field) {
+        this.field = field;
+    }
+
+    /**
+     * Percentile between 0 and 100, for PERCENTILE
+     */
+    public Double getPercentile() {
+        return percentile;
+    }
+
+    public void setPercentile(Double percentile) {
+        this.percentile = percentile;
+    }
+
+    public String getAlias() {
+        return alias;
+    }
+
+    public void setAlias(String alias) {
+        this.alias = alias;
+    }
+
+    /**
+     * Name of the metric in the result: the alias, or e.g. "count", "avg(price)" or "p95(price)"
+     */
+    public String getName() {
+        if (alias != null) {
+            return alias;
+        }
+        String name = function == AggregateFunction.PERCENTILE && percentile != null
+                ? "p" + BigDecimal.valueOf(percentile).stripTrailingZeros().toPlainString()
+                : function.name().toLowerCase();
+        return field != null ? name + "(" + field + ")" : name;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof AggregateMetric)) {
+            return false;
+        }
+        AggregateMetric other = (AggregateMetric) o;
+        return function == other.function && Objects.equals(field, other.field)
+                && Objects.equals(percentile, other.percentile) && Objects.equals(alias, other.alias);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(function, field, percentile, alias);
+    }
+
+    @Override
+    public String toString() {
+        return "AggregateMetric{" +
+                "function=" + function +
+                ", field='" + field + '\'' +
+                ", percentile=" + percentile +
+                ", alias='" + alias + '\'' +
+                '}';
+    }
+}
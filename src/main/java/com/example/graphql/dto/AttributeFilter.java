@@ -0,0 +1,227 @@
+package com.example.graphql.dto;
+
+import com.example.graphql.model.AttributeType;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.TreeSet;
+
+/**
+ * Predicate on one custom attribute of a product. A product matches when it has the
+ * attribute and its value satisfies every clause that is set; min and max (inclusive)
+ * only match values that are numbers, after and before (inclusive) only timestamps.
+ */
+public class AttributeFilter {
+
+    private static final Comparator<AttributeFilter> ORDER = Comparator
+            .comparing(AttributeFilter::getKey, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+            .thenComparing(AttributeFilter::getEquals, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+            .thenComparing(filter -> filter.getIn() != null ? filter.getIn().toString() : null,
+                    Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+            .thenComparing(AttributeFilter::getMin, Comparator.nullsFirst(Comparator.<Double>naturalOrder()))
+            .thenComparing(AttributeFilter::getMax, Comparator.nullsFirst(Comparator.<Double>naturalOrder()))
+            .thenComparing(AttributeFilter::getAfter, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+            .thenComparing(AttributeFilter::getBefore, Comparator.nullsFirst(Comparator.<String>naturalOrder()));
+
+    private String key;
+    private String equals;
+    private List<String> in;
+    private Double min;
+    private Double max;
+    private String after;
+    private String before;
+
+    public AttributeFilter() {
+    }
+
+    public AttributeFilter(String key, String equals, List<String> in, Double min, Double max) {
+        this.key = key;
+        this.equals = equals;
+        this.in = in;
+        this.min = min;
+        this.max = max;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public String getEquals() {
+        return equals;
+    }
+
+    public void setEquals(String equals) {
+        this.equals = equals;
+    }
+
+    public List<String> getIn() {
+        return in;
+    }
+
+    public void setIn(List<String> in) {
+        this.in = in;
+    }
+
+    public Double getMin() {
+        return min;
+    }
+
+    public void setMin(Double min) {
+        this.min = min;
+    }
+
+    public Double getMax() {
+        return max;
+    }
+
+    public void setMax(Double max) {
+        this.max = max;
+    }
+
+    /**
+     * Earliest timestamp, as an ISO-8601 date or date-time
+     */
+    public String getAfter() {
+        return after;
+    }
+
+    public void setAfter(String after) {
+        this.after = after;
+    }
+
+    /**
+     * Latest timestamp, as an ISO-8601 date or date-time
+     */
+    public String getBefore() {
+        return before;
+    }
+
+    public void setBefore(String before) {
+        this.before = before;
+    }
+
+    public LocalDateTime getAfterTimestamp() {
+        return parseBound("after", after);
+    }
+
+    public LocalDateTime getBeforeTimestamp() {
+        return parseBound("before", before);
+    }
+
+    /**
+     * Whether the attribute value, null if the product does not have the attribute, passes
+     */
+    public boolean matches(String value) {
+        if (value == null) {
+            return false;
+        }
+        if (equals != null && !equals.equals(value)) {
+            return false;
+        }
+        if (in != null && !in.isEmpty() && !in.contains(value)) {
+            return false;
+        }
+        if (min != null || max != null) {
+            Double number = AttributeType.parseNumber(value);
+            if (number == null || (min != null && number < min) || (max != null && number > max)) {
+                return false;
+            }
+        }
+        if (after != null || before != null) {
+            LocalDateTime timestamp = AttributeType.parseTimestamp(value);
+            LocalDateTime afterTimestamp = getAfterTimestamp();
+            LocalDateTime beforeTimestamp = getBeforeTimestamp();
+            return timestamp != null && (afterTimestamp == null || !timestamp.isBefore(afterTimestamp))
+                    && (beforeTimestamp == null || !timestamp.isAfter(beforeTimestamp));
+        }
+        return true;
+    }
+
+    /**
+     * Parse an ISO-8601 date-time, or a date meaning the start of that day
+     */
+    private static LocalDateTime parseBound(String name, String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return value.indexOf('T') >= 0
+                    ? LocalDateTime.parse(value, DateTimeFormatter.ISO_DATE_TIME)
+                    : LocalDate.parse(value, DateTimeFormatter.ISO_DATE).atStartOfDay();
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(
+                    name + " must be an ISO-8601 date or date-time, got '" + value + "'", e);
+        }
+    }
+
+    /**
+     * Canonical form of a list of attribute filters, so equivalent lists compare equal:
+     * "in" lists sorted and de-duplicated, empty ones dropped, and the filters sorted and
+     * de-duplicated. Returns null for a null or empty list.
+     *
+     * @throws IllegalArgumentException if a filter has no key or an invalid timestamp bound
+     */
+    public static List<AttributeFilter> normalize(List<AttributeFilter> filters) {
+        if (filters == null || filters.isEmpty()) {
+            return null;
+        }
+        TreeSet<AttributeFilter> normalized = new TreeSet<>(ORDER);
+        for (AttributeFilter filter : filters) {
+            if (filter.getKey() == null || filter.getKey().isEmpty()) {
+                throw new IllegalArgumentException("Attribute filters need a key");
+            }
+            List<String> in = filter.getIn() == null || filter.getIn().isEmpty()
+                    ? null : new ArrayList<>(new TreeSet<>(filter.getIn()));
+            AttributeFilter copy = new AttributeFilter(filter.getKey(), filter.getEquals(), in, filter.getMin(), filter.getMax());
+            // Bounds are kept as parsed date-times, so "2024-01-01" and "2024-01-01T00:00" are one filter
+            LocalDateTime after = filter.getAfterTimestamp();
+            LocalDateTime before = filter.getBeforeTimestamp();
+            copy.setAfter(after != null ? after.toString() : null);
+            copy.setBefore(before != null ? before.toString() : null);
+            normalized.add(copy);
+        }
+        return new ArrayList<>(normalized);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof AttributeFilter)) {
+            return false;
+        }
+        AttributeFilter other = (AttributeFilter) o;
+        return Objects.equals(key, other.key) && Objects.equals(equals, other.equals) && Objects.equals(in, other.in)
+                && Objects.equals(min, other.min) && Objects.equals(max, other.max)
+                && Objects.equals(after, other.after) && Objects.equals(before, other.before);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(key, equals, in, min, max, after, before);
+    }
+
+    @Override
+    public String toString() {
+        return "AttributeFilter{" +
+                "key='" + key + '\'' +
+                ", equals='" + equals + '\'' +
+                ", in=" + in +
+                ", min=" + min +
+                ", max=" + max +
+                ", after='" + after + '\'' +
+                ", before='" + before + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.graphql.dto;
+
+import java.io.Serializable;
+
+/**
+ * One custom attribute of a product, as a key and a string value
+ */
+public class CustomAttributeInput implements Serializable {
+    
+    private static final long serialVersionUID = 1L;
+    
+    private String key;
+    private String value;
+    
+    public CustomAttributeInput() {
+    }
+    
+    public CustomAttributeInput(String key, String value) {
+        this.key = key;
+        this.value = value;
+    }
+    
+    public String getKey() {
+        return key;
+    }
+    
+    public void setKey(String key) {
+        this.key = key;
+    }
+    
+    public String getValue() {
+        return value;
+    }
+    
+    public void setValue(String value) {
+        this.value = value;
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.graphql.dto;
+
+/**
+ * Value of one metric of an aggregate group, null when the group has no values for it
+ */
+public class MetricValue {
+    private String name;
+    private Double value;
+
+    public MetricValue(String name, Double value) {
+        this.name = name;
+        this.value = value;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Double getValue() {
+        return value;
+    }
+
+    public void setValue(Double value) {
+        this.value = value;
+    }
+
+    @Override
+    public String toString() {
+        return name + "=" + value;
+    }
+}
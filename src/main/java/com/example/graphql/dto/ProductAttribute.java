@@ -1,8 +1,11 @@
 package com.example.graphql.dto;
 
+import com.example.graphql.model.AttributeType;
+
 public class ProductAttribute {
     private String name;
     private Object value;
+    private AttributeType type;
 
     public ProductAttribute() {
     }
@@ -16,6 +19,12 @@ public class ProductAttribute {
         this.name = name;
         this.value = value;
     }
+    
+    public ProductAttribute(String name, String value, AttributeType type) {
+        this.name = name;
+        this.value = value;
+        this.type = type;
+    }
 
     public String getName() {
         return name;
@@ -36,4 +45,15 @@ public class ProductAttribute {
     public void setValue(Object value) {
         this.value = value;
     }
-} 
\ No newline at end of file
+    
+    /**
+     * Registered type of a custom attribute, null for standard fields
+     */
+    public AttributeType getType() {
+        return type;
+    }
+    
+    public void setType(AttributeType type) {
+        this.type = type;
+    }
+}
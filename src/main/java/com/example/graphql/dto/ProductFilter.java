@@ -1,5 +1,9 @@
 package com.example.graphql.dto;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 
 /**
@@ -18,6 +22,8 @@ public class ProductFilter {
     private String createdBefore;
     private Integer minStockQuantity;
     private Integer minPopularity;
+    private String search;
+    private List<AttributeFilter> attributes;
     
     public ProductFilter() {
     }
@@ -102,6 +108,41 @@ public class ProductFilter {
         this.createdBefore = createdBefore;
     }
     
+    /**
+     * Returns createdAfter as an inclusive lower bound, or null if it is not set
+     *
+     * @throws IllegalArgumentException if createdAfter is not an ISO-8601 date or date-time
+     */
+    public LocalDateTime getCreatedAfterTimestamp() {
+        return parseDateBound("createdAfter", createdAfter);
+    }
+    
+    /**
+     * Returns createdBefore as an inclusive upper bound, or null if it is not set
+     *
+     * @throws IllegalArgumentException if createdBefore is not an ISO-8601 date or date-time
+     */
+    public LocalDateTime getCreatedBeforeTimestamp() {
+        return parseDateBound("createdBefore", createdBefore);
+    }
+    
+    /**
+     * Parse an ISO-8601 date-time, or a date meaning the start of that day
+     */
+    private static LocalDateTime parseDateBound(String name, String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return value.indexOf('T') >= 0
+                    ? LocalDateTime.parse(value, DateTimeFormatter.ISO_DATE_TIME)
+                    : LocalDate.parse(value, DateTimeFormatter.ISO_DATE).atStartOfDay();
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(
+                    name + " must be an ISO-8601 date or date-time, got '" + value + "'", e);
+        }
+    }
+    
     public Integer getMinStockQuantity() {
         return minStockQuantity;
     }
@@ -117,4 +158,26 @@ public class ProductFilter {
     public void setMinPopularity(Integer minPopularity) {
         this.minPopularity = minPopularity;
     }
-} 
\ No newline at end of file
+    
+    /**
+     * Full-text query over name and description; every term must prefix a word of the product
+     */
+    public String getSearch() {
+        return search;
+    }
+    
+    public void setSearch(String search) {
+        this.search = search;
+    }
+    
+    /**
+     * Predicates on custom attributes; a product must pass all of them
+     */
+    public List<AttributeFilter> getAttributes() {
+        return attributes;
+    }
+    
+    public void setAttributes(List<AttributeFilter> attributes) {
+        this.attributes = attributes;
+    }
+}
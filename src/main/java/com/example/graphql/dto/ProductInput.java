@@ -14,6 +14,7 @@ public class ProductInput implements Serializable {
     private Boolean inStock;
     private Float rating;
     private List<String> tags;
+    private List<CustomAttributeInput> attributes;
     
     public ProductInput() {
     }
@@ -86,6 +87,14 @@ public class ProductInput implements Serializable {
         this.tags = tags;
     }
     
+    public List<CustomAttributeInput> getAttributes() {
+        return attributes;
+    }
+    
+    public void setAttributes(List<CustomAttributeInput> attributes) {
+        this.attributes = attributes;
+    }
+    
     @Override
     public String toString() {
         return "ProductInput{" +
@@ -96,6 +105,7 @@ public class ProductInput implements Serializable {
                 ", inStock=" + inStock +
                 ", rating=" + rating +
                 ", tags=" + tags +
+                ", attributes=" + attributes +
                 '}';
     }
 } 
\ No newline at end of file
@@ -0,0 +1,32 @@
+package com.example.graphql.dto;
+
+import com.example.graphql.model.Product;
+
+/**
+ * A searchProducts hit with its relevance score; higher scores are more relevant
+ */
+public class ProductSearchResult {
+    private Product product;
+    private double score;
+
+    public ProductSearchResult(Product product, double score) {
+        this.product = product;
+        this.score = score;
+    }
+
+    public Product getProduct() {
+        return product;
+    }
+
+    public void setProduct(Product product) {
+        this.product = product;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public void setScore(double score) {
+        this.score = score;
+    }
+}
@@ -15,6 +15,7 @@ public class ProductStats {
     private List<CategoryCount> categoryDistribution;
     private List<RatingCount> ratingDistribution;
     private List<TagStat> tagStats;
+    private ProductFilter scope;
 
     public ProductStats() {
     }
@@ -117,4 +118,15 @@ public class ProductStats {
     public void setTagStats(List<TagStat> tagStats) {
         this.tagStats = tagStats;
     }
-} 
\ No newline at end of file
+
+    /**
+     * Filter selecting the products the statistics cover, null for the whole catalog
+     */
+    public ProductFilter getScope() {
+        return scope;
+    }
+
+    public void setScope(ProductFilter scope) {
+        this.scope = scope;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.graphql.dto;
+
+/**
+ * An autocomplete suggestion: a product whose name or tags complete the typed prefix,
+ * and how many typos had to be corrected for it to match
+ */
+public class ProductSuggestion {
+    private Long id;
+    private String name;
+    private Integer popularity;
+    private int edits;
+
+    public ProductSuggestion(Long id, String name, Integer popularity, int edits) {
+        this.id = id;
+        this.name = name;
+        this.popularity = popularity;
+        this.edits = edits;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Integer getPopularity() {
+        return popularity;
+    }
+
+    public void setPopularity(Integer popularity) {
+        this.popularity = popularity;
+    }
+
+    public int getEdits() {
+        return edits;
+    }
+
+    public void setEdits(int edits) {
+        this.edits = edits;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.graphql.dto;
+
+import java.io.Serializable;
+
+/**
+ * A sale to record: the product, the quantity, the unit price (the product's current
+ * price if not given) and when it was sold (now if not given)
+ */
+public class SaleInput implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String productId;
+    private Integer quantity;
+    private Double unitPrice;
+    private String soldAt;
+
+    public SaleInput() {
+    }
+
+    public SaleInput(String productId, Integer quantity, Double unitPrice, String soldAt) {
+        this.productId = productId;
+        this.quantity = quantity;
+        this.unitPrice = unitPrice;
+        this.soldAt = soldAt;
+    }
+
+    public String getProductId() {
+        return productId;
+    }
+
+    public void setProductId(String productId) {
+        this.productId = productId;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+
+    public Double getUnitPrice() {
+        return unitPrice;
+    }
+
+    public void setUnitPrice(Double unitPrice) {
+        this.unitPrice = unitPrice;
+    }
+
+    /**
+     * ISO-8601 date-time, or a date meaning the start of that day
+     */
+    public String getSoldAt() {
+        return soldAt;
+    }
+
+    public void setSoldAt(String soldAt) {
+        this.soldAt = soldAt;
+    }
+}
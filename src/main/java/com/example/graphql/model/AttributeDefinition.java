@@ -0,0 +1,44 @@
+package com.example.graphql.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Registered value type of one custom attribute key
+ */
+@Entity
+@Table(name = "attribute_definitions")
+public class AttributeDefinition {
+
+    @Id
+    @Column(name = "attribute_key")
+    private String key;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "value_type", nullable = false)
+    private AttributeType type;
+
+    protected AttributeDefinition() {
+    }
+
+    public AttributeDefinition(String key, AttributeType type) {
+        this.key = key;
+        this.type = type;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public AttributeType getType() {
+        return type;
+    }
+
+    public void setType(AttributeType type) {
+        this.type = type;
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.graphql.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Value type of a custom attribute. Values are stored as strings in a canonical form per
+ * type, which product_attributes decodes into a typed generated column (numeric_value,
+ * boolean_value or timestamp_value), so typed comparisons never parse strings per row.
+ */
+public enum AttributeType {
+    STRING,
+    /** Plain decimal numbers such as 16, -2.5 or 1e3, stored as given */
+    NUMBER,
+    /** true or false, stored in lower case */
+    BOOLEAN,
+    /** ISO-8601 dates or date-times to the second, stored as yyyy-MM-ddTHH:mm:ss */
+    TIMESTAMP;
+
+    /**
+     * What counts as a number. The numeric_value column of product_attributes is generated
+     * with the same pattern, so numeric comparisons in SQL and in memory agree.
+     */
+    private static final Pattern NUMBER_PATTERN = Pattern.compile("[+-]?([0-9]+(\\.[0-9]*)?|\\.[0-9]+)([eE][+-]?[0-9]{1,3})?");
+
+    private static final DateTimeFormatter CANONICAL_TIMESTAMP = DateTimeFormatter
+            .ofPattern("uuuu-MM-dd'T'HH:mm:ss", Locale.ROOT)
+            .withResolverStyle(ResolverStyle.STRICT);
+
+    /**
+     * Returns the canonical form of a value of this type
+     *
+     * @throws IllegalArgumentException if the value is not of this type
+     */
+    public String canonicalize(String value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Attribute values must not be null");
+        }
+        switch (this) {
+            case NUMBER:
+                if (parseNumber(value) == null) {
+                    throw mismatch(value);
+                }
+                return value;
+            case BOOLEAN:
+                String lowerCase = value.toLowerCase(Locale.ROOT);
+                if (!lowerCase.equals("true") && !lowerCase.equals("false")) {
+                    throw mismatch(value);
+                }
+                return lowerCase;
+            case TIMESTAMP:
+                LocalDateTime timestamp = parseLenientTimestamp(value);
+                if (timestamp == null || timestamp.getNano() != 0) {
+                    throw mismatch(value);
+                }
+                return timestamp.format(CANONICAL_TIMESTAMP);
+            default:
+                return value;
+        }
+    }
+
+    /**
+     * Whether the value is already in the canonical form of this type
+     */
+    public boolean isCanonical(String value) {
+        try {
+            return canonicalize(value).equals(value);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns a canonical value as a Double, Boolean, LocalDateTime or String
+     */
+    public Object decode(String value) {
+        switch (this) {
+            case NUMBER:
+                return parseNumber(value);
+            case BOOLEAN:
+                return value != null ? Boolean.valueOf(value) : null;
+            case TIMESTAMP:
+                return parseTimestamp(value);
+            default:
+                return value;
+        }
+    }
+
+    /**
+     * The narrowest type the value belongs to, used for attributes seen for the first time
+     */
+    public static AttributeType infer(String value) {
+        if (parseNumber(value) != null) {
+            return NUMBER;
+        }
+        if (BOOLEAN.isValid(value)) {
+            return BOOLEAN;
+        }
+        if (TIMESTAMP.isValid(value)) {
+            return TIMESTAMP;
+        }
+        return STRING;
+    }
+
+    /**
+     * Returns the value as a number, or null if it is not one
+     */
+    public static Double parseNumber(String value) {
+        return value != null && NUMBER_PATTERN.matcher(value).matches() ? Double.valueOf(value) : null;
+    }
+
+    /**
+     * Returns a canonical timestamp value as a date-time, or null if it is not one.
+     * The timestamp_value column of product_attributes accepts exactly the same strings.
+     */
+    public static LocalDateTime parseTimestamp(String value) {
+        if (value == null || value.length() != 19) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(value, CANONICAL_TIMESTAMP);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private boolean isValid(String value) {
+        try {
+            canonicalize(value);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static LocalDateTime parseLenientTimestamp(String value) {
+        try {
+            return value.indexOf('T') >= 0
+                    ? LocalDateTime.parse(value, DateTimeFormatter.ISO_LOCAL_DATE_TIME)
+                    : LocalDate.parse(value, DateTimeFormatter.ISO_LOCAL_DATE).atStartOfDay();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private IllegalArgumentException mismatch(String value) {
+        return new IllegalArgumentException("Expected a " + name() + " value, got '" + value + "'");
+    }
+}
@@ -9,6 +9,7 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
+import jakarta.persistence.MapKeyColumn;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Transient;
@@ -16,6 +17,7 @@ import jakarta.persistence.Transient;
 import java.io.Serializable;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -69,11 +71,12 @@ public class Product implements Serializable {
     // For dynamic attribute storage
     @ElementCollection(fetch = FetchType.EAGER)
     @CollectionTable(name = "product_attributes", joinColumns = @JoinColumn(name = "product_id"))
+    @MapKeyColumn(name = "custom_attributes_key")
     @Column(name = "attribute_value")
     private Map<String, String> customAttributes = new HashMap<>();
     
-    private String createdAt;
-    private String updatedAt;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
     
     // Default constructor required by JPA
     public Product() {
@@ -108,7 +111,8 @@ public class Product implements Serializable {
     
     @PrePersist
     protected void onCreate() {
-        this.createdAt = LocalDateTime.now().format(FORMATTER);
+        // Truncated to the precision of the TIMESTAMP(6) columns, so reloaded entities compare equal
+        this.createdAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
         this.updatedAt = this.createdAt;
         if (this.stockQuantity == null) {
             this.stockQuantity = 10;
@@ -120,7 +124,7 @@ public class Product implements Serializable {
     
     @PreUpdate
     protected void onUpdate() {
-        this.updatedAt = LocalDateTime.now().format(FORMATTER);
+        this.updatedAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
         // Save previous price for tracking changes
         if (this.price != null && this.previousPrice == null) {
             this.previousPrice = this.price;
@@ -246,19 +250,38 @@ public class Product implements Serializable {
         this.tags = tags;
     }
     
+    /**
+     * Returns the creation time as an ISO-8601 string, as exposed by the GraphQL schema
+     */
     public String getCreatedAt() {
-        return createdAt;
+        return createdAt != null ? createdAt.format(FORMATTER) : null;
     }
     
     public void setCreatedAt(String createdAt) {
+        this.createdAt = createdAt != null ? LocalDateTime.parse(createdAt, FORMATTER) : null;
+    }
+    
+    public LocalDateTime getCreatedAtTimestamp() {
+        return createdAt;
+    }
+    
+    public void setCreatedAtTimestamp(LocalDateTime createdAt) {
         this.createdAt = createdAt;
     }
     
     public String getUpdatedAt() {
-        return updatedAt;
+        return updatedAt != null ? updatedAt.format(FORMATTER) : null;
     }
     
     public void setUpdatedAt(String updatedAt) {
+        this.updatedAt = updatedAt != null ? LocalDateTime.parse(updatedAt, FORMATTER) : null;
+    }
+    
+    public LocalDateTime getUpdatedAtTimestamp() {
+        return updatedAt;
+    }
+    
+    public void setUpdatedAtTimestamp(LocalDateTime updatedAt) {
         this.updatedAt = updatedAt;
     }
     
@@ -0,0 +1,107 @@
+package com.example.graphql.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import org.hibernate.annotations.Immutable;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Read-only view of one row of product_attributes, the table behind
+ * Product.customAttributes, including the generated numeric_value column.
+ * Attributes are written through Product; this mapping exists so attribute filters
+ * can query the table's indexes directly.
+ */
+@Entity
+@Immutable
+@Table(name = "product_attributes")
+@IdClass(ProductAttributeValue.Key.class)
+public class ProductAttributeValue {
+
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Id
+    @Column(name = "custom_attributes_key")
+    private String key;
+
+    @Column(name = "attribute_value")
+    private String value;
+
+    /** The value as a number, or null if it is not one */
+    @Column(name = "numeric_value", insertable = false, updatable = false)
+    private Double numericValue;
+
+    /** The value as a boolean, or null if it is not one */
+    @Column(name = "boolean_value", insertable = false, updatable = false)
+    private Boolean booleanValue;
+
+    /** The value as a timestamp, or null if it is not a canonical one */
+    @Column(name = "timestamp_value", insertable = false, updatable = false)
+    private LocalDateTime timestampValue;
+
+    protected ProductAttributeValue() {
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public Double getNumericValue() {
+        return numericValue;
+    }
+
+    public Boolean getBooleanValue() {
+        return booleanValue;
+    }
+
+    public LocalDateTime getTimestampValue() {
+        return timestampValue;
+    }
+
+    public static class Key implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private Long productId;
+        private String key;
+
+        public Key() {
+        }
+
+        public Key(Long productId, String key) {
+            this.productId = productId;
+            this.key = key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return Objects.equals(productId, other.productId) && Objects.equals(key, other.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(productId, key);
+        }
+    }
+}
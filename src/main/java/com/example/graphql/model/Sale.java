@@ -0,0 +1,73 @@
+package com.example.graphql.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * One recorded order of a product: a quantity sold at a unit price
+ */
+@Entity
+public class Sale {
+
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ISO_DATE_TIME;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(nullable = false)
+    private int quantity;
+
+    @Column(name = "unit_price", nullable = false)
+    private double unitPrice;
+
+    @Column(name = "sold_at", nullable = false)
+    private LocalDateTime soldAt;
+
+    protected Sale() {
+    }
+
+    public Sale(Long productId, int quantity, double unitPrice, LocalDateTime soldAt) {
+        this.productId = productId;
+        this.quantity = quantity;
+        this.unitPrice = unitPrice;
+        this.soldAt = soldAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public double getUnitPrice() {
+        return unitPrice;
+    }
+
+    public double getRevenue() {
+        return quantity * unitPrice;
+    }
+
+    public String getSoldAt() {
+        return soldAt.format(FORMATTER);
+    }
+
+    public LocalDateTime getSoldAtTimestamp() {
+        return soldAt;
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.graphql.model;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.function.BiConsumer;
+
+/**
+ * Period length of a sales rollup. Periods are aligned to the calendar: weeks start on
+ * Monday, quarters in January, April, July and October.
+ */
+public enum SalesGrain {
+    DAY,
+    WEEK,
+    MONTH,
+    QUARTER,
+    YEAR;
+
+    /** Grains from the coarsest down */
+    private static final SalesGrain[] COARSEST_FIRST = {YEAR, QUARTER, MONTH, WEEK, DAY};
+
+    /**
+     * First day of the period of this grain that contains the date
+     */
+    public LocalDate periodStart(LocalDate date) {
+        switch (this) {
+            case DAY:
+                return date;
+            case WEEK:
+                return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH:
+                return date.withDayOfMonth(1);
+            case QUARTER:
+                return LocalDate.of(date.getYear(), (date.getMonthValue() - 1) / 3 * 3 + 1, 1);
+            case YEAR:
+            default:
+                return date.withDayOfYear(1);
+        }
+    }
+
+    /**
+     * First day of the period following the one starting on the given day
+     */
+    public LocalDate nextPeriodStart(LocalDate periodStart) {
+        switch (this) {
+            case DAY:
+                return periodStart.plusDays(1);
+            case WEEK:
+                return periodStart.plusWeeks(1);
+            case MONTH:
+                return periodStart.plusMonths(1);
+            case QUARTER:
+                return periodStart.plusMonths(3);
+            case YEAR:
+            default:
+                return periodStart.plusYears(1);
+        }
+    }
+
+    /**
+     * Split the days from start to end (inclusive) into whole periods, each time taking the
+     * longest one that starts on the next uncovered day and ends within the range, and pass
+     * each period's grain and first day to the consumer in date order
+     */
+    public static void cover(LocalDate start, LocalDate end, BiConsumer<SalesGrain, LocalDate> consumer) {
+        LocalDate day = start;
+        while (!day.isAfter(end)) {
+            for (SalesGrain grain : COARSEST_FIRST) {
+                LocalDate next = grain.nextPeriodStart(day);
+                if (grain.periodStart(day).equals(day) && !next.isAfter(end.plusDays(1))) {
+                    consumer.accept(grain, day);
+                    day = next;
+                    break;
+                }
+            }
+        }
+    }
+}
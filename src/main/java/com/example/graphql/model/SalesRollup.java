@@ -0,0 +1,80 @@
+package com.example.graphql.model;
+
+import java.time.LocalDate;
+
+/**
+ * Sales of one product in one rollup period: the number of orders, the units sold and
+ * their revenue. Also used as the increment applied to a stored rollup.
+ */
+public class SalesRollup {
+
+    private final SalesGrain grain;
+    private final LocalDate periodStart;
+    private final long productId;
+    private long orders;
+    private long units;
+    private double revenue;
+
+    public SalesRollup(SalesGrain grain, LocalDate periodStart, long productId, long orders, long units, double revenue) {
+        this.grain = grain;
+        this.periodStart = periodStart;
+        this.productId = productId;
+        this.orders = orders;
+        this.units = units;
+        this.revenue = revenue;
+    }
+
+    public SalesGrain getGrain() {
+        return grain;
+    }
+
+    public LocalDate getPeriodStart() {
+        return periodStart;
+    }
+
+    public long getProductId() {
+        return productId;
+    }
+
+    public long getOrders() {
+        return orders;
+    }
+
+    public long getUnits() {
+        return units;
+    }
+
+    public double getRevenue() {
+        return revenue;
+    }
+
+    /**
+     * Add the sales of one more order
+     */
+    public void add(Sale sale) {
+        orders++;
+        units += sale.getQuantity();
+        revenue += sale.getRevenue();
+    }
+
+    /**
+     * Add the sales of another rollup
+     */
+    public void add(SalesRollup other) {
+        orders += other.orders;
+        units += other.units;
+        revenue += other.revenue;
+    }
+
+    @Override
+    public String toString() {
+        return "SalesRollup{" +
+                "grain=" + grain +
+                ", periodStart=" + periodStart +
+                ", productId=" + productId +
+                ", orders=" + orders +
+                ", units=" + units +
+                ", revenue=" + revenue +
+                '}';
+    }
+}
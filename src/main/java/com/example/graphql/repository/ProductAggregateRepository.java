@@ -0,0 +1,23 @@
+package com.example.graphql.repository;
+
+import com.example.graphql.model.Product;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * GROUP BY queries over the product table, for aggregations the database can compute
+ */
+public interface ProductAggregateRepository {
+
+    /**
+     * Group the products matching a specification by the given columns in one GROUP BY
+     * query. Each row holds the values of the group columns, the number of products, then
+     * for each summarized column the number of non-null values, their sum, minimum and
+     * maximum, so the caller can merge groups and derive averages.
+     *
+     * @throws IllegalArgumentException if the specification needs a distinct result,
+     *                                  which would make the group counts wrong
+     */
+    List<Object[]> groupBy(Specification<Product> specification, List<String> groupBy, List<String> summarized);
+}
@@ -0,0 +1,56 @@
+package com.example.graphql.repository;
+
+import com.example.graphql.model.Product;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ProductAggregateRepositoryImpl implements ProductAggregateRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Object[]> groupBy(Specification<Product> specification, List<String> groupBy, List<String> summarized) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> query = criteriaBuilder.createQuery(Object[].class);
+        Root<Product> root = query.from(Product.class);
+
+        List<Selection<?>> selections = new ArrayList<>();
+        List<Expression<?>> grouping = new ArrayList<>();
+        for (String column : groupBy) {
+            Path<Object> path = root.get(column);
+            selections.add(path);
+            grouping.add(path);
+        }
+        selections.add(criteriaBuilder.count(root));
+        for (String column : summarized) {
+            Path<Number> path = root.get(column);
+            selections.add(criteriaBuilder.count(path));
+            selections.add(criteriaBuilder.sum(path));
+            selections.add(criteriaBuilder.min(path));
+            selections.add(criteriaBuilder.max(path));
+        }
+        query.multiselect(selections);
+
+        Predicate predicate = specification.toPredicate(root, query, criteriaBuilder);
+        if (query.isDistinct()) {
+            throw new IllegalArgumentException("The filter joins collections and cannot be grouped in the database");
+        }
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.groupBy(grouping);
+        return entityManager.createQuery(query).getResultList();
+    }
+}
@@ -1,16 +1,19 @@
 package com.example.graphql.repository;
 
 import com.example.graphql.model.Product;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product>,
+        ProductAggregateRepository {
     
     // Basic queries
     List<Product> findByCategory(String category);
@@ -29,4 +32,26 @@ public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpec
     
     @Query("SELECT p FROM Product p JOIN p.tags t WHERE t IN :tags GROUP BY p HAVING COUNT(DISTINCT t) = :tagCount")
     List<Product> findByAllTags(@Param("tags") List<String> tags, @Param("tagCount") long tagCount);
-} 
\ No newline at end of file
+    
+    // Keyset pagination, for streaming the catalog in id order
+    List<Product> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+    
+    /**
+     * One row of the product count, highest id and latest update time, telling whether a
+     * copy of the catalog is still current
+     */
+    @Query("SELECT COUNT(p), MAX(p.id), MAX(p.updatedAt) FROM Product p")
+    List<Object[]> findCatalogStamp();
+    
+    /**
+     * Distinct stored values of one custom attribute
+     */
+    @Query("SELECT DISTINCT v.value FROM ProductAttributeValue v WHERE v.key = :key")
+    List<String> findDistinctAttributeValues(@Param("key") String key);
+    
+    /**
+     * Id and price of each of the given products that exists, without loading the products
+     */
+    @Query("SELECT p.id, p.price FROM Product p WHERE p.id IN :ids")
+    List<Object[]> findPrices(@Param("ids") Collection<Long> ids);
+}
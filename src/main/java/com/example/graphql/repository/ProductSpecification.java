@@ -1,20 +1,51 @@
 package com.example.graphql.repository;
 
+import com.example.graphql.dto.AttributeFilter;
 import com.example.graphql.dto.ProductFilter;
 import com.example.graphql.model.Product;
+import com.example.graphql.model.ProductAttributeValue;
+import com.example.graphql.service.SearchText;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
 import jakarta.persistence.criteria.Join;
 import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
 import org.springframework.data.jpa.domain.Specification;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 public class ProductSpecification {
 
     public static Specification<Product> getSpecification(ProductFilter filter) {
+        return getSpecification(filter, null);
+    }
+    
+    /**
+     * @param searchMatches ids of the products matching the filter's search clause, as
+     *                      found by ProductSearchIndex; required when the filter has one
+     */
+    public static Specification<Product> getSpecification(ProductFilter filter, long[] searchMatches) {
+        if (searchMatches == null && !SearchText.queryTerms(filter.getSearch()).isEmpty()) {
+            throw new IllegalArgumentException("A search clause needs the ids of the matching products");
+        }
+        List<AttributeFilter> attributes = AttributeFilter.normalize(filter.getAttributes());
         return (root, query, criteriaBuilder) -> {
             List<Predicate> predicates = new ArrayList<>();
             
+            // Full-text search, resolved against the search index up front
+            if (searchMatches != null) {
+                if (searchMatches.length == 0) {
+                    return criteriaBuilder.disjunction();
+                }
+                predicates.add(root.get("id").in(Arrays.stream(searchMatches).boxed().toList()));
+            }
+            
             // Filter by name containing
             if (filter.getNameContains() != null && !filter.getNameContains().isEmpty()) {
                 predicates.add(criteriaBuilder.like(
@@ -56,6 +87,20 @@ public class ProductSpecification {
                 ));
             }
             
+            // Filter by minimum stock quantity
+            if (filter.getMinStockQuantity() != null) {
+                predicates.add(criteriaBuilder.greaterThanOrEqualTo(
+                    root.get("stockQuantity"), filter.getMinStockQuantity()
+                ));
+            }
+            
+            // Filter by minimum popularity
+            if (filter.getMinPopularity() != null) {
+                predicates.add(criteriaBuilder.greaterThanOrEqualTo(
+                    root.get("popularity"), filter.getMinPopularity()
+                ));
+            }
+            
             // Filter by tags
             if (filter.getHasTags() != null && !filter.getHasTags().isEmpty()) {
                 // Custom handling for tags since it's a collection
@@ -64,7 +109,145 @@ public class ProductSpecification {
                 predicates.add(tagJoin.in(filter.getHasTags()));
             }
             
+            // Filter by creation date, an index range scan on created_at
+            LocalDateTime createdAfter = filter.getCreatedAfterTimestamp();
+            if (createdAfter != null) {
+                predicates.add(criteriaBuilder.greaterThanOrEqualTo(root.get("createdAt"), createdAfter));
+            }
+            
+            LocalDateTime createdBefore = filter.getCreatedBeforeTimestamp();
+            if (createdBefore != null) {
+                predicates.add(criteriaBuilder.lessThanOrEqualTo(root.get("createdAt"), createdBefore));
+            }
+            
+            // Filter by custom attributes, each a semi-join on the attribute indexes
+            if (attributes != null) {
+                for (AttributeFilter attribute : attributes) {
+                    predicates.add(root.get("id").in(attributeMatches(attribute, query, criteriaBuilder)));
+                }
+            }
+            
             return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
         };
     }
-} 
\ No newline at end of file
+    
+    /**
+     * Ids of the products whose attribute passes the filter: equality clauses are served by
+     * the (key, value) index and ranges by the (key, numeric value) or (key, timestamp value) index
+     */
+    private static Subquery<Long> attributeMatches(AttributeFilter attribute, CriteriaQuery<?> query,
+                                                   CriteriaBuilder criteriaBuilder) {
+        Subquery<Long> subquery = query.subquery(Long.class);
+        Root<ProductAttributeValue> value = subquery.from(ProductAttributeValue.class);
+        List<Predicate> clauses = new ArrayList<>();
+        clauses.add(criteriaBuilder.equal(value.get("key"), attribute.getKey()));
+        if (attribute.getEquals() != null) {
+            clauses.add(criteriaBuilder.equal(value.get("value"), attribute.getEquals()));
+        }
+        if (attribute.getIn() != null) {
+            clauses.add(value.get("value").in(attribute.getIn()));
+        }
+        if (attribute.getMin() != null) {
+            clauses.add(criteriaBuilder.greaterThanOrEqualTo(value.get("numericValue"), attribute.getMin()));
+        }
+        if (attribute.getMax() != null) {
+            clauses.add(criteriaBuilder.lessThanOrEqualTo(value.get("numericValue"), attribute.getMax()));
+        }
+        if (attribute.getAfter() != null) {
+            clauses.add(criteriaBuilder.greaterThanOrEqualTo(value.get("timestampValue"), attribute.getAfterTimestamp()));
+        }
+        if (attribute.getBefore() != null) {
+            clauses.add(criteriaBuilder.lessThanOrEqualTo(value.get("timestampValue"), attribute.getBeforeTimestamp()));
+        }
+        return subquery.select(value.get("productId")).where(clauses.toArray(new Predicate[0]));
+    }
+    
+    /**
+     * In-memory counterpart of getSpecification, used to decide whether a product
+     * could be part of the result of a filter. It applies exactly the clauses the
+     * specification applies and errs towards matching: it may report a match the
+     * database would not, but never the reverse.
+     */
+    public static boolean couldMatch(ProductFilter filter, Product product) {
+        if (filter == null) {
+            return true;
+        }
+        
+        String needle = filter.getNameContains();
+        if (needle != null && !needle.isEmpty()) {
+            // LIKE wildcards in the needle are not worth emulating
+            boolean hasWildcards = needle.indexOf('%') >= 0 || needle.indexOf('_') >= 0;
+            if (!hasWildcards && (product.getName() == null
+                    || !product.getName().toLowerCase().contains(needle.toLowerCase()))) {
+                return false;
+            }
+        }
+        
+        if (filter.getMinPrice() != null
+                && (product.getPrice() == null || product.getPrice() < filter.getMinPrice())) {
+            return false;
+        }
+        
+        if (filter.getMaxPrice() != null
+                && (product.getPrice() == null || product.getPrice() > filter.getMaxPrice())) {
+            return false;
+        }
+        
+        if (filter.getCategories() != null && !filter.getCategories().isEmpty()
+                && !filter.getCategories().contains(product.getCategory())) {
+            return false;
+        }
+        
+        if (filter.getInStock() != null && !filter.getInStock().equals(product.getInStock())) {
+            return false;
+        }
+        
+        // Ratings are stored as REAL, so compare at float precision
+        if (filter.getMinRating() != null
+                && (product.getRating() == null || product.getRating() < filter.getMinRating().floatValue())) {
+            return false;
+        }
+        
+        if (filter.getMinStockQuantity() != null && (product.getStockQuantity() == null
+                || product.getStockQuantity() < filter.getMinStockQuantity())) {
+            return false;
+        }
+        
+        if (filter.getMinPopularity() != null
+                && (product.getPopularity() == null || product.getPopularity() < filter.getMinPopularity())) {
+            return false;
+        }
+        
+        if (filter.getHasTags() != null && !filter.getHasTags().isEmpty()
+                && (product.getTags() == null || Collections.disjoint(product.getTags(), filter.getHasTags()))) {
+            return false;
+        }
+        
+        List<String> searchTerms = SearchText.queryTerms(filter.getSearch());
+        if (!SearchText.matches(product, searchTerms)) {
+            return false;
+        }
+        
+        if (filter.getAttributes() != null) {
+            Map<String, String> values = product.getCustomAttributes();
+            for (AttributeFilter attribute : filter.getAttributes()) {
+                if (!attribute.matches(values != null ? values.get(attribute.getKey()) : null)) {
+                    return false;
+                }
+            }
+        }
+        
+        LocalDateTime createdAfter = filter.getCreatedAfterTimestamp();
+        LocalDateTime createdBefore = filter.getCreatedBeforeTimestamp();
+        if (createdAfter != null || createdBefore != null) {
+            LocalDateTime createdAt = product.getCreatedAtTimestamp();
+            if (createdAt == null
+                    || (createdAfter != null && createdAt.isBefore(createdAfter))
+                    || (createdBefore != null && createdAt.isAfter(createdBefore))) {
+                return false;
+            }
+        }
+        
+        return true;
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.graphql.repository;
+
+import com.example.graphql.model.Sale;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface SaleRepository extends JpaRepository<Sale, Long>, SalesRollupRepository {
+}
@@ -0,0 +1,44 @@
+package com.example.graphql.repository;
+
+import com.example.graphql.model.Sale;
+import com.example.graphql.model.SalesGrain;
+import com.example.graphql.model.SalesRollup;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Batched writes to the sales ledger and reads of its rollups
+ */
+public interface SalesRollupRepository {
+
+    /**
+     * Insert sales facts in JDBC batches, without loading them back as entities
+     */
+    void insertAll(Collection<Sale> sales);
+
+    /**
+     * Add the orders, units and revenue of each increment to its stored rollup, creating
+     * the rollups that do not exist yet, in JDBC batches
+     */
+    void addToRollups(Collection<SalesRollup> increments);
+
+    /**
+     * The rollups of the given grain for periods starting on any of the given days
+     */
+    List<SalesRollup> findRollups(SalesGrain grain, Collection<LocalDate> periodStarts);
+
+    /**
+     * Pass the rollups of the given grain for periods starting on any of the given days to
+     * the consumer as they are read, without creating an object per rollup
+     */
+    void scanRollups(SalesGrain grain, Collection<LocalDate> periodStarts, RollupConsumer consumer);
+
+    void deleteAllRollups();
+
+    @FunctionalInterface
+    interface RollupConsumer {
+        void accept(LocalDate periodStart, long productId, long orders, long units, double revenue);
+    }
+}
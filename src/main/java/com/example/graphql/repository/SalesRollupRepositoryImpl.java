@@ -0,0 +1,124 @@
+package com.example.graphql.repository;
+
+import com.example.graphql.model.Sale;
+import com.example.graphql.model.SalesGrain;
+import com.example.graphql.model.SalesRollup;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+public class SalesRollupRepositoryImpl implements SalesRollupRepository {
+
+    /** Statements sent to the database per JDBC batch */
+    private static final int BATCH_SIZE = 500;
+
+    /** Period starts bound per IN list */
+    private static final int IN_LIST_SIZE = 1000;
+
+    private static final String INSERT_SALE =
+            "insert into sale (product_id, quantity, unit_price, sold_at) values (?, ?, ?, ?)";
+
+    // One statement per rollup, so concurrent increments of the same rollup cannot be lost
+    private static final String MERGE_ROLLUP =
+            "merge into sales_rollup r using (values (cast(? as varchar(8)), cast(? as date), cast(? as bigint),"
+                    + " cast(? as bigint), cast(? as bigint), cast(? as float(53))))"
+                    + " s (grain, period_start, product_id, orders, units, revenue)"
+                    + " on r.grain = s.grain and r.period_start = s.period_start and r.product_id = s.product_id"
+                    + " when matched then update set orders = r.orders + s.orders, units = r.units + s.units,"
+                    + " revenue = r.revenue + s.revenue"
+                    + " when not matched then insert (grain, period_start, product_id, orders, units, revenue)"
+                    + " values (s.grain, s.period_start, s.product_id, s.orders, s.units, s.revenue)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public void insertAll(Collection<Sale> sales) {
+        session().doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_SALE)) {
+                int batched = 0;
+                for (Sale sale : sales) {
+                    statement.setLong(1, sale.getProductId());
+                    statement.setInt(2, sale.getQuantity());
+                    statement.setDouble(3, sale.getUnitPrice());
+                    statement.setObject(4, sale.getSoldAtTimestamp());
+                    statement.addBatch();
+                    if (++batched % BATCH_SIZE == 0) {
+                        statement.executeBatch();
+                    }
+                }
+                statement.executeBatch();
+            }
+        });
+    }
+
+    @Override
+    public void addToRollups(Collection<SalesRollup> increments) {
+        session().doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(MERGE_ROLLUP)) {
+                int batched = 0;
+                for (SalesRollup increment : increments) {
+                    statement.setString(1, increment.getGrain().name());
+                    statement.setObject(2, increment.getPeriodStart());
+                    statement.setLong(3, increment.getProductId());
+                    statement.setLong(4, increment.getOrders());
+                    statement.setLong(5, increment.getUnits());
+                    statement.setDouble(6, increment.getRevenue());
+                    statement.addBatch();
+                    if (++batched % BATCH_SIZE == 0) {
+                        statement.executeBatch();
+                    }
+                }
+                statement.executeBatch();
+            }
+        });
+    }
+
+    @Override
+    public List<SalesRollup> findRollups(SalesGrain grain, Collection<LocalDate> periodStarts) {
+        List<SalesRollup> rollups = new ArrayList<>();
+        scanRollups(grain, periodStarts, (periodStart, productId, orders, units, revenue) ->
+                rollups.add(new SalesRollup(grain, periodStart, productId, orders, units, revenue)));
+        return rollups;
+    }
+
+    @Override
+    public void scanRollups(SalesGrain grain, Collection<LocalDate> periodStarts, RollupConsumer consumer) {
+        List<LocalDate> starts = new ArrayList<>(periodStarts);
+        for (int from = 0; from < starts.size(); from += IN_LIST_SIZE) {
+            List<LocalDate> chunk = starts.subList(from, Math.min(from + IN_LIST_SIZE, starts.size()));
+            String sql = "select period_start, product_id, orders, units, revenue from sales_rollup"
+                    + " where grain = ? and period_start in (" + "?, ".repeat(chunk.size() - 1) + "?)";
+            session().doWork(connection -> {
+                try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                    statement.setString(1, grain.name());
+                    for (int i = 0; i < chunk.size(); i++) {
+                        statement.setObject(i + 2, chunk.get(i));
+                    }
+                    try (ResultSet result = statement.executeQuery()) {
+                        while (result.next()) {
+                            consumer.accept(result.getObject(1, LocalDate.class), result.getLong(2),
+                                    result.getLong(3), result.getLong(4), result.getDouble(5));
+                        }
+                    }
+                }
+            });
+        }
+    }
+
+    @Override
+    public void deleteAllRollups() {
+        entityManager.createNativeQuery("delete from sales_rollup").executeUpdate();
+    }
+
+    private Session session() {
+        return entityManager.unwrap(Session.class);
+    }
+}
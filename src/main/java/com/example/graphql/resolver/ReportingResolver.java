@@ -1,27 +1,33 @@
 package com.example.graphql.resolver;
 
 import com.example.graphql.dto.ProductFilter;
+import com.example.graphql.dto.SaleInput;
 import com.example.graphql.dto.SalesReportPeriod;
 import com.example.graphql.dto.TimeframeType;
+import com.example.graphql.model.Sale;
 import com.example.graphql.service.ReportingService;
+import com.example.graphql.service.SalesLedgerService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.graphql.data.method.annotation.Argument;
+import org.springframework.graphql.data.method.annotation.MutationMapping;
 import org.springframework.graphql.data.method.annotation.QueryMapping;
 import org.springframework.stereotype.Controller;
 
 import java.util.List;
 
 /**
- * GraphQL resolver for reporting queries
+ * GraphQL resolver for reporting queries and the sales ledger they read
  */
 @Controller
 public class ReportingResolver {
 
     private final ReportingService reportingService;
+    private final SalesLedgerService salesLedgerService;
     
     @Autowired
-    public ReportingResolver(ReportingService reportingService) {
+    public ReportingResolver(ReportingService reportingService, SalesLedgerService salesLedgerService) {
         this.reportingService = reportingService;
+        this.salesLedgerService = salesLedgerService;
     }
     
     /**
@@ -41,4 +47,20 @@ public class ReportingResolver {
                 filter
         );
     }
-} 
\ No newline at end of file
+    
+    /**
+     * Record a sale in the ledger
+     */
+    @MutationMapping
+    public Sale recordSale(@Argument SaleInput sale) {
+        return salesLedgerService.recordSale(sale);
+    }
+    
+    /**
+     * Record a batch of sales in one transaction
+     */
+    @MutationMapping
+    public int recordSales(@Argument List<SaleInput> sales) {
+        return salesLedgerService.recordSales(sales);
+    }
+}
@@ -1,15 +1,24 @@
 package com.example.graphql.resolver;
 
+import com.example.graphql.dto.AggregateGroup;
+import com.example.graphql.dto.AggregateMetric;
 import com.example.graphql.dto.DynamicProduct;
 import com.example.graphql.dto.ProductFilter;
+import com.example.graphql.dto.ProductSearchResult;
 import com.example.graphql.dto.ProductStats;
+import com.example.graphql.dto.ProductSuggestion;
+import com.example.graphql.dto.TagStat;
 import com.example.graphql.model.Product;
+import com.example.graphql.service.CatalogSketchService;
 import com.example.graphql.service.DynamicQueryService;
+import com.example.graphql.service.ProductAggregationService;
+import com.example.graphql.service.ProductAutocompleteIndex;
 import com.example.graphql.service.ProductService;
 import com.example.graphql.service.ProductStatsService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.graphql.data.method.annotation.Argument;
 import org.springframework.graphql.data.method.annotation.QueryMapping;
+import org.springframework.graphql.data.method.annotation.SchemaMapping;
 import org.springframework.stereotype.Controller;
 
 import java.util.List;
@@ -20,15 +29,24 @@ public class StatsResolver {
     private final ProductStatsService productStatsService;
     private final DynamicQueryService dynamicQueryService;
     private final ProductService productService;
+    private final ProductAutocompleteIndex productAutocompleteIndex;
+    private final ProductAggregationService productAggregationService;
+    private final CatalogSketchService catalogSketchService;
 
     @Autowired
     public StatsResolver(
             ProductStatsService productStatsService,
             DynamicQueryService dynamicQueryService,
-            ProductService productService) {
+            ProductService productService,
+            ProductAutocompleteIndex productAutocompleteIndex,
+            ProductAggregationService productAggregationService,
+            CatalogSketchService catalogSketchService) {
         this.productStatsService = productStatsService;
         this.dynamicQueryService = dynamicQueryService;
         this.productService = productService;
+        this.productAutocompleteIndex = productAutocompleteIndex;
+        this.productAggregationService = productAggregationService;
+        this.catalogSketchService = catalogSketchService;
     }
 
     /**
@@ -55,6 +73,55 @@ public class StatsResolver {
         return productStatsService.getStatsByFilter(filter);
     }
 
+    /**
+     * Approximate number of distinct tags of the products the statistics cover
+     */
+    @SchemaMapping(typeName = "ProductStats")
+    public long distinctTags(ProductStats stats, @Argument Double accuracy) {
+        return catalogSketchService.distinctTags(stats.getScope(), accuracy(accuracy));
+    }
+
+    /**
+     * Approximate number of distinct categories of the products the statistics cover
+     */
+    @SchemaMapping(typeName = "ProductStats")
+    public long distinctCategories(ProductStats stats, @Argument Double accuracy) {
+        return catalogSketchService.distinctCategories(stats.getScope(), accuracy(accuracy));
+    }
+
+    /**
+     * Approximate price percentile of the products the statistics cover
+     */
+    @SchemaMapping(typeName = "ProductStats")
+    public Double pricePercentile(ProductStats stats, @Argument double percentile, @Argument Double accuracy) {
+        return catalogSketchService.pricePercentile(stats.getScope(), percentile, accuracy(accuracy));
+    }
+
+    /**
+     * Approximate rating percentile of the products the statistics cover
+     */
+    @SchemaMapping(typeName = "ProductStats")
+    public Double ratingPercentile(ProductStats stats, @Argument double percentile, @Argument Double accuracy) {
+        return catalogSketchService.ratingPercentile(stats.getScope(), percentile, accuracy(accuracy));
+    }
+
+    /**
+     * Most used tags of the products the statistics cover, with approximate counts
+     */
+    @SchemaMapping(typeName = "ProductStats")
+    public List<TagStat> topTags(ProductStats stats, @Argument Integer limit, @Argument Double accuracy) {
+        return catalogSketchService.topTags(stats.getScope(), limit != null ? limit : 10, accuracy(accuracy));
+    }
+
+    /**
+     * Group the products matching a filter by standard fields or custom attributes and compute metrics per group
+     */
+    @QueryMapping
+    public List<AggregateGroup> aggregateProducts(@Argument List<String> groupBy, @Argument List<AggregateMetric> metrics,
+                                                  @Argument ProductFilter filter, @Argument Integer limit) {
+        return productAggregationService.aggregate(groupBy, metrics, filter, limit != null ? limit : 100);
+    }
+
     /**
      * Dynamic query for fetching only specific product attributes
      */
@@ -63,6 +130,24 @@ public class StatsResolver {
         return dynamicQueryService.dynamicProductQuery(attributes, filter);
     }
 
+    /**
+     * Full-text search over product names and descriptions
+     */
+    @QueryMapping
+    public List<ProductSearchResult> searchProducts(@Argument String query, @Argument ProductFilter filter,
+                                                    @Argument Integer limit) {
+        return dynamicQueryService.searchProducts(query, filter, limit != null ? limit : 20);
+    }
+
+    /**
+     * Complete a search-box prefix to product suggestions, closest and most popular first
+     */
+    @QueryMapping
+    public List<ProductSuggestion> autocomplete(@Argument String prefix, @Argument Integer limit,
+                                                @Argument Integer maxEdits) {
+        return productAutocompleteIndex.suggest(prefix, limit != null ? limit : 10, maxEdits != null ? maxEdits : 1);
+    }
+
     /**
      * Find related products based on algorithm
      */
@@ -78,4 +163,8 @@ public class StatsResolver {
     public List<Product> frequentlyBoughtTogether(@Argument Long id, @Argument Integer maxResults) {
         return dynamicQueryService.findFrequentlyBoughtTogether(id, maxResults != null ? maxResults : 5);
     }
-} 
\ No newline at end of file
+
+    private static double accuracy(Double accuracy) {
+        return accuracy != null ? accuracy : 0.01;
+    }
+}
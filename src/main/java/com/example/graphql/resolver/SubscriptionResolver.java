@@ -35,7 +35,7 @@ public class SubscriptionResolver {
      */
     @SubscriptionMapping
     public Publisher<Product> productUpdated() {
-        logger.info("New subscription for product updates");
+        logger.debug("New subscription for product updates");
         return publisher.getProductUpdatePublisher();
     }
     
@@ -47,7 +47,7 @@ public class SubscriptionResolver {
      */
     @SubscriptionMapping
     public Publisher<ProductPriceChange> productPriceChanged(@Argument Double minPriceDifference) {
-        logger.info("New subscription for price changes with threshold: {}", minPriceDifference);
+        logger.debug("New subscription for price changes with threshold: {}", minPriceDifference);
         return publisher.getPriceChangePublisher(minPriceDifference);
     }
     
@@ -61,7 +61,7 @@ public class SubscriptionResolver {
     public Publisher<Product> lowStockAlert(@Argument Integer threshold) {
         // If threshold is null, use the default value of 5
         int actualThreshold = (threshold != null) ? threshold : 5;
-        logger.info("New subscription for low stock alerts with threshold: {}", actualThreshold);
+        logger.debug("New subscription for low stock alerts with threshold: {}", actualThreshold);
         return publisher.getLowStockPublisher(actualThreshold);
     }
 } 
\ No newline at end of file
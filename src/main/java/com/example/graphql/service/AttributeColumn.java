@@ -0,0 +1,107 @@
+package com.example.graphql.service;
+
+import com.example.graphql.dto.AttributeFilter;
+import com.example.graphql.model.AttributeType;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+/**
+ * Dictionary-encoded column of one custom attribute over the rows of a ProductSnapshot.
+ * Every row holds the code of its value in a dictionary of the distinct values, or
+ * MISSING, and the numeric and timestamp decodings are computed once per distinct value,
+ * so filters and aggregations on attributes compare ints and doubles instead of parsing
+ * strings per row.
+ */
+public final class AttributeColumn {
+
+    /** Code of rows without the attribute */
+    public static final int MISSING = -1;
+
+    private final int[] codes;
+    private final String[] dictionary;
+    private final double[] numbers;
+    private final long[] timestamps;
+
+    private AttributeColumn(int[] codes, List<String> dictionary) {
+        this.codes = codes;
+        this.dictionary = dictionary.toArray(new String[0]);
+        this.numbers = new double[this.dictionary.length];
+        this.timestamps = new long[this.dictionary.length];
+        for (int code = 0; code < this.dictionary.length; code++) {
+            Double number = AttributeType.parseNumber(this.dictionary[code]);
+            numbers[code] = number != null ? number : Double.NaN;
+            timestamps[code] = ProductSnapshot.toEpochMicros(AttributeType.parseTimestamp(this.dictionary[code]));
+        }
+    }
+
+    static AttributeColumn build(ProductRecords records, String key) {
+        int[] codes = new int[records.size()];
+        Map<String, Integer> index = new HashMap<>();
+        List<String> dictionary = new ArrayList<>();
+        for (int row = 0; row < codes.length; row++) {
+            String value = records.getAttribute(row, key);
+            if (value == null) {
+                codes[row] = MISSING;
+                continue;
+            }
+            Integer code = index.get(value);
+            if (code == null) {
+                code = dictionary.size();
+                index.put(value, code);
+                dictionary.add(value);
+            }
+            codes[row] = code;
+        }
+        return new AttributeColumn(codes, dictionary);
+    }
+
+    /**
+     * Returns the code of the value of a row, or MISSING
+     */
+    public int code(int row) {
+        return codes[row];
+    }
+
+    /**
+     * Number of distinct values
+     */
+    public int cardinality() {
+        return dictionary.length;
+    }
+
+    public String value(int code) {
+        return dictionary[code];
+    }
+
+    /**
+     * Returns the value as a number, or NaN if it is not one
+     */
+    public double number(int code) {
+        return numbers[code];
+    }
+
+    /**
+     * Returns a canonical timestamp value in epoch microseconds, or ProductSnapshot.NO_TIMESTAMP
+     */
+    public long timestamp(int code) {
+        return timestamps[code];
+    }
+
+    /**
+     * Row predicate for an attribute filter, evaluated once per distinct value
+     */
+    public IntPredicate matcher(AttributeFilter filter) {
+        boolean[] accepted = new boolean[dictionary.length];
+        for (int code = 0; code < dictionary.length; code++) {
+            accepted[code] = filter.matches(dictionary[code]);
+        }
+        return row -> {
+            int code = codes[row];
+            return code != MISSING && accepted[code];
+        };
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.graphql.service;
+
+import com.example.graphql.model.AttributeDefinition;
+import com.example.graphql.model.AttributeType;
+import com.example.graphql.repository.AttributeDefinitionRepository;
+import com.example.graphql.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Registry of the value type of every custom attribute key, backed by attribute_definitions.
+ *
+ * Attribute values go through canonicalize before they are written: a key seen for the
+ * first time is registered with the type inferred from its value, and later values
+ * must have the registered type. Values are stored in the canonical form of their type,
+ * which the typed columns of product_attributes and the snapshot decode.
+ *
+ * Types registered inside a transaction are only seen by that transaction until it
+ * commits, so a rollback that removes the definition rows also forgets the types.
+ */
+@Service
+public class AttributeTypeRegistry {
+
+    private final AttributeDefinitionRepository definitionRepository;
+    private final ProductRepository productRepository;
+    private final Map<String, AttributeType> types = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    @Autowired
+    public AttributeTypeRegistry(AttributeDefinitionRepository definitionRepository, ProductRepository productRepository) {
+        this.definitionRepository = definitionRepository;
+        this.productRepository = productRepository;
+    }
+
+    /**
+     * Returns the registered type of an attribute, or null if the key is unknown
+     */
+    public AttributeType typeOf(String key) {
+        load();
+        return registeredType(key);
+    }
+
+    /**
+     * Returns all registered attributes, ordered by key
+     */
+    public List<AttributeDefinition> getDefinitions() {
+        load();
+        Map<String, AttributeType> registered = new HashMap<>(types);
+        PendingTypes pending = pendingTypes(false);
+        if (pending != null) {
+            registered.putAll(pending.types);
+        }
+        return registered.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .map(entry -> new AttributeDefinition(entry.getKey(), entry.getValue()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Replaces the values of the attributes with their canonical form, registering
+     * unknown keys with the type of their value. Nothing is registered unless every
+     * value is valid.
+     *
+     * @throws IllegalArgumentException if a key is blank or a value is null or not of the registered type
+     */
+    public synchronized void canonicalize(Map<String, String> attributes) {
+        if (attributes == null || attributes.isEmpty()) {
+            return;
+        }
+        load();
+        Map<String, String> canonical = new HashMap<>();
+        Map<String, AttributeType> inferred = new HashMap<>();
+        for (Map.Entry<String, String> attribute : attributes.entrySet()) {
+            String key = attribute.getKey();
+            if (key == null || key.isBlank()) {
+                throw new IllegalArgumentException("Custom attribute keys must not be blank");
+            }
+            if (attribute.getValue() == null) {
+                throw new IllegalArgumentException("Custom attribute '" + key + "' needs a value");
+            }
+            AttributeType type = registeredType(key);
+            if (type == null) {
+                type = AttributeType.infer(attribute.getValue());
+                inferred.put(key, type);
+            }
+            try {
+                canonical.put(key, type.canonicalize(attribute.getValue()));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Custom attribute '" + key + "': " + e.getMessage(), e);
+            }
+        }
+        inferred.forEach(this::register);
+        attributes.putAll(canonical);
+    }
+
+    /**
+     * Registers or changes the type of an attribute. Values stored so far must already be
+     * canonical values of the new type.
+     *
+     * @throws IllegalArgumentException if the key is blank or a stored value does not fit the type
+     */
+    public synchronized AttributeDefinition define(String key, AttributeType type) {
+        if (key == null || key.isBlank()) {
+            throw new IllegalArgumentException("Custom attribute keys must not be blank");
+        }
+        if (type == null) {
+            throw new IllegalArgumentException("Custom attribute '" + key + "' needs a type");
+        }
+        load();
+        if (type != registeredType(key)) {
+            for (String value : productRepository.findDistinctAttributeValues(key)) {
+                if (!type.isCanonical(value)) {
+                    throw new IllegalArgumentException("Custom attribute '" + key + "' has values that are not "
+                            + type + ", e.g. '" + value + "'");
+                }
+            }
+            register(key, type);
+        }
+        return new AttributeDefinition(key, type);
+    }
+
+    private void register(String key, AttributeType type) {
+        definitionRepository.save(new AttributeDefinition(key, type));
+        PendingTypes pending = pendingTypes(true);
+        if (pending != null) {
+            pending.types.put(key, type);
+        } else {
+            types.put(key, type);
+        }
+    }
+
+    /**
+     * The type of an attribute as the current transaction sees it
+     */
+    private AttributeType registeredType(String key) {
+        PendingTypes pending = pendingTypes(false);
+        AttributeType type = pending != null ? pending.types.get(key) : null;
+        return type != null ? type : types.get(key);
+    }
+
+    /**
+     * Types registered by the current transaction, which are published once it commits and
+     * dropped if it rolls back; null outside a transaction, or if there are none and none
+     * are to be created
+     */
+    private PendingTypes pendingTypes(boolean create) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        PendingTypes pending = (PendingTypes) TransactionSynchronizationManager.getResource(this);
+        if (pending == null && create) {
+            PendingTypes registered = new PendingTypes();
+            TransactionSynchronizationManager.bindResource(this, registered);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(AttributeTypeRegistry.this);
+                    if (status == STATUS_COMMITTED) {
+                        types.putAll(registered.types);
+                    }
+                }
+            });
+            pending = registered;
+        }
+        return pending;
+    }
+
+    private static final class PendingTypes {
+        private final Map<String, AttributeType> types = new HashMap<>();
+    }
+
+    private void load() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (!loaded) {
+                for (AttributeDefinition definition : definitionRepository.findAll()) {
+                    types.put(definition.getKey(), definition.getType());
+                }
+                loaded = true;
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.graphql.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.function.Supplier;
+
+/**
+ * Coordinates full catalog scans so that all fields of one GraphQL request see the same catalog.
+ * While a request scope is bound to the current thread, the first caller takes the
+ * current global snapshot and every other field of the same request reuses it, even if
+ * a mutation is applied in between. Outside a request scope every call gets the
+ * current global snapshot.
+ */
+@Service
+public class CatalogScanCoordinator {
+
+    private static final ThreadLocal<RequestScan> CURRENT_SCAN = new ThreadLocal<>();
+
+    private final ProductSnapshotStore productSnapshotStore;
+
+    @Autowired
+    public CatalogScanCoordinator(ProductSnapshotStore productSnapshotStore) {
+        this.productSnapshotStore = productSnapshotStore;
+    }
+
+    /**
+     * Get a snapshot of the full catalog, shared with other fields of the current request
+     */
+    public ProductSnapshot getFullCatalog() {
+        RequestScan scan = CURRENT_SCAN.get();
+        if (scan == null) {
+            return loadSnapshot();
+        }
+        return scan.getOrLoad(this::loadSnapshot);
+    }
+
+    /**
+     * Run an action with the given request scan bound to the current thread
+     */
+    public static <T> T withRequestScan(RequestScan scan, Supplier<T> action) {
+        RequestScan previous = CURRENT_SCAN.get();
+        CURRENT_SCAN.set(scan);
+        try {
+            return action.get();
+        } finally {
+            if (previous != null) {
+                CURRENT_SCAN.set(previous);
+            } else {
+                CURRENT_SCAN.remove();
+            }
+        }
+    }
+
+    private ProductSnapshot loadSnapshot() {
+        return productSnapshotStore.getSnapshot();
+    }
+
+    /**
+     * Per-request holder for the lazily loaded catalog snapshot.
+     * Concurrent fields of the same request wait for the first load instead of scanning again.
+     */
+    public static class RequestScan {
+        private volatile ProductSnapshot snapshot;
+
+        public RequestScan() {
+        }
+
+        ProductSnapshot getOrLoad(Supplier<ProductSnapshot> loader) {
+            ProductSnapshot current = snapshot;
+            if (current == null) {
+                synchronized (this) {
+                    current = snapshot;
+                    if (current == null) {
+                        current = loader.get();
+                        snapshot = current;
+                    }
+                }
+            }
+            return current;
+        }
+
+        public boolean isLoaded() {
+            return snapshot != null;
+        }
+    }
+}
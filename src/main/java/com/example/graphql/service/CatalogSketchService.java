@@ -0,0 +1,433 @@
+package com.example.graphql.service;
+
+import com.example.graphql.dto.ProductFilter;
+import com.example.graphql.dto.TagStat;
+import com.example.graphql.model.Product;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Approximate ProductStats aggregates from sketches: HyperLogLog for distinct tags and
+ * categories, KLL for price and rating percentiles and count-min for the most used tags.
+ *
+ * Every aggregate takes an accuracy, the error the caller accepts as a fraction: the
+ * relative error of distinct counts, the rank error of percentiles, and for tag counts
+ * the error relative to the number of tag assignments. An accuracy finer than the
+ * sketches guarantee is answered exactly instead.
+ *
+ * For the whole catalog the sketches are built from the snapshot on first use and kept
+ * current from product change events. Count-min counts are decremented for removed
+ * tags, but HyperLogLog and KLL cannot forget values, so updated and deleted products
+ * leave stale values behind; once the fraction of products changed since the last build
+ * exceeds what the requested accuracy leaves over, the sketches are rebuilt. Statistics
+ * of a category or filter build sketches sized to the accuracy over the selected rows.
+ */
+@Service
+public class CatalogSketchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogSketchService.class);
+
+    /** Catalog sketch sizes: 0.4% distinct count error, 0.7% rank error, 0.03% tag count error */
+    static final int DISTINCT_PRECISION = 16;
+    static final int QUANTILE_K = 400;
+    static final int TAG_COUNT_WIDTH = 8192;
+    static final int TAG_COUNT_DEPTH = 5;
+
+    public static final int MAX_TOP_TAGS = 100;
+
+    /** Tags tracked as candidates for the most used ones */
+    static final int TAG_CANDIDATES = 4 * MAX_TOP_TAGS;
+
+    private final CatalogScanCoordinator catalogScanCoordinator;
+    private final DynamicQueryService dynamicQueryService;
+
+    private final Object buildLock = new Object();
+    private volatile Sketches catalog;
+    /** Changes that arrived while no sketches were being maintained */
+    private final AtomicLong missedChanges = new AtomicLong();
+
+    @Autowired
+    public CatalogSketchService(CatalogScanCoordinator catalogScanCoordinator, DynamicQueryService dynamicQueryService) {
+        this.catalogScanCoordinator = catalogScanCoordinator;
+        this.dynamicQueryService = dynamicQueryService;
+    }
+
+    /**
+     * Approximate number of distinct tags of the products in scope, all products if null
+     */
+    public long distinctTags(ProductFilter scope, double accuracy) {
+        checkAccuracy(accuracy);
+        if (accuracy < HyperLogLog.standardError(DISTINCT_PRECISION)) {
+            Set<String> tags = new HashSet<>();
+            scan(scope, (snapshot, row) -> tags.addAll(snapshot.getTags(row)));
+            return tags.size();
+        }
+        if (scope == null) {
+            Sketches sketches = catalogSketches(accuracy - HyperLogLog.standardError(DISTINCT_PRECISION));
+            synchronized (sketches) {
+                return sketches.tags.estimate();
+            }
+        }
+        HyperLogLog tags = new HyperLogLog(HyperLogLog.precisionFor(accuracy));
+        scan(scope, (snapshot, row) -> snapshot.getTags(row).forEach(tag -> tags.add(HyperLogLog.hash(tag))));
+        return tags.estimate();
+    }
+
+    /**
+     * Approximate number of distinct categories of the products in scope, all products if null
+     */
+    public long distinctCategories(ProductFilter scope, double accuracy) {
+        checkAccuracy(accuracy);
+        if (accuracy < HyperLogLog.standardError(DISTINCT_PRECISION)) {
+            Set<Integer> categories = new HashSet<>();
+            scan(scope, (snapshot, row) -> {
+                if (snapshot.getCategoryId(row) != ProductSnapshot.NO_CATEGORY) {
+                    categories.add(snapshot.getCategoryId(row));
+                }
+            });
+            return categories.size();
+        }
+        if (scope == null) {
+            Sketches sketches = catalogSketches(accuracy - HyperLogLog.standardError(DISTINCT_PRECISION));
+            synchronized (sketches) {
+                return sketches.categories.estimate();
+            }
+        }
+        HyperLogLog categories = new HyperLogLog(HyperLogLog.precisionFor(accuracy));
+        scan(scope, (snapshot, row) -> {
+            if (snapshot.getCategoryId(row) != ProductSnapshot.NO_CATEGORY) {
+                categories.add(HyperLogLog.hash(snapshot.getCategory(snapshot.getCategoryId(row))));
+            }
+        });
+        return categories.estimate();
+    }
+
+    /**
+     * Approximate price percentile of the products in scope, null if none has a price
+     */
+    public Double pricePercentile(ProductFilter scope, double percentile, double accuracy) {
+        return percentile(scope, percentile, accuracy, true);
+    }
+
+    /**
+     * Approximate rating percentile of the products in scope, null if none has a rating
+     */
+    public Double ratingPercentile(ProductFilter scope, double percentile, double accuracy) {
+        return percentile(scope, percentile, accuracy, false);
+    }
+
+    /**
+     * The most used tags of the products in scope with their approximate counts, most used first
+     */
+    public List<TagStat> topTags(ProductFilter scope, int limit, double accuracy) {
+        checkAccuracy(accuracy);
+        if (limit < 1 || limit > MAX_TOP_TAGS) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_TOP_TAGS + ", got " + limit);
+        }
+        if (accuracy < Math.E / TAG_COUNT_WIDTH) {
+            Map<String, Long> counts = new HashMap<>();
+            long[] products = new long[1];
+            scan(scope, (snapshot, row) -> {
+                products[0]++;
+                snapshot.getTags(row).forEach(tag -> counts.merge(tag, 1L, Long::sum));
+            });
+            return tagStats(counts, limit, products[0]);
+        }
+        if (scope == null) {
+            Sketches sketches = catalogSketches(Double.POSITIVE_INFINITY);
+            synchronized (sketches) {
+                return tagStats(sketches.tagCounts.top(), limit, sketches.products);
+            }
+        }
+        TagCounts tagCounts = new TagCounts(CountMinSketch.widthFor(accuracy));
+        long[] products = new long[1];
+        scan(scope, (snapshot, row) -> {
+            products[0]++;
+            snapshot.getTags(row).forEach(tag -> tagCounts.add(tag, 1));
+        });
+        return tagStats(tagCounts.top(), limit, products[0]);
+    }
+
+    /**
+     * Fold a product change into the catalog sketches once they have been built.
+     * Runs after the mutation's transaction commits, or immediately outside a transaction.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChange(ProductChangeEvent event) {
+        Sketches sketches = catalog;
+        if (sketches == null) {
+            // A build in progress may have read the catalog before this change
+            missedChanges.incrementAndGet();
+            return;
+        }
+        synchronized (sketches) {
+            if (event.getOldProduct() != null) {
+                sketches.remove(event.getOldProduct());
+            }
+            if (!event.isDeletion() && event.getNewProduct() != null) {
+                sketches.add(event.getNewProduct());
+            }
+        }
+    }
+
+    private Double percentile(ProductFilter scope, double percentile, double accuracy, boolean price) {
+        checkAccuracy(accuracy);
+        if (!(percentile >= 0 && percentile <= 100)) {
+            throw new IllegalArgumentException("percentile must be between 0 and 100, got " + percentile);
+        }
+        double fraction = percentile / 100;
+        double sketchError = QuantileSketch.rankError(QUANTILE_K);
+        if (accuracy < sketchError) {
+            return exactPercentile(scope, fraction, price);
+        }
+        if (scope == null) {
+            Sketches sketches = catalogSketches(accuracy - sketchError);
+            synchronized (sketches) {
+                return result((price ? sketches.prices : sketches.ratings).quantile(fraction), price);
+            }
+        }
+        QuantileSketch scoped = new QuantileSketch(QuantileSketch.kFor(accuracy));
+        scan(scope, (snapshot, row) -> scoped.add(price ? snapshot.getPrice(row) : snapshot.getRating(row)));
+        return result(scoped.quantile(fraction), price);
+    }
+
+    /**
+     * The smallest value whose rank is at least the fraction of all values, the percentile the sketches estimate
+     */
+    private Double exactPercentile(ProductFilter scope, double fraction, boolean price) {
+        double[][] values = {new double[1024]};
+        int[] size = new int[1];
+        scan(scope, (snapshot, row) -> {
+            double value = price ? snapshot.getPrice(row) : snapshot.getRating(row);
+            if (!Double.isNaN(value)) {
+                if (size[0] == values[0].length) {
+                    values[0] = Arrays.copyOf(values[0], size[0] * 2);
+                }
+                values[0][size[0]++] = value;
+            }
+        });
+        if (size[0] == 0) {
+            return null;
+        }
+        Arrays.sort(values[0], 0, size[0]);
+        int rank = (int) Math.max(0, Math.ceil(fraction * size[0]) - 1);
+        return result(values[0][rank], price);
+    }
+
+    /**
+     * Ratings are stored as floats, so report them at float precision
+     */
+    private static Double result(double value, boolean price) {
+        if (Double.isNaN(value)) {
+            return null;
+        }
+        return price ? value : Double.valueOf(Float.toString((float) value));
+    }
+
+    private static List<TagStat> tagStats(Map<String, Long> counts, int limit, long products) {
+        List<Map.Entry<String, Long>> entries = new ArrayList<>(counts.entrySet());
+        entries.sort(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder())
+                .thenComparing(Map.Entry.comparingByKey()));
+        List<TagStat> stats = new ArrayList<>();
+        for (Map.Entry<String, Long> entry : entries.subList(0, Math.min(limit, entries.size()))) {
+            double percentage = products > 0 ? entry.getValue() * 100.0 / products : 0.0;
+            stats.add(new TagStat(entry.getKey(), (int) Math.min(entry.getValue(), Integer.MAX_VALUE), percentage));
+        }
+        return stats;
+    }
+
+    private static void checkAccuracy(double accuracy) {
+        if (!(accuracy >= 0 && accuracy < 1)) {
+            throw new IllegalArgumentException("accuracy must be at least 0 and below 1, got " + accuracy);
+        }
+    }
+
+    /**
+     * Visit the rows of the current request's snapshot that are in scope
+     */
+    private void scan(ProductFilter scope, RowVisitor visitor) {
+        ProductSnapshot snapshot = catalogScanCoordinator.getFullCatalog();
+        if (scope == null) {
+            for (int row = 0; row < snapshot.size(); row++) {
+                visitor.visit(snapshot, row);
+            }
+            return;
+        }
+        BitSet rows = dynamicQueryService.select(snapshot, scope);
+        for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+            visitor.visit(snapshot, row);
+        }
+    }
+
+    /**
+     * The catalog sketches, rebuilt first if more of the catalog has changed since the
+     * last build than the given fraction
+     */
+    private Sketches catalogSketches(double allowedStaleness) {
+        Sketches sketches = catalog;
+        if (sketches != null && sketches.staleness(missedChanges) <= allowedStaleness) {
+            return sketches;
+        }
+        synchronized (buildLock) {
+            sketches = catalog;
+            if (sketches != null && sketches.staleness(missedChanges) <= allowedStaleness) {
+                return sketches;
+            }
+            // Changes from here on are either in the snapshot read below or counted as missed
+            catalog = null;
+            missedChanges.set(0);
+            ProductSnapshot snapshot = catalogScanCoordinator.getFullCatalog();
+            Sketches rebuilt = new Sketches();
+            for (int row = 0; row < snapshot.size(); row++) {
+                rebuilt.add(snapshot, row);
+            }
+            catalog = rebuilt;
+            logger.debug("Built catalog sketches over {} products", rebuilt.products);
+            return rebuilt;
+        }
+    }
+
+    private interface RowVisitor {
+        void visit(ProductSnapshot snapshot, int row);
+    }
+
+    /**
+     * Sketches of the whole catalog, guarded by their own monitor
+     */
+    private static final class Sketches {
+        private final HyperLogLog tags = new HyperLogLog(DISTINCT_PRECISION);
+        private final HyperLogLog categories = new HyperLogLog(DISTINCT_PRECISION);
+        private final QuantileSketch prices = new QuantileSketch(QUANTILE_K);
+        private final QuantileSketch ratings = new QuantileSketch(QUANTILE_K);
+        private final TagCounts tagCounts = new TagCounts(TAG_COUNT_WIDTH);
+        private long products;
+        /** Products whose values the insert-only sketches still hold after an update or deletion */
+        private long removals;
+
+        void add(ProductSnapshot snapshot, int row) {
+            add(snapshot.getTags(row), snapshot.getCategoryId(row) != ProductSnapshot.NO_CATEGORY
+                            ? snapshot.getCategory(snapshot.getCategoryId(row)) : null,
+                    snapshot.getPrice(row), snapshot.getRating(row));
+        }
+
+        void add(Product product) {
+            add(product.getTags(), product.getCategory(),
+                    product.getPrice() != null ? product.getPrice() : Double.NaN,
+                    product.getRating() != null ? product.getRating() : Double.NaN);
+        }
+
+        void remove(Product product) {
+            products--;
+            removals++;
+            if (product.getTags() != null) {
+                for (String tag : product.getTags()) {
+                    tagCounts.add(tag, -1);
+                }
+            }
+        }
+
+        double staleness(AtomicLong missedChanges) {
+            synchronized (this) {
+                removals += missedChanges.getAndSet(0);
+                return (double) removals / Math.max(products, 1);
+            }
+        }
+
+        private void add(List<String> productTags, String category, double price, double rating) {
+            products++;
+            if (productTags != null) {
+                for (String tag : productTags) {
+                    tags.add(HyperLogLog.hash(tag));
+                    tagCounts.add(tag, 1);
+                }
+            }
+            if (category != null) {
+                categories.add(HyperLogLog.hash(category));
+            }
+            prices.add(price);
+            ratings.add(rating);
+        }
+    }
+
+    /**
+     * Count-min counts of tags, with the tags whose counts were highest when they were
+     * last added kept as candidates for the most used ones
+     */
+    static final class TagCounts {
+        private final CountMinSketch counts;
+        private final Set<String> candidates = new HashSet<>();
+        /**
+         * Lowest count among the candidates when last computed, lowered by every decrement
+         * since, so never above the current one
+         */
+        private long floor;
+
+        TagCounts(int width) {
+            this.counts = new CountMinSketch(width, TAG_COUNT_DEPTH);
+        }
+
+        void add(String tag, long delta) {
+            long hash = HyperLogLog.hash(tag);
+            counts.add(hash, delta);
+            if (delta < 0) {
+                // The decremented counters may be shared with any candidate, whose estimate drops by at most as much
+                floor = Math.max(floor + delta, 0);
+                return;
+            }
+            if (delta == 0 || candidates.contains(tag)) {
+                return;
+            }
+            if (candidates.size() < TAG_CANDIDATES) {
+                candidates.add(tag);
+                return;
+            }
+            long estimate = counts.estimate(hash);
+            if (estimate <= floor) {
+                return;
+            }
+            String lowest = null;
+            long lowestCount = Long.MAX_VALUE;
+            for (String candidate : candidates) {
+                long count = counts.estimate(HyperLogLog.hash(candidate));
+                if (count < lowestCount) {
+                    lowest = candidate;
+                    lowestCount = count;
+                }
+            }
+            if (estimate > lowestCount) {
+                candidates.remove(lowest);
+                candidates.add(tag);
+            }
+            // Every remaining candidate counts at least as many as the lowest one found
+            floor = lowestCount;
+        }
+
+        /**
+         * Estimated counts of the candidates that are still in use
+         */
+        Map<String, Long> top() {
+            Map<String, Long> top = new HashMap<>();
+            for (String candidate : candidates) {
+                long count = counts.estimate(HyperLogLog.hash(candidate));
+                if (count > 0) {
+                    top.put(candidate, count);
+                }
+            }
+            return top;
+        }
+    }
+}
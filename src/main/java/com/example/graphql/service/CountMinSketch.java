@@ -0,0 +1,66 @@
+package com.example.graphql.service;
+
+/**
+ * Count-min sketch of the frequencies of 64-bit hashes. Counts can be decremented again,
+ * so it tracks a multiset under insertions and deletions. An estimate is never below the
+ * true count, and exceeds it by at most e / width of the total count with probability
+ * 1 - e^-depth.
+ */
+public final class CountMinSketch {
+
+    private final int width;
+    private final int depth;
+    private final long[] counts;
+    private long total;
+
+    public CountMinSketch(int width, int depth) {
+        if (width < 1 || Integer.bitCount(width) != 1 || depth < 1) {
+            throw new IllegalArgumentException("width must be a power of two and depth positive, got "
+                    + width + " and " + depth);
+        }
+        this.width = width;
+        this.depth = depth;
+        this.counts = new long[width * depth];
+    }
+
+    /**
+     * Smallest power of two width whose error is at most the given fraction of the total count
+     */
+    public static int widthFor(double relativeError) {
+        if (!(relativeError > 0)) {
+            throw new IllegalArgumentException("relative error must be positive, got " + relativeError);
+        }
+        long width = Math.max(2, (long) Math.ceil(Math.E / relativeError));
+        return (int) Math.min(1 << 24, Long.highestOneBit(width - 1) << 1);
+    }
+
+    public double relativeError() {
+        return Math.E / width;
+    }
+
+    /**
+     * Total of all counts
+     */
+    public long total() {
+        return total;
+    }
+
+    public void add(long hash, long delta) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int row = 0; row < depth; row++) {
+            counts[row * width + ((h1 + row * h2) & (width - 1))] += delta;
+        }
+        total += delta;
+    }
+
+    public long estimate(long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counts[row * width + ((h1 + row * h2) & (width - 1))]);
+        }
+        return Math.max(estimate, 0);
+    }
+}
@@ -1,8 +1,10 @@
 package com.example.graphql.service;
 
+import com.example.graphql.dto.AttributeFilter;
 import com.example.graphql.dto.DynamicProduct;
 import com.example.graphql.dto.ProductAttribute;
 import com.example.graphql.dto.ProductFilter;
+import com.example.graphql.dto.ProductSearchResult;
 import com.example.graphql.model.Product;
 import com.example.graphql.repository.ProductRepository;
 import com.example.graphql.repository.ProductSpecification;
@@ -15,23 +17,43 @@ import org.springframework.util.ReflectionUtils;
 
 import java.lang.reflect.Field;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-import java.util.Optional;
 import java.util.Set;
+import java.util.function.IntPredicate;
+import java.util.function.LongPredicate;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 @Service
 public class DynamicQueryService {
 
     private final ProductRepository productRepository;
+    private final ProductSnapshotStore productSnapshotStore;
+    private final ProductSearchIndex searchIndex;
+    private final AttributeTypeRegistry attributeTypes;
 
     @Autowired
-    public DynamicQueryService(ProductRepository productRepository) {
+    public DynamicQueryService(ProductRepository productRepository, ProductSnapshotStore productSnapshotStore,
+                               ProductSearchIndex searchIndex, AttributeTypeRegistry attributeTypes) {
         this.productRepository = productRepository;
+        this.productSnapshotStore = productSnapshotStore;
+        this.searchIndex = searchIndex;
+        this.attributeTypes = attributeTypes;
+    }
+
+    /**
+     * Without a type registry, dynamic queries report custom attributes without their type
+     */
+    public DynamicQueryService(ProductRepository productRepository, ProductSnapshotStore productSnapshotStore) {
+        this(productRepository, productSnapshotStore, new ProductSearchIndex(productSnapshotStore), null);
     }
 
     /**
@@ -43,55 +65,83 @@ public class DynamicQueryService {
     }
 
     /**
-     * Apply filters to a list of products
+     * Select the rows of a columnar snapshot that match a filter.
+     * The filter is compiled into column kernels over the snapshot's primitive arrays,
+     * with the search clause resolved to matching ids by the search index; only name
+     * and tag clauses read the row records, and only for rows the column clauses kept.
      */
-    public List<Product> applyFilter(List<Product> products, ProductFilter filter) {
-        if (filter == null) {
-            return products;
+    public BitSet select(ProductSnapshot snapshot, ProductFilter filter) {
+        long[] searchMatches = filter != null ? searchIndex.findMatches(filter.getSearch()) : null;
+        return VectorizedFilter.compile(snapshot, filter, searchMatches, recordFilter(snapshot, filter)).execute();
+    }
+
+    /**
+     * Full-text search over product names and descriptions, most relevant first,
+     * restricted to the products passing the filter if one is given
+     */
+    public List<ProductSearchResult> searchProducts(String query, ProductFilter filter, int limit) {
+        LongPredicate accept = id -> true;
+        if (filter != null) {
+            ProductSnapshot snapshot = productSnapshotStore.getSnapshot();
+            BitSet rows = select(snapshot, filter);
+            long[] allowed = new long[rows.cardinality()];
+            int i = 0;
+            for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+                allowed[i++] = snapshot.getId(row);
+            }
+            Arrays.sort(allowed);
+            accept = id -> Arrays.binarySearch(allowed, id) >= 0;
         }
 
-        return products.stream()
-                .filter(product -> matchesFilter(product, filter))
-                .collect(Collectors.toList());
+        List<ProductSearchIndex.Hit> hits = searchIndex.search(query, limit, accept);
+        List<Long> ids = hits.stream().map(ProductSearchIndex.Hit::getProductId).collect(Collectors.toList());
+        Map<Long, Product> products = productRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Product::getId, product -> product));
+        List<ProductSearchResult> results = new ArrayList<>(hits.size());
+        for (ProductSearchIndex.Hit hit : hits) {
+            // A product deleted since the index was read is left out
+            Product product = products.get(hit.getProductId());
+            if (product != null) {
+                results.add(new ProductSearchResult(product, hit.getScore()));
+            }
+        }
+        return results;
     }
 
     /**
-     * Get filtered products from repository
+     * Get filtered products from the columnar catalog snapshot
      */
     public List<Product> getFilteredProducts(ProductFilter filter) {
-        List<Product> allProducts = productRepository.findAll();
-        return applyFilter(allProducts, filter);
+        ProductSnapshot snapshot = productSnapshotStore.getSnapshot();
+        return snapshot.getProducts(select(snapshot, filter));
     }
 
     /**
      * Find related products based on category, tags, and other attributes
      */
     public List<Product> findRelatedProducts(Long productId, Integer maxResults) {
-        Optional<Product> productOpt = productRepository.findById(productId);
-        if (productOpt.isEmpty()) {
+        ProductSnapshot snapshot = productSnapshotStore.getSnapshot();
+        int base = productId != null ? snapshot.findRow(productId) : -1;
+        if (base < 0) {
             return Collections.emptyList();
         }
 
-        Product product = productOpt.get();
-        List<Product> allProducts = productRepository.findAll();
-        
-        // Remove the current product from candidates
-        List<Product> candidates = allProducts.stream()
-                .filter(p -> !p.getId().equals(productId))
-                .collect(Collectors.toList());
-
-        // Score each product based on similarity
-        Map<Product, Integer> productScores = new HashMap<>();
-        for (Product candidate : candidates) {
-            int score = calculateSimilarityScore(product, candidate);
-            productScores.put(candidate, score);
+        // Score every other product based on similarity
+        Set<String> baseTags = snapshot.getTags(base) != null ? new HashSet<>(snapshot.getTags(base)) : Set.of();
+        int[] scores = new int[snapshot.size()];
+        for (int row = 0; row < snapshot.size(); row++) {
+            if (row != base) {
+                scores[row] = calculateSimilarityScore(snapshot, base, row, baseTags);
+            }
         }
 
         // Sort by score (descending) and take top results
-        return productScores.entrySet().stream()
-                .sorted(Map.Entry.<Product, Integer>comparingByValue().reversed())
+        return IntStream.range(0, snapshot.size())
+                .filter(row -> row != base)
+                .boxed()
+                .sorted(Comparator.comparingInt((Integer row) -> scores[row]).reversed())
                 .limit(maxResults != null ? maxResults : 5)
-                .map(Map.Entry::getKey)
+                .map(snapshot::getProduct)
                 .collect(Collectors.toList());
     }
 
@@ -145,112 +195,77 @@ public class DynamicQueryService {
     }
 
     /**
-     * Check if a product matches the given filter
+     * Per-row check for the clauses of a filter that have no snapshot column,
+     * or null if the filter has none
      */
-    private boolean matchesFilter(Product product, ProductFilter filter) {
-        if (filter.getNameContains() != null && !filter.getNameContains().isEmpty() && 
-            (product.getName() == null || !product.getName().toLowerCase().contains(filter.getNameContains().toLowerCase()))) {
-            return false;
-        }
-        
-        if (filter.getMinPrice() != null && product.getPrice() < filter.getMinPrice()) {
-            return false;
-        }
-        
-        if (filter.getMaxPrice() != null && product.getPrice() > filter.getMaxPrice()) {
-            return false;
-        }
-        
-        if (filter.getCategories() != null && !filter.getCategories().isEmpty() && 
-            (product.getCategory() == null || !filter.getCategories().contains(product.getCategory()))) {
-            return false;
-        }
-        
-        if (filter.getMinRating() != null && (product.getRating() == null || product.getRating() < filter.getMinRating())) {
-            return false;
+    private IntPredicate recordFilter(ProductSnapshot snapshot, ProductFilter filter) {
+        if (filter == null) {
+            return null;
         }
-        
-        if (filter.getInStock() != null && !filter.getInStock().equals(product.isInStock())) {
-            return false;
+        String needle = filter.getNameContains() != null && !filter.getNameContains().isEmpty()
+                ? filter.getNameContains().toLowerCase(Locale.ROOT) : null;
+        boolean tags = filter.getHasTags() != null && !filter.getHasTags().isEmpty();
+        List<AttributeFilter> attributes = AttributeFilter.normalize(filter.getAttributes());
+        if (needle == null && !tags && attributes == null) {
+            return null;
         }
-        
-        if (filter.getHasTags() != null && !filter.getHasTags().isEmpty()) {
-            if (product.getTags() == null || product.getTags().isEmpty()) {
-                return false;
+        // Attribute filters are decided once per distinct value of the attribute column
+        List<IntPredicate> attributeMatchers = new ArrayList<>();
+        if (attributes != null) {
+            for (AttributeFilter attribute : attributes) {
+                attributeMatchers.add(snapshot.attributeColumn(attribute.getKey()).matcher(attribute));
             }
-            
-            boolean hasAnyTag = false;
-            for (String tag : filter.getHasTags()) {
-                if (product.getTags().contains(tag)) {
-                    hasAnyTag = true;
-                    break;
+        }
+        return row -> {
+            for (IntPredicate matcher : attributeMatchers) {
+                if (!matcher.test(row)) {
+                    return false;
                 }
             }
-            
-            if (!hasAnyTag) {
+            if (needle != null && (snapshot.getLowerCaseName(row) == null || !snapshot.getLowerCaseName(row).contains(needle))) {
                 return false;
             }
-        }
-        
-        if (filter.getMinStockQuantity() != null && 
-            (product.getStockQuantity() == null || product.getStockQuantity() < filter.getMinStockQuantity())) {
-            return false;
-        }
-        
-        if (filter.getMinPopularity() != null && 
-            (product.getPopularity() == null || product.getPopularity() < filter.getMinPopularity())) {
+            return !tags || hasAnyTag(snapshot.getTags(row), filter.getHasTags());
+        };
+    }
+
+    private boolean hasAnyTag(List<String> productTags, List<String> tags) {
+        if (productTags == null || productTags.isEmpty()) {
             return false;
         }
-        
-        // Handling date-based filters would require date parsing
-        // This is a simplified version that assumes createdAfter and createdBefore are ISO date strings
-        if (filter.getCreatedAfter() != null && product.getCreatedAt() != null) {
-            try {
-                if (product.getCreatedAt().compareTo(filter.getCreatedAfter()) < 0) {
-                    return false;
-                }
-            } catch (Exception e) {
-                // Skip date comparison if parsing fails
+        for (String tag : tags) {
+            if (productTags.contains(tag)) {
+                return true;
             }
         }
-        
-        if (filter.getCreatedBefore() != null && product.getCreatedAt() != null) {
-            try {
-                if (product.getCreatedAt().compareTo(filter.getCreatedBefore()) > 0) {
-                    return false;
-                }
-            } catch (Exception e) {
-                // Skip date comparison if parsing fails
-            }
-        }
-        
-        // hasPriceChanged filter would require access to price history, which is not included in this example
-        
-        return true;
+        return false;
     }
 
     /**
      * Calculate similarity score between two products
      */
-    private int calculateSimilarityScore(Product product1, Product product2) {
+    private int calculateSimilarityScore(ProductSnapshot snapshot, int base, int row, Set<String> baseTags) {
         int score = 0;
         
         // Same category gets high score
-        if (product1.getCategory() != null && product1.getCategory().equals(product2.getCategory())) {
+        if (snapshot.getCategoryId(base) != ProductSnapshot.NO_CATEGORY
+                && snapshot.getCategoryId(base) == snapshot.getCategoryId(row)) {
             score += 5;
         }
         
         // Similar price range (within 20%)
-        if (Math.abs(product1.getPrice() - product2.getPrice()) / product1.getPrice() < 0.2) {
+        if (Math.abs(snapshot.getPrice(base) - snapshot.getPrice(row)) / snapshot.getPrice(base) < 0.2) {
             score += 2;
         }
         
         // Common tags
-        if (product1.getTags() != null && product2.getTags() != null) {
-            Set<String> tags1 = new HashSet<>(product1.getTags());
-            for (String tag : product2.getTags()) {
-                if (tags1.contains(tag)) {
-                    score += 1;
+        if (!baseTags.isEmpty()) {
+            List<String> tags = snapshot.getTags(row);
+            if (tags != null) {
+                for (String tag : tags) {
+                    if (baseTags.contains(tag)) {
+                        score += 1;
+                    }
                 }
             }
         }
@@ -268,7 +283,8 @@ public class DynamicQueryService {
         // Get products based on filter
         List<Product> products;
         if (filter != null) {
-            Specification<Product> spec = ProductSpecification.getSpecification(filter);
+            Specification<Product> spec = ProductSpecification.getSpecification(filter,
+                    searchIndex.findMatches(filter.getSearch()));
             products = productRepository.findAll(spec);
         } else {
             products = productRepository.findAll();
@@ -329,14 +345,16 @@ public class DynamicQueryService {
         List<ProductAttribute> productAttributes = new ArrayList<>();
         
         for (String attribute : attributes) {
+            String customValue = product.getCustomAttributes() != null ? product.getCustomAttributes().get(attribute) : null;
+            if (customValue != null) {
+                // Custom values are stored in the canonical form of their type
+                productAttributes.add(new ProductAttribute(attribute, customValue,
+                        attributeTypes != null ? attributeTypes.typeOf(attribute) : null));
+                continue;
+            }
             Object value = getAttributeValue(product, attribute);
             if (value != null) {
                 productAttributes.add(new ProductAttribute(attribute, value.toString()));
-            } else if (product.getCustomAttributes().containsKey(attribute)) {
-                productAttributes.add(new ProductAttribute(
-                    attribute, 
-                    product.getCustomAttributes().get(attribute)
-                ));
             }
         }
         
@@ -373,7 +391,7 @@ public class DynamicQueryService {
     private List<String> validateAttributes(List<String> attributes) {
         List<String> validAttributes = new ArrayList<>();
         
-        // Standard product attributes
+        // Standard product attributes, plus the registered custom attributes
         List<String> standardAttributes = List.of(
             "id", "name", "description", "price", "category", 
             "inStock", "rating", "stockQuantity", "popularity", 
@@ -381,10 +399,10 @@ public class DynamicQueryService {
         );
         
         for (String attribute : attributes) {
-            if (standardAttributes.contains(attribute)) {
+            if (standardAttributes.contains(attribute)
+                    || (attributeTypes != null && attributeTypes.typeOf(attribute) != null)) {
                 validAttributes.add(attribute);
             }
-            // We could also validate custom attributes here
         }
         
         // Ensure id is always included
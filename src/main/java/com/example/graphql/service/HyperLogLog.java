@@ -0,0 +1,204 @@
+package com.example.graphql.service;
+
+import java.util.Arrays;
+
+/**
+ * HyperLogLog estimate of the number of distinct 64-bit hashes added to it.
+ *
+ * Small sets are counted exactly: hashes are kept in an open-addressing table until
+ * they would take more memory than the registers, and only then folded into 2^precision
+ * registers, for a relative standard error of about 1.04 / sqrt(2^precision). Sketches
+ * of the same precision can be merged.
+ */
+public final class HyperLogLog {
+
+    public static final int MIN_PRECISION = 4;
+    public static final int MAX_PRECISION = 18;
+
+    private final int precision;
+    // Exact set of hashes while small; 0 marks free slots, so a zero hash is tracked apart
+    private long[] hashes = new long[16];
+    private int hashCount;
+    private boolean hasZero;
+    private byte[] registers;
+
+    public HyperLogLog(int precision) {
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException(
+                    "precision must be between " + MIN_PRECISION + " and " + MAX_PRECISION + ", got " + precision);
+        }
+        this.precision = precision;
+    }
+
+    /**
+     * Smallest precision whose standard error is at most the given relative error
+     */
+    public static int precisionFor(double relativeError) {
+        if (!(relativeError > 0)) {
+            throw new IllegalArgumentException("relative error must be positive, got " + relativeError);
+        }
+        for (int precision = MIN_PRECISION; precision < MAX_PRECISION; precision++) {
+            if (standardError(precision) <= relativeError) {
+                return precision;
+            }
+        }
+        return MAX_PRECISION;
+    }
+
+    public static double standardError(int precision) {
+        return 1.04 / Math.sqrt(1 << precision);
+    }
+
+    /**
+     * Mix a value into a well-distributed 64-bit hash (the SplitMix64 finalizer)
+     */
+    public static long hash(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * 64-bit hash of a string, FNV-1a over its characters then mixed
+     */
+    public static long hash(String value) {
+        long h = 0xCBF29CE484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h = (h ^ value.charAt(i)) * 0x100000001B3L;
+        }
+        return hash(h);
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    /**
+     * Add a hash, as returned by one of the hash methods
+     */
+    public void add(long hash) {
+        if (registers != null) {
+            addToRegisters(hash);
+        } else if (hash == 0) {
+            hasZero = true;
+        } else if (insert(hash) && hashCount > exactLimit()) {
+            toRegisters();
+        }
+    }
+
+    /**
+     * Add all hashes of another sketch of the same precision
+     */
+    public void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException(
+                    "Cannot merge sketches of precision " + other.precision + " into " + precision);
+        }
+        if (other.registers == null) {
+            if (other.hasZero) {
+                add(0);
+            }
+            for (long hash : other.hashes) {
+                if (hash != 0) {
+                    add(hash);
+                }
+            }
+            return;
+        }
+        if (registers == null) {
+            toRegisters();
+        }
+        for (int i = 0; i < registers.length; i++) {
+            registers[i] = (byte) Math.max(registers[i], other.registers[i]);
+        }
+    }
+
+    /**
+     * Whether the count is still exact
+     */
+    public boolean isExact() {
+        return registers == null;
+    }
+
+    public long estimate() {
+        if (registers == null) {
+            return hashCount + (hasZero ? 1 : 0);
+        }
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double alpha = 0.7213 / (1 + 1.079 / m);
+        double estimate = alpha * m * m / sum;
+        // Linear counting is more accurate while many registers are still empty
+        if (estimate <= 2.5 * m && zeros > 0) {
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    private int exactLimit() {
+        // Eight bytes per exact hash against one byte per register
+        return (1 << precision) / 8;
+    }
+
+    private boolean insert(long hash) {
+        if (2 * (hashCount + 1) > hashes.length) {
+            long[] old = hashes;
+            hashes = new long[old.length * 2];
+            hashCount = 0;
+            for (long h : old) {
+                if (h != 0) {
+                    insert(h);
+                }
+            }
+        }
+        int mask = hashes.length - 1;
+        int slot = (int) hash & mask;
+        while (hashes[slot] != 0) {
+            if (hashes[slot] == hash) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        hashes[slot] = hash;
+        hashCount++;
+        return true;
+    }
+
+    private void toRegisters() {
+        registers = new byte[1 << precision];
+        if (hasZero) {
+            addToRegisters(0);
+        }
+        for (long hash : hashes) {
+            if (hash != 0) {
+                addToRegisters(hash);
+            }
+        }
+        hashes = null;
+        hashCount = 0;
+        hasZero = false;
+    }
+
+    private void addToRegisters(long hash) {
+        int index = (int) (hash >>> (64 - precision));
+        // Rank of the first 1 bit after the index bits, capped when they are all 0
+        int rank = Math.min(Long.numberOfLeadingZeros(hash << precision), 64 - precision) + 1;
+        if (rank > registers[index]) {
+            registers[index] = (byte) rank;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "HyperLogLog{precision=" + precision + ", estimate=" + estimate()
+                + (registers == null ? ", exact" : "") + "}";
+    }
+}
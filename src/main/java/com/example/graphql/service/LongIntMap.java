@@ -0,0 +1,75 @@
+package com.example.graphql.service;
+
+/**
+ * Open-addressing hash map from long keys to dense int ids, numbered in insertion order
+ */
+final class LongIntMap {
+
+    private long[] keys;
+    // Id + 1 of the key in each slot, 0 for free slots
+    private int[] ids;
+    private int size;
+
+    LongIntMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize, 4) * 2 - 1) << 1;
+        keys = new long[capacity];
+        ids = new int[capacity];
+    }
+
+    /**
+     * Returns the id of a key, giving it the next id if it has none yet
+     */
+    int idOf(long key) {
+        int mask = keys.length - 1;
+        int slot = (int) HyperLogLog.hash(key) & mask;
+        while (ids[slot] != 0) {
+            if (keys[slot] == key) {
+                return ids[slot] - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        ids[slot] = ++size;
+        if (2 * size > keys.length) {
+            grow();
+        }
+        return size - 1;
+    }
+
+    /**
+     * Returns the id of a key, or -1 if it has none
+     */
+    int find(long key) {
+        int mask = keys.length - 1;
+        int slot = (int) HyperLogLog.hash(key) & mask;
+        while (ids[slot] != 0) {
+            if (keys[slot] == key) {
+                return ids[slot] - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldIds = ids;
+        keys = new long[oldKeys.length * 2];
+        ids = new int[oldIds.length * 2];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldIds[i] != 0) {
+                int slot = (int) HyperLogLog.hash(oldKeys[i]) & mask;
+                while (ids[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                ids[slot] = oldIds[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,613 @@
+package com.example.graphql.service;
+
+import com.example.graphql.model.Product;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Read-only product catalog stored in a memory-mapped file, so that the catalog lives
+ * outside the Java heap and survives restarts.
+ *
+ * The file holds a header, a heap of variable-length row data (strings, tag ids, related
+ * product ids and custom attributes), one fixed-width record per product with its numeric
+ * fields and timestamps, and dictionaries of categories and tags:
+ *
+ * <pre>
+ * header (64 bytes) | heap (1 GiB segments) | records (RECORD_BYTES per row) | dictionaries
+ * </pre>
+ *
+ * The header also holds the highest product id and latest update time written, which
+ * together with the row count tell whether the file still matches the database.
+ *
+ * Files are written once, to a temporary file that is then moved into place, and never
+ * modified, so a file stays valid for readers that mapped it before it was replaced.
+ */
+public final class MappedProductFile implements ProductRecords {
+
+    private static final int MAGIC = 0x50524F44; // "PROD"
+    /** Version 3 adds the highest id and latest updatedAt to the header */
+    private static final int VERSION = 3;
+    private static final int HEADER_BYTES = 64;
+    private static final int RECORD_BYTES = 64;
+    private static final int MAX_ROWS = Integer.MAX_VALUE / RECORD_BYTES;
+    private static final int WRITE_BUFFER_BYTES = 1 << 20;
+
+    /** Row data never straddles segments, so each row is read from a single mapping */
+    static final long SEGMENT_BYTES = 1L << 30;
+
+    // Record layout
+    private static final int ID = 0;
+    private static final int PRICE = 8;
+    private static final int RATING = 16;
+    private static final int STOCK_QUANTITY = 20;
+    private static final int POPULARITY = 24;
+    private static final int CATEGORY_ID = 28;
+    private static final int FLAGS = 32;
+    private static final int HEAP_POSITION = 40;
+    private static final int CREATED_AT = 48;
+    private static final int UPDATED_AT = 56;
+
+    private static final int IN_STOCK = 1;
+    private static final int HAS_IN_STOCK = 2;
+    private static final int HAS_STOCK_QUANTITY = 4;
+    private static final int HAS_POPULARITY = 8;
+
+    private final Path path;
+    private final int rowCount;
+    private final long maxId;
+    private final long maxUpdatedAt;
+    private final MappedByteBuffer records;
+    private final MappedByteBuffer[] heapSegments;
+    private final String[] categories;
+    private final String[] tags;
+
+    private MappedProductFile(Path path, int rowCount, long maxId, long maxUpdatedAt, MappedByteBuffer records,
+                              MappedByteBuffer[] heapSegments, String[] categories, String[] tags) {
+        this.path = path;
+        this.rowCount = rowCount;
+        this.maxId = maxId;
+        this.maxUpdatedAt = maxUpdatedAt;
+        this.records = records;
+        this.heapSegments = heapSegments;
+        this.categories = categories;
+        this.tags = tags;
+    }
+
+    /**
+     * Map an existing catalog file
+     *
+     * @throws IOException if the file cannot be read or is not a complete catalog file
+     */
+    public static MappedProductFile open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // Read the full header
+            }
+            header.flip();
+            if (header.remaining() < HEADER_BYTES || header.getInt(0) != MAGIC) {
+                throw new IOException("Not a product catalog file: " + path);
+            }
+            if (header.getInt(4) != VERSION) {
+                throw new IOException("Unsupported product catalog version " + header.getInt(4) + ": " + path);
+            }
+            int rowCount = header.getInt(8);
+            long heapLength = header.getLong(16);
+            long recordsOffset = header.getLong(24);
+            long dictionaryOffset = header.getLong(32);
+            long fileLength = header.getLong(40);
+            long maxId = header.getLong(48);
+            long maxUpdatedAt = header.getLong(56);
+            if (fileLength != channel.size() || recordsOffset + (long) rowCount * RECORD_BYTES != dictionaryOffset) {
+                throw new IOException("Incomplete product catalog file: " + path);
+            }
+
+            MappedByteBuffer records = channel.map(FileChannel.MapMode.READ_ONLY, recordsOffset,
+                    (long) rowCount * RECORD_BYTES);
+            MappedByteBuffer[] heapSegments = new MappedByteBuffer[(int) ((heapLength + SEGMENT_BYTES - 1) / SEGMENT_BYTES)];
+            for (int segment = 0; segment < heapSegments.length; segment++) {
+                long start = segment * SEGMENT_BYTES;
+                heapSegments[segment] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES + start,
+                        Math.min(SEGMENT_BYTES, heapLength - start));
+            }
+            ByteBuffer dictionaries = channel.map(FileChannel.MapMode.READ_ONLY, dictionaryOffset,
+                    fileLength - dictionaryOffset);
+            String[] categories = readDictionary(dictionaries);
+            String[] tags = readDictionary(dictionaries);
+            return new MappedProductFile(path, rowCount, maxId, maxUpdatedAt, records, heapSegments, categories, tags);
+        }
+    }
+
+    /**
+     * Write products to a new catalog file, replacing any existing file at the path,
+     * and map it. Products are consumed one at a time, so the catalog never has to be
+     * held on heap in full.
+     */
+    public static MappedProductFile write(Path path, Iterator<Product> products) throws IOException {
+        Path directory = path.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        Path recordsTemp = Files.createTempFile(directory, path.getFileName().toString(), ".records.tmp");
+        try {
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE);
+                 FileChannel recordsOut = FileChannel.open(recordsTemp, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                writeCatalog(out, recordsOut, products);
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+            Files.deleteIfExists(recordsTemp);
+        }
+        return open(path);
+    }
+
+    private static void writeCatalog(FileChannel out, FileChannel recordsOut, Iterator<Product> products) throws IOException {
+        Dictionary categoryDictionary = new Dictionary();
+        Dictionary tagDictionary = new Dictionary();
+        ChannelWriter heap = new ChannelWriter(out, HEADER_BYTES);
+        ChannelWriter records = new ChannelWriter(recordsOut, 0);
+        ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES);
+        BlockWriter block = new BlockWriter();
+
+        int rowCount = 0;
+        long maxId = Long.MIN_VALUE;
+        long maxUpdatedAt = ProductSnapshot.NO_TIMESTAMP;
+        while (products.hasNext()) {
+            if (rowCount == MAX_ROWS) {
+                throw new IOException("Product catalog files hold at most " + MAX_ROWS + " products");
+            }
+            Product product = products.next();
+            ByteBuffer data = block.encode(product, tagDictionary);
+            long heapPosition = heap.getPosition() - HEADER_BYTES;
+            long segmentRemaining = SEGMENT_BYTES - heapPosition % SEGMENT_BYTES;
+            if (data.remaining() > segmentRemaining) {
+                heap.pad(segmentRemaining);
+                heapPosition += segmentRemaining;
+            }
+            heap.write(data);
+
+            int flags = 0;
+            if (product.getInStock() != null) {
+                flags |= HAS_IN_STOCK | (product.getInStock() ? IN_STOCK : 0);
+            }
+            if (product.getStockQuantity() != null) {
+                flags |= HAS_STOCK_QUANTITY;
+            }
+            if (product.getPopularity() != null) {
+                flags |= HAS_POPULARITY;
+            }
+            long id = product.getId() != null ? product.getId() : 0L;
+            long updatedAt = ProductSnapshot.toEpochMicros(product.getUpdatedAtTimestamp());
+            maxId = Math.max(maxId, id);
+            maxUpdatedAt = Math.max(maxUpdatedAt, updatedAt);
+            record.clear();
+            record.putLong(ID, id)
+                    .putDouble(PRICE, product.getPrice() != null ? product.getPrice() : Double.NaN)
+                    .putFloat(RATING, product.getRating() != null ? product.getRating() : Float.NaN)
+                    .putInt(STOCK_QUANTITY, product.getStockQuantity() != null ? product.getStockQuantity() : 0)
+                    .putInt(POPULARITY, product.getPopularity() != null ? product.getPopularity() : 0)
+                    .putInt(CATEGORY_ID, product.getCategory() != null
+                            ? categoryDictionary.idOf(product.getCategory()) : ProductSnapshot.NO_CATEGORY)
+                    .put(FLAGS, (byte) flags)
+                    .putLong(HEAP_POSITION, heapPosition)
+                    .putLong(CREATED_AT, ProductSnapshot.toEpochMicros(product.getCreatedAtTimestamp()))
+                    .putLong(UPDATED_AT, updatedAt);
+            records.write(record);
+            rowCount++;
+        }
+        heap.flush();
+        records.flush();
+
+        long heapLength = heap.getPosition() - HEADER_BYTES;
+        long recordsOffset = heap.getPosition();
+        long recordsLength = (long) rowCount * RECORD_BYTES;
+        for (long copied = 0; copied < recordsLength; ) {
+            copied += recordsOut.transferTo(copied, recordsLength - copied, out.position(recordsOffset + copied));
+        }
+
+        long dictionaryOffset = recordsOffset + recordsLength;
+        ChannelWriter dictionaries = new ChannelWriter(out, dictionaryOffset);
+        categoryDictionary.writeTo(dictionaries);
+        tagDictionary.writeTo(dictionaries);
+        dictionaries.flush();
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(0, MAGIC)
+                .putInt(4, VERSION)
+                .putInt(8, rowCount)
+                .putLong(16, heapLength)
+                .putLong(24, recordsOffset)
+                .putLong(32, dictionaryOffset)
+                .putLong(40, dictionaries.getPosition())
+                .putLong(48, maxId)
+                .putLong(56, maxUpdatedAt);
+        new ChannelWriter(out, 0).write(header).flush();
+        out.force(true);
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    @Override
+    public int size() {
+        return rowCount;
+    }
+
+    /**
+     * Returns the highest product id in the file, or Long.MIN_VALUE if it is empty
+     */
+    public long getMaxId() {
+        return maxId;
+    }
+
+    /**
+     * Returns the latest update time in epoch microseconds, or ProductSnapshot.NO_TIMESTAMP
+     * if no product has one
+     */
+    public long getMaxUpdatedAt() {
+        return maxUpdatedAt;
+    }
+
+    public long getId(int row) {
+        return records.getLong(recordOffset(row) + ID);
+    }
+
+    public double getPrice(int row) {
+        return records.getDouble(recordOffset(row) + PRICE);
+    }
+
+    public float getRating(int row) {
+        return records.getFloat(recordOffset(row) + RATING);
+    }
+
+    public int getStockQuantity(int row) {
+        return records.getInt(recordOffset(row) + STOCK_QUANTITY);
+    }
+
+    public int getPopularity(int row) {
+        return records.getInt(recordOffset(row) + POPULARITY);
+    }
+
+    public boolean isInStock(int row) {
+        return (records.get(recordOffset(row) + FLAGS) & IN_STOCK) != 0;
+    }
+
+    public int getCategoryId(int row) {
+        return records.getInt(recordOffset(row) + CATEGORY_ID);
+    }
+
+    /**
+     * Returns the category dictionary, indexed by category id
+     */
+    public String[] getCategories() {
+        return categories.clone();
+    }
+
+    @Override
+    public Product getProduct(int row) {
+        int offset = recordOffset(row);
+        int flags = records.get(offset + FLAGS);
+        BlockReader block = blockReader(row);
+
+        Product product = new Product();
+        product.setId(records.getLong(offset + ID));
+        product.setName(block.readString());
+        product.setDescription(block.readString());
+        product.setCreatedAtTimestamp(ProductSnapshot.fromEpochMicros(records.getLong(offset + CREATED_AT)));
+        product.setUpdatedAtTimestamp(ProductSnapshot.fromEpochMicros(records.getLong(offset + UPDATED_AT)));
+        double price = records.getDouble(offset + PRICE);
+        product.setPrice(Double.isNaN(price) ? null : price);
+        float rating = records.getFloat(offset + RATING);
+        product.setRating(Float.isNaN(rating) ? null : rating);
+        int categoryId = records.getInt(offset + CATEGORY_ID);
+        product.setCategory(categoryId == ProductSnapshot.NO_CATEGORY ? null : categories[categoryId]);
+        product.setStockQuantity((flags & HAS_STOCK_QUANTITY) != 0 ? records.getInt(offset + STOCK_QUANTITY) : null);
+        // After the stock quantity, whose setter derives inStock
+        product.setInStock((flags & HAS_IN_STOCK) != 0 ? (flags & IN_STOCK) != 0 : null);
+        product.setPopularity((flags & HAS_POPULARITY) != 0 ? records.getInt(offset + POPULARITY) : null);
+        product.setTags(block.readTags(tags));
+        product.setRelatedProductIds(block.readIds());
+        product.setFrequentlyBoughtWithIds(block.readIds());
+        int attributeCount = block.readInt();
+        Map<String, String> attributes = new HashMap<>(attributeCount * 2);
+        for (int i = 0; i < attributeCount; i++) {
+            attributes.put(block.readString(), block.readString());
+        }
+        product.setCustomAttributes(attributes);
+        return product;
+    }
+
+    @Override
+    public String getLowerCaseName(int row) {
+        String name = blockReader(row).readString();
+        return name != null ? name.toLowerCase(Locale.ROOT) : null;
+    }
+
+    @Override
+    public List<String> getTags(int row) {
+        BlockReader block = blockReader(row);
+        block.skipString();
+        block.skipString();
+        return block.readTags(tags);
+    }
+
+    @Override
+    public String getAttribute(int row, String key) {
+        BlockReader block = blockReader(row);
+        block.skipString();
+        block.skipString();
+        block.skipInts();
+        block.skipLongs();
+        block.skipLongs();
+        byte[] wanted = key.getBytes(StandardCharsets.UTF_8);
+        int attributeCount = block.readInt();
+        for (int i = 0; i < attributeCount; i++) {
+            if (block.nextStringEquals(wanted)) {
+                return block.readString();
+            }
+            block.skipString();
+        }
+        return null;
+    }
+
+    /**
+     * Returns the creation time in epoch microseconds, or ProductSnapshot.NO_TIMESTAMP
+     */
+    public long getCreatedAt(int row) {
+        return records.getLong(recordOffset(row) + CREATED_AT);
+    }
+
+    private int recordOffset(int row) {
+        return row * RECORD_BYTES;
+    }
+
+    private BlockReader blockReader(int row) {
+        long position = records.getLong(recordOffset(row) + HEAP_POSITION);
+        return new BlockReader(heapSegments[(int) (position / SEGMENT_BYTES)], (int) (position % SEGMENT_BYTES));
+    }
+
+    private static String[] readDictionary(ByteBuffer buffer) {
+        String[] entries = new String[buffer.getInt()];
+        for (int i = 0; i < entries.length; i++) {
+            byte[] bytes = new byte[buffer.getInt()];
+            buffer.get(bytes);
+            entries[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return entries;
+    }
+
+    /**
+     * Encodes the variable-length data of one product:
+     * name and description as length-prefixed UTF-8 (-1 for null),
+     * then tag ids, related ids, frequently-bought-with ids and custom attributes,
+     * each prefixed with its count
+     */
+    private static class BlockWriter {
+        private ByteBuffer buffer = ByteBuffer.allocate(4096);
+
+        ByteBuffer encode(Product product, Dictionary tagDictionary) {
+            buffer.clear();
+            putString(product.getName());
+            putString(product.getDescription());
+            List<String> productTags = product.getTags() != null ? product.getTags() : List.of();
+            ensureCapacity(4 + productTags.size() * 4);
+            buffer.putInt(productTags.size());
+            for (String tag : productTags) {
+                buffer.putInt(tagDictionary.idOf(tag));
+            }
+            putIds(product.getRelatedProductIds());
+            putIds(product.getFrequentlyBoughtWithIds());
+            Map<String, String> attributes = product.getCustomAttributes() != null
+                    ? product.getCustomAttributes() : Map.of();
+            ensureCapacity(4);
+            buffer.putInt(attributes.size());
+            attributes.forEach((key, value) -> {
+                putString(key);
+                putString(value);
+            });
+            return buffer.flip();
+        }
+
+        private void putString(String value) {
+            if (value == null) {
+                ensureCapacity(4);
+                buffer.putInt(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            ensureCapacity(4 + bytes.length);
+            buffer.putInt(bytes.length).put(bytes);
+        }
+
+        private void putIds(List<Long> ids) {
+            List<Long> values = ids != null ? ids : List.of();
+            ensureCapacity(4 + values.size() * 8);
+            buffer.putInt(values.size());
+            for (Long id : values) {
+                buffer.putLong(id);
+            }
+        }
+
+        private void ensureCapacity(int bytes) {
+            if (buffer.remaining() < bytes) {
+                ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+                buffer.flip();
+                larger.put(buffer);
+                buffer = larger;
+            }
+        }
+    }
+
+    /**
+     * Reads the variable-length data of one product using absolute gets, so concurrent
+     * readers can share the mapped segments
+     */
+    private static class BlockReader {
+        private final ByteBuffer segment;
+        private int position;
+
+        BlockReader(ByteBuffer segment, int position) {
+            this.segment = segment;
+            this.position = position;
+        }
+
+        int readInt() {
+            int value = segment.getInt(position);
+            position += 4;
+            return value;
+        }
+
+        String readString() {
+            int length = readInt();
+            if (length < 0) {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            segment.get(position, bytes);
+            position += length;
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        void skipString() {
+            int length = readInt();
+            position += Math.max(length, 0);
+        }
+
+        /**
+         * Consumes the next string, returning whether it has exactly the given UTF-8 bytes
+         */
+        boolean nextStringEquals(byte[] expected) {
+            int length = readInt();
+            if (length < 0) {
+                return false;
+            }
+            int start = position;
+            position += length;
+            if (length != expected.length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (segment.get(start + i) != expected[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void skipInts() {
+            int count = readInt();
+            position += count * 4;
+        }
+
+        void skipLongs() {
+            int count = readInt();
+            position += count * 8;
+        }
+
+        List<String> readTags(String[] dictionary) {
+            int count = readInt();
+            List<String> values = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                values.add(dictionary[readInt()]);
+            }
+            return values;
+        }
+
+        List<Long> readIds() {
+            int count = readInt();
+            List<Long> ids = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                ids.add(segment.getLong(position));
+                position += 8;
+            }
+            return ids;
+        }
+    }
+
+    /**
+     * Buffered sequential writer at an explicit channel position
+     */
+    private static class ChannelWriter {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_BYTES);
+        private long position;
+
+        ChannelWriter(FileChannel channel, long position) {
+            this.channel = channel;
+            this.position = position;
+        }
+
+        long getPosition() {
+            return position + buffer.position();
+        }
+
+        ChannelWriter write(ByteBuffer data) throws IOException {
+            data.rewind();
+            if (data.remaining() > buffer.remaining()) {
+                flush();
+            }
+            if (data.remaining() > buffer.capacity()) {
+                position += writeFully(data, position);
+            } else {
+                buffer.put(data);
+            }
+            return this;
+        }
+
+        void pad(long bytes) throws IOException {
+            flush();
+            position += bytes;
+        }
+
+        ChannelWriter flush() throws IOException {
+            buffer.flip();
+            position += writeFully(buffer, position);
+            buffer.clear();
+            return this;
+        }
+
+        private long writeFully(ByteBuffer data, long at) throws IOException {
+            long written = 0;
+            while (data.hasRemaining()) {
+                written += channel.write(data, at + written);
+            }
+            return written;
+        }
+    }
+
+    /**
+     * Assigns dense ids to distinct strings in first-seen order
+     */
+    private static class Dictionary {
+        private final Map<String, Integer> ids = new LinkedHashMap<>();
+
+        int idOf(String value) {
+            return ids.computeIfAbsent(value, key -> ids.size());
+        }
+
+        void writeTo(ChannelWriter writer) throws IOException {
+            ByteBuffer count = ByteBuffer.allocate(4).putInt(0, ids.size());
+            writer.write(count);
+            for (String value : ids.keySet()) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                writer.write(ByteBuffer.allocate(4 + bytes.length).putInt(bytes.length).put(bytes));
+            }
+        }
+    }
+}
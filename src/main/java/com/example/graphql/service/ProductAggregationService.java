@@ -0,0 +1,686 @@
+package com.example.graphql.service;
+
+import com.example.graphql.dto.AggregateFunction;
+import com.example.graphql.dto.AggregateGroup;
+import com.example.graphql.dto.AggregateMetric;
+import com.example.graphql.dto.MetricValue;
+import com.example.graphql.dto.ProductFilter;
+import com.example.graphql.model.AttributeType;
+import com.example.graphql.repository.ProductRepository;
+import com.example.graphql.repository.ProductSpecification;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Computes aggregateProducts: the products matching a filter, grouped by standard fields
+ * or custom attributes, with metric functions per group.
+ *
+ * Aggregations the database computes exactly are pushed down as one GROUP BY query:
+ * standard group-by columns, counts, sums, averages, minimums and maximums of standard
+ * numeric columns, and no tag clause, whose join would count products more than once.
+ * Everything else runs as a hash aggregation over the columnar catalog snapshot, where
+ * each row is mapped to a dense group id through the codes of its group-by values.
+ */
+@Service
+public class ProductAggregationService {
+
+    public static final int MAX_GROUP_BY = 4;
+    public static final int MAX_LIMIT = 1000;
+
+    /** Precision of approximate distinct counts, a standard error of about 0.8% */
+    static final int DISTINCT_PRECISION = 14;
+
+    private static final Comparator<Group> GROUP_ORDER = Comparator
+            .comparingLong((Group group) -> -group.count)
+            .thenComparing(group -> group.key, ProductAggregationService::compareKeys);
+
+    private final ProductRepository productRepository;
+    private final DynamicQueryService dynamicQueryService;
+    private final ProductSearchIndex searchIndex;
+    private final CatalogScanCoordinator catalogScanCoordinator;
+    private final AttributeTypeRegistry attributeTypes;
+
+    @Autowired
+    public ProductAggregationService(ProductRepository productRepository, DynamicQueryService dynamicQueryService,
+                                     ProductSearchIndex searchIndex, CatalogScanCoordinator catalogScanCoordinator,
+                                     AttributeTypeRegistry attributeTypes) {
+        this.productRepository = productRepository;
+        this.dynamicQueryService = dynamicQueryService;
+        this.searchIndex = searchIndex;
+        this.catalogScanCoordinator = catalogScanCoordinator;
+        this.attributeTypes = attributeTypes;
+    }
+
+    /**
+     * Aggregate the products matching a filter, largest groups first
+     *
+     * @param groupBy standard fields or custom attribute keys, none for a single group
+     * @param limit maximum number of groups to return
+     * @throws IllegalArgumentException for unknown fields, numeric functions over fields
+     *                                  that are not numbers or an invalid limit
+     */
+    public List<AggregateGroup> aggregate(List<String> groupBy, List<AggregateMetric> metrics,
+                                          ProductFilter filter, int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT + ", got " + limit);
+        }
+        Plan plan = plan(groupBy, metrics);
+        List<Group> groups;
+        if (canPushDown(plan, filter)) {
+            groups = aggregateInDatabase(plan, filter);
+        } else {
+            ProductSnapshot snapshot = catalogScanCoordinator.getFullCatalog();
+            groups = aggregate(snapshot, dynamicQueryService.select(snapshot, filter), plan);
+        }
+        return finish(plan, groups, limit);
+    }
+
+    /**
+     * Whether an aggregation would be computed by a GROUP BY query in the database
+     */
+    boolean canPushDown(List<String> groupBy, List<AggregateMetric> metrics, ProductFilter filter) {
+        return canPushDown(plan(groupBy, metrics), filter);
+    }
+
+    /**
+     * Hash-aggregate selected rows of a snapshot
+     */
+    List<AggregateGroup> aggregate(ProductSnapshot snapshot, BitSet rows, List<String> groupBy,
+                                   List<AggregateMetric> metrics, int limit) {
+        Plan plan = plan(groupBy, metrics);
+        return finish(plan, aggregate(snapshot, rows, plan), limit);
+    }
+
+    private static boolean canPushDown(Plan plan, ProductFilter filter) {
+        if (filter != null && filter.getHasTags() != null && !filter.getHasTags().isEmpty()) {
+            return false;
+        }
+        for (Field field : plan.groupBy) {
+            if (field.standard == null) {
+                return false;
+            }
+        }
+        if (!plan.distinct.isEmpty() || !plan.sampled.isEmpty()) {
+            return false;
+        }
+        for (Field field : plan.summarized.values()) {
+            if (field.standard == null || !field.standard.numeric) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Plan plan(List<String> groupBy, List<AggregateMetric> metrics) {
+        List<String> names = groupBy != null ? groupBy : List.of();
+        if (names.size() > MAX_GROUP_BY) {
+            throw new IllegalArgumentException("At most " + MAX_GROUP_BY + " group-by fields are supported");
+        }
+        if (new HashSet<>(names).size() != names.size()) {
+            throw new IllegalArgumentException("Group-by fields must be distinct: " + names);
+        }
+        Plan plan = new Plan(metrics != null ? metrics : List.of());
+        for (String name : names) {
+            plan.groupBy.add(field(name));
+        }
+
+        Set<String> metricNames = new HashSet<>();
+        for (AggregateMetric metric : plan.metrics) {
+            AggregateFunction function = metric.getFunction();
+            if (function == null) {
+                throw new IllegalArgumentException("Metrics need a function");
+            }
+            if (!metricNames.add(metric.getName())) {
+                throw new IllegalArgumentException("Duplicate metric name '" + metric.getName() + "', use an alias");
+            }
+            if (metric.getField() == null) {
+                if (function != AggregateFunction.COUNT) {
+                    throw new IllegalArgumentException(function + " needs a field");
+                }
+                continue;
+            }
+            Field field = field(metric.getField());
+            if (function.isNumeric() && !field.isNumeric()) {
+                throw new IllegalArgumentException(function + " needs a numeric field, '" + field.name + "' is not one");
+            }
+            if (function == AggregateFunction.PERCENTILE) {
+                Double percentile = metric.getPercentile();
+                if (percentile == null || !(percentile >= 0 && percentile <= 100)) {
+                    throw new IllegalArgumentException("PERCENTILE needs a percentile between 0 and 100, got " + percentile);
+                }
+                plan.sampled.putIfAbsent(field.name, field);
+            } else if (function == AggregateFunction.APPROX_DISTINCT) {
+                plan.distinct.putIfAbsent(field.name, field);
+            } else {
+                plan.summarized.putIfAbsent(field.name, field);
+            }
+        }
+        return plan;
+    }
+
+    private Field field(String name) {
+        StandardField standard = StandardField.of(name);
+        if (standard != null) {
+            return new Field(name, standard, null);
+        }
+        AttributeType type = attributeTypes != null ? attributeTypes.typeOf(name) : null;
+        if (type == null) {
+            throw new IllegalArgumentException("Unknown field '" + name + "', expected one of "
+                    + StandardField.names() + " or a defined custom attribute");
+        }
+        return new Field(name, null, type);
+    }
+
+    private List<Group> aggregateInDatabase(Plan plan, ProductFilter filter) {
+        ProductFilter criteria = filter != null ? filter : new ProductFilter();
+        List<String> groupBy = plan.groupBy.stream().map(field -> field.standard.property).toList();
+        List<Field> summarized = new ArrayList<>(plan.summarized.values());
+        List<Object[]> rows = productRepository.groupBy(
+                ProductSpecification.getSpecification(criteria, searchIndex.findMatches(criteria.getSearch())),
+                groupBy, summarized.stream().map(field -> field.standard.property).toList());
+
+        // Missing values the snapshot reads as false or 0 are NULL in the database, so their groups merge here
+        Map<List<Object>, Group> groups = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            Object[] key = new Object[groupBy.size()];
+            for (int i = 0; i < key.length; i++) {
+                key[i] = plan.groupBy.get(i).standard.normalize(row[i]);
+            }
+            Group group = groups.computeIfAbsent(Arrays.asList(key), ignored -> new Group(key, plan));
+            long count = ((Number) row[key.length]).longValue();
+            group.count += count;
+            for (int slot = 0; slot < summarized.size(); slot++) {
+                int column = key.length + 1 + 4 * slot;
+                long values = ((Number) row[column]).longValue();
+                if (summarized.get(slot).standard.zeroWhenMissing && values < count) {
+                    group.merge(slot, count - values, 0.0, 0.0, 0.0);
+                }
+                if (values > 0) {
+                    group.merge(slot, values, ((Number) row[column + 1]).doubleValue(),
+                            ((Number) row[column + 2]).doubleValue(), ((Number) row[column + 3]).doubleValue());
+                }
+            }
+        }
+        if (groupBy.isEmpty() && groups.isEmpty()) {
+            groups.put(List.of(), new Group(new Object[0], plan));
+        }
+        return new ArrayList<>(groups.values());
+    }
+
+    private static List<Group> aggregate(ProductSnapshot snapshot, BitSet rows, Plan plan) {
+        Dimension[] dimensions = new Dimension[plan.groupBy.size()];
+        for (int i = 0; i < dimensions.length; i++) {
+            dimensions[i] = dimension(snapshot, rows, plan.groupBy.get(i));
+        }
+        NumericColumn[] summarized = plan.summarized.values().stream()
+                .map(field -> numericColumn(snapshot, rows, field)).toArray(NumericColumn[]::new);
+        Dimension[] distinct = plan.distinct.values().stream()
+                .map(field -> dimension(snapshot, rows, field)).toArray(Dimension[]::new);
+        NumericColumn[] sampled = plan.sampled.values().stream()
+                .map(field -> numericColumn(snapshot, rows, field)).toArray(NumericColumn[]::new);
+
+        // Level i numbers the distinct combinations of the first i + 1 group-by codes densely
+        LongIntMap[] levels = new LongIntMap[dimensions.length];
+        for (int i = 0; i < levels.length; i++) {
+            levels[i] = new LongIntMap(Math.min(dimensions[i].cardinality(), 1024));
+        }
+        List<Group> groups = new ArrayList<>();
+        if (dimensions.length == 0) {
+            groups.add(new Group(new Object[0], plan));
+        }
+
+        for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+            int id = 0;
+            for (int i = 0; i < dimensions.length; i++) {
+                id = levels[i].idOf((long) id * dimensions[i].cardinality() + dimensions[i].code(row));
+            }
+            Group group;
+            if (id < groups.size()) {
+                group = groups.get(id);
+            } else {
+                Object[] key = new Object[dimensions.length];
+                for (int i = 0; i < key.length; i++) {
+                    key[i] = dimensions[i].value(dimensions[i].code(row));
+                }
+                group = new Group(key, plan);
+                groups.add(group);
+            }
+
+            group.count++;
+            for (int slot = 0; slot < summarized.length; slot++) {
+                double value = summarized[slot].value(row);
+                if (!Double.isNaN(value)) {
+                    group.add(slot, value);
+                }
+            }
+            for (int slot = 0; slot < distinct.length; slot++) {
+                int code = distinct[slot].code(row);
+                if (code != Dimension.NONE) {
+                    group.distinct[slot].add(HyperLogLog.hash(code));
+                }
+            }
+            for (int slot = 0; slot < sampled.length; slot++) {
+                double value = sampled[slot].value(row);
+                if (!Double.isNaN(value)) {
+                    group.samples[slot].add(value);
+                }
+            }
+        }
+        return groups;
+    }
+
+    private static List<AggregateGroup> finish(Plan plan, List<Group> groups, int limit) {
+        List<String> summarized = new ArrayList<>(plan.summarized.keySet());
+        List<String> distinct = new ArrayList<>(plan.distinct.keySet());
+        List<String> sampled = new ArrayList<>(plan.sampled.keySet());
+
+        groups.sort(GROUP_ORDER);
+        List<AggregateGroup> result = new ArrayList<>(Math.min(groups.size(), limit));
+        for (Group group : groups.subList(0, Math.min(groups.size(), limit))) {
+            List<String> key = new ArrayList<>(group.key.length);
+            for (Object value : group.key) {
+                key.add(value != null ? value.toString() : null);
+            }
+            List<MetricValue> metrics = new ArrayList<>(plan.metrics.size());
+            for (AggregateMetric metric : plan.metrics) {
+                metrics.add(new MetricValue(metric.getName(), metricValue(metric, group, summarized, distinct, sampled)));
+            }
+            result.add(new AggregateGroup(key, group.count, metrics));
+        }
+        return result;
+    }
+
+    private static Double metricValue(AggregateMetric metric, Group group, List<String> summarized,
+                                      List<String> distinct, List<String> sampled) {
+        String field = metric.getField();
+        switch (metric.getFunction()) {
+            case APPROX_DISTINCT:
+                return (double) group.distinct[distinct.indexOf(field)].estimate();
+            case PERCENTILE:
+                return group.samples[sampled.indexOf(field)].percentile(metric.getPercentile());
+            case COUNT:
+                if (field == null) {
+                    return (double) group.count;
+                }
+                return (double) group.valueCounts[summarized.indexOf(field)];
+            default:
+                int slot = summarized.indexOf(field);
+                if (group.valueCounts[slot] == 0) {
+                    return null;
+                }
+                switch (metric.getFunction()) {
+                    case SUM:
+                        return group.sums[slot];
+                    case AVG:
+                        return group.sums[slot] / group.valueCounts[slot];
+                    case MIN:
+                        return extreme(field, group.mins[slot]);
+                    default:
+                        return extreme(field, group.maxs[slot]);
+                }
+        }
+    }
+
+    /**
+     * Minimum or maximum of a field, ratings at the float precision they are stored with
+     */
+    private static Double extreme(String field, double value) {
+        return StandardField.of(field) == StandardField.RATING ? Double.valueOf(Float.toString((float) value)) : value;
+    }
+
+    private static int compareKeys(Object[] a, Object[] b) {
+        for (int i = 0; i < a.length; i++) {
+            int comparison = compareValues(a[i], b[i]);
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return 0;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compareValues(Object a, Object b) {
+        if (a == null || b == null) {
+            return a == null ? (b == null ? 0 : -1) : 1;
+        }
+        if (a.getClass() == b.getClass() && a instanceof Comparable) {
+            return ((Comparable) a).compareTo(b);
+        }
+        return a.toString().compareTo(b.toString());
+    }
+
+    /**
+     * Group-by codes of a field over the snapshot rows, with 0 for rows without a value
+     */
+    private static Dimension dimension(ProductSnapshot snapshot, BitSet rows, Field field) {
+        if (field.standard == null) {
+            AttributeColumn column = snapshot.attributeColumn(field.name);
+            return new Dimension() {
+                public int cardinality() {
+                    return column.cardinality() + 1;
+                }
+
+                public int code(int row) {
+                    return column.code(row) + 1;
+                }
+
+                public Object value(int code) {
+                    return code == NONE ? null : column.value(code - 1);
+                }
+            };
+        }
+        switch (field.standard) {
+            case CATEGORY:
+                return new Dimension() {
+                    public int cardinality() {
+                        return snapshot.getCategoryCount() + 1;
+                    }
+
+                    public int code(int row) {
+                        return snapshot.getCategoryId(row) + 1;
+                    }
+
+                    public Object value(int code) {
+                        return code == NONE ? null : snapshot.getCategory(code - 1);
+                    }
+                };
+            case IN_STOCK:
+                return new Dimension() {
+                    public int cardinality() {
+                        return 3;
+                    }
+
+                    public int code(int row) {
+                        return snapshot.isInStock(row) ? 2 : 1;
+                    }
+
+                    public Object value(int code) {
+                        return code == NONE ? null : code == 2;
+                    }
+                };
+            default:
+                return ValueDictionary.build(rows, numericColumn(snapshot, rows, field), field.standard);
+        }
+    }
+
+    /**
+     * Values of a numeric field over the snapshot rows, NaN for rows without a value
+     */
+    private static NumericColumn numericColumn(ProductSnapshot snapshot, BitSet rows, Field field) {
+        if (!field.isNumeric()) {
+            // Other fields only count as present or missing
+            Dimension dimension = dimension(snapshot, rows, field);
+            return row -> dimension.code(row) == Dimension.NONE ? Double.NaN : 0.0;
+        }
+        if (field.standard == null) {
+            AttributeColumn column = snapshot.attributeColumn(field.name);
+            return row -> {
+                int code = column.code(row);
+                return code == AttributeColumn.MISSING ? Double.NaN : column.number(code);
+            };
+        }
+        switch (field.standard) {
+            case PRICE:
+                return snapshot::getPrice;
+            case RATING:
+                return snapshot::getRating;
+            case STOCK_QUANTITY:
+                return snapshot::getStockQuantity;
+            default:
+                return snapshot::getPopularity;
+        }
+    }
+
+    /**
+     * Standard fields that can be grouped or aggregated, with the snapshot's reading of missing values
+     */
+    private enum StandardField {
+        CATEGORY("category", false, false),
+        IN_STOCK("inStock", false, false),
+        PRICE("price", true, false),
+        RATING("rating", true, false),
+        STOCK_QUANTITY("stockQuantity", true, true),
+        POPULARITY("popularity", true, true);
+
+        private final String property;
+        private final boolean numeric;
+        private final boolean zeroWhenMissing;
+
+        StandardField(String property, boolean numeric, boolean zeroWhenMissing) {
+            this.property = property;
+            this.numeric = numeric;
+            this.zeroWhenMissing = zeroWhenMissing;
+        }
+
+        static StandardField of(String name) {
+            for (StandardField field : values()) {
+                if (field.property.equals(name)) {
+                    return field;
+                }
+            }
+            return null;
+        }
+
+        static List<String> names() {
+            return Arrays.stream(values()).map(field -> field.property).toList();
+        }
+
+        /**
+         * Database value of the column as the snapshot would read it
+         */
+        Object normalize(Object value) {
+            switch (this) {
+                case IN_STOCK:
+                    return Boolean.TRUE.equals(value);
+                case PRICE:
+                    return value != null ? ((Number) value).doubleValue() + 0.0 : null;
+                case RATING:
+                    return value != null ? ((Number) value).floatValue() + 0.0f : null;
+                case STOCK_QUANTITY:
+                case POPULARITY:
+                    return value != null ? ((Number) value).intValue() : 0;
+                default:
+                    return value;
+            }
+        }
+
+        /**
+         * Boxed group key for a column value
+         */
+        Object box(double value) {
+            switch (this) {
+                case PRICE:
+                    return value;
+                case RATING:
+                    return (float) value;
+                default:
+                    return (int) value;
+            }
+        }
+    }
+
+    private static final class Field {
+        private final String name;
+        private final StandardField standard;
+        private final AttributeType attributeType;
+
+        Field(String name, StandardField standard, AttributeType attributeType) {
+            this.name = name;
+            this.standard = standard;
+            this.attributeType = attributeType;
+        }
+
+        boolean isNumeric() {
+            return standard != null ? standard.numeric : attributeType == AttributeType.NUMBER;
+        }
+    }
+
+    /**
+     * Validated fields of an aggregation: what to group by, and which columns to
+     * summarize, count distinct values of and sample for percentiles, keyed by field name
+     */
+    private static final class Plan {
+        private final List<Field> groupBy = new ArrayList<>();
+        private final List<AggregateMetric> metrics;
+        private final Map<String, Field> summarized = new LinkedHashMap<>();
+        private final Map<String, Field> distinct = new LinkedHashMap<>();
+        private final Map<String, Field> sampled = new LinkedHashMap<>();
+
+        Plan(List<AggregateMetric> metrics) {
+            this.metrics = metrics;
+        }
+    }
+
+    /**
+     * Accumulators of one group, with a slot per summarized, distinct and sampled field
+     */
+    private static final class Group {
+        private final Object[] key;
+        private long count;
+        private final long[] valueCounts;
+        private final double[] sums;
+        private final double[] mins;
+        private final double[] maxs;
+        private final HyperLogLog[] distinct;
+        private final Samples[] samples;
+
+        Group(Object[] key, Plan plan) {
+            this.key = key;
+            int summarized = plan.summarized.size();
+            this.valueCounts = new long[summarized];
+            this.sums = new double[summarized];
+            this.mins = new double[summarized];
+            this.maxs = new double[summarized];
+            Arrays.fill(mins, Double.POSITIVE_INFINITY);
+            Arrays.fill(maxs, Double.NEGATIVE_INFINITY);
+            this.distinct = new HyperLogLog[plan.distinct.size()];
+            for (int i = 0; i < distinct.length; i++) {
+                distinct[i] = new HyperLogLog(DISTINCT_PRECISION);
+            }
+            this.samples = new Samples[plan.sampled.size()];
+            for (int i = 0; i < samples.length; i++) {
+                samples[i] = new Samples();
+            }
+        }
+
+        void add(int slot, double value) {
+            valueCounts[slot]++;
+            sums[slot] += value;
+            mins[slot] = Math.min(mins[slot], value);
+            maxs[slot] = Math.max(maxs[slot], value);
+        }
+
+        void merge(int slot, long count, double sum, double min, double max) {
+            valueCounts[slot] += count;
+            sums[slot] += sum;
+            mins[slot] = Math.min(mins[slot], min);
+            maxs[slot] = Math.max(maxs[slot], max);
+        }
+    }
+
+    /**
+     * Values of one field within a group, sorted once for percentiles
+     */
+    private static final class Samples {
+        private double[] values = new double[8];
+        private int size;
+        private boolean sorted;
+
+        void add(double value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+            sorted = false;
+        }
+
+        /**
+         * Percentile by linear interpolation between the closest ranks, null without values
+         */
+        Double percentile(double percentile) {
+            if (size == 0) {
+                return null;
+            }
+            if (!sorted) {
+                Arrays.sort(values, 0, size);
+                sorted = true;
+            }
+            double rank = percentile / 100 * (size - 1);
+            int lower = (int) Math.floor(rank);
+            int upper = Math.min(lower + 1, size - 1);
+            return values[lower] + (rank - lower) * (values[upper] - values[lower]);
+        }
+    }
+
+    /**
+     * Dense codes of a field over the snapshot rows, 0 (NONE) for rows without a value
+     */
+    private interface Dimension {
+        int NONE = 0;
+
+        int cardinality();
+
+        int code(int row);
+
+        Object value(int code);
+    }
+
+    private interface NumericColumn {
+        double value(int row);
+    }
+
+    /**
+     * Dictionary of the distinct values of a numeric standard column among the selected rows
+     */
+    private static final class ValueDictionary implements Dimension {
+        private final int[] codes;
+        private final Object[] values;
+
+        private ValueDictionary(int[] codes, Object[] values) {
+            this.codes = codes;
+            this.values = values;
+        }
+
+        static ValueDictionary build(BitSet rows, NumericColumn column, StandardField field) {
+            int[] codes = new int[rows.length()];
+            LongIntMap index = new LongIntMap(1024);
+            List<Object> values = new ArrayList<>();
+            values.add(null);
+            for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+                double value = column.value(row);
+                if (Double.isNaN(value)) {
+                    continue;
+                }
+                // Adding 0.0 folds -0.0 into 0.0, as SQL grouping does
+                int code = index.idOf(Double.doubleToLongBits(value + 0.0)) + 1;
+                if (code == values.size()) {
+                    values.add(field.box(value + 0.0));
+                }
+                codes[row] = code;
+            }
+            return new ValueDictionary(codes, values.toArray());
+        }
+
+        public int cardinality() {
+            return values.length;
+        }
+
+        public int code(int row) {
+            return codes[row];
+        }
+
+        public Object value(int code) {
+            return values[code];
+        }
+    }
+}
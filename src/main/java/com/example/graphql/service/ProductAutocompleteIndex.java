@@ -0,0 +1,519 @@
+package com.example.graphql.service;
+
+import com.example.graphql.dto.ProductSuggestion;
+import com.example.graphql.model.Product;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Prefix autocomplete over the words of product names and tags, tolerant of typos.
+ *
+ * Words are held in a trie whose nodes cache the most popular products below them, so
+ * completing a prefix is a walk down the trie plus reading one short list, however many
+ * products share the prefix. With edits allowed, the trie is searched depth-first while
+ * carrying a row of the edit distance (insertions, deletions, substitutions and
+ * transpositions) between the typed word and the path so far; branches are abandoned as
+ * soon as every entry of the row exceeds the allowed edits. As in most typo-tolerant
+ * search, the first character has to be typed correctly.
+ *
+ * Only the last word of a query is completed; earlier words must each be a prefix of a
+ * word of the suggestion, without typos.
+ *
+ * The index is built from the catalog snapshot on first use and kept current from
+ * product change events. Updating a product only touches the trie paths of its words.
+ */
+@Service
+public class ProductAutocompleteIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductAutocompleteIndex.class);
+
+    /** Products cached per trie node, and the most suggestions a query returns */
+    public static final int MAX_SUGGESTIONS = 20;
+
+    /** Most typos corrected in the completed word */
+    public static final int MAX_EDITS = 2;
+
+    private static final char[] NO_LABELS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final Entry[] NO_ENTRIES = new Entry[0];
+
+    private final ProductSnapshotStore productSnapshotStore;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Node root = new Node();
+    private final Map<Long, Entry> entries = new HashMap<>();
+    /** The node each indexed word ends at, so adding a product to a known word skips the walk */
+    private final Map<String, Node> words = new HashMap<>();
+
+    private final Queue<ProductChangeEvent> pendingChanges = new ConcurrentLinkedQueue<>();
+    private volatile boolean built;
+    private volatile boolean loading;
+
+    public ProductAutocompleteIndex(ProductSnapshotStore productSnapshotStore) {
+        this.productSnapshotStore = productSnapshotStore;
+    }
+
+    /**
+     * Suggest products for what has been typed so far: closest matches first, then the
+     * most popular
+     *
+     * @param limit maximum number of suggestions, at most MAX_SUGGESTIONS
+     * @param maxEdits typos to tolerate in the last word, at most MAX_EDITS; fewer are
+     *                 allowed for short words, where a typo changes too much
+     */
+    public List<ProductSuggestion> suggest(String prefix, int limit, int maxEdits) {
+        List<String> words = SearchText.tokenize(prefix);
+        if (words.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        String last = words.get(words.size() - 1);
+        List<String> previous = words.subList(0, words.size() - 1);
+        int edits = Math.max(0, Math.min(Math.min(maxEdits, MAX_EDITS), allowedEdits(last.length())));
+
+        // With earlier words to filter by, read further down the cached lists
+        int wanted = previous.isEmpty() ? Math.min(limit, MAX_SUGGESTIONS) : MAX_SUGGESTIONS;
+
+        ensureBuilt();
+        lock.readLock().lock();
+        try {
+            Map<Entry, Integer> distances = new HashMap<>();
+            if (edits == 0) {
+                Node node = find(last);
+                if (node != null) {
+                    collect(node, 0, wanted, distances);
+                }
+            } else {
+                // Typos in the first character are rare, and allowing them would visit most of the trie's top levels
+                Node first = root.child(last.charAt(0));
+                if (first != null) {
+                    int[] firstRow = new int[last.length() + 1];
+                    for (int i = 0; i < firstRow.length; i++) {
+                        firstRow[i] = i;
+                    }
+                    search(first, last.charAt(0), last, firstRow, null, (char) 0, edits + 1, wanted, distances);
+                }
+            }
+
+            List<Map.Entry<Entry, Integer>> matches = new ArrayList<>(distances.entrySet());
+            matches.removeIf(match -> !hasWordPrefixes(match.getKey(), previous));
+            matches.sort((a, b) -> a.getValue().equals(b.getValue())
+                    ? compare(a.getKey(), b.getKey()) : Integer.compare(a.getValue(), b.getValue()));
+            List<ProductSuggestion> suggestions = new ArrayList<>();
+            for (Map.Entry<Entry, Integer> match : matches.subList(0, Math.min(Math.min(limit, MAX_SUGGESTIONS), matches.size()))) {
+                Entry entry = match.getKey();
+                suggestions.add(new ProductSuggestion(entry.id, entry.name, entry.popularity, match.getValue()));
+            }
+            return suggestions;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of indexed products
+     */
+    public int size() {
+        ensureBuilt();
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Apply the change to the index once it has been built.
+     * Runs after the mutation's transaction commits, or immediately outside a transaction.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChange(ProductChangeEvent event) {
+        if (built || loading) {
+            pendingChanges.add(event);
+            // Read again after queueing: a build that finished meanwhile may have drained the queue already
+            if (built) {
+                applyPendingChanges();
+            }
+        }
+    }
+
+    /**
+     * No typos in words of up to two characters, one up to five, two beyond
+     */
+    static int allowedEdits(int length) {
+        return length <= 2 ? 0 : length <= 5 ? 1 : 2;
+    }
+
+    private void ensureBuilt() {
+        if (!built) {
+            synchronized (this) {
+                if (!built) {
+                    // Changes committed from here on are queued and reapplied after the build,
+                    // which is harmless because applying a change is idempotent
+                    loading = true;
+                    try {
+                        ProductSnapshot snapshot = productSnapshotStore.getSnapshot();
+                        lock.writeLock().lock();
+                        try {
+                            // Collect every word first, then rank each node once, children before parents
+                            for (int row = 0; row < snapshot.size(); row++) {
+                                add(snapshot.getProduct(row), false);
+                            }
+                            recomputeAll(root);
+                        } finally {
+                            lock.writeLock().unlock();
+                        }
+                        built = true;
+                        logger.debug("Indexed {} products for autocomplete", entries.size());
+                    } finally {
+                        loading = false;
+                    }
+                }
+            }
+        }
+        applyPendingChanges();
+    }
+
+    private void applyPendingChanges() {
+        if (pendingChanges.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            ProductChangeEvent event;
+            while ((event = pendingChanges.poll()) != null) {
+                remove(event.getProductId());
+                if (!event.isDeletion() && event.getNewProduct() != null) {
+                    add(event.getNewProduct(), true);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Visit a node reached by the given label, computing its row of edit distances from
+     * its parent's. row[i] is the distance between the first i characters of the word
+     * and the node's path; the last entry decides whether the node's products match.
+     *
+     * A node below one that matched with as few edits adds nothing: its products are
+     * either in the ancestor's list already or outranked by the ones there. So the walk
+     * only goes deeper while a closer match is still possible.
+     *
+     * @param matchedAbove the fewest edits an ancestor matched with, or one more than allowed
+     */
+    private void search(Node node, char label, String word, int[] parentRow, int[] grandparentRow, char parentLabel,
+                        int matchedAbove, int wanted, Map<Entry, Integer> distances) {
+        int[] row = new int[parentRow.length];
+        row[0] = parentRow[0] + 1;
+        int minimum = row[0];
+        for (int i = 1; i < row.length; i++) {
+            char c = word.charAt(i - 1);
+            int distance = Math.min(Math.min(row[i - 1] + 1, parentRow[i] + 1),
+                    parentRow[i - 1] + (c == label ? 0 : 1));
+            if (grandparentRow != null && i > 1 && c == parentLabel && word.charAt(i - 2) == label) {
+                distance = Math.min(distance, grandparentRow[i - 2] + 1);
+            }
+            row[i] = distance;
+            minimum = Math.min(minimum, distance);
+        }
+
+        int matched = matchedAbove;
+        if (row[row.length - 1] < matchedAbove) {
+            matched = row[row.length - 1];
+            collect(node, matched, wanted, distances);
+        }
+        // Distances only grow from the smallest entry of the row on
+        if (minimum < matched) {
+            for (int i = 0; i < node.labels.length; i++) {
+                search(node.children[i], node.labels[i], word, row, parentRow, label, matched, wanted, distances);
+            }
+        }
+    }
+
+    private static void collect(Node node, int distance, int wanted, Map<Entry, Integer> distances) {
+        for (int i = 0; i < Math.min(wanted, node.top.length); i++) {
+            distances.merge(node.top[i], distance, Math::min);
+        }
+    }
+
+    /**
+     * Most popular first, then by id
+     */
+    private static int compare(Entry a, Entry b) {
+        return a.popularity != b.popularity ? Integer.compare(b.popularity, a.popularity) : Long.compare(a.id, b.id);
+    }
+
+    private static boolean hasWordPrefixes(Entry entry, List<String> prefixes) {
+        for (String prefix : prefixes) {
+            boolean found = false;
+            for (String key : entry.keys) {
+                if (key.startsWith(prefix)) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Node find(String key) {
+        Node node = root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.child(key.charAt(i));
+        }
+        return node;
+    }
+
+    /**
+     * @param rank whether to update the cached lists along the product's words now
+     */
+    private void add(Product product, boolean rank) {
+        if (product.getId() == null) {
+            return;
+        }
+        Set<String> keys = new LinkedHashSet<>(SearchText.tokenize(product.getName()));
+        if (product.getTags() != null) {
+            for (String tag : product.getTags()) {
+                keys.addAll(SearchText.tokenize(tag));
+            }
+        }
+        Entry entry = new Entry(product.getId(), product.getName(),
+                product.getPopularity() != null ? product.getPopularity() : 0, keys.toArray(new String[0]));
+        entries.put(entry.id, entry);
+        for (int i = 0; i < entry.keys.length; i++) {
+            entry.keys[i] = insert(entry.keys[i], entry, rank);
+        }
+    }
+
+    private void remove(Long productId) {
+        Entry entry = productId != null ? entries.remove(productId) : null;
+        if (entry == null) {
+            return;
+        }
+        for (String key : entry.keys) {
+            delete(key, entry);
+        }
+    }
+
+    /**
+     * @return the indexed copy of the word, shared by every product containing it
+     */
+    private String insert(String key, Entry entry, boolean rank) {
+        Node node = words.get(key);
+        if (node == null) {
+            node = root;
+            for (int i = 0; i < key.length(); i++) {
+                node = node.childOrCreate(key.charAt(i));
+            }
+            node.word = key;
+            words.put(key, node);
+        }
+        if (node.terminal == null) {
+            node.terminal = new ArrayList<>(1);
+        }
+        node.terminal.add(entry);
+        if (rank) {
+            Node ancestor = root;
+            for (int i = 0; i < key.length(); i++) {
+                ancestor = ancestor.child(key.charAt(i));
+                ancestor.offer(entry);
+            }
+        }
+        return node.word;
+    }
+
+    private static void recomputeAll(Node node) {
+        for (Node child : node.children) {
+            recomputeAll(child);
+        }
+        node.recompute();
+    }
+
+    private void delete(String key, Entry entry) {
+        Node[] path = new Node[key.length()];
+        Node node = root;
+        for (int i = 0; i < key.length(); i++) {
+            node = node.child(key.charAt(i));
+            if (node == null) {
+                return;
+            }
+            path[i] = node;
+        }
+        if (node.terminal != null) {
+            removeIdentical(node.terminal, entry);
+            if (node.terminal.isEmpty()) {
+                node.terminal = null;
+                node.word = null;
+                words.remove(key);
+            }
+        }
+        // A node that does not list the entry has better products, and so do its ancestors
+        for (int i = path.length - 1; i >= 0 && path[i].contains(entry); i--) {
+            path[i].recompute();
+        }
+        // Drop the nodes no longer leading to any word
+        for (int i = path.length - 1; i >= 0 && path[i].isEmpty(); i--) {
+            (i > 0 ? path[i - 1] : root).removeChild(key.charAt(i));
+        }
+    }
+
+    /**
+     * Remove an entry by swapping the last one into its place; the order of a node's own products does not matter
+     */
+    private static void removeIdentical(List<Entry> list, Entry entry) {
+        for (int i = 0; i < list.size(); i++) {
+            if (list.get(i) == entry) {
+                list.set(i, list.get(list.size() - 1));
+                list.remove(list.size() - 1);
+                return;
+            }
+        }
+    }
+
+    /**
+     * An indexed product and the words it is found by
+     */
+    private static final class Entry {
+        private final long id;
+        private final String name;
+        private final int popularity;
+        private final String[] keys;
+
+        private Entry(long id, String name, int popularity, String[] keys) {
+            this.id = id;
+            this.name = name;
+            this.popularity = popularity;
+            this.keys = keys;
+        }
+    }
+
+    private static final class Node {
+        /** Child labels, sorted, and the children in the same order */
+        private char[] labels = NO_LABELS;
+        private Node[] children = NO_CHILDREN;
+        /** The word ending at this node, if any */
+        private String word;
+        /** Products with a word ending at this node, or null if there are none */
+        private List<Entry> terminal;
+        /** The most popular distinct products in this subtree, most popular first */
+        private Entry[] top = NO_ENTRIES;
+
+        Node child(char label) {
+            int index = Arrays.binarySearch(labels, label);
+            return index >= 0 ? children[index] : null;
+        }
+
+        Node childOrCreate(char label) {
+            int index = Arrays.binarySearch(labels, label);
+            if (index >= 0) {
+                return children[index];
+            }
+            int insertAt = -index - 1;
+            Node child = new Node();
+            char[] newLabels = new char[labels.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(labels, 0, newLabels, 0, insertAt);
+            System.arraycopy(children, 0, newChildren, 0, insertAt);
+            newLabels[insertAt] = label;
+            newChildren[insertAt] = child;
+            System.arraycopy(labels, insertAt, newLabels, insertAt + 1, labels.length - insertAt);
+            System.arraycopy(children, insertAt, newChildren, insertAt + 1, children.length - insertAt);
+            labels = newLabels;
+            children = newChildren;
+            return child;
+        }
+
+        void removeChild(char label) {
+            int index = Arrays.binarySearch(labels, label);
+            if (index < 0) {
+                return;
+            }
+            char[] newLabels = new char[labels.length - 1];
+            Node[] newChildren = new Node[children.length - 1];
+            System.arraycopy(labels, 0, newLabels, 0, index);
+            System.arraycopy(children, 0, newChildren, 0, index);
+            System.arraycopy(labels, index + 1, newLabels, index, labels.length - index - 1);
+            System.arraycopy(children, index + 1, newChildren, index, children.length - index - 1);
+            labels = newLabels;
+            children = newChildren;
+        }
+
+        boolean isEmpty() {
+            return terminal == null && children.length == 0;
+        }
+
+        boolean contains(Entry entry) {
+            for (Entry candidate : top) {
+                if (candidate == entry) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Add a product to the cached list if it ranks among the best
+         */
+        void offer(Entry entry) {
+            // Most products rank below a full list; one comparison settles that
+            if (top.length == MAX_SUGGESTIONS && compare(top[top.length - 1], entry) < 0) {
+                return;
+            }
+            if (contains(entry)) {
+                return;
+            }
+            int low = 0;
+            int high = top.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (compare(top[middle], entry) < 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            int position = low;
+            Entry[] newTop = new Entry[Math.min(top.length + 1, MAX_SUGGESTIONS)];
+            System.arraycopy(top, 0, newTop, 0, position);
+            newTop[position] = entry;
+            System.arraycopy(top, position, newTop, position + 1, newTop.length - position - 1);
+            top = newTop;
+        }
+
+        /**
+         * Rebuild the cached list from this node's own products and its children's lists
+         */
+        void recompute() {
+            List<Entry> candidates = new ArrayList<>(terminal != null ? terminal : List.of());
+            for (Node child : children) {
+                candidates.addAll(Arrays.asList(child.top));
+            }
+            // A product reachable through several words sorts next to itself
+            candidates.sort(ProductAutocompleteIndex::compare);
+            List<Entry> best = new ArrayList<>(Math.min(candidates.size(), MAX_SUGGESTIONS));
+            for (int i = 0; i < candidates.size() && best.size() < MAX_SUGGESTIONS; i++) {
+                if (best.isEmpty() || best.get(best.size() - 1) != candidates.get(i)) {
+                    best.add(candidates.get(i));
+                }
+            }
+            top = best.toArray(NO_ENTRIES);
+        }
+    }
+}
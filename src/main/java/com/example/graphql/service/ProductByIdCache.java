@@ -0,0 +1,97 @@
+package com.example.graphql.service;
+
+import com.example.graphql.model.Product;
+import com.example.graphql.repository.ProductRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Read-through near-cache for products looked up by id.
+ *
+ * Concurrent misses for the same id are coalesced into a single repository load,
+ * so a hot product that just expired does not stampede the database. Entries
+ * expire after a TTL and are evicted as soon as the product is updated or deleted.
+ * Products are cached with their (eagerly fetched) collections and must be treated
+ * as read-only by callers.
+ */
+@Service
+public class ProductByIdCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductByIdCache.class);
+
+    private final ProductRepository productRepository;
+    private final Cache<Long, Product> cache;
+    private final boolean enabled;
+
+    @Autowired
+    public ProductByIdCache(ProductRepository productRepository,
+                            @Value("${app.cache.product-by-id.maximum-size:10000}") long maximumSize,
+                            @Value("${app.cache.product-by-id.expire-after-write:5m}") Duration expireAfterWrite,
+                            MeterRegistry meterRegistry) {
+        this(productRepository, maximumSize, expireAfterWrite);
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "productById");
+    }
+
+    /**
+     * @param maximumSize maximum number of cached products, 0 disables caching
+     * @param expireAfterWrite time after which a cached product is reloaded
+     */
+    public ProductByIdCache(ProductRepository productRepository, long maximumSize, Duration expireAfterWrite) {
+        this.productRepository = productRepository;
+        this.enabled = maximumSize > 0;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(Math.max(maximumSize, 0))
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Get a product by id, loading it at most once for concurrent callers on a miss.
+     * Unknown ids are not cached.
+     */
+    public Optional<Product> get(Long id) {
+        if (!enabled || id == null) {
+            return productRepository.findById(id);
+        }
+        return Optional.ofNullable(cache.get(id, key -> productRepository.findById(key).orElse(null)));
+    }
+
+    /**
+     * Evict the changed product.
+     * Runs after the mutation's transaction commits, or immediately outside a transaction;
+     * an eviction racing with a load of the same id waits for it and removes its result.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChange(ProductChangeEvent event) {
+        Long id = event.getProductId();
+        if (id != null) {
+            cache.invalidate(id);
+            logger.debug("Evicted product {} from the near-cache", id);
+        }
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+}
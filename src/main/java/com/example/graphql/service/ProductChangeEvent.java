@@ -0,0 +1,51 @@
+package com.example.graphql.service;
+
+import com.example.graphql.model.Product;
+
+/**
+ * Application event describing a single product change, carrying the state
+ * before and after it so listeners such as caches can invalidate precisely.
+ * The old state is null for created products and the new state is null for deleted ones.
+ */
+public class ProductChangeEvent {
+
+    private final Product oldProduct;
+    private final Product newProduct;
+
+    public ProductChangeEvent(Product oldProduct, Product newProduct) {
+        this.oldProduct = oldProduct;
+        this.newProduct = newProduct;
+    }
+
+    public static ProductChangeEvent created(Product product) {
+        return new ProductChangeEvent(null, product);
+    }
+
+    public static ProductChangeEvent updated(Product oldProduct, Product newProduct) {
+        return new ProductChangeEvent(oldProduct, newProduct);
+    }
+
+    public static ProductChangeEvent deleted(Product product) {
+        return new ProductChangeEvent(product, null);
+    }
+
+    public Product getOldProduct() {
+        return oldProduct;
+    }
+
+    public Product getNewProduct() {
+        return newProduct;
+    }
+
+    public Long getProductId() {
+        return newProduct != null ? newProduct.getId() : oldProduct.getId();
+    }
+
+    public boolean isCreation() {
+        return oldProduct == null;
+    }
+
+    public boolean isDeletion() {
+        return newProduct == null;
+    }
+}
@@ -0,0 +1,238 @@
+package com.example.graphql.service;
+
+import com.example.graphql.dto.PageInput;
+import com.example.graphql.dto.AttributeFilter;
+import com.example.graphql.dto.ProductFilter;
+import com.example.graphql.dto.ProductPage;
+import com.example.graphql.dto.ProductSort;
+import com.example.graphql.model.Product;
+import com.example.graphql.repository.ProductSpecification;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Result cache for productsWithFilter queries.
+ *
+ * Entries are keyed by the normalized filter, sort and page, and bounded by the
+ * number of products they hold using Caffeine's W-TinyLFU eviction. When a product
+ * changes, only entries whose filter could match the product before or after the
+ * change are evicted; all other pages are unaffected by it and stay cached.
+ */
+@Service
+public class ProductQueryCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductQueryCache.class);
+
+    private final Cache<Key, ProductPage> cache;
+    private final boolean enabled;
+
+    /** Bumped on every invalidation so loads that raced with it are not cached */
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /** Makes an invalidation and the check-then-put of a load mutually exclusive */
+    private final Object invalidationLock = new Object();
+
+    @Autowired
+    public ProductQueryCache(@Value("${app.cache.products-with-filter.maximum-weight:10000}") long maximumWeight,
+                             @Value("${app.cache.products-with-filter.expire-after-write:10m}") Duration expireAfterWrite,
+                             MeterRegistry meterRegistry) {
+        this(maximumWeight, expireAfterWrite);
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "productsWithFilter");
+    }
+
+    /**
+     * @param maximumWeight maximum number of cached products across all pages, 0 disables caching
+     * @param expireAfterWrite safety net for changes made outside the application
+     */
+    public ProductQueryCache(long maximumWeight, Duration expireAfterWrite) {
+        this.enabled = maximumWeight > 0;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(Math.max(maximumWeight, 0))
+                .weigher((Key key, ProductPage page) -> page.getContent().size() + 1)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Get the cached page for the query, loading and caching it on a miss
+     */
+    public ProductPage get(ProductFilter filter, ProductSort sort, PageInput pageInput, Supplier<ProductPage> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        Key key = Key.of(filter, sort, pageInput);
+        ProductPage page = cache.getIfPresent(key);
+        if (page != null) {
+            return page;
+        }
+
+        long version = invalidations.get();
+        page = loader.get();
+        // A concurrent invalidation may have made this result stale already
+        synchronized (invalidationLock) {
+            if (version == invalidations.get()) {
+                cache.put(key, page);
+            }
+        }
+        return page;
+    }
+
+    /**
+     * Evict the entries a product change could affect.
+     * Runs after the mutation's transaction commits, or immediately outside a transaction.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChange(ProductChangeEvent event) {
+        Product oldProduct = event.getOldProduct();
+        Product newProduct = event.getNewProduct();
+        long before;
+        synchronized (invalidationLock) {
+            invalidations.incrementAndGet();
+            before = cache.estimatedSize();
+            cache.asMap().keySet().removeIf(key ->
+                    (oldProduct != null && key.couldContain(oldProduct))
+                            || (newProduct != null && key.couldContain(newProduct)));
+        }
+        logger.debug("Product {} changed, evicted {} of {} cached product pages",
+                event.getProductId(), before - cache.estimatedSize(), before);
+    }
+
+    public void invalidateAll() {
+        synchronized (invalidationLock) {
+            invalidations.incrementAndGet();
+            cache.invalidateAll();
+        }
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    /**
+     * Normalized cache key. Only the clauses ProductSpecification applies take part,
+     * string needles are lower-cased and list clauses are compared as sorted sets,
+     * so equivalent queries share one entry.
+     */
+    static final class Key {
+        private final ProductFilter filter;
+        private final List<Object> components;
+
+        private Key(ProductFilter filter, List<Object> components) {
+            this.filter = filter;
+            this.components = components;
+        }
+
+        static Key of(ProductFilter filter, ProductSort sort, PageInput pageInput) {
+            ProductFilter normalized = normalize(filter);
+
+            ProductSort.ProductSortField sortField = sort != null ? sort.getField() : null;
+            // ProductService treats anything but ASC as DESC
+            ProductSort.SortDirection direction = sortField == null ? null
+                    : sort.getDirection() == ProductSort.SortDirection.ASC
+                            ? ProductSort.SortDirection.ASC : ProductSort.SortDirection.DESC;
+            int page = pageInput != null ? pageInput.getPage() : 0;
+            int size = pageInput != null ? pageInput.getSize() : 10;
+
+            List<Object> components = normalized == null
+                    ? Arrays.asList(null, null, null, null, null, null, null, null, null, null, null, null, null,
+                            sortField, direction, page, size)
+                    : Arrays.asList(normalized.getNameContains(), normalized.getMinPrice(), normalized.getMaxPrice(),
+                            normalized.getCategories(), normalized.getInStock(), normalized.getMinRating(),
+                            normalized.getHasTags(), normalized.getCreatedAfter(), normalized.getCreatedBefore(),
+                            normalized.getSearch(), normalized.getAttributes(), normalized.getMinStockQuantity(),
+                            normalized.getMinPopularity(), sortField, direction, page, size);
+            return new Key(normalized, components);
+        }
+
+        private static ProductFilter normalize(ProductFilter filter) {
+            if (filter == null) {
+                return null;
+            }
+            ProductFilter normalized = new ProductFilter();
+            String needle = filter.getNameContains();
+            normalized.setNameContains(needle == null || needle.isEmpty() ? null : needle.toLowerCase());
+            normalized.setMinPrice(filter.getMinPrice());
+            normalized.setMaxPrice(filter.getMaxPrice());
+            normalized.setCategories(sortedDistinct(filter.getCategories()));
+            normalized.setInStock(filter.getInStock());
+            normalized.setMinRating(filter.getMinRating());
+            normalized.setHasTags(sortedDistinct(filter.getHasTags()));
+            // Dates in canonical form, so "2024-01-01" and "2024-01-01T00:00:00" share an entry
+            normalized.setCreatedAfter(canonical(filter.getCreatedAfterTimestamp()));
+            normalized.setCreatedBefore(canonical(filter.getCreatedBeforeTimestamp()));
+            // Search terms sorted and de-duplicated, since every term has to match in any order
+            List<String> searchTerms = SearchText.queryTerms(filter.getSearch());
+            normalized.setSearch(searchTerms.isEmpty() ? null : String.join(" ", searchTerms));
+            normalized.setAttributes(AttributeFilter.normalize(filter.getAttributes()));
+            normalized.setMinStockQuantity(filter.getMinStockQuantity());
+            normalized.setMinPopularity(filter.getMinPopularity());
+            return normalized;
+        }
+
+        private static String canonical(LocalDateTime timestamp) {
+            return timestamp != null ? timestamp.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME) : null;
+        }
+
+        private static List<String> sortedDistinct(List<String> values) {
+            if (values == null || values.isEmpty()) {
+                return null;
+            }
+            TreeSet<String> distinct = new TreeSet<>();
+            for (String value : values) {
+                if (value != null) {
+                    distinct.add(value);
+                }
+            }
+            List<String> result = new ArrayList<>(distinct);
+            // A null entry can never match in SQL, but keep it distinct from its absence
+            if (values.contains(null)) {
+                result.add(null);
+            }
+            return result;
+        }
+
+        boolean couldContain(Product product) {
+            return ProductSpecification.couldMatch(filter, product);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key other)) {
+                return false;
+            }
+            return components.equals(other.components);
+        }
+
+        @Override
+        public int hashCode() {
+            return components.hashCode();
+        }
+    }
+}
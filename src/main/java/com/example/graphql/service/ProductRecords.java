@@ -0,0 +1,41 @@
+package com.example.graphql.service;
+
+import com.example.graphql.model.Product;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Row-level access to the product fields a ProductSnapshot does not hold in primitive
+ * columns: names, tags, custom attributes and the products themselves. Backed either by the
+ * entities on heap or by an off-heap MappedProductFile.
+ */
+interface ProductRecords {
+
+    int size();
+
+    /**
+     * Returns the product of a row; off-heap records decode a detached copy on each call
+     */
+    Product getProduct(int row);
+
+    /**
+     * Returns the product name in lower case, or null if the product has no name
+     */
+    String getLowerCaseName(int row);
+
+    List<String> getTags(int row);
+
+    /**
+     * Returns the value of one custom attribute, or null if the product does not have it
+     */
+    String getAttribute(int row, String key);
+
+    default List<Product> getProducts() {
+        List<Product> products = new ArrayList<>(size());
+        for (int row = 0; row < size(); row++) {
+            products.add(getProduct(row));
+        }
+        return products;
+    }
+}
@@ -0,0 +1,339 @@
+package com.example.graphql.service;
+
+import com.example.graphql.model.Product;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongPredicate;
+
+/**
+ * Inverted index over product names and descriptions for full-text search.
+ *
+ * Text is analyzed by SearchText. The term dictionary is sorted, so a query term finds
+ * every token it is a prefix of with one range lookup ("lap" finds "laptop"). A product
+ * matches when all query terms do, and hits are ranked with BM25, with name matches
+ * weighted above description matches and exact matches above prefix ones.
+ *
+ * The index is built from the catalog snapshot on first use and then kept current from
+ * product change events, which are applied as they commit.
+ */
+@Service
+public class ProductSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+    /** BM25 term frequency saturation and length normalization */
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private static final double NAME_WEIGHT = 2.0;
+    private static final double PREFIX_WEIGHT = 0.5;
+
+    private static final Comparator<Hit> RANKING = Comparator.comparingDouble(Hit::getScore).reversed()
+            .thenComparingLong(Hit::getProductId);
+
+    private final ProductSnapshotStore productSnapshotStore;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** Sorted term dictionary: term to the products containing it */
+    private final NavigableMap<String, Map<Long, Posting>> postings = new TreeMap<>();
+    private final Map<Long, Document> documents = new HashMap<>();
+    private long totalNameLength;
+    private long totalDescriptionLength;
+
+    private final Queue<ProductChangeEvent> pendingChanges = new ConcurrentLinkedQueue<>();
+    private volatile boolean built;
+    private volatile boolean loading;
+
+    public ProductSearchIndex(ProductSnapshotStore productSnapshotStore) {
+        this.productSnapshotStore = productSnapshotStore;
+    }
+
+    /**
+     * Find the products matching every term of the query, most relevant first
+     *
+     * @param limit maximum number of hits
+     * @param accept further restricts the matching product ids, e.g. to those passing a filter
+     */
+    public List<Hit> search(String query, int limit, LongPredicate accept) {
+        List<String> terms = SearchText.queryTerms(query);
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        ensureBuilt();
+        lock.readLock().lock();
+        try {
+            Map<Long, Double> scores = null;
+            for (String term : terms) {
+                scores = scoreTerm(term, scores);
+                if (scores.isEmpty()) {
+                    return List.of();
+                }
+            }
+
+            // Keep the best hits in a bounded heap whose head is the worst of them
+            PriorityQueue<Hit> best = new PriorityQueue<>(RANKING.reversed());
+            for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+                if (!accept.test(entry.getKey())) {
+                    continue;
+                }
+                best.add(new Hit(entry.getKey(), entry.getValue()));
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+            List<Hit> hits = new ArrayList<>(best);
+            hits.sort(RANKING);
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of the products matching every query term, sorted ascending.
+     * A query without terms matches every product and returns null.
+     */
+    public long[] findMatches(String query) {
+        List<String> terms = SearchText.queryTerms(query);
+        if (terms.isEmpty()) {
+            return null;
+        }
+        ensureBuilt();
+        lock.readLock().lock();
+        try {
+            Set<Long> matches = null;
+            for (String term : terms) {
+                Set<Long> termMatches = new HashSet<>();
+                for (Map<Long, Posting> products : expand(term).values()) {
+                    for (Long id : products.keySet()) {
+                        if (matches == null || matches.contains(id)) {
+                            termMatches.add(id);
+                        }
+                    }
+                }
+                matches = termMatches;
+                if (matches.isEmpty()) {
+                    break;
+                }
+            }
+            long[] ids = matches.stream().mapToLong(Long::longValue).toArray();
+            Arrays.sort(ids);
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of indexed products
+     */
+    public int size() {
+        ensureBuilt();
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Apply the change to the index once it has been built.
+     * Runs after the mutation's transaction commits, or immediately outside a transaction.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChange(ProductChangeEvent event) {
+        if (built || loading) {
+            pendingChanges.add(event);
+            // Read again after queueing: a build that finished meanwhile may have drained the queue already
+            if (built) {
+                applyPendingChanges();
+            }
+        }
+    }
+
+    private void ensureBuilt() {
+        if (!built) {
+            synchronized (this) {
+                if (!built) {
+                    // Changes committed from here on are queued and reapplied after the build,
+                    // which is harmless because applying a change is idempotent
+                    loading = true;
+                    try {
+                        ProductSnapshot snapshot = productSnapshotStore.getSnapshot();
+                        lock.writeLock().lock();
+                        try {
+                            for (int row = 0; row < snapshot.size(); row++) {
+                                add(snapshot.getProduct(row));
+                            }
+                        } finally {
+                            lock.writeLock().unlock();
+                        }
+                        built = true;
+                        logger.debug("Indexed {} products with {} terms for search", documents.size(), postings.size());
+                    } finally {
+                        loading = false;
+                    }
+                }
+            }
+        }
+        applyPendingChanges();
+    }
+
+    private void applyPendingChanges() {
+        if (pendingChanges.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            ProductChangeEvent event;
+            while ((event = pendingChanges.poll()) != null) {
+                remove(event.getProductId());
+                if (!event.isDeletion() && event.getNewProduct() != null) {
+                    add(event.getNewProduct());
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Score the products matching one query term, keeping only the candidates if given,
+     * and add the scores the candidates already have
+     */
+    private Map<Long, Double> scoreTerm(String term, Map<Long, Double> candidates) {
+        Map<Long, Double> scores = new HashMap<>();
+        double averageNameLength = Math.max((double) totalNameLength / documents.size(), 1);
+        double averageDescriptionLength = Math.max((double) totalDescriptionLength / documents.size(), 1);
+        for (Map.Entry<String, Map<Long, Posting>> token : expand(term).entrySet()) {
+            Map<Long, Posting> products = token.getValue();
+            double weight = token.getKey().equals(term) ? 1.0 : PREFIX_WEIGHT;
+            double idf = Math.log(1 + (documents.size() - products.size() + 0.5) / (products.size() + 0.5));
+            for (Map.Entry<Long, Posting> entry : products.entrySet()) {
+                Long id = entry.getKey();
+                if (candidates != null && !candidates.containsKey(id)) {
+                    continue;
+                }
+                Posting posting = entry.getValue();
+                Document document = documents.get(id);
+                double score = NAME_WEIGHT * saturate(posting.nameFrequency, document.nameLength, averageNameLength)
+                        + saturate(posting.descriptionFrequency, document.descriptionLength, averageDescriptionLength);
+                scores.merge(id, weight * idf * score, Double::sum);
+            }
+        }
+        if (candidates != null) {
+            scores.replaceAll((id, score) -> score + candidates.get(id));
+        }
+        return scores;
+    }
+
+    private static double saturate(int frequency, int length, double averageLength) {
+        if (frequency == 0) {
+            return 0;
+        }
+        return frequency * (K1 + 1) / (frequency + K1 * (1 - B + B * length / averageLength));
+    }
+
+    /**
+     * The indexed tokens starting with the term
+     */
+    private NavigableMap<String, Map<Long, Posting>> expand(String term) {
+        return postings.subMap(term, true, term + Character.MAX_VALUE, false);
+    }
+
+    private void add(Product product) {
+        if (product.getId() == null) {
+            return;
+        }
+        List<String> nameTokens = SearchText.tokenize(product.getName());
+        List<String> descriptionTokens = SearchText.tokenize(product.getDescription());
+        Map<String, Posting> counts = new HashMap<>();
+        for (String token : nameTokens) {
+            counts.computeIfAbsent(token, t -> new Posting()).nameFrequency++;
+        }
+        for (String token : descriptionTokens) {
+            counts.computeIfAbsent(token, t -> new Posting()).descriptionFrequency++;
+        }
+        for (Map.Entry<String, Posting> entry : counts.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), t -> new HashMap<>()).put(product.getId(), entry.getValue());
+        }
+        documents.put(product.getId(), new Document(nameTokens.size(), descriptionTokens.size(), counts.keySet()));
+        totalNameLength += nameTokens.size();
+        totalDescriptionLength += descriptionTokens.size();
+    }
+
+    private void remove(Long productId) {
+        Document document = productId != null ? documents.remove(productId) : null;
+        if (document == null) {
+            return;
+        }
+        for (String token : document.tokens) {
+            Map<Long, Posting> products = postings.get(token);
+            products.remove(productId);
+            if (products.isEmpty()) {
+                postings.remove(token);
+            }
+        }
+        totalNameLength -= document.nameLength;
+        totalDescriptionLength -= document.descriptionLength;
+    }
+
+    /**
+     * A product that matched a query and its relevance score
+     */
+    public static final class Hit {
+        private final long productId;
+        private final double score;
+
+        Hit(long productId, double score) {
+            this.productId = productId;
+            this.score = score;
+        }
+
+        public long getProductId() {
+            return productId;
+        }
+
+        public double getScore() {
+            return score;
+        }
+    }
+
+    /**
+     * Occurrences of a token in one product
+     */
+    private static final class Posting {
+        private int nameFrequency;
+        private int descriptionFrequency;
+    }
+
+    private static final class Document {
+        private final int nameLength;
+        private final int descriptionLength;
+        private final Set<String> tokens;
+
+        private Document(int nameLength, int descriptionLength, Set<String> tokens) {
+            this.nameLength = nameLength;
+            this.descriptionLength = descriptionLength;
+            this.tokens = tokens;
+        }
+    }
+}
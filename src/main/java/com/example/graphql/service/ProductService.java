@@ -18,6 +18,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Optional;
 
@@ -26,11 +27,21 @@ public class ProductService {
     
     private final ProductRepository productRepository;
     private final ProductSubscriptionService subscriptionService;
+    private final ProductQueryCache productQueryCache;
+    private final ProductByIdCache productByIdCache;
+    private final ProductSearchIndex searchIndex;
+    private final AttributeTypeRegistry attributeTypes;
     
     @Autowired
-    public ProductService(ProductRepository productRepository, ProductSubscriptionService subscriptionService) {
+    public ProductService(ProductRepository productRepository, ProductSubscriptionService subscriptionService,
+                          ProductQueryCache productQueryCache, ProductByIdCache productByIdCache,
+                          ProductSearchIndex searchIndex, AttributeTypeRegistry attributeTypes) {
         this.productRepository = productRepository;
         this.subscriptionService = subscriptionService;
+        this.productQueryCache = productQueryCache;
+        this.productByIdCache = productByIdCache;
+        this.searchIndex = searchIndex;
+        this.attributeTypes = attributeTypes;
     }
     
     // Basic operations
@@ -39,7 +50,7 @@ public class ProductService {
     }
     
     public Optional<Product> getProductById(Long id) {
-        return productRepository.findById(id);
+        return productByIdCache.get(id);
     }
     
     public List<Product> getProductsByCategory(String category) {
@@ -47,6 +58,7 @@ public class ProductService {
     }
     
     public Product addProduct(Product product) {
+        attributeTypes.canonicalize(product.getCustomAttributes());
         Product savedProduct = productRepository.save(product);
         
         // Set operation type
@@ -59,19 +71,11 @@ public class ProductService {
     }
     
     public Optional<Product> updateProduct(Long id, Product productDetails) {
+        attributeTypes.canonicalize(productDetails.getCustomAttributes());
         return productRepository.findById(id)
                 .map(existingProduct -> {
                     // Keep a copy of the original product for comparison
-                    Product originalProduct = new Product();
-                    originalProduct.setId(existingProduct.getId());
-                    originalProduct.setName(existingProduct.getName());
-                    originalProduct.setDescription(existingProduct.getDescription());
-                    originalProduct.setPrice(existingProduct.getPrice());
-                    originalProduct.setCategory(existingProduct.getCategory());
-                    originalProduct.setInStock(existingProduct.getInStock());
-                    originalProduct.setRating(existingProduct.getRating());
-                    originalProduct.setTags(existingProduct.getTags());
-                    originalProduct.setStockQuantity(existingProduct.getStockQuantity());
+                    Product originalProduct = copyOf(existingProduct);
                     
                     // Update the product
                     existingProduct.setName(productDetails.getName());
@@ -92,6 +96,11 @@ public class ProductService {
                         existingProduct.setStockQuantity(productDetails.getStockQuantity());
                     }
                     
+                    if (productDetails.getCustomAttributes() != null) {
+                        existingProduct.getCustomAttributes().clear();
+                        existingProduct.getCustomAttributes().putAll(productDetails.getCustomAttributes());
+                    }
+                    
                     Product updatedProduct = productRepository.save(existingProduct);
                     
                     // Set operation type
@@ -113,16 +122,9 @@ public class ProductService {
             // Notify subscribers if product was found
             productOpt.ifPresent(product -> {
                 // Create a copy with a "deleted" marker for proper notification
-                Product updatedProduct = new Product();
-                updatedProduct.setId(product.getId());
-                updatedProduct.setName(product.getName());
-                updatedProduct.setDescription(product.getDescription());
-                updatedProduct.setPrice(product.getPrice());
-                updatedProduct.setCategory(product.getCategory());
-                updatedProduct.setInStock(false); // Mark as out of stock since it's deleted
-                updatedProduct.setRating(product.getRating());
-                updatedProduct.setTags(product.getTags());
+                Product updatedProduct = copyOf(product);
                 updatedProduct.setStockQuantity(0); // Set stock to 0 since it's deleted
+                updatedProduct.setInStock(false); // Mark as out of stock since it's deleted
                 
                 // Set operation type to show this is a deletion
                 updatedProduct.setOperation("DELETED");
@@ -139,9 +141,40 @@ public class ProductService {
         return false;
     }
     
+    /**
+     * Detached copy of every field of a product that filters, caches and subscribers read,
+     * so a change event still describes the product after the entity is modified
+     */
+    private static Product copyOf(Product product) {
+        Product copy = new Product();
+        copy.setId(product.getId());
+        copy.setName(product.getName());
+        copy.setDescription(product.getDescription());
+        copy.setPrice(product.getPrice());
+        copy.setCategory(product.getCategory());
+        copy.setStockQuantity(product.getStockQuantity());
+        // After the stock quantity, whose setter derives inStock
+        copy.setInStock(product.getInStock());
+        copy.setRating(product.getRating());
+        copy.setPopularity(product.getPopularity());
+        copy.setTags(product.getTags() != null ? new ArrayList<>(product.getTags()) : null);
+        copy.setRelatedProductIds(product.getRelatedProductIds() != null
+                ? new ArrayList<>(product.getRelatedProductIds()) : null);
+        copy.setFrequentlyBoughtWithIds(product.getFrequentlyBoughtWithIds() != null
+                ? new ArrayList<>(product.getFrequentlyBoughtWithIds()) : null);
+        copy.setCustomAttributes(product.getCustomAttributes() != null
+                ? new HashMap<>(product.getCustomAttributes()) : null);
+        copy.setCreatedAtTimestamp(product.getCreatedAtTimestamp());
+        copy.setUpdatedAtTimestamp(product.getUpdatedAtTimestamp());
+        return copy;
+    }
+    
     // Advanced operations
     @Transactional
     public List<Product> bulkAddProducts(List<Product> products) {
+        for (Product product : products) {
+            attributeTypes.canonicalize(product.getCustomAttributes());
+        }
         List<Product> savedProducts = productRepository.saveAll(products);
         
         // Notify subscribers about each new product
@@ -166,16 +199,9 @@ public class ProductService {
                 // Notify subscribers if product was found
                 productOpt.ifPresent(product -> {
                     // Create a copy with a "deleted" marker for proper notification
-                    Product updatedProduct = new Product();
-                    updatedProduct.setId(product.getId());
-                    updatedProduct.setName(product.getName());
-                    updatedProduct.setDescription(product.getDescription());
-                    updatedProduct.setPrice(product.getPrice());
-                    updatedProduct.setCategory(product.getCategory());
-                    updatedProduct.setInStock(false); // Mark as out of stock since it's deleted
-                    updatedProduct.setRating(product.getRating());
-                    updatedProduct.setTags(product.getTags());
+                    Product updatedProduct = copyOf(product);
                     updatedProduct.setStockQuantity(0); // Set stock to 0 since it's deleted
+                    updatedProduct.setInStock(false); // Mark as out of stock since it's deleted
                     
                     // Set operation type to show this is a deletion
                     updatedProduct.setOperation("DELETED");
@@ -195,10 +221,15 @@ public class ProductService {
     
     // Advanced query with filtering, sorting and pagination
     public ProductPage getProductsWithFilter(ProductFilter filter, ProductSort sort, PageInput pageInput) {
+        return productQueryCache.get(filter, sort, pageInput, () -> queryProducts(filter, sort, pageInput));
+    }
+    
+    private ProductPage queryProducts(ProductFilter filter, ProductSort sort, PageInput pageInput) {
         // Create specification from filter
         Specification<Product> spec = null;
         if (filter != null) {
-            spec = ProductSpecification.getSpecification(filter);
+            // A search clause is resolved to the matching ids, which the query then filters on
+            spec = ProductSpecification.getSpecification(filter, searchIndex.findMatches(filter.getSearch()));
         }
         
         // Create pageable from page input and sort
@@ -0,0 +1,515 @@
+package com.example.graphql.service;
+
+import com.example.graphql.model.Product;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compact read-only columnar view of a set of products.
+ * Numeric fields and creation times are held in primitive arrays and categories are
+ * dictionary-encoded, so analytical scans are tight loops instead of walks over boxed
+ * entity fields.
+ * Names, tags and the products themselves are read through ProductRecords,
+ * backed either by the entities (with pre-lowercased names for substring filters)
+ * or by an off-heap MappedProductFile, possibly with changed rows patched over it on
+ * heap. Custom attributes are dictionary-encoded into an AttributeColumn per key on
+ * first use.
+ */
+public final class ProductSnapshot {
+
+    /** Category id used for products without a category */
+    public static final int NO_CATEGORY = -1;
+
+    /** Timestamp used for products without a creation time */
+    public static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
+    /** Attribute columns kept per snapshot; columns for further keys are built per request */
+    private static final int MAX_ATTRIBUTE_COLUMNS = 64;
+
+    private final ProductRecords records;
+    private final long[] ids;
+    private final double[] prices;
+    private final float[] ratings;
+    private final int[] stockQuantities;
+    private final int[] popularity;
+    private final long[] createdAt;
+    private final BitSet inStock;
+    private final int[] categoryIds;
+    private final String[] categoryDictionary;
+    private final Map<String, Integer> categoryIndex;
+    private final Map<String, AttributeColumn> attributeColumns = new ConcurrentHashMap<>();
+
+    private ProductSnapshot(ProductRecords records, String[] categoryDictionary) {
+        int size = records.size();
+        this.records = records;
+        this.ids = new long[size];
+        this.prices = new double[size];
+        this.ratings = new float[size];
+        this.stockQuantities = new int[size];
+        this.popularity = new int[size];
+        this.createdAt = new long[size];
+        this.inStock = new BitSet(size);
+        this.categoryIds = new int[size];
+        this.categoryDictionary = categoryDictionary;
+        this.categoryIndex = new HashMap<>();
+        for (int id = 0; id < categoryDictionary.length; id++) {
+            categoryIndex.put(categoryDictionary[id], id);
+        }
+    }
+
+    public static ProductSnapshot of(List<Product> products) {
+        Map<String, Integer> dictionary = new LinkedHashMap<>();
+        int[] categoryIds = new int[products.size()];
+        for (int i = 0; i < categoryIds.length; i++) {
+            String category = products.get(i).getCategory();
+            categoryIds[i] = category == null ? NO_CATEGORY
+                    : dictionary.computeIfAbsent(category, key -> dictionary.size());
+        }
+
+        ProductSnapshot snapshot = new ProductSnapshot(new EntityRecords(products), dictionary.keySet().toArray(new String[0]));
+        for (int i = 0; i < categoryIds.length; i++) {
+            snapshot.setRow(i, products.get(i), categoryIds[i]);
+        }
+        return snapshot;
+    }
+
+    private void setRow(int row, Product product, int categoryId) {
+        ids[row] = product.getId() != null ? product.getId() : 0L;
+        // Missing numeric values are stored as NaN / 0 so columns stay primitive
+        prices[row] = product.getPrice() != null ? product.getPrice() : Double.NaN;
+        ratings[row] = product.getRating() != null ? product.getRating() : Float.NaN;
+        stockQuantities[row] = product.getStockQuantity() != null ? product.getStockQuantity() : 0;
+        popularity[row] = product.getPopularity() != null ? product.getPopularity() : 0;
+        createdAt[row] = toEpochMicros(product.getCreatedAtTimestamp());
+        if (product.isInStock()) {
+            inStock.set(row);
+        }
+        categoryIds[row] = categoryId;
+    }
+
+    /**
+     * Build the columns from an off-heap catalog file, which also backs the row records
+     */
+    public static ProductSnapshot of(MappedProductFile file) {
+        ProductSnapshot snapshot = new ProductSnapshot(file, file.getCategories());
+        for (int i = 0; i < file.size(); i++) {
+            snapshot.ids[i] = file.getId(i);
+            snapshot.prices[i] = file.getPrice(i);
+            snapshot.ratings[i] = file.getRating(i);
+            snapshot.stockQuantities[i] = file.getStockQuantity(i);
+            snapshot.popularity[i] = file.getPopularity(i);
+            snapshot.createdAt[i] = file.getCreatedAt(i);
+            if (file.isInStock(i)) {
+                snapshot.inStock.set(i);
+            }
+            snapshot.categoryIds[i] = file.getCategoryId(i);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Build a snapshot of this off-heap one with some rows changed, leaving the catalog file
+     * untouched: row i of the result is row sourceRows[i] of this snapshot, or the product
+     * changedRows holds for i where sourceRows[i] is -1. The changed products stay on heap
+     * until the file is rewritten.
+     */
+    ProductSnapshot withChangedRows(int[] sourceRows, Map<Integer, Product> changedRows) {
+        MappedProductFile file;
+        int[] baseFileRows;
+        Map<Integer, Product> baseChangedRows;
+        if (records instanceof PatchedRecords patched) {
+            file = patched.file;
+            baseFileRows = patched.fileRows;
+            baseChangedRows = patched.changedRows;
+        } else if (records instanceof MappedProductFile mapped) {
+            file = mapped;
+            baseFileRows = null;
+            baseChangedRows = Map.of();
+        } else {
+            throw new IllegalStateException("Only off-heap snapshots are patched");
+        }
+
+        // Categories are numbered after the existing ones, then renumbered without those no row has left
+        Map<String, Integer> extended = new LinkedHashMap<>();
+        for (String category : categoryDictionary) {
+            extended.put(category, extended.size());
+        }
+        int[] fileRows = new int[sourceRows.length];
+        int[] extendedCategoryIds = new int[sourceRows.length];
+        Map<Integer, Product> products = new HashMap<>();
+        for (int row = 0; row < sourceRows.length; row++) {
+            int source = sourceRows[row];
+            if (source < 0) {
+                fileRows[row] = -1;
+                String category = changedRows.get(row).getCategory();
+                extendedCategoryIds[row] = category == null ? NO_CATEGORY
+                        : extended.computeIfAbsent(category, key -> extended.size());
+            } else {
+                fileRows[row] = baseFileRows != null ? baseFileRows[source] : source;
+                if (fileRows[row] < 0) {
+                    products.put(row, baseChangedRows.get(source));
+                }
+                extendedCategoryIds[row] = categoryIds[source];
+            }
+        }
+        products.putAll(changedRows);
+
+        String[] extendedDictionary = extended.keySet().toArray(new String[0]);
+        boolean[] used = new boolean[extendedDictionary.length];
+        for (int categoryId : extendedCategoryIds) {
+            if (categoryId != NO_CATEGORY) {
+                used[categoryId] = true;
+            }
+        }
+        int[] renumbered = new int[extendedDictionary.length];
+        List<String> dictionary = new ArrayList<>(extendedDictionary.length);
+        for (int categoryId = 0; categoryId < extendedDictionary.length; categoryId++) {
+            if (used[categoryId]) {
+                renumbered[categoryId] = dictionary.size();
+                dictionary.add(extendedDictionary[categoryId]);
+            }
+        }
+
+        ProductSnapshot snapshot = new ProductSnapshot(new PatchedRecords(file, fileRows, products),
+                dictionary.toArray(new String[0]));
+        for (int row = 0; row < sourceRows.length; row++) {
+            int source = sourceRows[row];
+            int categoryId = extendedCategoryIds[row] == NO_CATEGORY ? NO_CATEGORY : renumbered[extendedCategoryIds[row]];
+            if (source < 0) {
+                snapshot.setRow(row, changedRows.get(row), categoryId);
+            } else {
+                snapshot.ids[row] = ids[source];
+                snapshot.prices[row] = prices[source];
+                snapshot.ratings[row] = ratings[source];
+                snapshot.stockQuantities[row] = stockQuantities[source];
+                snapshot.popularity[row] = popularity[source];
+                snapshot.createdAt[row] = createdAt[source];
+                if (inStock.get(source)) {
+                    snapshot.inStock.set(row);
+                }
+                snapshot.categoryIds[row] = categoryId;
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Returns true if the snapshot is backed by an off-heap catalog file
+     */
+    public boolean isOffHeap() {
+        return records instanceof MappedProductFile || records instanceof PatchedRecords;
+    }
+
+    /**
+     * Returns the number of rows kept on heap plus the rows of the catalog file no longer
+     * read, which rewriting the file would reclaim; 0 for snapshots that are not patched
+     */
+    public int getPatchedRowCount() {
+        if (!(records instanceof PatchedRecords patched)) {
+            return 0;
+        }
+        int onHeap = patched.changedRows.size();
+        return onHeap + patched.file.size() - (size() - onHeap);
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * Returns all products, in row order; off-heap snapshots decode detached copies
+     */
+    public List<Product> getProducts() {
+        return records.getProducts();
+    }
+
+    public Product getProduct(int row) {
+        return records.getProduct(row);
+    }
+
+    /**
+     * Returns the products of the selected rows, in row order
+     */
+    public List<Product> getProducts(BitSet rows) {
+        List<Product> selected = new ArrayList<>(rows.cardinality());
+        for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+            selected.add(records.getProduct(row));
+        }
+        return selected;
+    }
+
+    /**
+     * Returns a new selection containing every row
+     */
+    public BitSet allRows() {
+        BitSet rows = new BitSet(size());
+        rows.set(0, size());
+        return rows;
+    }
+
+    /**
+     * Returns the row of a product id, or -1 if the product is not in the snapshot
+     */
+    public int findRow(long id) {
+        for (int row = 0; row < ids.length; row++) {
+            if (ids[row] == id) {
+                return row;
+            }
+        }
+        return -1;
+    }
+
+    public long getId(int row) {
+        return ids[row];
+    }
+
+    public double getPrice(int row) {
+        return prices[row];
+    }
+
+    public float getRating(int row) {
+        return ratings[row];
+    }
+
+    public int getStockQuantity(int row) {
+        return stockQuantities[row];
+    }
+
+    public int getPopularity(int row) {
+        return popularity[row];
+    }
+
+    /**
+     * Returns the product name in lower case, or null if the product has no name
+     */
+    public String getLowerCaseName(int row) {
+        return records.getLowerCaseName(row);
+    }
+
+    public List<String> getTags(int row) {
+        return records.getTags(row);
+    }
+
+    /**
+     * Returns the value of one custom attribute, or null if the product does not have it
+     */
+    public String getAttribute(int row, String key) {
+        return records.getAttribute(row, key);
+    }
+
+    /**
+     * Returns the dictionary-encoded column of a custom attribute, built on first use
+     */
+    public AttributeColumn attributeColumn(String key) {
+        AttributeColumn column = attributeColumns.get(key);
+        if (column != null) {
+            return column;
+        }
+        if (attributeColumns.size() >= MAX_ATTRIBUTE_COLUMNS) {
+            return AttributeColumn.build(records, key);
+        }
+        return attributeColumns.computeIfAbsent(key, k -> AttributeColumn.build(records, k));
+    }
+
+    /**
+     * Returns the creation time in microseconds since the epoch (UTC), or NO_TIMESTAMP
+     */
+    public long getCreatedAt(int row) {
+        return createdAt[row];
+    }
+
+    /**
+     * Encode a timestamp as microseconds since the epoch (UTC), the precision of the
+     * TIMESTAMP(6) columns; null becomes NO_TIMESTAMP
+     */
+    public static long toEpochMicros(LocalDateTime timestamp) {
+        if (timestamp == null) {
+            return NO_TIMESTAMP;
+        }
+        return timestamp.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + timestamp.getNano() / 1_000;
+    }
+
+    public static LocalDateTime fromEpochMicros(long micros) {
+        if (micros == NO_TIMESTAMP) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+
+    public boolean isInStock(int row) {
+        return inStock.get(row);
+    }
+
+    public int getInStockCount() {
+        return inStock.cardinality();
+    }
+
+    public int getCategoryId(int row) {
+        return categoryIds[row];
+    }
+
+    /**
+     * Returns the dictionary id of a category, or NO_CATEGORY if no product has it
+     */
+    public int findCategoryId(String category) {
+        Integer id = category != null ? categoryIndex.get(category) : null;
+        return id != null ? id : NO_CATEGORY;
+    }
+
+    public int getCategoryCount() {
+        return categoryDictionary.length;
+    }
+
+    /**
+     * Returns the category for a dictionary id, or null for NO_CATEGORY
+     */
+    public String getCategory(int categoryId) {
+        return categoryId == NO_CATEGORY ? null : categoryDictionary[categoryId];
+    }
+
+    // Columns scanned by VectorizedFilter kernels; callers must not modify them
+
+    double[] priceColumn() {
+        return prices;
+    }
+
+    float[] ratingColumn() {
+        return ratings;
+    }
+
+    int[] stockQuantityColumn() {
+        return stockQuantities;
+    }
+
+    int[] popularityColumn() {
+        return popularity;
+    }
+
+    long[] idColumn() {
+        return ids;
+    }
+
+    long[] createdAtColumn() {
+        return createdAt;
+    }
+
+    int[] categoryIdColumn() {
+        return categoryIds;
+    }
+
+    BitSet inStockColumn() {
+        return inStock;
+    }
+
+    /**
+     * Records of a catalog file with changed rows kept on heap: a row is read from the file
+     * row fileRows holds for it, or is the product changedRows holds for it where that is -1
+     */
+    private static class PatchedRecords implements ProductRecords {
+        private final MappedProductFile file;
+        private final int[] fileRows;
+        private final Map<Integer, Product> changedRows;
+
+        PatchedRecords(MappedProductFile file, int[] fileRows, Map<Integer, Product> changedRows) {
+            this.file = file;
+            this.fileRows = fileRows;
+            this.changedRows = changedRows;
+        }
+
+        @Override
+        public int size() {
+            return fileRows.length;
+        }
+
+        @Override
+        public Product getProduct(int row) {
+            int fileRow = fileRows[row];
+            return fileRow >= 0 ? file.getProduct(fileRow) : changedRows.get(row);
+        }
+
+        @Override
+        public String getLowerCaseName(int row) {
+            int fileRow = fileRows[row];
+            if (fileRow >= 0) {
+                return file.getLowerCaseName(fileRow);
+            }
+            String name = changedRows.get(row).getName();
+            return name != null ? name.toLowerCase(Locale.ROOT) : null;
+        }
+
+        @Override
+        public List<String> getTags(int row) {
+            int fileRow = fileRows[row];
+            return fileRow >= 0 ? file.getTags(fileRow) : changedRows.get(row).getTags();
+        }
+
+        @Override
+        public String getAttribute(int row, String key) {
+            int fileRow = fileRows[row];
+            if (fileRow >= 0) {
+                return file.getAttribute(fileRow, key);
+            }
+            Map<String, String> attributes = changedRows.get(row).getCustomAttributes();
+            return attributes != null ? attributes.get(key) : null;
+        }
+    }
+
+    /**
+     * Records backed by the entities, with names lower-cased once up front
+     */
+    private static class EntityRecords implements ProductRecords {
+        private final List<Product> products;
+        private final String[] lowerCaseNames;
+
+        EntityRecords(List<Product> products) {
+            this.products = Collections.unmodifiableList(products);
+            this.lowerCaseNames = new String[products.size()];
+            for (int i = 0; i < lowerCaseNames.length; i++) {
+                String name = products.get(i).getName();
+                lowerCaseNames[i] = name != null ? name.toLowerCase(Locale.ROOT) : null;
+            }
+        }
+
+        @Override
+        public int size() {
+            return products.size();
+        }
+
+        @Override
+        public Product getProduct(int row) {
+            return products.get(row);
+        }
+
+        @Override
+        public String getLowerCaseName(int row) {
+            return lowerCaseNames[row];
+        }
+
+        @Override
+        public List<String> getTags(int row) {
+            return products.get(row).getTags();
+        }
+
+        @Override
+        public String getAttribute(int row, String key) {
+            Map<String, String> attributes = products.get(row).getCustomAttributes();
+            return attributes != null ? attributes.get(key) : null;
+        }
+
+        @Override
+        public List<Product> getProducts() {
+            return products;
+        }
+    }
+}
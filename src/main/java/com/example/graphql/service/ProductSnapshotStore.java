@@ -0,0 +1,386 @@
+package com.example.graphql.service;
+
+import com.example.graphql.model.Product;
+import com.example.graphql.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.stream.IntStream;
+
+/**
+ * Holds the global columnar snapshot of the catalog used by analytical scans.
+ *
+ * The catalog is loaded from the database once, on first use. After that, mutation
+ * events are queued and applied in a batch by the next reader, which rebuilds the
+ * columns from the rows already in memory instead of reloading the table.
+ * Readers that find no pending changes get the current snapshot without locking.
+ *
+ * With app.catalog.off-heap.enabled the rows live in a memory-mapped MappedProductFile
+ * instead of as entities on heap. The file is streamed from the database in id-ordered
+ * pages, and reused after a restart only while its row count, highest id and latest update
+ * time match the database. Changes are patched over the mapped file on heap, and the file
+ * is rewritten in the background once the patched rows reach a sixteenth of the catalog.
+ */
+@Service
+public class ProductSnapshotStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductSnapshotStore.class);
+
+    private static final int PAGE_SIZE = 1000;
+
+    /** Patched rows kept on heap before the catalog file is rewritten, at least */
+    private static final int MIN_COMPACTION_ROWS = 1024;
+
+    /** ... or this fraction of the catalog, whichever is more */
+    private static final int COMPACTION_FRACTION = 16;
+
+    private final ProductRepository productRepository;
+    private final Path offHeapPath;
+    private final TransactionTemplate pageTransactions;
+    private final ExecutorService compactor;
+    private final Queue<ProductChangeEvent> pendingChanges = new ConcurrentLinkedQueue<>();
+    private volatile ProductSnapshot snapshot;
+    private volatile boolean loading;
+    private boolean compactionScheduled;
+    /** Changes applied while the catalog file is rewritten, or null when it is not */
+    private Map<Long, ProductChangeEvent> changesDuringCompaction;
+
+    @Autowired
+    public ProductSnapshotStore(ProductRepository productRepository,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${app.catalog.off-heap.enabled:false}") boolean offHeapEnabled,
+                                @Value("${app.catalog.off-heap.path:catalog/products.bin}") String offHeapPath) {
+        this(productRepository, offHeapEnabled ? Path.of(offHeapPath) : null, pageTransactions(transactionManager));
+    }
+
+    public ProductSnapshotStore(ProductRepository productRepository) {
+        this(productRepository, null, null);
+    }
+
+    /**
+     * @param offHeapPath catalog file, or null to keep the catalog on heap
+     * @param pageTransactions transactions for streaming pages, or null to call the repository directly
+     */
+    public ProductSnapshotStore(ProductRepository productRepository, Path offHeapPath,
+                                TransactionTemplate pageTransactions) {
+        this.productRepository = productRepository;
+        this.offHeapPath = offHeapPath;
+        this.pageTransactions = pageTransactions;
+        this.compactor = offHeapPath != null ? Executors.newSingleThreadExecutor(compactionThreads()) : null;
+    }
+
+    private static ThreadFactory compactionThreads() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("catalog-compaction-");
+        threadFactory.setDaemon(true);
+        return threadFactory;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (compactor != null) {
+            compactor.shutdown();
+        }
+    }
+
+    /**
+     * Each page is read in its own transaction, so the entities of earlier pages are not
+     * retained by the persistence context of a caller's transaction
+     */
+    private static TransactionTemplate pageTransactions(PlatformTransactionManager transactionManager) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        template.setReadOnly(true);
+        return template;
+    }
+
+    /**
+     * Get the current snapshot, loading it or applying pending changes first if needed
+     */
+    public ProductSnapshot getSnapshot() {
+        ProductSnapshot current = snapshot;
+        if (current != null && pendingChanges.isEmpty()) {
+            return current;
+        }
+        synchronized (this) {
+            if (snapshot == null) {
+                // Changes committed before this point are visible to the load. Later ones stay
+                // queued and are reapplied, which is harmless because applying is idempotent.
+                loading = true;
+                pendingChanges.clear();
+                try {
+                    snapshot = load();
+                } finally {
+                    loading = false;
+                }
+            }
+            if (!pendingChanges.isEmpty()) {
+                snapshot = applyPendingChanges(snapshot);
+            }
+            return snapshot;
+        }
+    }
+
+    /**
+     * Queue the change for the next reader.
+     * Runs after the mutation's transaction commits, or immediately outside a transaction,
+     * and before listeners that build on the snapshot such as ProductSearchIndex, so a
+     * snapshot they load never misses a change they skipped.
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChange(ProductChangeEvent event) {
+        // Until the catalog is first loaded there is nothing to update
+        if (snapshot != null || loading) {
+            pendingChanges.add(event);
+        }
+    }
+
+    private ProductSnapshot load() {
+        if (offHeapPath != null) {
+            try {
+                return loadOffHeap();
+            } catch (IOException e) {
+                logger.error("Off-heap catalog {} is unavailable, keeping the catalog on heap", offHeapPath, e);
+            }
+        }
+        List<Product> products = productRepository.findAll();
+        logger.debug("Loaded columnar snapshot with {} products", products.size());
+        return ProductSnapshot.of(products);
+    }
+
+    private ProductSnapshot loadOffHeap() throws IOException {
+        if (Files.exists(offHeapPath)) {
+            try {
+                MappedProductFile file = MappedProductFile.open(offHeapPath);
+                if (matchesDatabase(file)) {
+                    logger.info("Mapped {} products from off-heap catalog {}", file.size(), offHeapPath);
+                    return ProductSnapshot.of(file);
+                }
+                logger.info("Off-heap catalog {} does not match the database, rebuilding it", offHeapPath);
+            } catch (IOException e) {
+                logger.warn("Rebuilding unreadable off-heap catalog {}: {}", offHeapPath, e.getMessage());
+            }
+        }
+        MappedProductFile file = MappedProductFile.write(offHeapPath, new CatalogIterator());
+        logger.info("Wrote {} products to off-heap catalog {}", file.size(), offHeapPath);
+        return ProductSnapshot.of(file);
+    }
+
+    /**
+     * Whether the file has as many products, the same highest id and the same latest update
+     * time as the database. Products deleted and created in equal numbers raise the highest
+     * id, and edits raise the latest update time.
+     */
+    private boolean matchesDatabase(MappedProductFile file) {
+        Object[] stamp = productRepository.findCatalogStamp().get(0);
+        long count = ((Number) stamp[0]).longValue();
+        long maxId = stamp[1] != null ? ((Number) stamp[1]).longValue() : Long.MIN_VALUE;
+        long maxUpdatedAt = ProductSnapshot.toEpochMicros((LocalDateTime) stamp[2]);
+        return file.size() == count && file.getMaxId() == maxId && file.getMaxUpdatedAt() == maxUpdatedAt;
+    }
+
+    private ProductSnapshot applyPendingChanges(ProductSnapshot current) {
+        Map<Long, ProductChangeEvent> changes = new HashMap<>();
+        ProductChangeEvent event;
+        while ((event = pendingChanges.poll()) != null) {
+            // Only the latest change per product matters
+            changes.put(event.getProductId(), event);
+        }
+        logger.debug("Applying {} product changes to the columnar snapshot", changes.size());
+
+        if (current.isOffHeap()) {
+            ProductSnapshot patched = patch(current, changes);
+            if (changesDuringCompaction != null) {
+                changesDuringCompaction.putAll(changes);
+            }
+            if (!compactionScheduled && patched.getPatchedRowCount()
+                    >= Math.max(MIN_COMPACTION_ROWS, patched.size() / COMPACTION_FRACTION)) {
+                compactionScheduled = true;
+                compactor.execute(this::compact);
+            }
+            return patched;
+        }
+        List<Product> products = new ArrayList<>(current.size() + changes.size());
+        new ChangedRowsIterator(current, changes).forEachRemaining(products::add);
+        return ProductSnapshot.of(products);
+    }
+
+    /**
+     * Patch changes over an off-heap snapshot: updated products replace their row on heap,
+     * deleted ones are dropped and created ones follow the existing rows
+     */
+    private static ProductSnapshot patch(ProductSnapshot current, Map<Long, ProductChangeEvent> changes) {
+        Map<Long, ProductChangeEvent> remaining = new LinkedHashMap<>(changes);
+        int[] sourceRows = new int[current.size() + changes.size()];
+        Map<Integer, Product> changedRows = new HashMap<>();
+        int size = 0;
+        for (int row = 0; row < current.size(); row++) {
+            ProductChangeEvent change = remaining.remove(current.getId(row));
+            if (change == null) {
+                sourceRows[size++] = row;
+            } else if (!change.isDeletion()) {
+                changedRows.put(size, change.getNewProduct());
+                sourceRows[size++] = -1;
+            }
+        }
+        for (ProductChangeEvent change : remaining.values()) {
+            if (!change.isDeletion()) {
+                changedRows.put(size, change.getNewProduct());
+                sourceRows[size++] = -1;
+            }
+        }
+        return current.withChangedRows(Arrays.copyOf(sourceRows, size), changedRows);
+    }
+
+    /**
+     * Rewrite the catalog file from the current snapshot, so the rows patched over it no
+     * longer have to be kept on heap. Changes applied meanwhile are patched over the new
+     * file, and readers keep using the patched snapshot until it is in place.
+     */
+    void compact() {
+        ProductSnapshot base;
+        synchronized (this) {
+            base = snapshot;
+            if (base == null || base.getPatchedRowCount() == 0) {
+                compactionScheduled = false;
+                return;
+            }
+            changesDuringCompaction = new HashMap<>();
+        }
+        ProductSnapshot compacted = null;
+        try {
+            Iterator<Product> rows = IntStream.range(0, base.size()).mapToObj(base::getProduct).iterator();
+            compacted = ProductSnapshot.of(MappedProductFile.write(offHeapPath, rows));
+            logger.debug("Rewrote off-heap catalog {} with {} patched rows", offHeapPath, base.getPatchedRowCount());
+        } catch (IOException e) {
+            logger.error("Could not rewrite off-heap catalog {}, keeping the catalog on heap", offHeapPath, e);
+        }
+        synchronized (this) {
+            if (compacted == null) {
+                snapshot = ProductSnapshot.of(snapshot.getProducts());
+            } else if (changesDuringCompaction.isEmpty()) {
+                snapshot = compacted;
+            } else {
+                snapshot = patch(compacted, changesDuringCompaction);
+            }
+            changesDuringCompaction = null;
+            compactionScheduled = false;
+        }
+    }
+
+    /**
+     * Streams the catalog from the database in id order, one page at a time
+     */
+    private class CatalogIterator implements Iterator<Product> {
+        private List<Product> page = List.of();
+        private int index;
+        private long lastId = Long.MIN_VALUE;
+        private boolean lastPage;
+
+        @Override
+        public boolean hasNext() {
+            if (index < page.size()) {
+                return true;
+            }
+            if (lastPage) {
+                return false;
+            }
+            PageRequest request = PageRequest.of(0, PAGE_SIZE);
+            page = pageTransactions != null
+                    ? pageTransactions.execute(status -> productRepository.findByIdGreaterThanOrderByIdAsc(lastId, request))
+                    : productRepository.findByIdGreaterThanOrderByIdAsc(lastId, request);
+            index = 0;
+            lastPage = page.size() < PAGE_SIZE;
+            return !page.isEmpty();
+        }
+
+        @Override
+        public Product next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Product product = page.get(index++);
+            lastId = product.getId();
+            return product;
+        }
+    }
+
+    /**
+     * Iterates the rows of a snapshot with changes applied: updated products replace
+     * their row, deleted ones are skipped and created ones follow the existing rows
+     */
+    private static class ChangedRowsIterator implements Iterator<Product> {
+        private final ProductSnapshot snapshot;
+        private final Map<Long, ProductChangeEvent> remaining;
+        private Iterator<ProductChangeEvent> created;
+        private int row;
+        private Product next;
+
+        ChangedRowsIterator(ProductSnapshot snapshot, Map<Long, ProductChangeEvent> changes) {
+            this.snapshot = snapshot;
+            this.remaining = new LinkedHashMap<>(changes);
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && row < snapshot.size()) {
+                ProductChangeEvent change = remaining.remove(snapshot.getId(row));
+                if (change == null) {
+                    next = snapshot.getProduct(row);
+                } else if (!change.isDeletion()) {
+                    next = change.getNewProduct();
+                }
+                row++;
+            }
+            if (next == null) {
+                if (created == null) {
+                    remaining.values().removeIf(ProductChangeEvent::isDeletion);
+                    created = remaining.values().iterator();
+                }
+                if (created.hasNext()) {
+                    next = created.next().getNewProduct();
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public Product next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Product product = next;
+            next = null;
+            return product;
+        }
+    }
+}
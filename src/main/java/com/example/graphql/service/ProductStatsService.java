@@ -2,86 +2,117 @@ package com.example.graphql.service;
 
 import com.example.graphql.dto.ProductFilter;
 import com.example.graphql.dto.ProductStats;
-import com.example.graphql.model.Product;
-import com.example.graphql.repository.ProductRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.util.DoubleSummaryStatistics;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 @Service
 public class ProductStatsService {
 
-    private final ProductRepository productRepository;
     private final DynamicQueryService dynamicQueryService;
+    private final CatalogScanCoordinator catalogScanCoordinator;
 
     @Autowired
-    public ProductStatsService(ProductRepository productRepository, DynamicQueryService dynamicQueryService) {
-        this.productRepository = productRepository;
+    public ProductStatsService(DynamicQueryService dynamicQueryService, CatalogScanCoordinator catalogScanCoordinator) {
         this.dynamicQueryService = dynamicQueryService;
+        this.catalogScanCoordinator = catalogScanCoordinator;
     }
 
     /**
      * Get overall statistics for all products
      */
     public ProductStats getOverallStats() {
-        List<Product> products = productRepository.findAll();
-        return calculateStats(products);
+        ProductSnapshot snapshot = catalogScanCoordinator.getFullCatalog();
+        return calculateStats(snapshot, snapshot.allRows());
     }
 
     /**
      * Get statistics for products in a specific category
      */
     public ProductStats getStatsByCategory(String category) {
-        List<Product> products = productRepository.findByCategory(category);
-        return calculateStats(products);
+        ProductFilter scope = new ProductFilter();
+        scope.setCategories(List.of(category));
+        ProductSnapshot snapshot = catalogScanCoordinator.getFullCatalog();
+        BitSet rows = new BitSet(snapshot.size());
+        int categoryId = snapshot.findCategoryId(category);
+        if (categoryId != ProductSnapshot.NO_CATEGORY) {
+            for (int row = 0; row < snapshot.size(); row++) {
+                if (snapshot.getCategoryId(row) == categoryId) {
+                    rows.set(row);
+                }
+            }
+        }
+        ProductStats stats = calculateStats(snapshot, rows);
+        stats.setScope(scope);
+        return stats;
     }
 
     /**
      * Get statistics for products matching a filter
      */
     public ProductStats getStatsByFilter(ProductFilter filter) {
-        List<Product> products = dynamicQueryService.applyFilter(productRepository.findAll(), filter);
-        return calculateStats(products);
+        ProductSnapshot snapshot = catalogScanCoordinator.getFullCatalog();
+        ProductStats stats = calculateStats(snapshot, dynamicQueryService.select(snapshot, filter));
+        stats.setScope(filter);
+        return stats;
     }
 
     /**
-     * Calculate statistics from a list of products
+     * Calculate statistics over the selected rows of a columnar product snapshot
      */
-    private ProductStats calculateStats(List<Product> products) {
-        if (products.isEmpty()) {
+    private ProductStats calculateStats(ProductSnapshot snapshot, BitSet rows) {
+        int size = rows.cardinality();
+        if (size == 0) {
             return new ProductStats(0, 0.0, 0.0, 0.0, 0, 0, Map.of());
         }
 
-        DoubleSummaryStatistics priceStats = products.stream()
-                .mapToDouble(Product::getPrice)
-                .summaryStatistics();
-
-        Map<String, Long> categoryDistribution = products.stream()
-                .collect(Collectors.groupingBy(
-                        Product::getCategory,
-                        Collectors.counting()
-                ));
+        double sum = 0.0;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        int priced = 0;
+        int inStockCount = 0;
+        int lowStockCount = 0;
+        long[] categoryCounts = new long[snapshot.getCategoryCount()];
 
-        int inStockCount = (int) products.stream()
-                .filter(Product::isInStock)
-                .count();
+        for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+            double price = snapshot.getPrice(row);
+            if (!Double.isNaN(price)) {
+                sum += price;
+                min = Math.min(min, price);
+                max = Math.max(max, price);
+                priced++;
+            }
+            int categoryId = snapshot.getCategoryId(row);
+            if (categoryId != ProductSnapshot.NO_CATEGORY) {
+                categoryCounts[categoryId]++;
+            }
+            if (snapshot.isInStock(row)) {
+                inStockCount++;
+                if (snapshot.getStockQuantity(row) < 10) {
+                    lowStockCount++;
+                }
+            }
+        }
 
-        int lowStockCount = (int) products.stream()
-                .filter(p -> p.isInStock() && p.getInventoryCount() < 10)
-                .count();
+        Map<String, Long> categoryDistribution = new HashMap<>();
+        for (int categoryId = 0; categoryId < categoryCounts.length; categoryId++) {
+            if (categoryCounts[categoryId] > 0) {
+                categoryDistribution.put(snapshot.getCategory(categoryId), categoryCounts[categoryId]);
+            }
+        }
 
         return new ProductStats(
-                products.size(),
-                priceStats.getAverage(),
-                priceStats.getMin(),
-                priceStats.getMax(),
+                size,
+                priced > 0 ? sum / priced : 0.0,
+                priced > 0 ? min : 0.0,
+                priced > 0 ? max : 0.0,
                 inStockCount,
                 lowStockCount,
                 categoryDistribution
         );
     }
-} 
\ No newline at end of file
+}
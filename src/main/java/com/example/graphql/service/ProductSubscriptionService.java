@@ -6,6 +6,7 @@ import com.example.graphql.model.Product;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 /**
@@ -18,10 +19,12 @@ public class ProductSubscriptionService {
     private static final Logger logger = LoggerFactory.getLogger(ProductSubscriptionService.class);
     
     private final ProductSubscriptionPublisher publisher;
+    private final ApplicationEventPublisher eventPublisher;
     
     @Autowired
-    public ProductSubscriptionService(ProductSubscriptionPublisher publisher) {
+    public ProductSubscriptionService(ProductSubscriptionPublisher publisher, ApplicationEventPublisher eventPublisher) {
         this.publisher = publisher;
+        this.eventPublisher = eventPublisher;
         logger.info("ProductSubscriptionService initialized");
     }
     
@@ -41,9 +44,11 @@ public class ProductSubscriptionService {
      * @param newPrice The new price
      */
     public void notifyPriceChanged(Product product, Double oldPrice, Double newPrice) {
-        logger.debug("Product price changed from {} to {} for product: {} (operation: {})", 
-                     oldPrice, newPrice, product.getId(), 
-                     product.getOperation() != null ? product.getOperation() : "UNKNOWN");
+        if (logger.isDebugEnabled()) {
+            logger.debug("Product price changed from {} to {} for product: {} (operation: {})",
+                         oldPrice, newPrice, product.getId(),
+                         product.getOperation() != null ? product.getOperation() : "UNKNOWN");
+        }
         
         ProductPriceChange priceChange = new ProductPriceChange(product, oldPrice, newPrice);
         publisher.publishPriceChange(priceChange);
@@ -67,6 +72,11 @@ public class ProductSubscriptionService {
      * @param newProduct The product after update
      */
     public void handleProductUpdate(Product oldProduct, Product newProduct) {
+        // Let in-process listeners (caches) react to the change first
+        eventPublisher.publishEvent("DELETED".equals(newProduct.getOperation())
+                ? ProductChangeEvent.deleted(oldProduct)
+                : ProductChangeEvent.updated(oldProduct, newProduct));
+        
         // Always notify about the general product update
         notifyProductUpdated(newProduct);
         
@@ -86,6 +96,8 @@ public class ProductSubscriptionService {
      * @param product The newly created product
      */
     public void handleProductCreated(Product product) {
+        eventPublisher.publishEvent(ProductChangeEvent.created(product));
+        
         // Notify about new product
         notifyProductUpdated(product);
         
@@ -0,0 +1,237 @@
+package com.example.graphql.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * KLL sketch of a stream of numbers, answering quantile queries within a bounded rank error.
+ *
+ * Values enter a stack of compactors whose items weigh 2^level. A full compactor sorts
+ * its items and promotes every other one, picked from a random offset, to the level
+ * above; capacities shrink by 2/3 per level below the top, so the sketch retains about
+ * 3k values however long the stream. The normalized rank error is about 2.3 / k^0.97 with
+ * 99% confidence. The random offsets come from a fixed seed, so a sketch of a given
+ * stream is deterministic.
+ */
+public final class QuantileSketch {
+
+    public static final int MIN_K = 8;
+    public static final int MAX_K = 1 << 14;
+
+    private static final double CAPACITY_DECAY = 2.0 / 3;
+
+    private final int k;
+    private final List<Compactor> levels = new ArrayList<>();
+    private long count;
+    private int retained;
+    private int maxRetained;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    private long randomState = 0x5DEECE66DL;
+
+    // Retained values sorted with their cumulative weights, until the next change
+    private double[] sortedValues;
+    private long[] cumulativeWeights;
+
+    public QuantileSketch(int k) {
+        if (k < MIN_K || k > MAX_K) {
+            throw new IllegalArgumentException("k must be between " + MIN_K + " and " + MAX_K + ", got " + k);
+        }
+        this.k = k;
+        grow();
+    }
+
+    /**
+     * Smallest k whose rank error is at most the given fraction
+     */
+    public static int kFor(double rankError) {
+        if (!(rankError > 0)) {
+            throw new IllegalArgumentException("rank error must be positive, got " + rankError);
+        }
+        double k = Math.ceil(Math.pow(2.296 / rankError, 1 / 0.9723));
+        return (int) Math.max(MIN_K, Math.min(MAX_K, k));
+    }
+
+    public static double rankError(int k) {
+        return 2.296 / Math.pow(k, 0.9723);
+    }
+
+    public double rankError() {
+        return rankError(k);
+    }
+
+    public int getK() {
+        return k;
+    }
+
+    /**
+     * Number of values added
+     */
+    public long count() {
+        return count;
+    }
+
+    public void add(double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        levels.get(0).add(value);
+        count++;
+        retained++;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        sortedValues = null;
+        if (retained >= maxRetained) {
+            compress();
+        }
+    }
+
+    /**
+     * Add all values of another sketch of the same k
+     */
+    public void merge(QuantileSketch other) {
+        if (other.k != k) {
+            throw new IllegalArgumentException("Cannot merge a sketch with k " + other.k + " into " + k);
+        }
+        while (levels.size() < other.levels.size()) {
+            grow();
+        }
+        for (int level = 0; level < other.levels.size(); level++) {
+            Compactor source = other.levels.get(level);
+            for (int i = 0; i < source.size; i++) {
+                levels.get(level).add(source.items[i]);
+            }
+            retained += source.size;
+        }
+        count += other.count;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        sortedValues = null;
+        while (retained >= maxRetained) {
+            compress();
+        }
+    }
+
+    /**
+     * Returns the smallest retained value whose estimated rank is at least the fraction
+     * of all values, or NaN for an empty sketch
+     */
+    public double quantile(double fraction) {
+        if (fraction < 0 || fraction > 1) {
+            throw new IllegalArgumentException("fraction must be between 0 and 1, got " + fraction);
+        }
+        if (count == 0) {
+            return Double.NaN;
+        }
+        if (fraction == 0) {
+            return min;
+        }
+        if (fraction == 1) {
+            return max;
+        }
+        if (sortedValues == null) {
+            sort();
+        }
+        long total = cumulativeWeights[cumulativeWeights.length - 1];
+        double target = fraction * total;
+        int low = 0;
+        int high = cumulativeWeights.length - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (cumulativeWeights[middle] >= target) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return sortedValues[low];
+    }
+
+    private void sort() {
+        double[] values = new double[retained];
+        long[] weights = new long[retained];
+        int n = 0;
+        for (int level = 0; level < levels.size(); level++) {
+            Compactor compactor = levels.get(level);
+            for (int i = 0; i < compactor.size; i++) {
+                values[n] = compactor.items[i];
+                weights[n++] = 1L << level;
+            }
+        }
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(values[a], values[b]));
+        sortedValues = new double[n];
+        cumulativeWeights = new long[n];
+        long cumulative = 0;
+        for (int i = 0; i < n; i++) {
+            sortedValues[i] = values[order[i]];
+            cumulative += weights[order[i]];
+            cumulativeWeights[i] = cumulative;
+        }
+    }
+
+    private int capacity(int level) {
+        int depth = levels.size() - level - 1;
+        return Math.max(2, (int) Math.ceil(k * Math.pow(CAPACITY_DECAY, depth)));
+    }
+
+    private void grow() {
+        levels.add(new Compactor());
+        maxRetained = 0;
+        for (int level = 0; level < levels.size(); level++) {
+            maxRetained += capacity(level);
+        }
+    }
+
+    /**
+     * Compact the lowest full level, growing a new top level if needed
+     */
+    private void compress() {
+        for (int level = 0; level < levels.size(); level++) {
+            Compactor compactor = levels.get(level);
+            if (compactor.size >= capacity(level)) {
+                if (level + 1 == levels.size()) {
+                    grow();
+                }
+                int before = compactor.size;
+                compactor.compactInto(levels.get(level + 1), nextRandomBit());
+                retained -= before - compactor.size - (before - compactor.size) / 2;
+                return;
+            }
+        }
+    }
+
+    private int nextRandomBit() {
+        randomState = HyperLogLog.hash(randomState);
+        return (int) (randomState >>> 63);
+    }
+
+    private static final class Compactor {
+        private double[] items = new double[16];
+        private int size;
+
+        void add(double value) {
+            if (size == items.length) {
+                items = Arrays.copyOf(items, size * 2);
+            }
+            items[size++] = value;
+        }
+
+        /**
+         * Promote one value of each pair of neighbours to the next level; with an odd
+         * number of items the smallest one stays
+         */
+        void compactInto(Compactor next, int offset) {
+            Arrays.sort(items, 0, size);
+            int start = size % 2;
+            for (int i = start + offset; i < size; i += 2) {
+                next.add(items[i]);
+            }
+            size = start;
+        }
+    }
+}
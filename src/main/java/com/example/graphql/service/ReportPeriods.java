@@ -0,0 +1,139 @@
+package com.example.graphql.service;
+
+import com.example.graphql.dto.TimeframeType;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The consecutive periods of a report from a start to an end date. The index of the
+ * period containing a day is computed from the day itself, so sales can be bucketed
+ * into their periods without searching.
+ */
+final class ReportPeriods {
+
+    private final TimeframeType timeframe;
+    /** First day of the first period, which may precede the start date for months, quarters and years */
+    private final LocalDate first;
+    private final List<String> labels = new ArrayList<>();
+    private final List<LocalDate> starts = new ArrayList<>();
+    private final List<LocalDate> ends = new ArrayList<>();
+
+    private ReportPeriods(TimeframeType timeframe, LocalDate first) {
+        this.timeframe = timeframe;
+        this.first = first;
+    }
+
+    /**
+     * Periods of the timeframe covering the start to the end date, none if the end precedes the start
+     */
+    static ReportPeriods of(TimeframeType timeframe, LocalDate startDate, LocalDate endDate) {
+        ReportPeriods periods;
+        switch (timeframe) {
+            case DAILY:
+                periods = new ReportPeriods(timeframe, startDate);
+                for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
+                    periods.add(date.format(DateTimeFormatter.ISO_DATE), date, date);
+                }
+                break;
+
+            case WEEKLY:
+                // Weeks start on the start date
+                periods = new ReportPeriods(timeframe, startDate);
+                for (LocalDate weekStart = startDate; !weekStart.isAfter(endDate); weekStart = weekStart.plusDays(7)) {
+                    LocalDate weekEnd = min(weekStart.plusDays(6), endDate);
+                    periods.add("Week " + weekStart.format(DateTimeFormatter.ISO_DATE) + " to " + weekEnd.format(DateTimeFormatter.ISO_DATE),
+                            weekStart, weekEnd);
+                }
+                break;
+
+            case MONTHLY:
+                periods = new ReportPeriods(timeframe, startDate.withDayOfMonth(1));
+                for (LocalDate monthStart = periods.first; !monthStart.isAfter(endDate); monthStart = monthStart.plusMonths(1)) {
+                    periods.add(monthStart.getMonth() + " " + monthStart.getYear(),
+                            monthStart, min(monthStart.plusMonths(1).minusDays(1), endDate));
+                }
+                break;
+
+            case QUARTERLY:
+                periods = new ReportPeriods(timeframe,
+                        LocalDate.of(startDate.getYear(), (startDate.getMonthValue() - 1) / 3 * 3 + 1, 1));
+                for (LocalDate quarterStart = periods.first; !quarterStart.isAfter(endDate); quarterStart = quarterStart.plusMonths(3)) {
+                    int quarter = (quarterStart.getMonthValue() - 1) / 3 + 1;
+                    periods.add("Q" + quarter + " " + quarterStart.getYear(),
+                            quarterStart, min(quarterStart.plusMonths(3).minusDays(1), endDate));
+                }
+                break;
+
+            case YEARLY:
+                periods = new ReportPeriods(timeframe, LocalDate.of(startDate.getYear(), 1, 1));
+                for (LocalDate yearStart = periods.first; !yearStart.isAfter(endDate); yearStart = yearStart.plusYears(1)) {
+                    periods.add(String.valueOf(yearStart.getYear()),
+                            yearStart, min(yearStart.plusYears(1).minusDays(1), endDate));
+                }
+                break;
+
+            case CUSTOM:
+            default:
+                // Just one period for the entire range
+                periods = new ReportPeriods(TimeframeType.CUSTOM, startDate);
+                periods.add(startDate.format(DateTimeFormatter.ISO_DATE) + " to " + endDate.format(DateTimeFormatter.ISO_DATE),
+                        startDate, endDate);
+                break;
+        }
+        return periods;
+    }
+
+    int size() {
+        return labels.size();
+    }
+
+    String getLabel(int period) {
+        return labels.get(period);
+    }
+
+    LocalDate getStart(int period) {
+        return starts.get(period);
+    }
+
+    LocalDate getEnd(int period) {
+        return ends.get(period);
+    }
+
+    /**
+     * Index of the period containing a day, which must lie within the periods
+     */
+    int indexOf(LocalDate day) {
+        switch (timeframe) {
+            case DAILY:
+                return (int) (day.toEpochDay() - first.toEpochDay());
+            case WEEKLY:
+                return (int) ((day.toEpochDay() - first.toEpochDay()) / 7);
+            case MONTHLY:
+                return monthsSinceFirst(day);
+            case QUARTERLY:
+                return monthsSinceFirst(day) / 3;
+            case YEARLY:
+                return day.getYear() - first.getYear();
+            case CUSTOM:
+            default:
+                return 0;
+        }
+    }
+
+    private int monthsSinceFirst(LocalDate day) {
+        return (day.getYear() - first.getYear()) * 12 + day.getMonthValue() - first.getMonthValue();
+    }
+
+    private void add(String label, LocalDate start, LocalDate end) {
+        labels.add(label);
+        starts.add(start);
+        ends.add(end);
+    }
+
+    private static LocalDate min(LocalDate a, LocalDate b) {
+        return a.isAfter(b) ? b : a;
+    }
+}
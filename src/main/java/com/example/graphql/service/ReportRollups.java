@@ -0,0 +1,86 @@
+package com.example.graphql.service;
+
+import java.util.Arrays;
+
+/**
+ * The rollups read for a report as primitive columns: the report period and product
+ * index each rollup was bucketed into, with its orders, units and revenue
+ */
+final class ReportRollups {
+
+    private int size;
+    private int[] periods = new int[256];
+    private int[] products = new int[256];
+    private long[] orders = new long[256];
+    private long[] units = new long[256];
+    private double[] revenue = new double[256];
+
+    void add(int period, int product, long orders, long units, double revenue) {
+        if (size == periods.length) {
+            grow();
+        }
+        this.periods[size] = period;
+        this.products[size] = product;
+        this.orders[size] = orders;
+        this.units[size] = units;
+        this.revenue[size] = revenue;
+        size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Add the rollups from index from (inclusive) to index to (exclusive) to an accumulator
+     */
+    void addTo(SalesReportAccumulator accumulator, int from, int to) {
+        for (int i = from; i < to; i++) {
+            accumulator.add(periods[i], products[i], orders[i], units[i], revenue[i]);
+        }
+    }
+
+    /**
+     * Reorder the rollups by period with a counting sort, keeping their order within a
+     * period, and return the index of the first rollup of each period followed by the size
+     */
+    int[] sortByPeriod(int periodCount) {
+        int[] offsets = new int[periodCount + 1];
+        for (int i = 0; i < size; i++) {
+            offsets[periods[i] + 1]++;
+        }
+        for (int period = 0; period < periodCount; period++) {
+            offsets[period + 1] += offsets[period];
+        }
+
+        int[] next = Arrays.copyOf(offsets, periodCount);
+        int[] sortedProducts = new int[size];
+        long[] sortedOrders = new long[size];
+        long[] sortedUnits = new long[size];
+        double[] sortedRevenue = new double[size];
+        for (int i = 0; i < size; i++) {
+            int to = next[periods[i]]++;
+            sortedProducts[to] = products[i];
+            sortedOrders[to] = orders[i];
+            sortedUnits[to] = units[i];
+            sortedRevenue[to] = revenue[i];
+        }
+        for (int period = 0; period < periodCount; period++) {
+            Arrays.fill(periods, offsets[period], offsets[period + 1], period);
+        }
+        products = sortedProducts;
+        orders = sortedOrders;
+        units = sortedUnits;
+        revenue = sortedRevenue;
+        return offsets;
+    }
+
+    private void grow() {
+        int capacity = periods.length * 2;
+        periods = Arrays.copyOf(periods, capacity);
+        products = Arrays.copyOf(products, capacity);
+        orders = Arrays.copyOf(orders, capacity);
+        units = Arrays.copyOf(units, capacity);
+        revenue = Arrays.copyOf(revenue, capacity);
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.graphql.service;
+
+import com.example.graphql.dto.SaleInput;
+import com.example.graphql.model.Sale;
+import com.example.graphql.model.SalesGrain;
+import com.example.graphql.model.SalesRollup;
+import com.example.graphql.repository.ProductRepository;
+import com.example.graphql.repository.SaleRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Records sales in the ledger. Every sale is stored as a fact and added to the rollups of
+ * its product for the day, week, month, quarter and year it was sold in, within the same
+ * transaction, so reports can read the rollups alone.
+ */
+@Service
+public class SalesLedgerService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SalesLedgerService.class);
+
+    public static final int MAX_BATCH_SIZE = 10_000;
+
+    /** Rollups are written in key order, so concurrent transactions lock them in the same order */
+    private static final Comparator<SalesRollup> ROLLUP_ORDER = Comparator.comparing(SalesRollup::getGrain)
+            .thenComparing(SalesRollup::getPeriodStart)
+            .thenComparingLong(SalesRollup::getProductId);
+
+    private final SaleRepository saleRepository;
+    private final ProductRepository productRepository;
+
+    @Autowired
+    public SalesLedgerService(SaleRepository saleRepository, ProductRepository productRepository) {
+        this.saleRepository = saleRepository;
+        this.productRepository = productRepository;
+    }
+
+    /**
+     * Record one sale and add it to its rollups
+     *
+     * @throws IllegalArgumentException if the product does not exist or a value is invalid
+     */
+    @Transactional
+    public Sale recordSale(SaleInput input) {
+        Sale sale = saleRepository.save(toSales(List.of(input)).get(0));
+        saleRepository.addToRollups(rollupIncrements(List.of(sale)));
+        return sale;
+    }
+
+    /**
+     * Record a batch of sales: the facts are inserted in JDBC batches and the batch is
+     * pre-aggregated, so each rollup it touches is written once
+     *
+     * @return the number of sales recorded
+     * @throws IllegalArgumentException if the batch is too large, or any sale is invalid,
+     *                                  in which case none is recorded
+     */
+    @Transactional
+    public int recordSales(List<SaleInput> inputs) {
+        if (inputs.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("At most " + MAX_BATCH_SIZE + " sales can be recorded at once, got " + inputs.size());
+        }
+        if (inputs.isEmpty()) {
+            return 0;
+        }
+        List<Sale> sales = toSales(inputs);
+        saleRepository.insertAll(sales);
+        List<SalesRollup> increments = rollupIncrements(sales);
+        saleRepository.addToRollups(increments);
+        logger.debug("Recorded {} sales into {} rollups", sales.size(), increments.size());
+        return sales.size();
+    }
+
+    /**
+     * Remove all sales and rollups
+     */
+    @Transactional
+    public void deleteAll() {
+        saleRepository.deleteAllInBatch();
+        saleRepository.deleteAllRollups();
+    }
+
+    /**
+     * The increments a set of sales adds to the rollups, one per grain, period and product
+     */
+    static List<SalesRollup> rollupIncrements(Collection<Sale> sales) {
+        Map<SalesRollup, SalesRollup> increments = new TreeMap<>(ROLLUP_ORDER);
+        for (Sale sale : sales) {
+            LocalDate day = sale.getSoldAtTimestamp().toLocalDate();
+            for (SalesGrain grain : SalesGrain.values()) {
+                SalesRollup key = new SalesRollup(grain, grain.periodStart(day), sale.getProductId(), 0, 0, 0);
+                increments.computeIfAbsent(key, k -> k).add(sale);
+            }
+        }
+        return new ArrayList<>(increments.values());
+    }
+
+    private List<Sale> toSales(List<SaleInput> inputs) {
+        Set<Long> productIds = new HashSet<>();
+        for (SaleInput input : inputs) {
+            productIds.add(parseProductId(input.getProductId()));
+        }
+        Map<Long, Double> prices = new HashMap<>();
+        for (Object[] row : productRepository.findPrices(productIds)) {
+            prices.put((Long) row[0], (Double) row[1]);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Sale> sales = new ArrayList<>(inputs.size());
+        for (SaleInput input : inputs) {
+            long productId = parseProductId(input.getProductId());
+            if (!prices.containsKey(productId)) {
+                throw new IllegalArgumentException("Product not found with id: " + productId);
+            }
+            int quantity = input.getQuantity() != null ? input.getQuantity() : 1;
+            if (quantity < 1) {
+                throw new IllegalArgumentException("quantity must be at least 1, got " + quantity);
+            }
+            Double unitPrice = input.getUnitPrice() != null ? input.getUnitPrice() : prices.get(productId);
+            if (unitPrice == null) {
+                throw new IllegalArgumentException("Product " + productId + " has no price, so the sale needs a unitPrice");
+            }
+            if (!(unitPrice >= 0) || Double.isInfinite(unitPrice)) {
+                throw new IllegalArgumentException("unitPrice must be a non-negative number, got " + unitPrice);
+            }
+            LocalDateTime soldAt = input.getSoldAt() != null ? parseSoldAt(input.getSoldAt()) : now;
+            sales.add(new Sale(productId, quantity, unitPrice, soldAt));
+        }
+        return sales;
+    }
+
+    private static long parseProductId(String productId) {
+        try {
+            return Long.parseLong(productId);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("productId must be a product id, got '" + productId + "'", e);
+        }
+    }
+
+    /**
+     * Parse an ISO-8601 date-time, or a date meaning the start of that day
+     */
+    private static LocalDateTime parseSoldAt(String value) {
+        try {
+            return value.indexOf('T') >= 0
+                    ? LocalDateTime.parse(value, DateTimeFormatter.ISO_DATE_TIME)
+                    : LocalDate.parse(value, DateTimeFormatter.ISO_DATE).atStartOfDay();
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("soldAt must be an ISO-8601 date or date-time, got '" + value + "'", e);
+        }
+    }
+}
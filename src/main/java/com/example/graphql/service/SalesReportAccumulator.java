@@ -0,0 +1,158 @@
+package com.example.graphql.service;
+
+import com.example.graphql.dto.SalesReportPeriod;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Sums the sales of a range of report periods in one pass over their rollups. Orders and
+ * revenue per period are running sums in arrays indexed by period; units and revenue per
+ * period and product are kept in cells found through a primitive hash map, since a period
+ * may be read from several rollups of the same product. The top selling products of every
+ * period are then selected in one pass over the cells, with a bounded heap per period.
+ * Accumulators of disjoint period ranges can fill in parallel, see SalesReportExecutor.
+ */
+final class SalesReportAccumulator {
+
+    private final int firstPeriod;
+    private final int periods;
+    /** Product id of each product index */
+    private final long[] productIds;
+
+    private final long[] orders;
+    private final double[] revenue;
+
+    /** Cell id of each period * products + product index */
+    private final LongIntMap cells;
+    private int[] cellPeriod = new int[64];
+    private int[] cellProduct = new int[64];
+    private long[] cellUnits = new long[64];
+    private double[] cellRevenue = new double[64];
+
+    /**
+     * Accumulator of the periods from firstPeriod to firstPeriod + periods (exclusive)
+     */
+    SalesReportAccumulator(int firstPeriod, int periods, long[] productIds) {
+        this.firstPeriod = firstPeriod;
+        this.periods = periods;
+        this.productIds = productIds;
+        this.orders = new long[periods];
+        this.revenue = new double[periods];
+        this.cells = new LongIntMap(64);
+    }
+
+    /**
+     * Add sales of the product with the given index to a period
+     */
+    void add(int reportPeriod, int product, long orders, long units, double revenue) {
+        int period = reportPeriod - firstPeriod;
+        this.orders[period] += orders;
+        this.revenue[period] += revenue;
+        int cell = cells.idOf((long) period * productIds.length + product);
+        if (cell == cellPeriod.length) {
+            grow();
+        }
+        cellPeriod[cell] = period;
+        cellProduct[cell] = product;
+        cellUnits[cell] += units;
+        cellRevenue[cell] += revenue;
+    }
+
+    /**
+     * One report row per period of the range, listing up to topProducts products by units sold and
+     * then by id, with names looked up by product index
+     */
+    List<SalesReportPeriod> toReport(ReportPeriods labels, int topProducts, IntFunction<String> productName) {
+        // Min-heaps of cell ids, with the weakest of a period's top products at its root
+        int[] heaps = new int[periods * topProducts];
+        int[] heapSizes = new int[periods];
+        for (int cell = 0; cell < cells.size(); cell++) {
+            int period = cellPeriod[cell];
+            int base = period * topProducts;
+            if (heapSizes[period] < topProducts) {
+                heaps[base + heapSizes[period]] = cell;
+                siftUp(heaps, base, heapSizes[period]++);
+            } else if (topProducts > 0 && outsells(cell, heaps[base])) {
+                heaps[base] = cell;
+                siftDown(heaps, base, topProducts);
+            }
+        }
+
+        List<SalesReportPeriod> report = new ArrayList<>(periods);
+        for (int period = 0; period < periods; period++) {
+            // Empty the heap from the weakest product up, filling the list from its end
+            int base = period * topProducts;
+            SalesReportPeriod.TopSellingProduct[] top = new SalesReportPeriod.TopSellingProduct[heapSizes[period]];
+            for (int size = heapSizes[period]; size > 0; size--) {
+                int cell = heaps[base];
+                heaps[base] = heaps[base + size - 1];
+                siftDown(heaps, base, size - 1);
+                top[size - 1] = new SalesReportPeriod.TopSellingProduct(
+                        String.valueOf(productIds[cellProduct[cell]]),
+                        productName.apply(cellProduct[cell]),
+                        (int) Math.min(cellUnits[cell], Integer.MAX_VALUE),
+                        cellRevenue[cell]);
+            }
+            report.add(new SalesReportPeriod(
+                    labels.getLabel(firstPeriod + period),
+                    (int) Math.min(orders[period], Integer.MAX_VALUE),
+                    revenue[period],
+                    orders[period] > 0 ? revenue[period] / orders[period] : 0,
+                    Arrays.asList(top)));
+        }
+        return report;
+    }
+
+    /**
+     * Whether a cell's product sold more units than another's, the lower id winning ties
+     */
+    private boolean outsells(int cell, int other) {
+        if (cellUnits[cell] != cellUnits[other]) {
+            return cellUnits[cell] > cellUnits[other];
+        }
+        return productIds[cellProduct[cell]] < productIds[cellProduct[other]];
+    }
+
+    private void siftUp(int[] heap, int base, int index) {
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (!outsells(heap[base + parent], heap[base + index])) {
+                return;
+            }
+            swap(heap, base + parent, base + index);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int[] heap, int base, int size) {
+        int index = 0;
+        while (2 * index + 1 < size) {
+            int child = 2 * index + 1;
+            if (child + 1 < size && outsells(heap[base + child], heap[base + child + 1])) {
+                child++;
+            }
+            if (!outsells(heap[base + index], heap[base + child])) {
+                return;
+            }
+            swap(heap, base + index, base + child);
+            index = child;
+        }
+    }
+
+    private static void swap(int[] heap, int i, int j) {
+        int swapped = heap[i];
+        heap[i] = heap[j];
+        heap[j] = swapped;
+    }
+
+    private void grow() {
+        int capacity = cellPeriod.length * 2;
+        cellPeriod = Arrays.copyOf(cellPeriod, capacity);
+        cellProduct = Arrays.copyOf(cellProduct, capacity);
+        cellUnits = Arrays.copyOf(cellUnits, capacity);
+        cellRevenue = Arrays.copyOf(cellRevenue, capacity);
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.graphql.service;
+
+import com.example.graphql.dto.SalesReportPeriod;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntFunction;
+
+/**
+ * Computes sales reports on a fork-join pool. The rollups are sorted by period, then the
+ * period list is split recursively into ranges of about equal numbers of rollups; each
+ * task fills its own accumulator for its range and the rows of the ranges are joined in
+ * period order, so tasks share no state and the result does not depend on the split.
+ * With a parallelism of 1 the same ranges are computed one after the other on the calling
+ * thread, since small accumulators keep their cells in cache.
+ */
+@Service
+public class SalesReportExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(SalesReportExecutor.class);
+
+    /** Rollups per task: enough to outweigh the task overhead, few enough for a task's cells to stay in cache */
+    static final int ROLLUPS_PER_TASK = 4096;
+
+    private final int parallelism;
+    private final int rollupsPerTask;
+    private final ForkJoinPool pool;
+
+    /**
+     * @param parallelism worker threads, 0 for one per available processor
+     */
+    @Autowired
+    public SalesReportExecutor(@Value("${app.reporting.parallelism:0}") int parallelism) {
+        this(parallelism, ROLLUPS_PER_TASK);
+    }
+
+    SalesReportExecutor(int parallelism, int rollupsPerTask) {
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.rollupsPerTask = rollupsPerTask;
+        this.pool = this.parallelism > 1 ? new ForkJoinPool(this.parallelism) : null;
+        logger.info("Sales reports are computed with a parallelism of {}", this.parallelism);
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * The report rows of all periods, listing up to topProducts products per period
+     */
+    List<SalesReportPeriod> execute(ReportPeriods periods, ReportRollups rollups, long[] productIds,
+                                    int topProducts, IntFunction<String> productName) {
+        if (periods.size() < 2 || rollups.size() <= rollupsPerTask) {
+            return computeRange(periods, rollups, null, productIds, topProducts, productName, 0, periods.size());
+        }
+        int[] offsets = rollups.sortByPeriod(periods.size());
+        if (pool != null) {
+            return pool.invoke(new PeriodRangeTask(periods, rollups, offsets, productIds, topProducts, productName,
+                    rollupsPerTask, 0, periods.size()));
+        }
+        List<SalesReportPeriod> rows = new ArrayList<>(periods.size());
+        for (int from = 0, to; from < periods.size(); from = to) {
+            // Extend the range by whole periods until it holds enough rollups
+            to = from + 1;
+            while (to < periods.size() && offsets[to + 1] - offsets[from] <= rollupsPerTask) {
+                to++;
+            }
+            rows.addAll(computeRange(periods, rollups, offsets, productIds, topProducts, productName, from, to));
+        }
+        return rows;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Report rows of the periods from one index (inclusive) to another (exclusive), from
+     * all rollups if there are no offsets of the periods in sorted rollups
+     */
+    private static List<SalesReportPeriod> computeRange(ReportPeriods periods, ReportRollups rollups, int[] offsets,
+                                                        long[] productIds, int topProducts, IntFunction<String> productName,
+                                                        int from, int to) {
+        SalesReportAccumulator accumulator = new SalesReportAccumulator(from, to - from, productIds);
+        rollups.addTo(accumulator, offsets != null ? offsets[from] : 0, offsets != null ? offsets[to] : rollups.size());
+        return accumulator.toReport(periods, topProducts, productName);
+    }
+
+    /**
+     * Report rows of the periods from one index (inclusive) to another (exclusive)
+     */
+    private static final class PeriodRangeTask extends RecursiveTask<List<SalesReportPeriod>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final ReportPeriods periods;
+        private final ReportRollups rollups;
+        private final int[] offsets;
+        private final long[] productIds;
+        private final int topProducts;
+        private final IntFunction<String> productName;
+        private final int rollupsPerTask;
+        private final int from;
+        private final int to;
+
+        PeriodRangeTask(ReportPeriods periods, ReportRollups rollups, int[] offsets, long[] productIds, int topProducts,
+                        IntFunction<String> productName, int rollupsPerTask, int from, int to) {
+            this.periods = periods;
+            this.rollups = rollups;
+            this.offsets = offsets;
+            this.productIds = productIds;
+            this.topProducts = topProducts;
+            this.productName = productName;
+            this.rollupsPerTask = rollupsPerTask;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<SalesReportPeriod> compute() {
+            if (to - from < 2 || offsets[to] - offsets[from] <= rollupsPerTask) {
+                return computeRange(periods, rollups, offsets, productIds, topProducts, productName, from, to);
+            }
+            int split = split();
+            PeriodRangeTask left = subtask(from, split);
+            left.fork();
+            List<SalesReportPeriod> right = subtask(split, to).compute();
+            List<SalesReportPeriod> rows = new ArrayList<>(to - from);
+            rows.addAll(left.join());
+            rows.addAll(right);
+            return rows;
+        }
+
+        /**
+         * The period that splits the range into halves of about equal numbers of rollups
+         */
+        private int split() {
+            int middle = offsets[from] + (offsets[to] - offsets[from]) / 2;
+            int period = Arrays.binarySearch(offsets, from, to + 1, middle);
+            if (period < 0) {
+                period = -period - 1;
+            }
+            return Math.min(Math.max(period, from + 1), to - 1);
+        }
+
+        private PeriodRangeTask subtask(int from, int to) {
+            return new PeriodRangeTask(periods, rollups, offsets, productIds, topProducts, productName,
+                    rollupsPerTask, from, to);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.graphql.service;
+
+import com.example.graphql.model.Product;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeSet;
+
+/**
+ * Text analysis shared by the full-text index and the in-memory evaluation of search
+ * clauses, so both agree on what a query matches.
+ *
+ * Text is split into maximal runs of letters and digits, lower-cased. A query matches a
+ * product when every query term is a prefix of some token of its name or description.
+ */
+public final class SearchText {
+
+    private SearchText() {
+    }
+
+    /**
+     * Split text into lower-cased tokens, in order and with repeats
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * The distinct terms of a query, sorted, so equivalent queries compare equal.
+     * Returns an empty list for a null or blank query, which matches every product.
+     */
+    public static List<String> queryTerms(String query) {
+        return new ArrayList<>(new TreeSet<>(tokenize(query)));
+    }
+
+    /**
+     * Whether every term is a prefix of a token of the product's name or description
+     */
+    public static boolean matches(Product product, List<String> terms) {
+        if (terms.isEmpty()) {
+            return true;
+        }
+        List<String> tokens = tokenize(product.getName());
+        tokens.addAll(tokenize(product.getDescription()));
+        for (String term : terms) {
+            if (!hasPrefix(tokens, term)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean hasPrefix(List<String> tokens, String term) {
+        for (String token : tokens) {
+            if (token.startsWith(term)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
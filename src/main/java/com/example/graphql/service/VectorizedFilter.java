@@ -0,0 +1,323 @@
+package com.example.graphql.service;
+
+import com.example.graphql.dto.ProductFilter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * A ProductFilter compiled against one ProductSnapshot into a sequence of column kernels.
+ *
+ * The selection is a bitmap of 64-row words. Each kernel refines it in place: the
+ * in-stock clause is a word-wise AND with the in-stock column, and numeric and category
+ * clauses evaluate a 64-row block of a primitive column and AND the packed result into
+ * the word. Comparisons are computed from the sign bit of a difference rather than with
+ * a conditional, so the inner loops have no data-dependent branches to mispredict.
+ * Blocks whose word is already empty are skipped, so later kernels only touch rows
+ * earlier ones kept. A search clause, resolved against the search index up front,
+ * keeps the rows whose id it matched. Clauses over names and tags, which are not held
+ * in primitive columns, run last as a per-row check of the surviving rows.
+ */
+final class VectorizedFilter {
+
+    private static final int WORD_BITS = 64;
+
+    /**
+     * Refines a selection bitmap in place
+     */
+    @FunctionalInterface
+    interface Kernel {
+        void refine(long[] selection, int size);
+    }
+
+    private final int size;
+    private final List<Kernel> kernels;
+    private final boolean empty;
+
+    private VectorizedFilter(int size, List<Kernel> kernels, boolean empty) {
+        this.size = size;
+        this.kernels = kernels;
+        this.empty = empty;
+    }
+
+    /**
+     * Compile a filter against a snapshot
+     *
+     * @param recordFilter per-row check for the clauses without a column, or null if none are set
+     */
+    static VectorizedFilter compile(ProductSnapshot snapshot, ProductFilter filter, IntPredicate recordFilter) {
+        return compile(snapshot, filter, null, recordFilter);
+    }
+
+    /**
+     * Compile a filter against a snapshot
+     *
+     * @param searchMatches sorted ids of the products matching the search clause, or null if it is not set
+     * @param recordFilter per-row check for the clauses without a column, or null if none are set
+     */
+    static VectorizedFilter compile(ProductSnapshot snapshot, ProductFilter filter, long[] searchMatches,
+                                    IntPredicate recordFilter) {
+        List<Kernel> kernels = new ArrayList<>();
+        if (filter == null) {
+            return new VectorizedFilter(snapshot.size(), kernels, false);
+        }
+
+        // Cheapest clauses first, so the costlier ones see fewer rows
+        if (filter.getInStock() != null) {
+            kernels.add(inStock(snapshot.inStockColumn(), filter.getInStock()));
+        }
+        if (filter.getCategories() != null && !filter.getCategories().isEmpty()) {
+            boolean[] allowed = new boolean[snapshot.getCategoryCount()];
+            boolean any = false;
+            for (String category : filter.getCategories()) {
+                int categoryId = snapshot.findCategoryId(category);
+                if (categoryId != ProductSnapshot.NO_CATEGORY) {
+                    allowed[categoryId] = true;
+                    any = true;
+                }
+            }
+            if (!any) {
+                return new VectorizedFilter(snapshot.size(), kernels, true);
+            }
+            kernels.add(categoryIn(snapshot.categoryIdColumn(), allowed));
+        }
+        if (filter.getMinPrice() != null || filter.getMaxPrice() != null) {
+            kernels.add(between(snapshot.priceColumn(), filter.getMinPrice(), filter.getMaxPrice()));
+        }
+        if (filter.getMinRating() != null) {
+            kernels.add(atLeast(snapshot.ratingColumn(), filter.getMinRating()));
+        }
+        if (filter.getMinStockQuantity() != null) {
+            kernels.add(atLeast(snapshot.stockQuantityColumn(), filter.getMinStockQuantity()));
+        }
+        if (filter.getMinPopularity() != null) {
+            kernels.add(atLeast(snapshot.popularityColumn(), filter.getMinPopularity()));
+        }
+        if (filter.getCreatedAfterTimestamp() != null || filter.getCreatedBeforeTimestamp() != null) {
+            // The lowest bound still excludes NO_TIMESTAMP, so products without a creation date never match
+            long low = filter.getCreatedAfterTimestamp() != null
+                    ? ProductSnapshot.toEpochMicros(filter.getCreatedAfterTimestamp()) : ProductSnapshot.NO_TIMESTAMP + 1;
+            long high = filter.getCreatedBeforeTimestamp() != null
+                    ? ProductSnapshot.toEpochMicros(filter.getCreatedBeforeTimestamp()) : Long.MAX_VALUE;
+            if (low > high) {
+                return new VectorizedFilter(snapshot.size(), kernels, true);
+            }
+            kernels.add(between(snapshot.createdAtColumn(), low, high));
+        }
+        if (searchMatches != null) {
+            if (searchMatches.length == 0) {
+                return new VectorizedFilter(snapshot.size(), kernels, true);
+            }
+            kernels.add(idIn(snapshot.idColumn(), searchMatches));
+        }
+        if (recordFilter != null) {
+            kernels.add(rows(recordFilter));
+        }
+        return new VectorizedFilter(snapshot.size(), kernels, false);
+    }
+
+    /**
+     * Run the kernels and return the selected rows
+     */
+    BitSet execute() {
+        if (empty) {
+            return new BitSet(size);
+        }
+        long[] selection = new long[(size + WORD_BITS - 1) / WORD_BITS];
+        Arrays.fill(selection, -1L);
+        if (size % WORD_BITS != 0) {
+            selection[selection.length - 1] = -1L >>> (WORD_BITS - size % WORD_BITS);
+        }
+        for (Kernel kernel : kernels) {
+            kernel.refine(selection, size);
+        }
+        return BitSet.valueOf(selection);
+    }
+
+    int getKernelCount() {
+        return kernels.size();
+    }
+
+    static Kernel inStock(BitSet column, boolean inStock) {
+        long[] words = column.toLongArray();
+        return (selection, size) -> {
+            for (int word = 0; word < selection.length; word++) {
+                long stocked = word < words.length ? words[word] : 0L;
+                selection[word] &= inStock ? stocked : ~stocked;
+            }
+        };
+    }
+
+    /**
+     * Keeps rows whose value lies within the bounds; a null bound is not checked.
+     * Missing values are NaN and never match.
+     */
+    static Kernel between(double[] column, Double min, Double max) {
+        double low = min != null ? min : 0;
+        double high = max != null ? max : 0;
+        // Masks that keep or drop each comparison's reject bit, so the loop has no branches
+        long checkLow = min != null ? -1L : 0L;
+        long checkHigh = max != null ? -1L : 0L;
+        return (selection, size) -> {
+            for (int word = 0; word < selection.length; word++) {
+                if (selection[word] == 0) {
+                    continue;
+                }
+                int base = word * WORD_BITS;
+                int end = Math.min(base + WORD_BITS, size);
+                long mask = 0;
+                for (int row = base; row < end; row++) {
+                    double value = column[row];
+                    long reject = (difference(value, low) & checkLow)
+                            | (difference(high, value) & checkHigh)
+                            | isNaN(value);
+                    mask |= (~reject >>> 63) << (row - base);
+                }
+                selection[word] &= mask;
+            }
+        };
+    }
+
+    /**
+     * Missing values are NaN and never match
+     */
+    static Kernel atLeast(float[] column, double min) {
+        return (selection, size) -> {
+            for (int word = 0; word < selection.length; word++) {
+                if (selection[word] == 0) {
+                    continue;
+                }
+                int base = word * WORD_BITS;
+                int end = Math.min(base + WORD_BITS, size);
+                long mask = 0;
+                for (int row = base; row < end; row++) {
+                    double value = column[row];
+                    long reject = difference(value, min) | isNaN(value);
+                    mask |= (~reject >>> 63) << (row - base);
+                }
+                selection[word] &= mask;
+            }
+        };
+    }
+
+    static Kernel atLeast(int[] column, int min) {
+        return (selection, size) -> {
+            for (int word = 0; word < selection.length; word++) {
+                if (selection[word] == 0) {
+                    continue;
+                }
+                int base = word * WORD_BITS;
+                int end = Math.min(base + WORD_BITS, size);
+                long mask = 0;
+                for (int row = base; row < end; row++) {
+                    // Negative exactly when the value is below the minimum; long arithmetic cannot overflow
+                    long reject = (long) column[row] - min;
+                    mask |= (~reject >>> 63) << (row - base);
+                }
+                selection[word] &= mask;
+            }
+        };
+    }
+
+    /**
+     * Keeps rows whose value lies within [low, high], which must not be empty. Shifting by
+     * low maps the range onto [0, high - low] as unsigned values, so one unsigned
+     * comparison checks both bounds without overflow.
+     */
+    static Kernel between(long[] column, long low, long high) {
+        long width = high - low;
+        return (selection, size) -> {
+            for (int word = 0; word < selection.length; word++) {
+                if (selection[word] == 0) {
+                    continue;
+                }
+                int base = word * WORD_BITS;
+                int end = Math.min(base + WORD_BITS, size);
+                long mask = 0;
+                for (int row = base; row < end; row++) {
+                    long keep = Long.compareUnsigned(column[row] - low, width) <= 0 ? 1L : 0L;
+                    mask |= keep << (row - base);
+                }
+                selection[word] &= mask;
+            }
+        };
+    }
+
+    /**
+     * Keeps rows whose category id is allowed. The lookup is shifted by one so that
+     * products without a category (NO_CATEGORY) read the always-false first entry.
+     */
+    static Kernel categoryIn(int[] column, boolean[] allowed) {
+        long[] lookup = new long[allowed.length + 1];
+        for (int categoryId = 0; categoryId < allowed.length; categoryId++) {
+            lookup[categoryId + 1] = allowed[categoryId] ? 1L : 0L;
+        }
+        return (selection, size) -> {
+            for (int word = 0; word < selection.length; word++) {
+                if (selection[word] == 0) {
+                    continue;
+                }
+                int base = word * WORD_BITS;
+                int end = Math.min(base + WORD_BITS, size);
+                long mask = 0;
+                for (int row = base; row < end; row++) {
+                    mask |= lookup[column[row] + 1] << (row - base);
+                }
+                selection[word] &= mask;
+            }
+        };
+    }
+
+    /**
+     * Returns the bits of a - b, whose sign bit is set exactly when a < b for non-NaN
+     * operands. Adding zero turns a negative-zero difference into positive zero.
+     */
+    private static long difference(double a, double b) {
+        return Double.doubleToRawLongBits((a - b) + 0.0);
+    }
+
+    /**
+     * Returns a value with the sign bit set if the value is NaN: NaN is the only value
+     * whose magnitude bits exceed those of infinity
+     */
+    private static long isNaN(double value) {
+        return 0x7FF0000000000000L - (Double.doubleToRawLongBits(value) & Long.MAX_VALUE);
+    }
+
+    /**
+     * Keeps rows whose product id is one of the sorted ids. Runs after the column
+     * kernels, since each remaining row costs a binary search.
+     */
+    static Kernel idIn(long[] column, long[] sortedIds) {
+        return (selection, size) -> {
+            for (int word = 0; word < selection.length; word++) {
+                long remaining = selection[word];
+                while (remaining != 0) {
+                    int bit = Long.numberOfTrailingZeros(remaining);
+                    remaining &= remaining - 1;
+                    if (Arrays.binarySearch(sortedIds, column[word * WORD_BITS + bit]) < 0) {
+                        selection[word] &= ~(1L << bit);
+                    }
+                }
+            }
+        };
+    }
+
+    static Kernel rows(IntPredicate filter) {
+        return (selection, size) -> {
+            for (int word = 0; word < selection.length; word++) {
+                long remaining = selection[word];
+                while (remaining != 0) {
+                    int bit = Long.numberOfTrailingZeros(remaining);
+                    remaining &= remaining - 1;
+                    if (!filter.test(word * WORD_BITS + bit)) {
+                        selection[word] &= ~(1L << bit);
+                    }
+                }
+            }
+        };
+    }
+}
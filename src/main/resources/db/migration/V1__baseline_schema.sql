@@ -0,0 +1,42 @@
+-- Schema as previously generated by Hibernate (ddl-auto=update)
+
+create table product (
+    id bigint generated by default as identity,
+    name varchar(255),
+    description varchar(1000),
+    price float(53),
+    category varchar(255),
+    in_stock boolean,
+    rating float(24),
+    stock_quantity integer,
+    popularity integer,
+    created_at varchar(255),
+    updated_at varchar(255),
+    primary key (id)
+);
+
+create table product_tags (
+    product_id bigint not null,
+    tag varchar(255),
+    constraint fk_product_tags_product foreign key (product_id) references product
+);
+
+create table product_related (
+    product_id bigint not null,
+    related_product_id bigint,
+    constraint fk_product_related_product foreign key (product_id) references product
+);
+
+create table product_frequently_bought (
+    product_id bigint not null,
+    bought_with_id bigint,
+    constraint fk_product_frequently_bought_product foreign key (product_id) references product
+);
+
+create table product_attributes (
+    product_id bigint not null,
+    custom_attributes_key varchar(255) not null,
+    attribute_value varchar(255),
+    primary key (product_id, custom_attributes_key),
+    constraint fk_product_attributes_product foreign key (product_id) references product
+);
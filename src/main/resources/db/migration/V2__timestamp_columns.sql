@@ -0,0 +1,18 @@
+-- Store created_at/updated_at as timestamps instead of ISO-8601 strings, so date
+-- ranges compare natively and can use index range scans.
+-- Existing values were written with DateTimeFormatter.ISO_DATE_TIME, e.g. 2024-01-15T10:00:00.123456
+
+alter table product add column created_at_ts timestamp(6);
+alter table product add column updated_at_ts timestamp(6);
+
+update product set
+    created_at_ts = cast(replace(created_at, 'T', ' ') as timestamp(6)),
+    updated_at_ts = cast(replace(updated_at, 'T', ' ') as timestamp(6));
+
+alter table product drop column created_at;
+alter table product drop column updated_at;
+alter table product alter column created_at_ts rename to created_at;
+alter table product alter column updated_at_ts rename to updated_at;
+
+create index idx_product_created_at on product (created_at);
+create index idx_product_updated_at on product (updated_at);
@@ -0,0 +1,19 @@
+-- Indexes for the access paths of productsWithFilter (ProductSpecification) and its
+-- sort fields (ProductSort). Each composite index leads with the equality or IN column
+-- so the trailing column serves the range predicate or the ORDER BY.
+
+-- categories (IN) with a price range or price sort
+create index idx_product_category_price on product (category, price);
+
+-- inStock with a minimum rating or rating sort
+create index idx_product_in_stock_rating on product (in_stock, rating);
+
+-- price and rating ranges or sorts without the leading column
+create index idx_product_price on product (price);
+create index idx_product_rating on product (rating);
+
+-- sort by name
+create index idx_product_name on product (name);
+
+-- hasTags: find products by tag without scanning every tag row, covering the join column
+create index idx_product_tags_tag_product on product_tags (tag, product_id);
@@ -0,0 +1,16 @@
+-- Indexed access to custom attributes for ProductFilter.attributes. Attribute predicates
+-- are pushed down as semi-joins from product to product_attributes on these indexes,
+-- which lead with the attribute key and cover product_id.
+
+-- Typed value column: the value as a number when it is one, so range predicates compare
+-- doubles from the index instead of parsing strings per row. The pattern must match
+-- AttributeFilter.NUMBER.
+alter table product_attributes add column numeric_value double precision generated always as (
+    case when regexp_like(attribute_value, '^[+-]?([0-9]+(\.[0-9]*)?|\.[0-9]+)([eE][+-]?[0-9]{1,3})?$')
+        then cast(attribute_value as double precision) end);
+
+-- equals / in
+create index idx_product_attributes_key_value on product_attributes (custom_attributes_key, attribute_value, product_id);
+
+-- min / max
+create index idx_product_attributes_key_number on product_attributes (custom_attributes_key, numeric_value, product_id);
@@ -0,0 +1,46 @@
+-- Typed storage for custom attributes. attribute_definitions registers the value type of
+-- every attribute key (AttributeType); values stay in product_attributes.attribute_value
+-- in the canonical form of their type, and generated columns decode them once on write.
+
+create table attribute_definitions (
+    attribute_key varchar(255) not null primary key,
+    value_type varchar(16) not null check (value_type in ('STRING', 'NUMBER', 'BOOLEAN', 'TIMESTAMP'))
+);
+
+-- BOOLEAN values: true or false, in any case
+alter table product_attributes add column boolean_value boolean generated always as (
+    case lower(attribute_value) when 'true' then true when 'false' then false end);
+
+-- TIMESTAMP values: yyyy-MM-ddTHH:mm:ss, as AttributeType.parseTimestamp accepts them. The
+-- nested checks reject impossible dates such as 2023-02-29 before the cast, which would
+-- fail the insert rather than yield null.
+alter table product_attributes add column timestamp_value timestamp generated always as (
+    case when regexp_like(attribute_value,
+            '^[0-9]{4}-(0[1-9]|1[0-2])-(0[1-9]|[12][0-9]|3[01])T([01][0-9]|2[0-3]):[0-5][0-9]:[0-5][0-9]$')
+        then case when substring(attribute_value, 9, 2) <= case substring(attribute_value, 6, 2)
+                when '02' then case
+                    when mod(cast(substring(attribute_value, 1, 4) as int), 4) = 0
+                        and (mod(cast(substring(attribute_value, 1, 4) as int), 100) <> 0
+                            or mod(cast(substring(attribute_value, 1, 4) as int), 400) = 0)
+                    then '29' else '28' end
+                when '04' then '30' when '06' then '30' when '09' then '30' when '11' then '30'
+                else '31' end
+            then cast(attribute_value as timestamp) end
+    end);
+
+-- after / before
+create index idx_product_attributes_key_timestamp on product_attributes (custom_attributes_key, timestamp_value, product_id);
+
+-- Register the attributes stored so far with the narrowest type all their values have
+insert into attribute_definitions (attribute_key, value_type)
+select custom_attributes_key,
+       case when count(*) = count(numeric_value) then 'NUMBER'
+            when count(*) = count(boolean_value) then 'BOOLEAN'
+            when count(*) = count(timestamp_value) then 'TIMESTAMP'
+            else 'STRING' end
+from product_attributes
+group by custom_attributes_key;
+
+-- Canonical boolean values are lower case
+update product_attributes set attribute_value = lower(attribute_value)
+where custom_attributes_key in (select attribute_key from attribute_definitions where value_type = 'BOOLEAN');
@@ -0,0 +1,26 @@
+-- Sales ledger. sale holds one row per recorded order line; sales_rollup pre-aggregates
+-- the sales of each product per day, ISO week (starting Monday), month, quarter and year,
+-- and is updated in the same transaction as the facts, so reports read the rollups only.
+-- Sales keep their product id after the product is deleted, hence no foreign key.
+
+create table sale (
+    id bigint generated by default as identity,
+    product_id bigint not null,
+    quantity integer not null check (quantity > 0),
+    unit_price float(53) not null,
+    sold_at timestamp(6) not null,
+    primary key (id)
+);
+
+create index idx_sale_sold_at on sale (sold_at);
+create index idx_sale_product_sold_at on sale (product_id, sold_at);
+
+create table sales_rollup (
+    grain varchar(8) not null check (grain in ('DAY', 'WEEK', 'MONTH', 'QUARTER', 'YEAR')),
+    period_start date not null,
+    product_id bigint not null,
+    orders bigint not null,
+    units bigint not null,
+    revenue float(53) not null,
+    primary key (grain, period_start, product_id)
+);
@@ -0,0 +1,129 @@
+package com.example.graphql.benchmark;
+
+import com.example.graphql.model.Product;
+import com.example.graphql.service.MappedProductFile;
+import com.example.graphql.service.ProductAutocompleteIndex;
+import com.example.graphql.service.ProductChangeEvent;
+import com.example.graphql.service.ProductSnapshot;
+import com.example.graphql.service.ProductSnapshotStore;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.LongStream;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Measures autocomplete latency per keystroke on a synthetic catalog: every prefix of
+ * a word from the catalog is typed in turn, a third of the words with a typo, while
+ * products keep being updated between lookups.
+ *
+ * Run with: mvn test -Pbenchmark -Dtest=AutocompleteBenchmark
+ *   -Dbenchmark.rows=5000000 -Dbenchmark.queries=100000
+ * (5M rows needs a larger heap for the index, e.g. -DargLine=-Xmx3g)
+ */
+@Tag("benchmark")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class AutocompleteBenchmark {
+
+    private static final String LETTERS = "abcdefghijklmnopqrstuvwxyz";
+
+    private final int rows = Integer.getInteger("benchmark.rows", 1_000_000);
+    private final int queries = Integer.getInteger("benchmark.queries", 100_000);
+    private final int vocabularySize = Integer.getInteger("benchmark.vocabulary", 50_000);
+
+    private final Random random = new Random(1);
+    private final List<String> vocabulary = new ArrayList<>();
+    private ProductAutocompleteIndex index;
+
+    @BeforeAll
+    void buildIndex(@TempDir Path directory) throws IOException {
+        for (int i = 0; i < vocabularySize; i++) {
+            vocabulary.add(randomWord(4 + random.nextInt(7)));
+        }
+        // Stream the catalog into an off-heap file, so only the index itself is held on the heap
+        Iterator<Product> catalog = LongStream.rangeClosed(1, rows).mapToObj(this::randomProduct).iterator();
+        ProductSnapshot snapshot = ProductSnapshot.of(MappedProductFile.write(directory.resolve("products.bin"), catalog));
+        ProductSnapshotStore store = mock(ProductSnapshotStore.class);
+        when(store.getSnapshot()).thenReturn(snapshot);
+        index = new ProductAutocompleteIndex(store);
+
+        long start = System.nanoTime();
+        index.size();
+        System.out.printf("[autocomplete] indexed %d products in %d ms%n", rows, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @Test
+    void keystrokes() {
+        run(queries / 10, null);
+
+        LatencyRecorder exact = new LatencyRecorder(queries);
+        LatencyRecorder fuzzy = new LatencyRecorder(queries);
+        LatencyRecorder updates = new LatencyRecorder(queries);
+        int suggestions = run(queries, new LatencyRecorder[]{exact, fuzzy, updates});
+
+        System.out.printf("[autocomplete, %d rows] exact prefix: %s%n", rows, exact.summary());
+        System.out.printf("[autocomplete, %d rows] with typos:   %s%n", rows, fuzzy.summary());
+        System.out.printf("[autocomplete, %d rows] updates:      %s%n", rows, updates.summary());
+        // Keep the result alive so the lookups cannot be optimized away
+        if (suggestions == Integer.MIN_VALUE) {
+            System.out.println(suggestions);
+        }
+    }
+
+    /**
+     * Type queries keystroke by keystroke, updating one product after each word
+     */
+    private int run(int count, LatencyRecorder[] recorders) {
+        int suggestions = 0;
+        int typed = 0;
+        while (typed < count) {
+            String word = vocabulary.get(random.nextInt(vocabulary.size()));
+            boolean typo = random.nextInt(3) == 0;
+            if (typo) {
+                int at = 1 + random.nextInt(word.length() - 1);
+                word = word.substring(0, at) + LETTERS.charAt(random.nextInt(LETTERS.length())) + word.substring(at + 1);
+            }
+            for (int end = 1; end <= word.length() && typed < count; end++, typed++) {
+                long start = System.nanoTime();
+                suggestions += index.suggest(word.substring(0, end), 10, 2).size();
+                if (recorders != null) {
+                    recorders[typo ? 1 : 0].record(System.nanoTime() - start);
+                }
+            }
+
+            long id = 1 + random.nextInt(rows);
+            long start = System.nanoTime();
+            index.onProductChange(ProductChangeEvent.updated(randomProduct(id), randomProduct(id)));
+            if (recorders != null) {
+                recorders[2].record(System.nanoTime() - start);
+            }
+        }
+        return suggestions;
+    }
+
+    private Product randomProduct(long id) {
+        String name = vocabulary.get(random.nextInt(vocabulary.size())) + " " + vocabulary.get(random.nextInt(vocabulary.size()))
+                + " " + vocabulary.get(random.nextInt(vocabulary.size()));
+        List<String> tags = new ArrayList<>(List.of(vocabulary.get(random.nextInt(200)), vocabulary.get(random.nextInt(200))));
+        return new Product(id, name, null, 10.0, "Electronics", true, 4.0f, tags, 10, random.nextInt(10_000));
+    }
+
+    private String randomWord(int length) {
+        StringBuilder word = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            word.append(LETTERS.charAt(random.nextInt(LETTERS.length())));
+        }
+        return word.toString();
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.graphql.benchmark;
+
+import org.junit.jupiter.api.Tag;
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * Baseline with the default (development) logging configuration: DEBUG/TRACE levels,
+ * SQL echoing, synchronous console output and every request logged
+ */
+@Tag("benchmark")
+@SpringBootTest
+public class DefaultLoggingBenchmark extends LoggingBenchmarkSupport {
+
+    @Override
+    protected String profileName() {
+        return "default";
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.graphql.benchmark;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.graphql.ExecutionGraphQlService;
+import org.springframework.graphql.test.tester.ExecutionGraphQlServiceTester;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shared throughput harness for comparing GraphQL execution modes.
+ * Each subclass boots the application with a different app.graphql.execution.mode
+ * and drives the same multi-root-field query from many concurrent clients.
+ */
+public abstract class ExecutionModeBenchmarkSupport {
+
+    private static final String DASHBOARD_QUERY = "{ allProducts { id name price } "
+            + "productStats { count avgPrice } "
+            + "productStatsByCategory(category: \"Audio\") { count avgPrice } "
+            + "productsByCategory(category: \"Gaming\") { id name } }";
+
+    private static final String SALES_DASHBOARD_QUERY = "{ productStats { count avgPrice } "
+            + "audio: productStatsByCategory(category: \"Audio\") { count avgPrice } "
+            + "gaming: productStatsByCategory(category: \"Gaming\") { count avgPrice } "
+            + "kitchen: productStatsByCategory(category: \"Kitchen\") { count avgPrice } "
+            + "office: productStatsByCategory(category: \"Office\") { count avgPrice } "
+            + "wearables: productStatsByCategory(category: \"Wearables\") { count avgPrice } "
+            + "salesReportByTimeframe(timeframe: DAILY, startDate: \"2024-01-01\", endDate: \"2024-03-31\") "
+            + "{ period totalRevenue } }";
+
+    private final int clients = Integer.getInteger("benchmark.clients", 64);
+    private final int durationSeconds = Integer.getInteger("benchmark.duration", 10);
+
+    @Autowired
+    private ExecutionGraphQlService graphQlService;
+
+    protected abstract String modeName();
+
+    @Test
+    void throughput() throws Exception {
+        ExecutionGraphQlServiceTester tester = ExecutionGraphQlServiceTester.create(graphQlService);
+
+        // Warm up the JIT and connection pool before measuring
+        runFor(tester, 2, null);
+
+        LatencyRecorder latencies = new LatencyRecorder(5_000_000);
+        long start = System.nanoTime();
+        runFor(tester, durationSeconds, latencies);
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        System.out.printf("Execution mode %s: clients=%d requests=%d throughput=%.0f req/s%n",
+                modeName(), clients, latencies.getCount(), latencies.getCount() / seconds);
+        System.out.println("Request latency: " + latencies.summary());
+    }
+
+    /**
+     * Wall-clock latency of one dashboard query whose root fields are independent scans
+     */
+    @Test
+    void dashboardLatency() {
+        ExecutionGraphQlServiceTester tester = ExecutionGraphQlServiceTester.create(graphQlService);
+        for (int i = 0; i < 50; i++) {
+            tester.document(SALES_DASHBOARD_QUERY).execute().path("productStats.count").hasValue();
+        }
+
+        LatencyRecorder latencies = new LatencyRecorder(500);
+        for (int i = 0; i < 500; i++) {
+            long begin = System.nanoTime();
+            tester.document(SALES_DASHBOARD_QUERY).execute().path("productStats.count").hasValue();
+            latencies.record(System.nanoTime() - begin);
+        }
+        System.out.println("Dashboard latency (" + modeName() + "): " + latencies.summary());
+    }
+
+    private void runFor(ExecutionGraphQlServiceTester tester, int seconds, LatencyRecorder latencies) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            futures.add(pool.submit(() -> {
+                while (System.nanoTime() < deadline) {
+                    long begin = System.nanoTime();
+                    tester.document(DASHBOARD_QUERY).execute().path("productStats.count").hasValue();
+                    if (latencies != null) {
+                        latencies.record(System.nanoTime() - begin);
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.graphql.benchmark;
+
+import com.example.graphql.dto.ProductFilter;
+import com.example.graphql.model.Product;
+import com.example.graphql.repository.ProductSpecification;
+import com.example.graphql.service.DynamicQueryService;
+import com.example.graphql.service.ProductSnapshot;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares row-by-row filter evaluation over product entities (ProductSpecification.couldMatch)
+ * with the column kernels used for snapshot scans (select) on a synthetic catalog.
+ * Each filter is warmed up before it is timed, and both paths must select the same products.
+ *
+ * Run with: mvn test -Pbenchmark -Dtest=FilterKernelBenchmark
+ *   -Dbenchmark.rows=1000000 -Dbenchmark.iterations=20
+ * (10M rows needs a larger heap for the entities, e.g. -DargLine=-Xmx8g)
+ */
+@Tag("benchmark")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class FilterKernelBenchmark {
+
+    private static final List<String> CATEGORIES = List.of(
+            "Electronics", "Kitchen", "Books", "Toys", "Garden", "Sports", "Clothing", "Beauty");
+
+    private final int rows = Integer.getInteger("benchmark.rows", 1_000_000);
+    private final int iterations = Integer.getInteger("benchmark.iterations", 20);
+
+    private final DynamicQueryService dynamicQueryService = new DynamicQueryService(null, null);
+    private List<Product> products;
+    private ProductSnapshot snapshot;
+
+    @BeforeAll
+    void generateCatalog() {
+        Random random = new Random(1);
+        products = new ArrayList<>(rows);
+        for (long id = 1; id <= rows; id++) {
+            Product product = new Product(id, "Product " + id, null, random.nextDouble() * 1000,
+                    CATEGORIES.get(random.nextInt(CATEGORIES.size())), true);
+            product.setRating(random.nextFloat() * 5);
+            product.setStockQuantity(random.nextInt(100));
+            product.setPopularity(random.nextInt(100));
+            products.add(product);
+        }
+        snapshot = ProductSnapshot.of(products);
+    }
+
+    @Test
+    void filterScan() {
+        ProductFilter selective = new ProductFilter();
+        selective.setCategories(List.of("Books"));
+        selective.setMinPrice(900.0);
+        selective.setMinRating(4.5);
+
+        ProductFilter broad = new ProductFilter();
+        broad.setMinPrice(100.0);
+        broad.setMaxPrice(900.0);
+        broad.setInStock(true);
+        broad.setMinPopularity(10);
+
+        ProductFilter byName = new ProductFilter();
+        byName.setNameContains("product 12");
+        byName.setMinStockQuantity(50);
+
+        Map<String, ProductFilter> filters = Map.of("selective", selective, "broad", broad, "name", byName);
+        filters.forEach((name, filter) -> {
+            assertEquals(countMatching(filter),
+                    dynamicQueryService.select(snapshot, filter).cardinality());
+
+            LatencyRecorder entities = measure(() -> countMatching(filter));
+            LatencyRecorder kernels = measure(() -> dynamicQueryService.select(snapshot, filter).cardinality());
+
+            System.out.printf("[filter %s, %d rows] entities: %s (%.0f Mrows/s)%n", name, rows,
+                    entities.summary(), rows / entities.percentileMillis(50) / 1000);
+            System.out.printf("[filter %s, %d rows] kernels:  %s (%.0f Mrows/s)%n", name, rows,
+                    kernels.summary(), rows / kernels.percentileMillis(50) / 1000);
+        });
+    }
+
+    private int countMatching(ProductFilter filter) {
+        int matching = 0;
+        for (Product product : products) {
+            if (ProductSpecification.couldMatch(filter, product)) {
+                matching++;
+            }
+        }
+        return matching;
+    }
+
+    private LatencyRecorder measure(Scan scan) {
+        int selected = 0;
+        for (int i = 0; i < iterations; i++) {
+            selected += scan.run();
+        }
+        LatencyRecorder latencies = new LatencyRecorder(iterations);
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            selected += scan.run();
+            latencies.record(System.nanoTime() - start);
+        }
+        // Keep the result alive so the scan cannot be optimized away
+        if (selected == Integer.MIN_VALUE) {
+            System.out.println(selected);
+        }
+        return latencies;
+    }
+
+    @FunctionalInterface
+    private interface Scan {
+        int run();
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.graphql.benchmark;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fixed-capacity latency sample store shared by the benchmark harnesses.
+ * Samples beyond the capacity are counted but not stored.
+ */
+public class LatencyRecorder {
+
+    private final long[] samples;
+    private final AtomicInteger count = new AtomicInteger();
+
+    public LatencyRecorder(int capacity) {
+        this.samples = new long[capacity];
+    }
+
+    public void record(long nanos) {
+        int index = count.getAndIncrement();
+        if (index < samples.length) {
+            samples[index] = nanos;
+        }
+    }
+
+    public int getCount() {
+        return count.get();
+    }
+
+    /**
+     * Returns the given percentile (0-100) of the recorded samples in milliseconds
+     */
+    public double percentileMillis(double percentile) {
+        int size = Math.min(count.get(), samples.length);
+        if (size == 0) {
+            return 0.0;
+        }
+        long[] sorted = Arrays.copyOf(samples, size);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * size) - 1;
+        return sorted[Math.max(0, Math.min(index, size - 1))] / 1_000_000.0;
+    }
+
+    public String summary() {
+        return String.format("samples=%d p50=%.3fms p90=%.3fms p99=%.3fms max=%.3fms",
+                getCount(), percentileMillis(50), percentileMillis(90), percentileMillis(99), percentileMillis(100));
+    }
+}
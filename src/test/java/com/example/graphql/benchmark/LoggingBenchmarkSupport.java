@@ -0,0 +1,116 @@
+package com.example.graphql.benchmark;
+
+import com.example.graphql.model.Product;
+import com.example.graphql.service.ProductSubscriptionService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.graphql.server.WebGraphQlHandler;
+import org.springframework.graphql.test.tester.WebGraphQlTester;
+import reactor.core.Disposable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Shared harness for comparing logging configurations. Each subclass boots the
+ * application with a different profile and measures allProducts throughput through
+ * the WebGraphQlHandler (so request interceptors run) and in-process subscription
+ * fan-out through the subscription service and publisher.
+ */
+public abstract class LoggingBenchmarkSupport {
+
+    private static final String ALL_PRODUCTS_QUERY = "{ allProducts { id name price category } }";
+
+    private final int clients = Integer.getInteger("benchmark.clients", 64);
+    private final int durationSeconds = Integer.getInteger("benchmark.duration", 10);
+    private final int subscribers = Integer.getInteger("benchmark.subscribers", 1_000);
+    private final int events = Integer.getInteger("benchmark.events", 1_000);
+
+    @Autowired
+    private WebGraphQlHandler webGraphQlHandler;
+
+    @Autowired
+    private ProductSubscriptionService subscriptionService;
+
+    protected abstract String profileName();
+
+    @Test
+    void allProductsThroughput() throws Exception {
+        WebGraphQlTester tester = WebGraphQlTester.create(webGraphQlHandler);
+
+        // Warm up the JIT and connection pool before measuring
+        runFor(tester, 2, null);
+
+        LatencyRecorder latencies = new LatencyRecorder(5_000_000);
+        long start = System.nanoTime();
+        runFor(tester, durationSeconds, latencies);
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        System.out.printf("Logging profile %s: clients=%d requests=%d allProducts throughput=%.0f req/s%n",
+                profileName(), clients, latencies.getCount(), latencies.getCount() / seconds);
+        System.out.println("Request latency: " + latencies.summary());
+    }
+
+    @Test
+    void subscriptionFanOut() throws Exception {
+        WebGraphQlTester tester = WebGraphQlTester.create(webGraphQlHandler);
+        CountDownLatch delivered = new CountDownLatch(subscribers * events);
+        AtomicLong lastDelivery = new AtomicLong();
+        List<Disposable> subscriptions = new ArrayList<>();
+        for (int i = 0; i < subscribers; i++) {
+            subscriptions.add(tester.document("subscription { productUpdated { id name } }")
+                    .executeSubscription()
+                    .toFlux()
+                    .subscribe(response -> {
+                        lastDelivery.accumulateAndGet(System.nanoTime(), Math::max);
+                        delivered.countDown();
+                    }));
+        }
+        // Give the subscriptions time to register on the hot publisher
+        Thread.sleep(2000);
+
+        long start = System.nanoTime();
+        for (long id = 1; id <= events; id++) {
+            Product product = new Product(id, "Benchmark Product " + id, null, 10.0, "Benchmark", true);
+            product.setOperation("UPDATED");
+            subscriptionService.notifyProductUpdated(product);
+        }
+        boolean complete = delivered.await(5, TimeUnit.MINUTES);
+        double seconds = (lastDelivery.get() - start) / 1_000_000_000.0;
+
+        System.out.printf("Logging profile %s: subscribers=%d events=%d fan-out throughput=%.0f events/sec%n",
+                profileName(), subscribers, events, (subscribers * events - delivered.getCount()) / seconds);
+
+        subscriptions.forEach(Disposable::dispose);
+        assertTrue(complete, "Not all events were delivered");
+    }
+
+    private void runFor(WebGraphQlTester tester, int seconds, LatencyRecorder latencies) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            futures.add(pool.submit(() -> {
+                while (System.nanoTime() < deadline) {
+                    long begin = System.nanoTime();
+                    tester.document(ALL_PRODUCTS_QUERY).execute().path("allProducts").hasValue();
+                    if (latencies != null) {
+                        latencies.record(System.nanoTime() - begin);
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.graphql.benchmark;
+
+import org.junit.jupiter.api.Tag;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Throughput with app.graphql.execution.mode=PLATFORM
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "app.graphql.execution.mode=PLATFORM")
+@TestPropertySource(properties = {
+        "logging.level.org.springframework=WARN",
+        "logging.level.org.hibernate=WARN",
+        "logging.level.graphql=WARN",
+        "logging.level.com.example.graphql=WARN",
+        "spring.jpa.show-sql=false"
+})
+public class PlatformExecutionBenchmark extends ExecutionModeBenchmarkSupport {
+
+    @Override
+    protected String modeName() {
+        return "PLATFORM";
+    }
+}
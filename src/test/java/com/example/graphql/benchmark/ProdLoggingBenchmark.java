@@ -0,0 +1,20 @@
+package com.example.graphql.benchmark;
+
+import org.junit.jupiter.api.Tag;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Throughput with the prod profile: asynchronous console appender, WARN/INFO levels
+ * and 1% of requests logged
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("prod")
+public class ProdLoggingBenchmark extends LoggingBenchmarkSupport {
+
+    @Override
+    protected String profileName() {
+        return "prod";
+    }
+}
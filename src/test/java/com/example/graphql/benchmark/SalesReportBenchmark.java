@@ -0,0 +1,201 @@
+package com.example.graphql.benchmark;
+
+import com.example.graphql.dto.SalesReportPeriod;
+import com.example.graphql.dto.TimeframeType;
+import com.example.graphql.model.Product;
+import com.example.graphql.model.SalesGrain;
+import com.example.graphql.repository.SaleRepository;
+import com.example.graphql.repository.SalesRollupRepository;
+import com.example.graphql.service.CatalogScanCoordinator;
+import com.example.graphql.service.DynamicQueryService;
+import com.example.graphql.service.ProductSnapshot;
+import com.example.graphql.service.ReportingService;
+import com.example.graphql.service.SalesReportExecutor;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Measures how DAILY sales reports over several years scale with the parallelism of the
+ * report executor. The daily rollups are simulated with one seed per day, so they are
+ * the same however they are generated, and replayed from memory in place of the
+ * database; the replay is timed alone too, as the sequential part of every report.
+ * Every parallelism must produce the same report.
+ *
+ * Run with: mvn test -Pbenchmark -Dtest=SalesReportBenchmark
+ *   -Dbenchmark.years=5 -Dbenchmark.products=2000 -Dbenchmark.iterations=20
+ */
+@Tag("benchmark")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class SalesReportBenchmark {
+
+    private static final long SEED = 7;
+    private static final LocalDate START = LocalDate.of(2020, 1, 1);
+
+    private final int years = Integer.getInteger("benchmark.years", 5);
+    private final int products = Integer.getInteger("benchmark.products", 2000);
+    private final int iterations = Integer.getInteger("benchmark.iterations", 20);
+    private final int maxParallelism = Integer.getInteger("benchmark.maxParallelism",
+            Runtime.getRuntime().availableProcessors());
+
+    // Stub-only mocks do not keep every invocation, with its rollups, for verification
+    private final SaleRepository saleRepository = mock(SaleRepository.class, withSettings().stubOnly());
+    private final DynamicQueryService dynamicQueryService = mock(DynamicQueryService.class, withSettings().stubOnly());
+    private final CatalogScanCoordinator catalogScanCoordinator = mock(CatalogScanCoordinator.class, withSettings().stubOnly());
+    private LocalDate end;
+    private DailyRollups[] days;
+
+    @BeforeAll
+    void simulateSales() {
+        List<Product> catalog = new ArrayList<>(products);
+        for (long id = 1; id <= products; id++) {
+            catalog.add(new Product(id, "Product " + id, null, 10.0 + id % 90, "Electronics", true));
+        }
+        ProductSnapshot snapshot = ProductSnapshot.of(catalog);
+        when(catalogScanCoordinator.getFullCatalog()).thenReturn(snapshot);
+        when(dynamicQueryService.select(eq(snapshot), isNull())).thenAnswer(invocation -> snapshot.allRows());
+
+        end = START.plusYears(years).minusDays(1);
+        int dayCount = (int) (end.toEpochDay() - START.toEpochDay() + 1);
+        long start = System.nanoTime();
+        days = IntStream.range(0, dayCount).parallel()
+                .mapToObj(day -> DailyRollups.simulate(START.plusDays(day), products))
+                .toArray(DailyRollups[]::new);
+        long rollups = 0;
+        for (DailyRollups day : days) {
+            rollups += day.productIds.length;
+        }
+        System.out.printf("[sales report] simulated %d daily rollups of %d products over %d days in %d ms%n",
+                rollups, products, dayCount, (System.nanoTime() - start) / 1_000_000);
+
+        doAnswer(invocation -> {
+            replay(invocation.getArgument(1), invocation.getArgument(2));
+            return null;
+        }).when(saleRepository).scanRollups(eq(SalesGrain.DAY), any(), any());
+    }
+
+    @Test
+    void dailyReportScaling() {
+        List<LocalDate> allDays = IntStream.range(0, days.length).mapToObj(START::plusDays).collect(Collectors.toList());
+        LatencyRecorder scan = new LatencyRecorder(iterations);
+        long[] sink = new long[1];
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            replay(allDays, (periodStart, productId, orders, units, revenue) -> sink[0] += units);
+            scan.record(System.nanoTime() - start);
+        }
+        System.out.printf("[sales report, %d years DAILY] rollup replay alone: %s%n", years, scan.summary());
+
+        List<String> expected = null;
+        double sequentialMillis = 0;
+        for (int parallelism = 1; parallelism <= maxParallelism; parallelism *= 2) {
+            SalesReportExecutor executor = new SalesReportExecutor(parallelism);
+            ReportingService reportingService = new ReportingService(dynamicQueryService, catalogScanCoordinator,
+                    saleRepository, executor);
+            try {
+                List<String> report = null;
+                for (int i = 0; i < Math.max(3, iterations / 4); i++) {
+                    report = describe(run(reportingService));
+                }
+                if (expected == null) {
+                    expected = report;
+                }
+                assertEquals(expected, report, "parallelism " + parallelism);
+
+                LatencyRecorder latency = new LatencyRecorder(iterations);
+                for (int i = 0; i < iterations; i++) {
+                    long start = System.nanoTime();
+                    sink[0] += run(reportingService).size();
+                    latency.record(System.nanoTime() - start);
+                }
+                if (parallelism == 1) {
+                    sequentialMillis = latency.percentileMillis(50);
+                }
+                System.out.printf("[sales report, %d years DAILY] parallelism %2d: %s speedup=%.2fx%n", years, parallelism,
+                        latency.summary(), sequentialMillis / latency.percentileMillis(50));
+            } finally {
+                executor.shutdown();
+            }
+        }
+        // Keep the results alive so the work cannot be optimized away
+        if (sink[0] == Long.MIN_VALUE) {
+            System.out.println(sink[0]);
+        }
+    }
+
+    private List<SalesReportPeriod> run(ReportingService reportingService) {
+        return reportingService.generateSalesReportByTimeframe(TimeframeType.DAILY, START.toString(), end.toString(), null);
+    }
+
+    private void replay(Collection<LocalDate> periodStarts, SalesRollupRepository.RollupConsumer consumer) {
+        for (LocalDate periodStart : periodStarts) {
+            DailyRollups day = days[(int) (periodStart.toEpochDay() - START.toEpochDay())];
+            for (int i = 0; i < day.productIds.length; i++) {
+                consumer.accept(periodStart, day.productIds[i], day.orders[i], day.units[i], day.revenue[i]);
+            }
+        }
+    }
+
+    private static List<String> describe(List<SalesReportPeriod> report) {
+        return report.stream()
+                .map(period -> period.getPeriod() + " " + period.getTotalSales() + " " + period.getTotalRevenue() + " "
+                        + period.getTopSellingProducts().stream()
+                        .map(top -> top.getProductId() + ":" + top.getUnitsSold())
+                        .collect(Collectors.joining(",")))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * The daily rollups of one day: about a quarter of the products sell, popular ones more
+     */
+    private static final class DailyRollups {
+        private final long[] productIds;
+        private final long[] orders;
+        private final long[] units;
+        private final double[] revenue;
+
+        private DailyRollups(int size) {
+            productIds = new long[size];
+            orders = new long[size];
+            units = new long[size];
+            revenue = new double[size];
+        }
+
+        static DailyRollups simulate(LocalDate day, int products) {
+            SplittableRandom random = new SplittableRandom(SEED + day.toEpochDay());
+            long[] sold = new long[products];
+            int size = 0;
+            for (int product = 0; product < products; product++) {
+                if (random.nextInt(4 + product % 8) == 0) {
+                    sold[size++] = product + 1;
+                }
+            }
+            DailyRollups rollups = new DailyRollups(size);
+            for (int i = 0; i < size; i++) {
+                rollups.productIds[i] = sold[i];
+                rollups.orders[i] = 1 + random.nextInt(5);
+                rollups.units[i] = rollups.orders[i] * (1 + random.nextInt(3));
+                rollups.revenue[i] = rollups.units[i] * (10.0 + sold[i] % 90);
+            }
+            return rollups;
+        }
+    }
+}
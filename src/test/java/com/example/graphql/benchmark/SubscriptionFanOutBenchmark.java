@@ -0,0 +1,155 @@
+package com.example.graphql.benchmark;
+
+import com.example.graphql.config.WebSocketSubscriptionConfig.ProductSubscriptionPublisher;
+import com.example.graphql.model.Product;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Load-test harness for subscription fan-out over graphql-transport-ws.
+ * Connects many productUpdated subscribers, publishes a stream of updates
+ * and reports sustained delivered events/sec and delivery latency percentiles.
+ *
+ * Run with: mvn test -Pbenchmark -Dtest=SubscriptionFanOutBenchmark
+ *   -Dbenchmark.subscribers=10000 -Dbenchmark.events=100
+ * (10k subscribers needs a raised open-file limit, e.g. ulimit -n 65536)
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "logging.level.org.springframework=WARN",
+                "logging.level.graphql=WARN",
+                "logging.level.com.example.graphql=WARN"
+        })
+public class SubscriptionFanOutBenchmark {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final int subscribers = Integer.getInteger("benchmark.subscribers", 10_000);
+    private final int events = Integer.getInteger("benchmark.events", 100);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ProductSubscriptionPublisher publisher;
+
+    @Test
+    void subscriptionFanOut() throws Exception {
+        Map<Long, Long> publishTimes = new ConcurrentHashMap<>();
+        LatencyRecorder latencies = new LatencyRecorder(subscribers * events);
+        CountDownLatch subscribed = new CountDownLatch(subscribers);
+        CountDownLatch delivered = new CountDownLatch(subscribers * events);
+        AtomicLong lastDelivery = new AtomicLong();
+
+        StandardWebSocketClient client = new StandardWebSocketClient();
+        WebSocketHttpHeaders headers = new WebSocketHttpHeaders();
+        headers.setSecWebSocketProtocol(List.of("graphql-transport-ws"));
+        URI uri = URI.create("ws://localhost:" + port + "/graphql");
+
+        // Bound concurrent handshakes so connection setup does not dominate the run
+        Semaphore handshakes = new Semaphore(200);
+        List<WebSocketSession> sessions = new ArrayList<>();
+        for (int i = 0; i < subscribers; i++) {
+            handshakes.acquire();
+            SubscriberHandler handler = new SubscriberHandler(publishTimes, latencies, subscribed, delivered, lastDelivery);
+            client.execute(handler, headers, uri).whenComplete((session, ex) -> {
+                handshakes.release();
+                if (session != null) {
+                    synchronized (sessions) {
+                        sessions.add(session);
+                    }
+                }
+            });
+        }
+        assertTrue(subscribed.await(5, TimeUnit.MINUTES), "Not all subscribers connected");
+        // Give the server time to register the last subscriptions on the hot publisher
+        Thread.sleep(2000);
+
+        long start = System.nanoTime();
+        for (long id = 1; id <= events; id++) {
+            Product product = new Product(id, "Benchmark Product " + id, null, 10.0, "Benchmark", true);
+            product.setOperation("UPDATED");
+            publishTimes.put(id, System.nanoTime());
+            publisher.publishProductUpdate(product);
+        }
+        boolean complete = delivered.await(5, TimeUnit.MINUTES);
+        double seconds = (lastDelivery.get() - start) / 1_000_000_000.0;
+
+        System.out.printf("Subscription fan-out: subscribers=%d events=%d delivered=%d complete=%s%n",
+                subscribers, events, latencies.getCount(), complete);
+        System.out.printf("Sustained throughput: %.0f events/sec%n", latencies.getCount() / seconds);
+        System.out.println("Delivery latency: " + latencies.summary());
+
+        synchronized (sessions) {
+            for (WebSocketSession session : sessions) {
+                session.close();
+            }
+        }
+        assertTrue(complete, "Not all events were delivered");
+    }
+
+    private static class SubscriberHandler extends TextWebSocketHandler {
+        private final Map<Long, Long> publishTimes;
+        private final LatencyRecorder latencies;
+        private final CountDownLatch subscribed;
+        private final CountDownLatch delivered;
+        private final AtomicLong lastDelivery;
+
+        SubscriberHandler(Map<Long, Long> publishTimes, LatencyRecorder latencies,
+                          CountDownLatch subscribed, CountDownLatch delivered, AtomicLong lastDelivery) {
+            this.publishTimes = publishTimes;
+            this.latencies = latencies;
+            this.subscribed = subscribed;
+            this.delivered = delivered;
+            this.lastDelivery = lastDelivery;
+        }
+
+        @Override
+        public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+            session.sendMessage(new TextMessage("{\"type\":\"connection_init\"}"));
+        }
+
+        @Override
+        protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
+            JsonNode json = MAPPER.readTree(message.getPayload());
+            String type = json.path("type").asText();
+            if ("connection_ack".equals(type)) {
+                session.sendMessage(new TextMessage("{\"id\":\"1\",\"type\":\"subscribe\",\"payload\":"
+                        + "{\"query\":\"subscription { productUpdated { id name } }\"}}"));
+                subscribed.countDown();
+            } else if ("next".equals(type)) {
+                long now = System.nanoTime();
+                long id = json.path("payload").path("data").path("productUpdated").path("id").asLong();
+                Long published = publishTimes.get(id);
+                if (published != null) {
+                    latencies.record(now - published);
+                }
+                lastDelivery.accumulateAndGet(now, Math::max);
+                delivered.countDown();
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.graphql.benchmark;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Throughput with app.graphql.execution.mode=VIRTUAL (skipped below Java 21)
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "app.graphql.execution.mode=VIRTUAL")
+@TestPropertySource(properties = {
+        "logging.level.org.springframework=WARN",
+        "logging.level.org.hibernate=WARN",
+        "logging.level.graphql=WARN",
+        "logging.level.com.example.graphql=WARN",
+        "spring.jpa.show-sql=false"
+})
+public class VirtualExecutionBenchmark extends ExecutionModeBenchmarkSupport {
+
+    @BeforeEach
+    void requireVirtualThreads() {
+        assumeTrue(Runtime.version().feature() >= 21, "Virtual threads require Java 21+");
+    }
+
+    @Override
+    protected String modeName() {
+        return "VIRTUAL";
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.graphql.config;
+
+import graphql.ExecutionInput;
+import graphql.GraphQL;
+import graphql.schema.DataFetcher;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GraphQlMetricsInstrumentationTest {
+
+    private static final String SCHEMA = "type Query { products: String stats: String failing: String }";
+
+    private SimpleMeterRegistry meterRegistry;
+    private GraphQL graphQL;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        SqlStatementCounter inspector = new SqlStatementCounter();
+        DataFetcher<String> products = environment -> {
+            inspector.inspect("select * from product");
+            inspector.inspect("select * from product_tags");
+            return "products";
+        };
+        DataFetcher<Object> stats = environment -> CompletableFuture.supplyAsync(() -> "stats");
+        DataFetcher<String> failing = environment -> {
+            throw new IllegalStateException("boom");
+        };
+        RuntimeWiring wiring = RuntimeWiring.newRuntimeWiring()
+                .type("Query", builder -> builder
+                        .dataFetcher("products", products)
+                        .dataFetcher("stats", stats)
+                        .dataFetcher("failing", failing))
+                .build();
+        GraphQLSchema schema = new SchemaGenerator().makeExecutableSchema(new SchemaParser().parse(SCHEMA), wiring);
+        graphQL = GraphQL.newGraphQL(schema)
+                .instrumentation(new GraphQlMetricsInstrumentation(meterRegistry))
+                .build();
+    }
+
+    private Timer fieldTimer(String field) {
+        return meterRegistry.find(GraphQlMetricsInstrumentation.FIELD_LATENCY).tag("field", field).timer();
+    }
+
+    @Test
+    void testFieldsAndOperationsAreTimed() {
+        graphQL.execute(ExecutionInput.newExecutionInput("query Dashboard { products stats }").operationName("Dashboard"));
+        // The operation name is taken from the document when the request does not repeat it
+        graphQL.execute("query Dashboard { products stats }");
+
+        assertEquals(2, fieldTimer("Query.products").count());
+        assertEquals(2, fieldTimer("Query.stats").count());
+        Timer operation = meterRegistry.find(GraphQlMetricsInstrumentation.OPERATION_LATENCY)
+                .tags("operation", "Dashboard", "outcome", "success").timer();
+        assertNotNull(operation);
+        assertEquals(2, operation.count());
+    }
+
+    @Test
+    void testStatementsAreCountedPerRequest() {
+        graphQL.execute("{ products a: products stats }");
+
+        DistributionSummary statements = meterRegistry.find(GraphQlMetricsInstrumentation.OPERATION_STATEMENTS)
+                .tag("operation", "anonymous").summary();
+        assertNotNull(statements);
+        assertEquals(1, statements.count());
+        assertEquals(4, statements.totalAmount());
+    }
+
+    @Test
+    void testFailingFieldsAreTimedAndMarkedAsErrors() {
+        graphQL.execute("{ failing }");
+
+        assertEquals(1, fieldTimer("Query.failing").count());
+        assertNotNull(meterRegistry.find(GraphQlMetricsInstrumentation.OPERATION_LATENCY)
+                .tags("operation", "anonymous", "outcome", "error").timer());
+    }
+
+    @Test
+    void testOperationNamesAreBounded() {
+        for (int i = 0; i < GraphQlMetricsInstrumentation.MAX_OPERATION_NAMES + 5; i++) {
+            String name = "Op" + i;
+            graphQL.execute(ExecutionInput.newExecutionInput("query " + name + " { stats }").operationName(name));
+        }
+
+        assertEquals(GraphQlMetricsInstrumentation.MAX_OPERATION_NAMES + 1,
+                meterRegistry.find(GraphQlMetricsInstrumentation.OPERATION_STATEMENTS).summaries().size());
+        assertEquals(5, meterRegistry.find(GraphQlMetricsInstrumentation.OPERATION_STATEMENTS)
+                .tag("operation", "other").summary().count());
+    }
+}
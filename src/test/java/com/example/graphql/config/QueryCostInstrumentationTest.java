@@ -0,0 +1,112 @@
+package com.example.graphql.config;
+
+import graphql.ExecutionInput;
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class QueryCostInstrumentationTest {
+
+    private GraphQLSchema schema;
+    private AtomicInteger fetches;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        fetches = new AtomicInteger();
+        RuntimeWiring wiring = RuntimeWiring.newRuntimeWiring()
+                .type("Query", builder -> builder.defaultDataFetcher(environment -> {
+                    fetches.incrementAndGet();
+                    return null;
+                }))
+                .build();
+        try (InputStreamReader reader = new InputStreamReader(
+                new ClassPathResource("graphql/schema.graphqls").getInputStream(), StandardCharsets.UTF_8)) {
+            schema = new SchemaGenerator().makeExecutableSchema(new SchemaParser().parse(reader), wiring);
+        }
+    }
+
+    private ExecutionResult execute(String query, Map<String, Object> variables, long maximumCost) {
+        QueryCostInstrumentation instrumentation =
+                new QueryCostInstrumentation(new QueryCostCalculator(1000, 10, 1000, 10), maximumCost);
+        GraphQL graphQL = GraphQL.newGraphQL(schema).instrumentation(instrumentation).build();
+        return graphQL.execute(ExecutionInput.newExecutionInput(query).variables(variables).build());
+    }
+
+    @SuppressWarnings("unchecked")
+    private long cost(ExecutionResult result) {
+        Map<String, Object> cost = (Map<String, Object>) result.getExtensions().get("cost");
+        return (Long) cost.get("requestedQueryCost");
+    }
+
+    @Test
+    void testPagedListIsMultipliedByPageSize() {
+        ExecutionResult result = execute(
+                "{ productsWithFilter(page: {page: 0, size: 50}) { content { id name } pageInfo { totalElements } } }",
+                Map.of(), 10000);
+
+        // productsWithFilter 1 + content 50 x 1 + pageInfo 1
+        assertEquals(52, cost(result));
+    }
+
+    @Test
+    void testVariablesAreAppliedToPageSize() {
+        String query = "query($size: Int!) { productsWithFilter(page: {size: $size}) { content { id } } }";
+
+        assertEquals(1 + 20, cost(execute(query, Map.of("size", 20), 10000)));
+        assertEquals(1 + 200, cost(execute(query, Map.of("size", 200), 10000)));
+    }
+
+    @Test
+    void testDynamicProductQueryIsMultipliedByAttributes() {
+        ExecutionResult result = execute(
+                "{ dynamicProductQuery(attributes: [\"name\", \"price\", \"color\"]) { id attributes { name value } } }",
+                Map.of(), 10000);
+
+        // 1000 products x (1 + 3 attributes)
+        assertEquals(4000, cost(result));
+    }
+
+    @Test
+    void testScansAndRelationshipsHaveBaseCosts() {
+        assertEquals(1000 + 1, cost(execute("{ productStats { count } }", Map.of(), 10000)));
+        assertEquals(10 + 5, cost(execute("{ relatedProducts(id: 1) { id } }", Map.of(), 10000)));
+        assertEquals(10 + 2, cost(execute("{ relatedProducts(id: 1, maxResults: 2) { id } }", Map.of(), 10000)));
+    }
+
+    @Test
+    void testOverBudgetQueryIsRejectedBeforeExecution() {
+        ExecutionResult result = execute(
+                "{ productsWithFilter(page: {size: 1000000}) { content { id } } }", Map.of(), 10000);
+
+        assertNull(result.getData());
+        assertEquals(1, result.getErrors().size());
+        assertTrue(result.getErrors().get(0).getMessage().contains("exceeds the maximum of 10000"));
+        assertEquals(1000001, cost(result));
+        assertEquals(0, fetches.get());
+    }
+
+    @Test
+    void testAliasesAreCostedSeparately() {
+        ExecutionResult result = execute(
+                "{ a: allProducts { id } b: allProducts { id } }", Map.of(), 0);
+
+        assertEquals(2000, cost(result));
+        assertEquals(List.of(), result.getErrors());
+        assertEquals(2, fetches.get());
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.graphql.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import graphql.ExecutionInput;
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import graphql.execution.preparsed.persisted.PersistedQuerySupport;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class QueryHashPersistedQuerySupportTest {
+
+    private static final String SCHEMA = "type Query { greeting: String }";
+    private static final String QUERY = "{ greeting }";
+
+    private PersistedDocumentCache cache;
+    private GraphQL graphQL;
+
+    @BeforeEach
+    void setUp() {
+        RuntimeWiring wiring = RuntimeWiring.newRuntimeWiring()
+                .type("Query", builder -> builder.dataFetcher("greeting", environment -> "hello"))
+                .build();
+        GraphQLSchema schema = new SchemaGenerator().makeExecutableSchema(new SchemaParser().parse(SCHEMA), wiring);
+        cache = new PersistedDocumentCache(100);
+        graphQL = GraphQL.newGraphQL(schema)
+                .preparsedDocumentProvider(new QueryHashPersistedQuerySupport(cache))
+                .build();
+    }
+
+    @Test
+    void testPlainQueriesAreParsedOnce() {
+        ExecutionResult first = graphQL.execute(QUERY);
+        ExecutionResult second = graphQL.execute(QUERY);
+
+        assertEquals(Map.of("greeting", "hello"), first.getData());
+        assertEquals(Map.of("greeting", "hello"), second.getData());
+        assertEquals(1, cache.getCache().estimatedSize());
+        assertEquals(1, cache.getCache().stats().hitCount());
+        assertNotNull(cache.getCache().getIfPresent(QueryHashPersistedQuerySupport.sha256(QUERY)));
+    }
+
+    @Test
+    void testUnknownHashIsReportedAsNotFound() {
+        ExecutionResult result = graphQL.execute(persisted(PersistedQuerySupport.PERSISTED_QUERY_MARKER,
+                QueryHashPersistedQuerySupport.sha256(QUERY)));
+
+        assertEquals(1, result.getErrors().size());
+        assertEquals("PersistedQueryNotFound", result.getErrors().get(0).getMessage());
+        assertEquals(0, cache.getCache().estimatedSize());
+    }
+
+    @Test
+    void testRegisteredHashIsServedWithoutQueryText() {
+        String hash = QueryHashPersistedQuerySupport.sha256(QUERY);
+
+        ExecutionResult registration = graphQL.execute(persisted(QUERY, hash));
+        ExecutionResult hashOnly = graphQL.execute(persisted(PersistedQuerySupport.PERSISTED_QUERY_MARKER, hash.toUpperCase()));
+
+        assertEquals(Map.of("greeting", "hello"), registration.getData());
+        assertEquals(Map.of("greeting", "hello"), hashOnly.getData());
+        assertTrue(hashOnly.getErrors().isEmpty());
+    }
+
+    @Test
+    void testMismatchedHashIsRejected() {
+        ExecutionResult result = graphQL.execute(persisted(QUERY, QueryHashPersistedQuerySupport.sha256("{ other }")));
+
+        assertEquals("PersistedQueryIdInvalid", result.getErrors().get(0).getMessage());
+        assertEquals(0, cache.getCache().estimatedSize());
+    }
+
+    @Test
+    void testFilterAddsMarkerToHashOnlyRequests() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/graphql");
+        request.setContentType("application/json");
+        request.setContent("{\"extensions\":{\"persistedQuery\":{\"version\":1,\"sha256Hash\":\"abc\"}}}"
+                .getBytes(StandardCharsets.UTF_8));
+        MockFilterChain chain = new MockFilterChain();
+
+        new PersistedQueryRequestFilter(objectMapper).doFilter(request, new MockHttpServletResponse(), chain);
+
+        Map<?, ?> body = objectMapper.readValue(chain.getRequest().getInputStream(), Map.class);
+        assertEquals(PersistedQuerySupport.PERSISTED_QUERY_MARKER, body.get("query"));
+        assertNotNull(body.get("extensions"));
+    }
+
+    @Test
+    void testFilterLeavesPlainRequestsUnchanged() throws Exception {
+        byte[] content = "{\"query\":\"{ greeting }\"}".getBytes(StandardCharsets.UTF_8);
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/graphql");
+        request.setContentType("application/json");
+        request.setContent(content);
+        MockFilterChain chain = new MockFilterChain();
+
+        new PersistedQueryRequestFilter(new ObjectMapper()).doFilter(request, new MockHttpServletResponse(), chain);
+
+        assertArrayEquals(content, chain.getRequest().getInputStream().readAllBytes());
+    }
+
+    @Test
+    void testFilterSkipsNonJsonAndOversizedBodies() throws Exception {
+        byte[] content = "{\"extensions\":{\"persistedQuery\":{\"version\":1,\"sha256Hash\":\"abc\"}}}"
+                .getBytes(StandardCharsets.UTF_8);
+        PersistedQueryRequestFilter filter = new PersistedQueryRequestFilter(new ObjectMapper(), 16);
+
+        MockHttpServletRequest form = new MockHttpServletRequest("POST", "/graphql");
+        form.setContentType("application/x-www-form-urlencoded");
+        form.setContent(content);
+        MockFilterChain formChain = new MockFilterChain();
+        filter.doFilter(form, new MockHttpServletResponse(), formChain);
+        assertSame(form, formChain.getRequest());
+
+        MockHttpServletRequest declared = new MockHttpServletRequest("POST", "/graphql");
+        declared.setContentType("application/json");
+        declared.setContent(content);
+        MockFilterChain declaredChain = new MockFilterChain();
+        filter.doFilter(declared, new MockHttpServletResponse(), declaredChain);
+        assertSame(declared, declaredChain.getRequest());
+
+        // Without a declared length, the body read up to the limit is replayed ahead of the rest
+        MockHttpServletRequest chunked = new MockHttpServletRequest("POST", "/graphql") {
+            @Override
+            public long getContentLengthLong() {
+                return -1;
+            }
+        };
+        chunked.setContentType("application/json");
+        chunked.setContent(content);
+        MockFilterChain chunkedChain = new MockFilterChain();
+        filter.doFilter(chunked, new MockHttpServletResponse(), chunkedChain);
+        assertArrayEquals(content, chunkedChain.getRequest().getInputStream().readAllBytes());
+    }
+
+    @Test
+    void testFilteredBodySupportsReadListeners() throws Exception {
+        byte[] content = "{\"query\":\"{ greeting }\"}".getBytes(StandardCharsets.UTF_8);
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/graphql");
+        request.setContentType("application/json;charset=UTF-8");
+        request.setContent(content);
+        MockFilterChain chain = new MockFilterChain();
+        new PersistedQueryRequestFilter(new ObjectMapper()).doFilter(request, new MockHttpServletResponse(), chain);
+
+        ServletInputStream input = chain.getRequest().getInputStream();
+        ByteArrayOutputStream read = new ByteArrayOutputStream();
+        List<String> events = new ArrayList<>();
+        input.setReadListener(new ReadListener() {
+            @Override
+            public void onDataAvailable() throws IOException {
+                events.add("available");
+                while (input.isReady() && !input.isFinished()) {
+                    int b = input.read();
+                    if (b >= 0) {
+                        read.write(b);
+                    }
+                }
+            }
+
+            @Override
+            public void onAllDataRead() {
+                events.add("done");
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                events.add("error");
+            }
+        });
+
+        assertEquals(List.of("available", "done"), events);
+        assertArrayEquals(content, read.toByteArray());
+    }
+
+    private ExecutionInput persisted(String query, String hash) {
+        return ExecutionInput.newExecutionInput(query)
+                .extensions(Map.of("persistedQuery", Map.of("version", 1, "sha256Hash", hash)))
+                .build();
+    }
+}
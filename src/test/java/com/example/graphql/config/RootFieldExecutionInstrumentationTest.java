@@ -0,0 +1,144 @@
+package com.example.graphql.config;
+
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import graphql.schema.DataFetcher;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RootFieldExecutionInstrumentationTest {
+
+    private static final String SCHEMA = "type Query { first: String second: String }"
+            + " type Mutation { change: String }";
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4, new CustomizableThreadFactory("graphql-test-"));
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testIndependentRootFieldsRunConcurrently() {
+        GraphQL graphQL = buildGraphQL(new RootFieldExecutionInstrumentation(executor, 4), slowFetcher());
+
+        long start = System.currentTimeMillis();
+        ExecutionResult result = graphQL.execute("{ first second }");
+        long elapsed = System.currentTimeMillis() - start;
+
+        assertTrue(result.getErrors().isEmpty());
+        Map<String, String> data = result.getData();
+        assertTrue(data.get("first").startsWith("graphql-test-"));
+        assertTrue(data.get("second").startsWith("graphql-test-"));
+        // Two 300ms fields should overlap rather than add up
+        assertTrue(elapsed < 550, "Root fields did not run concurrently: " + elapsed + "ms");
+    }
+
+    @Test
+    void testPermitsBoundConcurrency() {
+        GraphQL graphQL = buildGraphQL(new RootFieldExecutionInstrumentation(executor, 1), slowFetcher());
+
+        long start = System.currentTimeMillis();
+        ExecutionResult result = graphQL.execute("{ first second }");
+        long elapsed = System.currentTimeMillis() - start;
+
+        assertTrue(result.getErrors().isEmpty());
+        assertTrue(elapsed >= 600, "Single permit should serialize root fields: " + elapsed + "ms");
+    }
+
+    @Test
+    void testMutationsStayOnCallingThread() {
+        GraphQL graphQL = buildGraphQL(new RootFieldExecutionInstrumentation(executor, 4), slowFetcher());
+
+        ExecutionResult result = graphQL.execute("mutation { change }");
+
+        Map<String, String> data = result.getData();
+        assertEquals(Thread.currentThread().getName(), data.get("change"));
+    }
+
+    @Test
+    void testDirectModeRunsOnCallingThread() {
+        GraphQL graphQL = buildGraphQL(new RootFieldExecutionInstrumentation(null, 4), slowFetcher());
+
+        ExecutionResult result = graphQL.execute("{ first }");
+
+        Map<String, String> data = result.getData();
+        assertEquals(Thread.currentThread().getName(), data.get("first"));
+    }
+
+    @Test
+    void testRootFieldsRunInReadOnlyTransactions() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new NoOpTransactionManager());
+        transactionTemplate.setReadOnly(true);
+        DataFetcher<String> fetcher = environment -> Thread.currentThread().getName() + ":"
+                + TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        GraphQL graphQL = buildGraphQL(new RootFieldExecutionInstrumentation(executor, 4, transactionTemplate), fetcher);
+
+        ExecutionResult result = graphQL.execute("{ first second }");
+
+        Map<String, String> data = result.getData();
+        assertTrue(data.get("first").startsWith("graphql-test-"));
+        assertTrue(data.get("first").endsWith(":true"));
+        assertTrue(data.get("second").endsWith(":true"));
+    }
+
+    private DataFetcher<String> slowFetcher() {
+        return environment -> {
+            if (!"change".equals(environment.getField().getName())) {
+                Thread.sleep(300);
+            }
+            return Thread.currentThread().getName();
+        };
+    }
+
+    private GraphQL buildGraphQL(RootFieldExecutionInstrumentation instrumentation, DataFetcher<String> fetcher) {
+        RuntimeWiring wiring = RuntimeWiring.newRuntimeWiring()
+                .type("Query", builder -> builder
+                        .dataFetcher("first", fetcher)
+                        .dataFetcher("second", fetcher))
+                .type("Mutation", builder -> builder.dataFetcher("change", fetcher))
+                .build();
+        GraphQLSchema schema = new SchemaGenerator().makeExecutableSchema(new SchemaParser().parse(SCHEMA), wiring);
+        return GraphQL.newGraphQL(schema).instrumentation(instrumentation).build();
+    }
+
+    /**
+     * Minimal transaction manager that only drives transaction synchronization
+     */
+    private static class NoOpTransactionManager extends AbstractPlatformTransactionManager {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
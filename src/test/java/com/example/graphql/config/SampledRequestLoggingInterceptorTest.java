@@ -0,0 +1,50 @@
+package com.example.graphql.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.graphql.server.WebGraphQlInterceptor.Chain;
+import org.springframework.graphql.server.WebGraphQlRequest;
+import org.springframework.graphql.server.WebGraphQlResponse;
+import reactor.core.publisher.Mono;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class SampledRequestLoggingInterceptorTest {
+
+    @Test
+    void testSampleRateBounds() {
+        SampledRequestLoggingInterceptor none = new SampledRequestLoggingInterceptor(0);
+        SampledRequestLoggingInterceptor all = new SampledRequestLoggingInterceptor(1);
+        for (int i = 0; i < 1000; i++) {
+            assertFalse(none.isSampled());
+            assertTrue(all.isSampled());
+        }
+    }
+
+    @Test
+    void testSampleRateIsApproximatelyHonoured() {
+        SampledRequestLoggingInterceptor interceptor = new SampledRequestLoggingInterceptor(0.1);
+        int sampled = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (interceptor.isSampled()) {
+                sampled++;
+            }
+        }
+        assertTrue(sampled > 9_000 && sampled < 11_000, "sampled " + sampled);
+    }
+
+    @Test
+    void testResponseIsPassedThrough() {
+        WebGraphQlRequest request = mock(WebGraphQlRequest.class);
+        WebGraphQlResponse response = mock(WebGraphQlResponse.class);
+        Chain chain = mock(Chain.class);
+        when(chain.next(request)).thenReturn(Mono.just(response));
+
+        for (double rate : new double[] {0, 1}) {
+            assertSame(response, new SampledRequestLoggingInterceptor(rate).intercept(request, chain).block());
+        }
+        verify(chain, times(2)).next(request);
+        // Only the sampled request reads the response for its log line
+        verify(response, times(1)).getErrors();
+    }
+}
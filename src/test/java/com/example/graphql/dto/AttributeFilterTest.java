@@ -0,0 +1,60 @@
+package com.example.graphql.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AttributeFilterTest {
+
+    @Test
+    void testMatchesEveryClauseThatIsSet() {
+        AttributeFilter filter = new AttributeFilter("size", null, List.of("10", "12", "L"), 11.0, null);
+
+        assertTrue(filter.matches("12"));
+        assertFalse(filter.matches("10"));
+        assertFalse(filter.matches("L"));
+        assertFalse(filter.matches(null));
+        assertTrue(new AttributeFilter("size", null, null, null, null).matches("anything"));
+        assertTrue(new AttributeFilter("size", "M", null, null, null).matches("M"));
+        assertFalse(new AttributeFilter("size", "M", null, null, null).matches("m"));
+    }
+
+    @Test
+    void testTimestampBoundsOnlyMatchTimestamps() {
+        AttributeFilter filter = new AttributeFilter("released", null, null, null, null);
+        filter.setAfter("2024-01-01");
+        filter.setBefore("2024-06-30T12:00:00");
+
+        assertTrue(filter.matches("2024-01-01T00:00:00"));
+        assertTrue(filter.matches("2024-06-30T12:00:00"));
+        assertFalse(filter.matches("2024-06-30T12:00:01"));
+        assertFalse(filter.matches("2024-03-01"));
+        assertFalse(filter.matches("soon"));
+        filter.setAfter("yesterday");
+        assertThrows(IllegalArgumentException.class, () -> filter.matches("2024-03-01T00:00:00"));
+    }
+
+    @Test
+    void testNormalizeSortsAndDeduplicates() {
+        List<AttributeFilter> normalized = AttributeFilter.normalize(Arrays.asList(
+                new AttributeFilter("weight", null, null, 1.0, 2.0),
+                new AttributeFilter("color", null, List.of("red", "blue", "red"), null, null),
+                new AttributeFilter("weight", null, List.of(), 1.0, 2.0)));
+
+        assertEquals(List.of(new AttributeFilter("color", null, List.of("blue", "red"), null, null),
+                new AttributeFilter("weight", null, null, 1.0, 2.0)), normalized);
+        assertNull(AttributeFilter.normalize(List.of()));
+        assertNull(AttributeFilter.normalize(null));
+        assertThrows(IllegalArgumentException.class,
+                () -> AttributeFilter.normalize(List.of(new AttributeFilter("", "x", null, null, null))));
+
+        AttributeFilter date = new AttributeFilter("released", null, null, null, null);
+        date.setAfter("2024-01-01");
+        AttributeFilter dateTime = new AttributeFilter("released", null, null, null, null);
+        dateTime.setAfter("2024-01-01T00:00:00");
+        assertEquals(AttributeFilter.normalize(List.of(date)), AttributeFilter.normalize(List.of(dateTime)));
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.graphql.dto;
 
 import org.junit.jupiter.api.Test;
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 import static org.junit.jupiter.api.Assertions.*;
@@ -72,4 +73,27 @@ class ProductFilterTest {
         assertNull(filter.getMinStockQuantity());
         assertNull(filter.getMinPopularity());
     }
-} 
\ No newline at end of file
+
+    @Test
+    void testCreatedBoundsParseDatesAndDateTimes() {
+        ProductFilter filter = new ProductFilter();
+        filter.setCreatedAfter("2024-03-01");
+        filter.setCreatedBefore("2024-03-31T23:59:59");
+
+        // A date-only bound means the start of that day
+        assertEquals(LocalDateTime.of(2024, 3, 1, 0, 0), filter.getCreatedAfterTimestamp());
+        assertEquals(LocalDateTime.of(2024, 3, 31, 23, 59, 59), filter.getCreatedBeforeTimestamp());
+
+        filter.setCreatedAfter(null);
+        assertNull(filter.getCreatedAfterTimestamp());
+    }
+
+    @Test
+    void testInvalidCreatedBoundIsRejected() {
+        ProductFilter filter = new ProductFilter();
+        filter.setCreatedAfter("last tuesday");
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, filter::getCreatedAfterTimestamp);
+        assertTrue(e.getMessage().contains("createdAfter"));
+    }
+}
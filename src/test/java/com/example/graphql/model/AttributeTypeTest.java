@@ -0,0 +1,54 @@
+package com.example.graphql.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AttributeTypeTest {
+
+    @Test
+    void testOnlyPlainNumbersAreNumeric() {
+        assertEquals(12.5, AttributeType.parseNumber("12.5"));
+        assertEquals(-3.0, AttributeType.parseNumber("-3"));
+        assertEquals(0.5, AttributeType.parseNumber(".5"));
+        assertEquals(1500.0, AttributeType.parseNumber("1.5e3"));
+        assertNull(AttributeType.parseNumber("12 "));
+        assertNull(AttributeType.parseNumber("NaN"));
+        assertNull(AttributeType.parseNumber("0x10"));
+        assertNull(AttributeType.parseNumber("12kg"));
+        assertNull(AttributeType.parseNumber(null));
+    }
+
+    @Test
+    void testValuesAreCanonicalizedPerType() {
+        assertEquals("true", AttributeType.BOOLEAN.canonicalize("TRUE"));
+        assertEquals("2024-01-15T00:00:00", AttributeType.TIMESTAMP.canonicalize("2024-01-15"));
+        assertEquals("2024-01-15T10:30:00", AttributeType.TIMESTAMP.canonicalize("2024-01-15T10:30"));
+        assertEquals("1e3", AttributeType.NUMBER.canonicalize("1e3"));
+        assertEquals("Blue ", AttributeType.STRING.canonicalize("Blue "));
+
+        assertThrows(IllegalArgumentException.class, () -> AttributeType.NUMBER.canonicalize("12kg"));
+        assertThrows(IllegalArgumentException.class, () -> AttributeType.BOOLEAN.canonicalize("yes"));
+        assertThrows(IllegalArgumentException.class, () -> AttributeType.TIMESTAMP.canonicalize("2024-02-30"));
+        assertThrows(IllegalArgumentException.class, () -> AttributeType.TIMESTAMP.canonicalize("2024-01-15T10:30:00.5"));
+        assertTrue(AttributeType.TIMESTAMP.isCanonical("2024-02-29T00:00:00"));
+        assertFalse(AttributeType.TIMESTAMP.isCanonical("2023-02-29T00:00:00"));
+        assertFalse(AttributeType.BOOLEAN.isCanonical("False"));
+    }
+
+    @Test
+    void testInferenceAndDecoding() {
+        assertEquals(AttributeType.NUMBER, AttributeType.infer("16"));
+        assertEquals(AttributeType.BOOLEAN, AttributeType.infer("False"));
+        assertEquals(AttributeType.TIMESTAMP, AttributeType.infer("2024-01-15"));
+        assertEquals(AttributeType.STRING, AttributeType.infer("silver"));
+        assertEquals(AttributeType.STRING, AttributeType.infer("2024-13-01"));
+
+        assertEquals(16.0, AttributeType.NUMBER.decode("16"));
+        assertEquals(Boolean.FALSE, AttributeType.BOOLEAN.decode("false"));
+        assertEquals(LocalDateTime.of(2024, 1, 15, 10, 0), AttributeType.TIMESTAMP.decode("2024-01-15T10:00:00"));
+        assertNull(AttributeType.parseTimestamp("2024-01-15T10:00"));
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.graphql.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SalesGrainTest {
+
+    @Test
+    void testPeriodsAreAlignedToTheCalendar() {
+        LocalDate wednesday = LocalDate.of(2024, 5, 15);
+        assertEquals(wednesday, SalesGrain.DAY.periodStart(wednesday));
+        assertEquals(LocalDate.of(2024, 5, 13), SalesGrain.WEEK.periodStart(wednesday));
+        assertEquals(LocalDate.of(2024, 5, 1), SalesGrain.MONTH.periodStart(wednesday));
+        assertEquals(LocalDate.of(2024, 4, 1), SalesGrain.QUARTER.periodStart(wednesday));
+        assertEquals(LocalDate.of(2024, 1, 1), SalesGrain.YEAR.periodStart(wednesday));
+        assertEquals(LocalDate.of(2024, 7, 1), SalesGrain.QUARTER.nextPeriodStart(LocalDate.of(2024, 4, 1)));
+        assertEquals(LocalDate.of(2024, 5, 20), SalesGrain.WEEK.nextPeriodStart(LocalDate.of(2024, 5, 13)));
+    }
+
+    @Test
+    void testRangesAreCoveredByTheLongestPeriodsThatFit() {
+        assertEquals(List.of("YEAR 2024-01-01"), cover("2024-01-01", "2024-12-31"));
+        assertEquals(List.of("YEAR 2023-01-01", "MONTH 2024-01-01", "MONTH 2024-02-01"), cover("2023-01-01", "2024-02-29"));
+        // Saturday to the Tuesday after a quarter
+        assertEquals(List.of("DAY 2024-03-30", "DAY 2024-03-31", "QUARTER 2024-04-01", "DAY 2024-07-01", "DAY 2024-07-02"),
+                cover("2024-03-30", "2024-07-02"));
+        // Wednesday to the Tuesday two weeks later
+        assertEquals(List.of("DAY 2024-05-15", "DAY 2024-05-16", "DAY 2024-05-17", "DAY 2024-05-18", "DAY 2024-05-19",
+                "WEEK 2024-05-20", "DAY 2024-05-27", "DAY 2024-05-28"), cover("2024-05-15", "2024-05-28"));
+        assertEquals(List.of("DAY 2024-05-15"), cover("2024-05-15", "2024-05-15"));
+        assertEquals(List.of(), cover("2024-05-15", "2024-05-14"));
+    }
+
+    private static List<String> cover(String start, String end) {
+        List<String> periods = new ArrayList<>();
+        SalesGrain.cover(LocalDate.parse(start), LocalDate.parse(end), (grain, periodStart) -> periods.add(grain + " " + periodStart));
+        return periods;
+    }
+}
@@ -0,0 +1,233 @@
+package com.example.graphql.repository;
+
+import com.example.graphql.dto.AttributeFilter;
+import com.example.graphql.dto.ProductFilter;
+import com.example.graphql.model.Product;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that the SQL productsWithFilter generates for representative filters and sorts
+ * is planned with the indexes from the schema migrations. Criteria values are inlined,
+ * so the captured statements can be passed to EXPLAIN as they are; only the page bounds
+ * are still bound.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.criteria.value_handling_mode=inline",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.example.graphql.repository.ProductIndexPlanTest$StatementRecorder",
+        "spring.jpa.show-sql=false",
+        "logging.level.org.springframework=INFO",
+        "logging.level.com.example.graphql=INFO"
+})
+class ProductIndexPlanTest {
+
+    private static final List<String> CATEGORIES = List.of("Electronics", "Kitchen", "Books", "Toys", "Garden");
+    private static final List<String> COLORS = List.of("red", "green", "blue", "black", "white", "silver", "gold");
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @BeforeEach
+    void loadCatalog() throws SQLException {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            Product product = new Product(null, "Product " + i, null, (double) (i % 100) * 10,
+                    CATEGORIES.get(i % CATEGORIES.size()), true);
+            product.setRating((i % 50) / 10.0f);
+            product.setStockQuantity(i % 7);
+            product.setTags(new ArrayList<>(List.of("tag" + (i % 40), "tag" + (i % 13))));
+            product.addCustomAttribute("color", COLORS.get(i % COLORS.size()));
+            product.addCustomAttribute("weight", i % 9 == 0 ? "unknown" : String.valueOf(i % 120 / 4.0));
+            if (i % 5 != 0) {
+                product.addCustomAttribute("released", LocalDate.of(2020, 1, 1).plusDays(i * 3L) + "T00:00:00");
+            }
+            products.add(product);
+        }
+        productRepository.saveAllAndFlush(products);
+        // Refresh the selectivity statistics the planner uses
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("ANALYZE");
+        }
+        StatementRecorder.STATEMENTS.clear();
+    }
+
+    @Test
+    void testCategoryWithPriceRangeUsesCategoryPriceIndex() throws SQLException {
+        ProductFilter filter = new ProductFilter();
+        filter.setCategories(List.of("Books", "Toys"));
+        filter.setMinPrice(100.0);
+        filter.setMaxPrice(200.0);
+
+        assertPlanUses("IDX_PRODUCT_CATEGORY_PRICE", filter, PageRequest.of(0, 10, Sort.Direction.ASC, "price"));
+    }
+
+    @Test
+    void testInStockWithMinimumRatingUsesInStockRatingIndex() throws SQLException {
+        ProductFilter filter = new ProductFilter();
+        filter.setInStock(true);
+        filter.setMinRating(4.5);
+
+        assertPlanUses("IDX_PRODUCT_IN_STOCK_RATING", filter, PageRequest.of(0, 10, Sort.Direction.DESC, "rating"));
+    }
+
+    @Test
+    void testPriceRangeUsesPriceIndex() throws SQLException {
+        ProductFilter filter = new ProductFilter();
+        filter.setMinPrice(900.0);
+
+        assertPlanUses("IDX_PRODUCT_PRICE", filter, PageRequest.of(0, 10));
+    }
+
+    @Test
+    void testMinimumRatingUsesRatingIndex() throws SQLException {
+        ProductFilter filter = new ProductFilter();
+        filter.setMinRating(4.8);
+
+        assertPlanUses("IDX_PRODUCT_RATING", filter, PageRequest.of(0, 10));
+    }
+
+    @Test
+    void testTagsUseTagProductIndex() throws SQLException {
+        ProductFilter filter = new ProductFilter();
+        filter.setHasTags(List.of("tag7", "tag8"));
+
+        assertPlanUses("IDX_PRODUCT_TAGS_TAG_PRODUCT", filter, PageRequest.of(0, 10));
+    }
+
+    @Test
+    void testCreatedRangeUsesCreatedAtIndex() throws SQLException {
+        ProductFilter filter = new ProductFilter();
+        filter.setCreatedAfter("2999-01-01");
+
+        assertPlanUses("IDX_PRODUCT_CREATED_AT", filter, PageRequest.of(0, 10));
+    }
+
+    @Test
+    void testAttributeValuesUseAttributeKeyValueIndex() throws SQLException {
+        ProductFilter filter = new ProductFilter();
+        filter.setAttributes(List.of(new AttributeFilter("color", null, List.of("gold", "silver"), null, null)));
+
+        assertPlanUses("IDX_PRODUCT_ATTRIBUTES_KEY_VALUE", filter, PageRequest.of(0, 10));
+    }
+
+    @Test
+    void testAttributeRangesUseAttributeKeyNumberIndex() throws SQLException {
+        ProductFilter filter = new ProductFilter();
+        filter.setAttributes(List.of(new AttributeFilter("weight", null, null, 28.0, 29.0)));
+
+        assertPlanUses("IDX_PRODUCT_ATTRIBUTES_KEY_NUMBER", filter, PageRequest.of(0, 10));
+    }
+
+    @Test
+    void testAttributeTimestampRangesUseAttributeKeyTimestampIndex() throws SQLException {
+        AttributeFilter released = new AttributeFilter("released", null, null, null, null);
+        released.setAfter("2021-03-01");
+        released.setBefore("2021-03-10");
+        ProductFilter filter = new ProductFilter();
+        filter.setAttributes(List.of(released));
+
+        assertPlanUses("IDX_PRODUCT_ATTRIBUTES_KEY_TIMESTAMP", filter, PageRequest.of(0, 10));
+    }
+
+    @Test
+    void testAttributeFiltersMatchTheInMemoryPredicate() {
+        List<Product> catalog = productRepository.findAll();
+        List<List<AttributeFilter>> cases = List.of(
+                List.of(new AttributeFilter("color", "red", null, null, null)),
+                List.of(new AttributeFilter("weight", null, null, 10.0, 12.5)),
+                List.of(new AttributeFilter("weight", null, List.of("unknown", "3.0"), null, null)),
+                List.of(new AttributeFilter("weight", null, null, null, 1.0),
+                        new AttributeFilter("color", null, List.of("blue", "black"), null, null)),
+                List.of(new AttributeFilter("size", null, null, null, null)),
+                List.of(releasedBetween("2020-06-01", "2021-01-01T12:00:00")),
+                List.of(releasedBetween(null, "2020-02-01"), new AttributeFilter("color", "red", null, null, null)));
+        for (List<AttributeFilter> attributes : cases) {
+            ProductFilter filter = new ProductFilter();
+            filter.setAttributes(attributes);
+
+            List<Long> expected = catalog.stream()
+                    .filter(product -> ProductSpecification.couldMatch(filter, product))
+                    .map(Product::getId).sorted().collect(Collectors.toList());
+            List<Long> actual = productRepository.findAll(ProductSpecification.getSpecification(filter)).stream()
+                    .map(Product::getId).sorted().collect(Collectors.toList());
+            assertEquals(expected, actual, attributes::toString);
+        }
+    }
+
+    private static AttributeFilter releasedBetween(String after, String before) {
+        AttributeFilter filter = new AttributeFilter("released", null, null, null, null);
+        filter.setAfter(after);
+        filter.setBefore(before);
+        return filter;
+    }
+
+    private void assertPlanUses(String index, ProductFilter filter, Pageable pageable) throws SQLException {
+        productRepository.findAll(ProductSpecification.getSpecification(filter), pageable);
+
+        String query = StatementRecorder.STATEMENTS.stream()
+                .filter(sql -> sql.toLowerCase(Locale.ROOT).startsWith("select") && !sql.contains("count("))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("No query was captured"));
+        String plan = explain(query);
+        assertTrue(plan.toUpperCase(Locale.ROOT).contains(index),
+                () -> "Expected " + index + " in the plan of\n" + query + "\n" + plan);
+    }
+
+    private String explain(String sql) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("explain " + sql)) {
+            // Only the page bounds are still parameters; their values do not change the plan
+            int parameters = statement.getParameterMetaData().getParameterCount();
+            for (int i = 1; i <= parameters; i++) {
+                statement.setInt(i, 10);
+            }
+            try (ResultSet result = statement.executeQuery()) {
+                StringBuilder plan = new StringBuilder();
+                while (result.next()) {
+                    plan.append(result.getString(1)).append('\n');
+                }
+                return plan.toString();
+            }
+        }
+    }
+
+    /**
+     * Records the SQL Hibernate prepares, installed through the statement_inspector property
+     */
+    public static class StatementRecorder implements StatementInspector {
+
+        private static final long serialVersionUID = 1L;
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
@@ -79,4 +79,128 @@ class ProductSpecificationTest {
         assertNotNull(spec);
         // Verify that empty collections are handled correctly
     }
-} 
\ No newline at end of file
+    
+    @Test
+    void testCouldMatchAppliesSpecificationClauses() {
+        // Given
+        Product product = new Product(1L, "Wireless Phone", "Smartphone", 300.0, "Electronics", true);
+        product.setRating(4.5f);
+        product.setTags(Arrays.asList("wireless", "5g"));
+        
+        ProductFilter filter = new ProductFilter();
+        filter.setNameContains("PHONE");
+        filter.setMinPrice(100.0);
+        filter.setMaxPrice(500.0);
+        filter.setCategories(Arrays.asList("Electronics", "Mobile Phones"));
+        filter.setInStock(true);
+        filter.setMinRating(4.5);
+        filter.setHasTags(Arrays.asList("bluetooth", "wireless"));
+        
+        // Then
+        assertTrue(ProductSpecification.couldMatch(filter, product));
+        assertTrue(ProductSpecification.couldMatch(null, product));
+        
+        filter.setMaxPrice(200.0);
+        assertFalse(ProductSpecification.couldMatch(filter, product));
+    }
+    
+    @Test
+    void testCouldMatchIgnoresClausesTheSpecificationIgnores() {
+        // Given
+        Product product = new Product(1L, "Phone", "Smartphone", 300.0, "Electronics", true);
+        
+        ProductFilter filter = new ProductFilter();
+        filter.setHasPriceChanged(true);
+        
+        // Then
+        assertTrue(ProductSpecification.couldMatch(filter, product));
+    }
+    
+    @Test
+    void testCouldMatchAppliesStockAndPopularityFloors() {
+        // Given
+        Product product = new Product(1L, "Phone", "Smartphone", 300.0, "Electronics", true);
+        product.setStockQuantity(5);
+        product.setPopularity(40);
+        
+        ProductFilter filter = new ProductFilter();
+        filter.setMinStockQuantity(5);
+        filter.setMinPopularity(40);
+        
+        // Then
+        assertTrue(ProductSpecification.couldMatch(filter, product));
+        
+        filter.setMinPopularity(41);
+        assertFalse(ProductSpecification.couldMatch(filter, product));
+        
+        filter.setMinPopularity(null);
+        filter.setMinStockQuantity(6);
+        assertFalse(ProductSpecification.couldMatch(filter, product));
+    }
+    
+    @Test
+    void testCouldMatchRejectsMissingValues() {
+        // Given
+        Product product = new Product(1L, null, null, null, null, null);
+        
+        ProductFilter filter = new ProductFilter();
+        filter.setMinPrice(1.0);
+        assertFalse(ProductSpecification.couldMatch(filter, product));
+        
+        filter = new ProductFilter();
+        filter.setHasTags(List.of("wireless"));
+        assertFalse(ProductSpecification.couldMatch(filter, product));
+    }
+    
+    @Test
+    void testCouldMatchAppliesCreatedAtBounds() {
+        // Given
+        Product product = new Product(1L, "Phone", "Smartphone", 300.0, "Electronics", true);
+        product.setCreatedAt("2024-06-15T12:30:00");
+        
+        ProductFilter filter = new ProductFilter();
+        filter.setCreatedAfter("2024-06-15");
+        filter.setCreatedBefore("2024-06-15T12:30:00");
+        
+        // Then
+        assertTrue(ProductSpecification.couldMatch(filter, product));
+        
+        filter.setCreatedBefore("2024-06-15T12:29:59");
+        assertFalse(ProductSpecification.couldMatch(filter, product));
+        
+        // Like the SQL comparison, a missing creation date never matches
+        product.setCreatedAtTimestamp(null);
+        filter.setCreatedBefore(null);
+        assertFalse(ProductSpecification.couldMatch(filter, product));
+    }
+    
+    @Test
+    void testSearchClauseNeedsMatchingIds() {
+        // Given
+        ProductFilter filter = new ProductFilter();
+        filter.setSearch("wireless");
+        
+        // Then
+        assertThrows(IllegalArgumentException.class, () -> ProductSpecification.getSpecification(filter));
+        assertNotNull(ProductSpecification.getSpecification(filter, new long[]{1L, 2L}));
+        
+        // A blank search is no clause
+        filter.setSearch("  ");
+        assertNotNull(ProductSpecification.getSpecification(filter));
+    }
+    
+    @Test
+    void testCouldMatchAppliesSearchTerms() {
+        // Given
+        Product product = new Product(1L, "Wireless Phone", "Dual SIM smartphone", 300.0, "Electronics", true);
+        
+        ProductFilter filter = new ProductFilter();
+        filter.setSearch("dual wire");
+        
+        // Then
+        assertTrue(ProductSpecification.couldMatch(filter, product));
+        
+        filter.setSearch("dual cable");
+        assertFalse(ProductSpecification.couldMatch(filter, product));
+    }
+}
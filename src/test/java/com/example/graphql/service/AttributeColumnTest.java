@@ -0,0 +1,62 @@
+package com.example.graphql.service;
+
+import com.example.graphql.dto.AttributeFilter;
+import com.example.graphql.model.Product;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AttributeColumnTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testValuesAreDictionaryEncodedAndDecodedOnce() throws IOException {
+        List<Product> products = List.of(
+                product(1L, Map.of("color", "red", "weight", "2.5", "released", "2024-01-15T10:00:00")),
+                product(2L, Map.of("color", "blue", "weight", "heavy")),
+                product(3L, Map.of()),
+                product(4L, Map.of("color", "red", "weight", "2.5")));
+        ProductSnapshot onHeap = ProductSnapshot.of(new ArrayList<>(products));
+        ProductSnapshot offHeap = ProductSnapshot.of(MappedProductFile.write(directory.resolve("products.bin"), products.iterator()));
+
+        for (ProductSnapshot snapshot : List.of(onHeap, offHeap)) {
+            AttributeColumn color = snapshot.attributeColumn("color");
+            assertEquals(2, color.cardinality());
+            assertEquals(color.code(0), color.code(3));
+            assertEquals("blue", color.value(color.code(1)));
+            assertEquals(AttributeColumn.MISSING, color.code(2));
+            assertSame(color, snapshot.attributeColumn("color"));
+
+            AttributeColumn weight = snapshot.attributeColumn("weight");
+            assertEquals(2.5, weight.number(weight.code(0)));
+            assertTrue(Double.isNaN(weight.number(weight.code(1))));
+
+            AttributeColumn released = snapshot.attributeColumn("released");
+            assertEquals(ProductSnapshot.toEpochMicros(LocalDateTime.of(2024, 1, 15, 10, 0)), released.timestamp(released.code(0)));
+            assertEquals(AttributeColumn.MISSING, released.code(1));
+
+            IntPredicate light = weight.matcher(new AttributeFilter("weight", null, null, null, 3.0));
+            assertTrue(light.test(0));
+            assertFalse(light.test(1));
+            assertFalse(light.test(2));
+            assertTrue(light.test(3));
+        }
+    }
+
+    private static Product product(Long id, Map<String, String> attributes) {
+        Product product = new Product(id, "Product " + id, null, 10.0, "Electronics", true);
+        product.setCustomAttributes(attributes);
+        return product;
+    }
+}
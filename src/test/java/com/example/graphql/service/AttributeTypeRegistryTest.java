@@ -0,0 +1,124 @@
+package com.example.graphql.service;
+
+import com.example.graphql.model.AttributeDefinition;
+import com.example.graphql.model.AttributeType;
+import com.example.graphql.repository.AttributeDefinitionRepository;
+import com.example.graphql.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AttributeTypeRegistryTest {
+
+    @Mock
+    private AttributeDefinitionRepository definitionRepository;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private AttributeTypeRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        when(definitionRepository.findAll()).thenReturn(List.of(new AttributeDefinition("ram_gb", AttributeType.NUMBER)));
+        registry = new AttributeTypeRegistry(definitionRepository, productRepository);
+    }
+
+    @Test
+    void testNewKeysAreRegisteredWithTheirInferredType() {
+        Map<String, String> attributes = new HashMap<>(Map.of("ram_gb", "16", "refurbished", "TRUE",
+                "released", "2024-03-12", "color", "silver"));
+
+        registry.canonicalize(attributes);
+
+        assertEquals(Map.of("ram_gb", "16", "refurbished", "true", "released", "2024-03-12T00:00:00", "color", "silver"),
+                attributes);
+        assertEquals(AttributeType.BOOLEAN, registry.typeOf("refurbished"));
+        assertEquals(AttributeType.TIMESTAMP, registry.typeOf("released"));
+        assertEquals(List.of("color", "ram_gb", "refurbished", "released"),
+                registry.getDefinitions().stream().map(AttributeDefinition::getKey).collect(Collectors.toList()));
+        ArgumentCaptor<AttributeDefinition> saved = ArgumentCaptor.forClass(AttributeDefinition.class);
+        verify(definitionRepository, times(3)).save(saved.capture());
+        assertFalse(saved.getAllValues().stream().anyMatch(definition -> definition.getKey().equals("ram_gb")));
+    }
+
+    @Test
+    void testValuesMustHaveTheRegisteredType() {
+        Map<String, String> attributes = new HashMap<>(Map.of("ram_gb", "lots", "color", "silver"));
+
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class, () -> registry.canonicalize(attributes));
+
+        assertTrue(error.getMessage().contains("ram_gb"));
+        // Nothing is registered or rewritten when a value is rejected
+        assertNull(registry.typeOf("color"));
+        assertEquals("lots", attributes.get("ram_gb"));
+        verify(definitionRepository, never()).save(any());
+    }
+
+    @Test
+    void testTypesRegisteredByARolledBackTransactionAreForgotten() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            registry.canonicalize(new HashMap<>(Map.of("color", "silver")));
+            // The transaction sees its own registration, so later values are not registered again
+            assertEquals(AttributeType.STRING, registry.typeOf("color"));
+            registry.canonicalize(new HashMap<>(Map.of("color", "black")));
+            verify(definitionRepository, times(1)).save(any());
+
+            completeTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertNull(registry.typeOf("color"));
+        // The next write registers the key again, so it is persisted
+        registry.canonicalize(new HashMap<>(Map.of("color", "silver")));
+        verify(definitionRepository, times(2)).save(any());
+        assertEquals(AttributeType.STRING, registry.typeOf("color"));
+    }
+
+    @Test
+    void testTypesRegisteredByATransactionArePublishedOnCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            registry.canonicalize(new HashMap<>(Map.of("refurbished", "true")));
+            completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(AttributeType.BOOLEAN, registry.typeOf("refurbished"));
+    }
+
+    @Test
+    void testDefineChecksStoredValues() {
+        when(productRepository.findDistinctAttributeValues("ram_gb")).thenReturn(List.of("16", "32"));
+        when(productRepository.findDistinctAttributeValues("size")).thenReturn(List.of("10", "L"));
+
+        assertEquals(AttributeType.STRING, registry.define("ram_gb", AttributeType.STRING).getType());
+        assertEquals(AttributeType.STRING, registry.typeOf("ram_gb"));
+        assertThrows(IllegalArgumentException.class, () -> registry.define("size", AttributeType.NUMBER));
+        assertNull(registry.typeOf("size"));
+        assertThrows(IllegalArgumentException.class, () -> registry.define(" ", AttributeType.STRING));
+    }
+
+    private static void completeTransaction(int status) {
+        TransactionSynchronizationUtils.invokeAfterCompletion(TransactionSynchronizationManager.getSynchronizations(), status);
+    }
+}
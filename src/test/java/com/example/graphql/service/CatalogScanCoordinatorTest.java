@@ -0,0 +1,80 @@
+package com.example.graphql.service;
+
+import com.example.graphql.model.Product;
+import com.example.graphql.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CatalogScanCoordinatorTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private CatalogScanCoordinator coordinator;
+    private List<Product> products;
+
+    @BeforeEach
+    void setUp() {
+        coordinator = new CatalogScanCoordinator(new ProductSnapshotStore(productRepository));
+
+        Product laptop = new Product(1L, "Laptop", "Portable", 1200.0, "Electronics", true);
+        Product blender = new Product(2L, "Blender", "Kitchen blender", 80.0, "Kitchen", false);
+        blender.setRating(4.5f);
+        Product phone = new Product(3L, "Phone", "Smartphone", 600.0, "Electronics", true);
+        products = Arrays.asList(laptop, blender, phone);
+    }
+
+    @Test
+    void testScansAreSharedWithinRequestScan() {
+        when(productRepository.findAll()).thenReturn(products);
+        CatalogScanCoordinator.RequestScan scan = new CatalogScanCoordinator.RequestScan();
+
+        ProductSnapshot first = CatalogScanCoordinator.withRequestScan(scan, coordinator::getFullCatalog);
+        ProductSnapshot second = CatalogScanCoordinator.withRequestScan(scan, coordinator::getFullCatalog);
+
+        assertSame(first, second);
+        assertTrue(scan.isLoaded());
+        verify(productRepository, times(1)).findAll();
+    }
+
+    @Test
+    void testCatalogIsLoadedOnceAcrossRequests() {
+        when(productRepository.findAll()).thenReturn(products);
+
+        ProductSnapshot first = coordinator.getFullCatalog();
+        ProductSnapshot second = CatalogScanCoordinator.withRequestScan(
+                new CatalogScanCoordinator.RequestScan(), coordinator::getFullCatalog);
+
+        assertSame(first, second);
+        verify(productRepository, times(1)).findAll();
+    }
+
+    @Test
+    void testSnapshotColumns() {
+        ProductSnapshot snapshot = ProductSnapshot.of(products);
+
+        assertEquals(3, snapshot.size());
+        assertEquals(1200.0, snapshot.getPrice(0), 0.001);
+        assertTrue(Float.isNaN(snapshot.getRating(0)));
+        assertEquals(4.5f, snapshot.getRating(1), 0.001);
+        assertEquals(2, snapshot.getInStockCount());
+        assertFalse(snapshot.isInStock(1));
+        assertEquals(2, snapshot.getCategoryCount());
+        assertEquals(snapshot.getCategoryId(0), snapshot.getCategoryId(2));
+        assertEquals("Kitchen", snapshot.getCategory(snapshot.getCategoryId(1)));
+        assertEquals(3L, snapshot.getId(2));
+        assertEquals("blender", snapshot.getLowerCaseName(1));
+        assertEquals(snapshot.getCategoryId(1), snapshot.findCategoryId("Kitchen"));
+        assertEquals(ProductSnapshot.NO_CATEGORY, snapshot.findCategoryId("Garden"));
+    }
+}
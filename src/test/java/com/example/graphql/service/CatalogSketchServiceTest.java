@@ -0,0 +1,154 @@
+package com.example.graphql.service;
+
+import com.example.graphql.dto.ProductFilter;
+import com.example.graphql.dto.TagStat;
+import com.example.graphql.model.Product;
+import com.example.graphql.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class CatalogSketchServiceTest {
+
+    private static final List<String> CATEGORIES = List.of("Electronics", "Kitchen", "Books", "Toys");
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private final List<Product> catalog = new ArrayList<>();
+    private ProductSnapshotStore store;
+    private CatalogSketchService service;
+
+    @BeforeEach
+    void setUp() {
+        for (long id = 1; id <= 2000; id++) {
+            catalog.add(product(id, "tag" + (id % 300), id % 3 == 0 ? "common" : "rare" + (id % 7)));
+        }
+        when(productRepository.findAll()).thenReturn(catalog);
+        store = new ProductSnapshotStore(productRepository);
+        service = new CatalogSketchService(new CatalogScanCoordinator(store), new DynamicQueryService(productRepository, store));
+    }
+
+    @Test
+    void testSketchesMatchExactValuesWithinAccuracy() {
+        // 300 + 7 + 1 distinct tags are still counted exactly by the sketch
+        assertEquals(308, service.distinctTags(null, 0.01));
+        assertEquals(308, service.distinctTags(null, 0));
+        assertEquals(4, service.distinctCategories(null, 0.05));
+
+        // Prices 1..2000
+        assertEquals(1000.0, service.pricePercentile(null, 50, 0));
+        assertEquals(1000.0, service.pricePercentile(null, 50, 0.02), 2000 * 0.02);
+        assertEquals(1980.0, service.pricePercentile(null, 99, 0.01), 2000 * 0.01);
+        assertEquals(1.0, service.pricePercentile(null, 0, 0.01));
+        assertEquals(4.0, service.ratingPercentile(null, 90, 0.01));
+
+        List<TagStat> top = service.topTags(null, 3, 0.01);
+        assertEquals(List.of("common", "rare1", "rare2"), top.stream().map(TagStat::getTag).collect(Collectors.toList()));
+        assertEquals(666, top.get(0).getCount());
+        assertEquals(33.3, top.get(0).getPercentage(), 1e-9);
+        assertEquals(toMap(service.topTags(null, 10, 0)), toMap(service.topTags(null, 10, 0.01)));
+    }
+
+    @Test
+    void testScopedStatisticsCoverTheSelectedProducts() {
+        ProductFilter kitchen = new ProductFilter();
+        kitchen.setCategories(List.of("Kitchen"));
+
+        // Ids 1, 5, 9, ... have 75 of the numbered tags, every rare tag and the common one
+        assertEquals(75 + 7 + 1, service.distinctTags(kitchen, 0.02));
+        assertEquals(service.distinctTags(kitchen, 0), service.distinctTags(kitchen, 0.02));
+        assertEquals(1, service.distinctCategories(kitchen, 0.1));
+        assertEquals(997.0, service.pricePercentile(kitchen, 50, 0));
+        assertEquals(997.0, service.pricePercentile(kitchen, 50, 0.05), 2000 * 0.05);
+        assertEquals(toMap(service.topTags(kitchen, 5, 0)), toMap(service.topTags(kitchen, 5, 0.01)));
+    }
+
+    @Test
+    void testChangesAreFoldedIntoTheCatalogSketches() {
+        assertEquals(308, service.distinctTags(null, 0.01));
+
+        Product added = product(2001L, "brand-new", "common");
+        store.onProductChange(ProductChangeEvent.created(added));
+        service.onProductChange(ProductChangeEvent.created(added));
+        for (long id = 3; id <= 30; id += 3) {
+            Product old = catalog.get((int) id - 1);
+            Product changed = product(id, "tag" + (id % 300), "uncommon");
+            store.onProductChange(ProductChangeEvent.updated(old, changed));
+            service.onProductChange(ProductChangeEvent.updated(old, changed));
+        }
+
+        assertEquals(310, service.distinctTags(null, 0.01));
+        assertEquals(667 - 10, service.topTags(null, 1, 0.01).get(0).getCount());
+        assertEquals(10, toMap(service.topTags(null, 100, 0.01)).get("uncommon"));
+        assertEquals(2001.0, service.pricePercentile(null, 100, 0.01));
+        verify(productRepository, times(1)).findAll();
+    }
+
+    @Test
+    void testStaleSketchesAreRebuiltWhenTheAccuracyRequiresIt() {
+        assertEquals(308, service.distinctTags(null, 0.01));
+
+        // Deleting every product with tag0..tag49 leaves their tags in the HyperLogLog
+        for (Product product : new ArrayList<>(catalog)) {
+            if (product.getId() % 300 < 50) {
+                store.onProductChange(ProductChangeEvent.deleted(product));
+                service.onProductChange(ProductChangeEvent.deleted(product));
+            }
+        }
+
+        // About a fifth of the catalog changed, more than a 10% accuracy tolerates
+        assertEquals(308, service.distinctTags(null, 0.5));
+        assertEquals(258, service.distinctTags(null, 0.1));
+        assertEquals(258, service.distinctTags(null, 0));
+    }
+
+    @Test
+    void testTagsOutgrowingRemovedCandidatesAreAdmitted() {
+        CatalogSketchService.TagCounts counts = new CatalogSketchService.TagCounts(CatalogSketchService.TAG_COUNT_WIDTH);
+        for (int i = 0; i < CatalogSketchService.TAG_CANDIDATES; i++) {
+            counts.add("tag" + i, 10);
+        }
+        // Not admitted, since every candidate counts 10
+        counts.add("late", 1);
+
+        // Half of the candidates are removed, then the late tag outgrows them but not the others
+        for (int i = 0; i < CatalogSketchService.TAG_CANDIDATES / 2; i++) {
+            counts.add("tag" + i, -10);
+        }
+        counts.add("late", 4);
+
+        assertEquals(5, counts.top().get("late"));
+    }
+
+    @Test
+    void testRejectsInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> service.distinctTags(null, -0.1));
+        assertThrows(IllegalArgumentException.class, () -> service.distinctTags(null, 1));
+        assertThrows(IllegalArgumentException.class, () -> service.pricePercentile(null, 101, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> service.topTags(null, 0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> service.topTags(null, CatalogSketchService.MAX_TOP_TAGS + 1, 0.01));
+    }
+
+    private static java.util.Map<String, Integer> toMap(List<TagStat> stats) {
+        return stats.stream().collect(Collectors.toMap(TagStat::getTag, TagStat::getCount));
+    }
+
+    private static Product product(long id, String... tags) {
+        return new Product(id, "Product " + id, null, (double) id, CATEGORIES.get((int) (id % CATEGORIES.size())), true,
+                (id % 10) / 2.0f, new ArrayList<>(List.of(tags)), 5, 0);
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.graphql.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CountMinSketchTest {
+
+    @Test
+    void testEstimatesNeverUndercountAndStayWithinTheErrorBound() {
+        CountMinSketch sketch = new CountMinSketch(1024, 5);
+        long[] counts = new long[5000];
+        Random random = new Random(3);
+        for (int i = 0; i < 200_000; i++) {
+            // Zipf-like: low values are much more frequent
+            int value = (int) Math.min(counts.length - 1, Math.floor(Math.pow(random.nextDouble(), 3) * counts.length));
+            counts[value]++;
+            sketch.add(HyperLogLog.hash(value), 1);
+        }
+
+        assertEquals(200_000, sketch.total());
+        int outside = 0;
+        for (int value = 0; value < counts.length; value++) {
+            long estimate = sketch.estimate(HyperLogLog.hash(value));
+            assertTrue(estimate >= counts[value]);
+            if (estimate - counts[value] > sketch.relativeError() * sketch.total()) {
+                outside++;
+            }
+        }
+        // Each estimate is within the bound with probability 1 - e^-5
+        assertTrue(outside < counts.length * 0.02, outside + " estimates outside the bound");
+    }
+
+    @Test
+    void testDecrementsUndoIncrements() {
+        CountMinSketch sketch = new CountMinSketch(64, 3);
+        for (long value = 0; value < 1000; value++) {
+            sketch.add(HyperLogLog.hash(value), 1);
+        }
+        sketch.add(HyperLogLog.hash(7), 4);
+        for (long value = 0; value < 1000; value++) {
+            sketch.add(HyperLogLog.hash(value), -1);
+        }
+
+        assertEquals(4, sketch.estimate(HyperLogLog.hash(7)));
+        assertEquals(4, sketch.total());
+        assertEquals(0, sketch.estimate(HyperLogLog.hash(8)));
+    }
+
+    @Test
+    void testWidthForRelativeError() {
+        assertEquals(512, CountMinSketch.widthFor(0.01));
+        assertTrue(Math.E / CountMinSketch.widthFor(0.001) <= 0.001);
+        assertThrows(IllegalArgumentException.class, () -> new CountMinSketch(1000, 3));
+        assertThrows(IllegalArgumentException.class, () -> CountMinSketch.widthFor(-1));
+    }
+}
@@ -1,21 +1,30 @@
 package com.example.graphql.service;
 
+import com.example.graphql.dto.AttributeFilter;
+import com.example.graphql.dto.ProductAttribute;
 import com.example.graphql.dto.ProductFilter;
+import com.example.graphql.dto.ProductSearchResult;
+import com.example.graphql.model.AttributeType;
 import com.example.graphql.model.Product;
 import com.example.graphql.repository.ProductRepository;
+import com.example.graphql.repository.ProductSpecification;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
-import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class DynamicQueryServiceTest {
@@ -24,15 +33,17 @@ class DynamicQueryServiceTest {
     private ProductRepository productRepository;
     
     private DynamicQueryService dynamicQueryService;
-    private Method matchesFilterMethod;
     
     @BeforeEach
-    void setUp() throws NoSuchMethodException {
-        dynamicQueryService = new DynamicQueryService(productRepository);
-        
-        // Using reflection to test private method
-        matchesFilterMethod = DynamicQueryService.class.getDeclaredMethod("matchesFilter", Product.class, ProductFilter.class);
-        matchesFilterMethod.setAccessible(true);
+    void setUp() {
+        dynamicQueryService = new DynamicQueryService(productRepository, new ProductSnapshotStore(productRepository));
+    }
+    
+    /**
+     * Whether a product passes a filter, as the snapshot scan behind getFilteredProducts decides it
+     */
+    private boolean matchesFilter(Product product, ProductFilter filter) {
+        return dynamicQueryService.select(ProductSnapshot.of(List.of(product)), filter).get(0);
     }
     
     @Test
@@ -44,14 +55,14 @@ class DynamicQueryServiceTest {
         filter.setNameContains("phone");
         
         // When
-        boolean result = (boolean) matchesFilterMethod.invoke(dynamicQueryService, product, filter);
+        boolean result = matchesFilter(product, filter);
         
         // Then
         assertTrue(result);
         
         // Test with non-matching name
         filter.setNameContains("tablet");
-        result = (boolean) matchesFilterMethod.invoke(dynamicQueryService, product, filter);
+        result = matchesFilter(product, filter);
         assertFalse(result);
     }
     
@@ -65,20 +76,20 @@ class DynamicQueryServiceTest {
         filter.setMaxPrice(600.0);
         
         // When
-        boolean result = (boolean) matchesFilterMethod.invoke(dynamicQueryService, product, filter);
+        boolean result = matchesFilter(product, filter);
         
         // Then
         assertTrue(result);
         
         // Test with price below range
         filter.setMinPrice(500.0);
-        result = (boolean) matchesFilterMethod.invoke(dynamicQueryService, product, filter);
+        result = matchesFilter(product, filter);
         assertFalse(result);
         
         // Test with price above range
         filter.setMinPrice(400.0);
         filter.setMaxPrice(400.0);
-        result = (boolean) matchesFilterMethod.invoke(dynamicQueryService, product, filter);
+        result = matchesFilter(product, filter);
         assertFalse(result);
     }
     
@@ -91,14 +102,14 @@ class DynamicQueryServiceTest {
         filter.setCategories(Arrays.asList("Electronics", "Mobile Phones"));
         
         // When
-        boolean result = (boolean) matchesFilterMethod.invoke(dynamicQueryService, product, filter);
+        boolean result = matchesFilter(product, filter);
         
         // Then
         assertTrue(result);
         
         // Test with non-matching category
         filter.setCategories(Arrays.asList("Books", "Toys"));
-        result = (boolean) matchesFilterMethod.invoke(dynamicQueryService, product, filter);
+        result = matchesFilter(product, filter);
         assertFalse(result);
     }
     
@@ -111,14 +122,14 @@ class DynamicQueryServiceTest {
         filter.setInStock(true);
         
         // When
-        boolean result = (boolean) matchesFilterMethod.invoke(dynamicQueryService, product, filter);
+        boolean result = matchesFilter(product, filter);
         
         // Then
         assertTrue(result);
         
         // Test with non-matching inStock
         filter.setInStock(false);
-        result = (boolean) matchesFilterMethod.invoke(dynamicQueryService, product, filter);
+        result = matchesFilter(product, filter);
         assertFalse(result);
     }
     
@@ -132,14 +143,14 @@ class DynamicQueryServiceTest {
         filter.setMinRating(4.0);
         
         // When
-        boolean result = (boolean) matchesFilterMethod.invoke(dynamicQueryService, product, filter);
+        boolean result = matchesFilter(product, filter);
         
         // Then
         assertTrue(result);
         
         // Test with higher minimum rating
         filter.setMinRating(4.6);
-        result = (boolean) matchesFilterMethod.invoke(dynamicQueryService, product, filter);
+        result = matchesFilter(product, filter);
         assertFalse(result);
     }
     
@@ -153,14 +164,14 @@ class DynamicQueryServiceTest {
         filter.setHasTags(Arrays.asList("bluetooth", "touchscreen"));
         
         // When
-        boolean result = (boolean) matchesFilterMethod.invoke(dynamicQueryService, product, filter);
+        boolean result = matchesFilter(product, filter);
         
         // Then
         assertTrue(result);
         
         // Test with non-matching tags
         filter.setHasTags(Arrays.asList("waterproof", "rugged"));
-        result = (boolean) matchesFilterMethod.invoke(dynamicQueryService, product, filter);
+        result = matchesFilter(product, filter);
         assertFalse(result);
     }
     
@@ -174,14 +185,14 @@ class DynamicQueryServiceTest {
         filter.setMinStockQuantity(5);
         
         // When
-        boolean result = (boolean) matchesFilterMethod.invoke(dynamicQueryService, product, filter);
+        boolean result = matchesFilter(product, filter);
         
         // Then
         assertTrue(result);
         
         // Test with higher minimum stock
         filter.setMinStockQuantity(15);
-        result = (boolean) matchesFilterMethod.invoke(dynamicQueryService, product, filter);
+        result = matchesFilter(product, filter);
         assertFalse(result);
     }
     
@@ -195,14 +206,14 @@ class DynamicQueryServiceTest {
         filter.setMinPopularity(50);
         
         // When
-        boolean result = (boolean) matchesFilterMethod.invoke(dynamicQueryService, product, filter);
+        boolean result = matchesFilter(product, filter);
         
         // Then
         assertTrue(result);
         
         // Test with higher minimum popularity
         filter.setMinPopularity(80);
-        result = (boolean) matchesFilterMethod.invoke(dynamicQueryService, product, filter);
+        result = matchesFilter(product, filter);
         assertFalse(result);
     }
     
@@ -225,17 +236,162 @@ class DynamicQueryServiceTest {
         filter.setMinStockQuantity(5);
         
         // When
-        boolean result = (boolean) matchesFilterMethod.invoke(dynamicQueryService, product, filter);
+        boolean result = matchesFilter(product, filter);
         
         // Then
         assertTrue(result);
         
         // Test with one non-matching criterion
         filter.setMinPrice(600.0);
-        result = (boolean) matchesFilterMethod.invoke(dynamicQueryService, product, filter);
+        result = matchesFilter(product, filter);
         assertFalse(result);
     }
     
+    @Test
+    void testSelectAgreesWithTheSpecification() throws Exception {
+        // Given
+        Product phone = createProduct("Smartphone X", 499.99, "Electronics", true);
+        phone.setRating(4.5f);
+        phone.setStockQuantity(10);
+        phone.setTags(Arrays.asList("wireless", "bluetooth"));
+        Product blender = createProduct("Blender", 80.0, "Kitchen", false);
+        blender.setPopularity(90);
+        Product unnamed = createProduct(null, 15.0, null, true);
+        List<Product> products = Arrays.asList(phone, blender, unnamed);
+        ProductSnapshot snapshot = ProductSnapshot.of(products);
+
+        ProductFilter byName = new ProductFilter();
+        byName.setNameContains("PHONE");
+        ProductFilter byPriceAndStock = new ProductFilter();
+        byPriceAndStock.setMaxPrice(100.0);
+        byPriceAndStock.setInStock(true);
+        ProductFilter byCategoryAndRating = new ProductFilter();
+        byCategoryAndRating.setCategories(Arrays.asList("Kitchen", "Electronics", "Books"));
+        byCategoryAndRating.setMinRating(4.0);
+        ProductFilter byTagsAndPopularity = new ProductFilter();
+        byTagsAndPopularity.setHasTags(Arrays.asList("bluetooth"));
+        byTagsAndPopularity.setMinPopularity(50);
+
+        for (ProductFilter filter : Arrays.asList(byName, byPriceAndStock, byCategoryAndRating, byTagsAndPopularity)) {
+            // When
+            List<Product> selected = snapshot.getProducts(dynamicQueryService.select(snapshot, filter));
+
+            // Then
+            List<Product> expected = new ArrayList<>();
+            for (Product product : products) {
+                if (ProductSpecification.couldMatch(filter, product)) {
+                    expected.add(product);
+                }
+            }
+            assertEquals(expected, selected);
+        }
+        assertEquals(3, dynamicQueryService.select(snapshot, null).cardinality());
+    }
+    
+    @Test
+    void testSearchClauseAgreesBetweenSnapshotAndSpecification() throws Exception {
+        // Given
+        List<Product> products = new ArrayList<>(Arrays.asList(
+                new Product(1L, "Wireless Mouse", "Ergonomic mouse", 25.0, "Electronics", true),
+                new Product(2L, "USB Cable", "Works with any wireless dock", 5.0, "Electronics", true),
+                new Product(3L, "Desk Lamp", "LED lamp", 30.0, "Home", true)));
+        when(productRepository.findAll()).thenReturn(products);
+        ProductSnapshot snapshot = ProductSnapshot.of(products);
+        ProductFilter filter = new ProductFilter();
+        filter.setSearch("wireless");
+        
+        // When
+        List<Product> selected = snapshot.getProducts(dynamicQueryService.select(snapshot, filter));
+        
+        // Then
+        assertEquals(Arrays.asList(products.get(0), products.get(1)), selected);
+        for (Product product : products) {
+            assertEquals(selected.contains(product), ProductSpecification.couldMatch(filter, product));
+        }
+        
+        filter.setSearch("wireless lamp");
+        assertTrue(dynamicQueryService.select(snapshot, filter).isEmpty());
+    }
+    
+    @Test
+    void testAttributeClausesAgreeBetweenSnapshotAndSpecification() throws Exception {
+        // Given
+        Product laptop = createProduct("Laptop", 999.0, "Electronics", true);
+        laptop.setCustomAttributes(Map.of("color", "silver", "ram_gb", "16"));
+        Product tablet = createProduct("Tablet", 499.0, "Electronics", true);
+        tablet.setCustomAttributes(Map.of("color", "black", "ram_gb", "8"));
+        Product cable = createProduct("Cable", 9.99, "Electronics", true);
+        List<Product> products = Arrays.asList(laptop, tablet, cable);
+        ProductSnapshot snapshot = ProductSnapshot.of(products);
+        ProductFilter filter = new ProductFilter();
+        filter.setAttributes(List.of(new AttributeFilter("ram_gb", null, null, 10.0, null)));
+        ProductFilter byColor = new ProductFilter();
+        byColor.setAttributes(List.of(new AttributeFilter("color", null, List.of("black", "silver"), null, null)));
+        byColor.setNameContains("TAB");
+        
+        for (ProductFilter each : Arrays.asList(filter, byColor)) {
+            // When
+            List<Product> selected = snapshot.getProducts(dynamicQueryService.select(snapshot, each));
+            
+            // Then
+            for (Product product : products) {
+                assertEquals(selected.contains(product), ProductSpecification.couldMatch(each, product));
+            }
+        }
+        assertEquals(List.of(laptop), snapshot.getProducts(dynamicQueryService.select(snapshot, filter)));
+        assertEquals(List.of(tablet), snapshot.getProducts(dynamicQueryService.select(snapshot, byColor)));
+    }
+    
+    @Test
+    void testDynamicQueryReturnsRegisteredCustomAttributesWithTheirType() {
+        // Given
+        AttributeTypeRegistry attributeTypes = mock(AttributeTypeRegistry.class);
+        when(attributeTypes.typeOf("ram_gb")).thenReturn(AttributeType.NUMBER);
+        DynamicQueryService typed = new DynamicQueryService(productRepository, new ProductSnapshotStore(productRepository),
+                null, attributeTypes);
+        Product laptop = createProduct("Laptop", 999.0, "Electronics", true);
+        laptop.setId(1L);
+        laptop.setCustomAttributes(Map.of("ram_gb", "16", "secret", "x"));
+        when(productRepository.findAll()).thenReturn(List.of(laptop));
+        
+        // When
+        List<ProductAttribute> attributes = typed.dynamicProductQuery(List.of("name", "ram_gb", "secret"), null)
+                .get(0).getAttributes();
+        
+        // Then
+        assertEquals(List.of("name", "ram_gb", "id"), attributes.stream().map(ProductAttribute::getName).collect(Collectors.toList()));
+        assertEquals("16", attributes.get(1).getValue());
+        assertEquals(AttributeType.NUMBER, attributes.get(1).getType());
+        assertNull(attributes.get(0).getType());
+    }
+    
+    @Test
+    void testSearchProductsRanksHitsPassingTheFilter() {
+        // Given
+        Product mouse = new Product(1L, "Wireless Mouse", "Ergonomic mouse", 25.0, "Electronics", true);
+        Product cable = new Product(2L, "USB Cable", "Works with any wireless dock", 5.0, "Electronics", true);
+        Product keyboard = new Product(3L, "Wireless Keyboard", null, 60.0, "Electronics", true);
+        when(productRepository.findAll()).thenReturn(new ArrayList<>(Arrays.asList(mouse, cable, keyboard)));
+        when(productRepository.findAllById(any())).thenAnswer(invocation -> {
+            List<Product> found = new ArrayList<>();
+            for (Long id : invocation.<Iterable<Long>>getArgument(0)) {
+                found.add(Arrays.asList(mouse, cable, keyboard).get((int) (id - 1)));
+            }
+            return found;
+        });
+        ProductFilter cheap = new ProductFilter();
+        cheap.setMaxPrice(30.0);
+        
+        // When
+        List<ProductSearchResult> results = dynamicQueryService.searchProducts("wireless", cheap, 10);
+        
+        // Then
+        assertEquals(2, results.size());
+        assertSame(mouse, results.get(0).getProduct());
+        assertSame(cable, results.get(1).getProduct());
+        assertTrue(results.get(0).getScore() > results.get(1).getScore());
+    }
+    
     private Product createProduct(String name, double price, String category, boolean inStock) {
         Product product = new Product();
         product.setName(name);
@@ -0,0 +1,65 @@
+package com.example.graphql.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HyperLogLogTest {
+
+    @Test
+    void testSmallSetsAreCountedExactly() {
+        HyperLogLog sketch = new HyperLogLog(14);
+        for (int i = 0; i < 2000; i++) {
+            sketch.add(HyperLogLog.hash(i % 1000));
+        }
+        sketch.add(0);
+
+        assertTrue(sketch.isExact());
+        assertEquals(1001, sketch.estimate());
+        assertEquals(0, new HyperLogLog(14).estimate());
+    }
+
+    @Test
+    void testLargeSetsAreEstimatedWithinTheStandardError() {
+        for (int precision : new int[]{10, 14}) {
+            HyperLogLog sketch = new HyperLogLog(precision);
+            int distinct = 200_000;
+            for (int i = 0; i < distinct; i++) {
+                sketch.add(HyperLogLog.hash("value-" + i));
+                sketch.add(HyperLogLog.hash("value-" + (i / 2)));
+            }
+            assertFalse(sketch.isExact());
+            double error = Math.abs(sketch.estimate() - distinct) / (double) distinct;
+            assertTrue(error < 3 * HyperLogLog.standardError(precision), "precision " + precision + ": " + sketch);
+        }
+    }
+
+    @Test
+    void testMergeEqualsTheSketchOfTheUnion() {
+        HyperLogLog left = new HyperLogLog(12);
+        HyperLogLog right = new HyperLogLog(12);
+        HyperLogLog union = new HyperLogLog(12);
+        for (long i = 0; i < 50_000; i++) {
+            left.add(HyperLogLog.hash(i));
+            union.add(HyperLogLog.hash(i));
+        }
+        for (long i = 25_000; i < 25_100; i++) {
+            right.add(HyperLogLog.hash(i * 7));
+            union.add(HyperLogLog.hash(i * 7));
+        }
+
+        left.merge(right);
+
+        assertEquals(union.estimate(), left.estimate());
+        assertThrows(IllegalArgumentException.class, () -> left.merge(new HyperLogLog(10)));
+    }
+
+    @Test
+    void testPrecisionForRelativeError() {
+        assertEquals(14, HyperLogLog.precisionFor(0.01));
+        assertEquals(HyperLogLog.MIN_PRECISION, HyperLogLog.precisionFor(0.5));
+        assertEquals(HyperLogLog.MAX_PRECISION, HyperLogLog.precisionFor(0.0001));
+        assertThrows(IllegalArgumentException.class, () -> HyperLogLog.precisionFor(0));
+        assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(3));
+    }
+}
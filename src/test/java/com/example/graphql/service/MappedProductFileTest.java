@@ -0,0 +1,117 @@
+package com.example.graphql.service;
+
+import com.example.graphql.model.Product;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedProductFileTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testProductsRoundTrip() throws IOException {
+        Product laptop = new Product(1L, "Laptop", "Portable", 1200.0, "Electronics", true);
+        laptop.setRating(4.5f);
+        laptop.setStockQuantity(7);
+        laptop.setPopularity(90);
+        laptop.setTags(new ArrayList<>(List.of("portable", "computer")));
+        laptop.setRelatedProductIds(new ArrayList<>(List.of(2L, 3L)));
+        laptop.setCustomAttributes(Map.of("color", "silver", "size", "15\""));
+        laptop.setCreatedAt("2024-01-15T10:00:00");
+        Product unnamed = new Product();
+        unnamed.setId(2L);
+
+        MappedProductFile file = MappedProductFile.write(directory.resolve("products.bin"),
+                List.of(laptop, unnamed).iterator());
+
+        assertEquals(2, file.size());
+        assertEquals(1200.0, file.getPrice(0), 0.001);
+        assertEquals(4.5f, file.getRating(0), 0.001);
+        assertTrue(file.isInStock(0));
+        assertEquals("Electronics", file.getCategories()[file.getCategoryId(0)]);
+        assertEquals("laptop", file.getLowerCaseName(0));
+        assertEquals(List.of("portable", "computer"), file.getTags(0));
+        assertEquals(ProductSnapshot.toEpochMicros(LocalDateTime.of(2024, 1, 15, 10, 0)), file.getCreatedAt(0));
+        assertEquals(ProductSnapshot.NO_TIMESTAMP, file.getCreatedAt(1));
+
+        Product decoded = file.getProduct(0);
+        assertEquals(LocalDateTime.of(2024, 1, 15, 10, 0), decoded.getCreatedAtTimestamp());
+        assertEquals("Portable", decoded.getDescription());
+        assertEquals(7, decoded.getStockQuantity());
+        assertEquals(90, decoded.getPopularity());
+        assertEquals(List.of(2L, 3L), decoded.getRelatedProductIds());
+        assertEquals(Map.of("color", "silver", "size", "15\""), decoded.getCustomAttributes());
+        assertEquals("silver", file.getAttribute(0, "color"));
+        assertEquals("15\"", file.getAttribute(0, "size"));
+        assertNull(file.getAttribute(0, "colour"));
+        assertNull(file.getAttribute(1, "color"));
+
+        // Missing values decode as null rather than as defaults
+        Product empty = file.getProduct(1);
+        assertNull(empty.getName());
+        assertNull(empty.getPrice());
+        assertNull(empty.getRating());
+        assertNull(empty.getCategory());
+        assertNull(empty.getCreatedAt());
+        assertNull(empty.getInStock());
+        assertNull(empty.getStockQuantity());
+        assertNull(file.getLowerCaseName(1));
+        assertEquals(ProductSnapshot.NO_CATEGORY, file.getCategoryId(1));
+        assertTrue(empty.getTags().isEmpty());
+    }
+
+    @Test
+    void testFileCanBeReopened() throws IOException {
+        Path path = directory.resolve("products.bin");
+        Product phone = new Product(5L, "Phone", "Smartphone", 600.0, "Electronics", true);
+        phone.setUpdatedAtTimestamp(LocalDateTime.of(2024, 2, 1, 9, 0));
+        Product cable = new Product(3L, "Cable", "USB-C", 10.0, "Electronics", true);
+        cable.setUpdatedAtTimestamp(LocalDateTime.of(2024, 4, 1, 9, 0));
+        MappedProductFile.write(path, List.of(phone, cable).iterator());
+
+        MappedProductFile reopened = MappedProductFile.open(path);
+
+        assertEquals(2, reopened.size());
+        assertEquals(5L, reopened.getId(0));
+        assertEquals("Phone", reopened.getProduct(0).getName());
+        // The header records the highest id and latest update time written
+        assertEquals(5L, reopened.getMaxId());
+        assertEquals(ProductSnapshot.toEpochMicros(LocalDateTime.of(2024, 4, 1, 9, 0)), reopened.getMaxUpdatedAt());
+    }
+
+    @Test
+    void testEmptyCatalog() throws IOException {
+        MappedProductFile file = MappedProductFile.write(directory.resolve("products.bin"),
+                Collections.emptyIterator());
+
+        assertEquals(0, file.size());
+        assertEquals(0, file.getCategories().length);
+        assertEquals(Long.MIN_VALUE, file.getMaxId());
+        assertEquals(ProductSnapshot.NO_TIMESTAMP, file.getMaxUpdatedAt());
+    }
+
+    @Test
+    void testInvalidFilesAreRejected() throws IOException {
+        Path garbage = Files.write(directory.resolve("garbage.bin"), new byte[100]);
+        assertThrows(IOException.class, () -> MappedProductFile.open(garbage));
+
+        Path path = directory.resolve("products.bin");
+        MappedProductFile.write(path, List.of(new Product(1L, "Laptop", "Portable", 1200.0, "Electronics", true)).iterator());
+        byte[] bytes = Files.readAllBytes(path);
+        Path truncated = Files.write(directory.resolve("truncated.bin"), Arrays.copyOf(bytes, bytes.length - 1));
+        assertThrows(IOException.class, () -> MappedProductFile.open(truncated));
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.graphql.service;
+
+import com.example.graphql.dto.AggregateFunction;
+import com.example.graphql.dto.AggregateGroup;
+import com.example.graphql.dto.AggregateMetric;
+import com.example.graphql.dto.AttributeFilter;
+import com.example.graphql.dto.ProductFilter;
+import com.example.graphql.model.Product;
+import com.example.graphql.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Checks that GROUP BY queries pushed down to the database give the same groups as the
+ * hash aggregation over the snapshot, including for products with missing values
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.show-sql=false",
+        "logging.level.org.springframework=INFO",
+        "logging.level.com.example.graphql=INFO"
+})
+class ProductAggregationParityTest {
+
+    private static final List<String> CATEGORIES = Arrays.asList("Electronics", "Kitchen", "Books", null);
+
+    private static final List<AggregateMetric> METRICS = List.of(
+            new AggregateMetric(AggregateFunction.COUNT, null),
+            new AggregateMetric(AggregateFunction.COUNT, "price"),
+            new AggregateMetric(AggregateFunction.SUM, "price"),
+            new AggregateMetric(AggregateFunction.AVG, "rating"),
+            new AggregateMetric(AggregateFunction.MIN, "stockQuantity"),
+            new AggregateMetric(AggregateFunction.MAX, "popularity"),
+            new AggregateMetric(AggregateFunction.AVG, "popularity"));
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private ProductAggregationService service;
+    private ProductSnapshot snapshot;
+    private DynamicQueryService dynamicQueryService;
+
+    @BeforeEach
+    void loadCatalog() {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            Product product = new Product(null, "Product " + i + (i % 3 == 0 ? " deluxe" : ""), null,
+                    i % 11 == 0 ? null : (double) (i % 40) * 2.5, CATEGORIES.get(i % CATEGORIES.size()),
+                    i % 13 == 0 ? null : i % 2 == 0);
+            product.setRating(i % 17 == 0 ? null : (i % 10) / 2.0f);
+            product.setPopularity(i % 19 == 0 ? null : i % 50);
+            if (i % 23 != 0) {
+                product.setStockQuantity(i % 6);
+                product.setInStock(i % 13 == 0 ? null : i % 2 == 0);
+            }
+            product.addCustomAttribute("color", i % 4 == 0 ? "red" : "blue");
+            products.add(product);
+        }
+        productRepository.saveAllAndFlush(products);
+
+        ProductSnapshotStore store = new ProductSnapshotStore(productRepository);
+        dynamicQueryService = new DynamicQueryService(productRepository, store);
+        service = new ProductAggregationService(productRepository, dynamicQueryService, new ProductSearchIndex(store),
+                new CatalogScanCoordinator(store), mock(AttributeTypeRegistry.class));
+        snapshot = store.getSnapshot();
+    }
+
+    @Test
+    void testPushedDownGroupsMatchTheSnapshot() {
+        ProductFilter priced = new ProductFilter();
+        priced.setMinPrice(20.0);
+        priced.setCategories(List.of("Electronics", "Books"));
+        ProductFilter red = new ProductFilter();
+        red.setAttributes(List.of(new AttributeFilter("color", "red", null, null, null)));
+        red.setSearch("deluxe");
+        ProductFilter popular = new ProductFilter();
+        popular.setMinPopularity(20);
+        popular.setMinStockQuantity(2);
+
+        for (ProductFilter filter : Arrays.asList(null, priced, red, popular)) {
+            for (List<String> groupBy : List.of(List.<String>of(), List.of("category"), List.of("inStock", "category"),
+                    List.of("stockQuantity"), List.of("popularity"), List.of("rating"), List.of("price"))) {
+                assertTrue(service.canPushDown(groupBy, METRICS, filter));
+                List<AggregateGroup> pushedDown = service.aggregate(groupBy, METRICS, filter, 1000);
+                List<AggregateGroup> hashed = service.aggregate(snapshot, dynamicQueryService.select(snapshot, filter),
+                        groupBy, METRICS, 1000);
+                assertSameGroups(hashed, pushedDown, groupBy + " with " + filter);
+            }
+        }
+    }
+
+    @Test
+    void testPopularityAndStockClausesArePushedDown() {
+        ProductFilter popular = new ProductFilter();
+        popular.setMinPopularity(20);
+        popular.setMinStockQuantity(2);
+        List<AggregateMetric> count = List.of(new AggregateMetric(AggregateFunction.COUNT, null));
+        List<AggregateMetric> withDistinct = List.of(new AggregateMetric(AggregateFunction.COUNT, null),
+                new AggregateMetric(AggregateFunction.APPROX_DISTINCT, "price"));
+
+        assertTrue(service.canPushDown(List.of("category"), count, popular));
+        assertFalse(service.canPushDown(List.of("category"), withDistinct, popular));
+        List<AggregateGroup> pushedDown = service.aggregate(List.of("category"), count, popular, 1000);
+        List<AggregateGroup> hashed = service.aggregate(List.of("category"), withDistinct, popular, 1000);
+
+        long matching = productRepository.findAll().stream()
+                .filter(product -> product.getPopularity() >= 20 && product.getStockQuantity() >= 2)
+                .count();
+        assertEquals(matching, pushedDown.stream().mapToLong(AggregateGroup::getCount).sum());
+        assertEquals(pushedDown.size(), hashed.size());
+        for (int i = 0; i < pushedDown.size(); i++) {
+            assertEquals(pushedDown.get(i).getKey(), hashed.get(i).getKey());
+            assertEquals(pushedDown.get(i).getCount(), hashed.get(i).getCount());
+        }
+    }
+
+    private static void assertSameGroups(List<AggregateGroup> expected, List<AggregateGroup> actual, String message) {
+        assertEquals(expected.size(), actual.size(), message);
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getKey(), actual.get(i).getKey(), message);
+            assertEquals(expected.get(i).getCount(), actual.get(i).getCount(), message);
+            for (AggregateMetric metric : METRICS) {
+                Double value = expected.get(i).getMetric(metric.getName());
+                Double pushedDown = actual.get(i).getMetric(metric.getName());
+                if (value == null) {
+                    assertNull(pushedDown, message + " " + metric.getName());
+                } else {
+                    assertEquals(value, pushedDown, 1e-6, message + " " + metric.getName() + " of " + expected.get(i).getKey());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.graphql.service;
+
+import com.example.graphql.dto.AggregateFunction;
+import com.example.graphql.dto.AggregateGroup;
+import com.example.graphql.dto.AggregateMetric;
+import com.example.graphql.dto.ProductFilter;
+import com.example.graphql.model.AttributeType;
+import com.example.graphql.model.Product;
+import com.example.graphql.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ProductAggregationServiceTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private AttributeTypeRegistry attributeTypes;
+
+    private final List<Product> catalog = new ArrayList<>();
+    private ProductAggregationService service;
+
+    @BeforeEach
+    void setUp() {
+        catalog.add(product(1L, "Electronics", 100.0, 4.5f, 10, "16", "silver"));
+        catalog.add(product(2L, "Electronics", 300.0, 3.5f, 0, "32", "black"));
+        catalog.add(product(3L, "Electronics", 200.0, null, 5, "16", null));
+        catalog.add(product(4L, "Books", 20.0, 4.0f, 100, null, "black"));
+        catalog.add(product(5L, null, null, 5.0f, null, "8", "silver"));
+        when(productRepository.findAll()).thenReturn(catalog);
+        when(attributeTypes.typeOf(anyString())).thenReturn(null);
+        when(attributeTypes.typeOf("ram_gb")).thenReturn(AttributeType.NUMBER);
+        when(attributeTypes.typeOf("color")).thenReturn(AttributeType.STRING);
+
+        ProductSnapshotStore store = new ProductSnapshotStore(productRepository);
+        service = new ProductAggregationService(productRepository, new DynamicQueryService(productRepository, store),
+                new ProductSearchIndex(store), new CatalogScanCoordinator(store), attributeTypes);
+    }
+
+    @Test
+    void testGroupsByStandardFieldInTheSnapshotWithApproximateMetrics() {
+        List<AggregateGroup> groups = service.aggregate(List.of("category"), List.of(
+                new AggregateMetric(AggregateFunction.AVG, "price"),
+                new AggregateMetric(AggregateFunction.COUNT, "rating"),
+                new AggregateMetric(AggregateFunction.APPROX_DISTINCT, "color"),
+                AggregateMetric.percentile("price", 50)), null, 10);
+
+        // Ties in size are ordered by key, products without a value first
+        assertEquals(List.of(List.of("Electronics"), Arrays.asList((String) null), List.of("Books")), keys(groups));
+        AggregateGroup electronics = groups.get(0);
+        assertEquals(3, electronics.getCount());
+        assertEquals(200.0, electronics.getMetric("avg(price)"));
+        assertEquals(2.0, electronics.getMetric("count(rating)"));
+        assertEquals(2.0, electronics.getMetric("approx_distinct(color)"));
+        assertEquals(200.0, electronics.getMetric("p50(price)"));
+        // A product without a price has no average and no percentile
+        assertNull(groups.get(1).getMetric("avg(price)"));
+        assertNull(groups.get(1).getMetric("p50(price)"));
+        verify(productRepository, never()).groupBy(any(), any(), any());
+    }
+
+    @Test
+    void testGroupsByCustomAttributesAndAggregatesNumberAttributes() {
+        List<AggregateGroup> groups = service.aggregate(List.of("color", "inStock"), List.of(
+                new AggregateMetric(AggregateFunction.SUM, "ram_gb"),
+                new AggregateMetric(AggregateFunction.MAX, "stockQuantity")), null, 10);
+
+        assertEquals(List.of(Arrays.asList(null, "true"), List.of("black", "false"), List.of("black", "true"),
+                List.of("silver", "false"), List.of("silver", "true")), keys(groups));
+        assertEquals(16.0, groups.get(4).getMetric("sum(ram_gb)"));
+        assertEquals(10.0, groups.get(4).getMetric("max(stockQuantity)"));
+        assertNull(groups.get(2).getMetric("sum(ram_gb)"));
+        // A missing stock quantity reads as 0
+        assertEquals(0.0, groups.get(3).getMetric("max(stockQuantity)"));
+    }
+
+    @Test
+    void testPercentilesInterpolateBetweenRanks() {
+        AggregateMetric p25 = AggregateMetric.percentile("price", 25);
+        AggregateMetric p100 = AggregateMetric.percentile("price", 100);
+        p100.setAlias("highest");
+
+        AggregateGroup all = service.aggregate(null, List.of(p25, p100,
+                new AggregateMetric(AggregateFunction.COUNT, null)), null, 1).get(0);
+
+        assertEquals(List.of(), all.getKey());
+        assertEquals(5, all.getCount());
+        assertEquals(5.0, all.getMetric("count"));
+        // Prices 20, 100, 200, 300: rank 0.75 lies between 20 and 100
+        assertEquals(80.0, all.getMetric("p25(price)"), 1e-9);
+        assertEquals(300.0, all.getMetric("highest"));
+    }
+
+    @Test
+    void testOrdersByCountThenKeyAndLimitsGroups() {
+        ProductFilter filter = new ProductFilter();
+        filter.setMinPrice(50.0);
+
+        List<AggregateGroup> groups = service.aggregate(List.of("ram_gb"), List.of(), filter, 1);
+
+        assertEquals(List.of(List.of("16")), keys(groups));
+        assertEquals(2, groups.get(0).getCount());
+        assertTrue(groups.get(0).getMetrics().isEmpty());
+    }
+
+    @Test
+    void testPushesStandardGroupingsDownAndMergesNullGroups() {
+        // stockQuantity NULL and 0 are one group, as in the snapshot
+        when(productRepository.groupBy(any(), eq(List.of("stockQuantity")), eq(List.of("popularity")))).thenReturn(List.of(
+                new Object[]{null, 2L, 1L, 7L, 7, 7},
+                new Object[]{0, 1L, 1L, 3L, 3, 3},
+                new Object[]{5, 4L, 4L, 40L, 4, 16}));
+
+        List<AggregateGroup> groups = service.aggregate(List.of("stockQuantity"), List.of(
+                new AggregateMetric(AggregateFunction.MIN, "popularity"),
+                new AggregateMetric(AggregateFunction.AVG, "popularity")), null, 10);
+
+        assertEquals(List.of(List.of("5"), List.of("0")), keys(groups));
+        assertEquals(3, groups.get(1).getCount());
+        // The missing popularity counts as 0
+        assertEquals(0.0, groups.get(1).getMetric("min(popularity)"));
+        assertEquals(10.0 / 3, groups.get(1).getMetric("avg(popularity)"), 1e-9);
+        assertEquals(10.0, groups.get(0).getMetric("avg(popularity)"));
+    }
+
+    @Test
+    void testChoosesThePushdownOnlyWhenTheDatabaseIsExact() {
+        List<AggregateMetric> sums = List.of(new AggregateMetric(AggregateFunction.SUM, "price"));
+        ProductFilter tags = new ProductFilter();
+        tags.setHasTags(List.of("sale"));
+
+        assertTrue(service.canPushDown(List.of("category", "inStock"), sums, null));
+        assertTrue(service.canPushDown(null, List.of(new AggregateMetric(AggregateFunction.COUNT, null)), new ProductFilter()));
+        assertFalse(service.canPushDown(List.of("category"), sums, tags));
+        assertFalse(service.canPushDown(List.of("color"), sums, null));
+        assertFalse(service.canPushDown(List.of("category"), List.of(new AggregateMetric(AggregateFunction.SUM, "ram_gb")), null));
+        assertFalse(service.canPushDown(List.of("category"), List.of(new AggregateMetric(AggregateFunction.COUNT, "category")), null));
+        assertFalse(service.canPushDown(List.of("category"), List.of(AggregateMetric.percentile("price", 90)), null));
+        assertFalse(service.canPushDown(List.of("category"),
+                List.of(new AggregateMetric(AggregateFunction.APPROX_DISTINCT, "price")), null));
+    }
+
+    @Test
+    void testRejectsInvalidAggregations() {
+        List<AggregateMetric> none = List.of();
+        assertThrows(IllegalArgumentException.class, () -> service.aggregate(List.of("weight"), none, null, 10));
+        assertThrows(IllegalArgumentException.class, () -> service.aggregate(List.of("category", "category"), none, null, 10));
+        assertThrows(IllegalArgumentException.class, () -> service.aggregate(List.of("category"), none, null, 0));
+        assertThrows(IllegalArgumentException.class, () -> service.aggregate(null,
+                List.of(new AggregateMetric(AggregateFunction.AVG, "color")), null, 10));
+        assertThrows(IllegalArgumentException.class, () -> service.aggregate(null,
+                List.of(new AggregateMetric(AggregateFunction.SUM, null)), null, 10));
+        assertThrows(IllegalArgumentException.class, () -> service.aggregate(null,
+                List.of(AggregateMetric.percentile("price", 101)), null, 10));
+        assertThrows(IllegalArgumentException.class, () -> service.aggregate(null,
+                List.of(new AggregateMetric(AggregateFunction.MIN, "price"), new AggregateMetric(AggregateFunction.MIN, "price")),
+                null, 10));
+    }
+
+    private static List<List<String>> keys(List<AggregateGroup> groups) {
+        return groups.stream().map(AggregateGroup::getKey).collect(Collectors.toList());
+    }
+
+    private static Product product(Long id, String category, Double price, Float rating, Integer stock,
+                                   String ramGb, String color) {
+        Product product = new Product(id, "Product " + id, null, price, category, null, rating,
+                new ArrayList<>(), null, id.intValue());
+        product.setStockQuantity(stock);
+        if (ramGb != null) {
+            product.addCustomAttribute("ram_gb", ramGb);
+        }
+        if (color != null) {
+            product.addCustomAttribute("color", color);
+        }
+        return product;
+    }
+}
@@ -0,0 +1,213 @@
+package com.example.graphql.service;
+
+import com.example.graphql.dto.ProductSuggestion;
+import com.example.graphql.model.Product;
+import com.example.graphql.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductAutocompleteIndexTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private final List<Product> catalog = new ArrayList<>();
+    private ProductAutocompleteIndex index;
+
+    @BeforeEach
+    void setUp() {
+        catalog.add(product(1L, "Wireless Headphones", 50, "audio"));
+        catalog.add(product(2L, "Wired Headset", 80, "audio"));
+        catalog.add(product(3L, "Laptop Stand", 20, "desk"));
+        catalog.add(product(4L, "Gaming Laptop", 95, "gaming"));
+        catalog.add(product(5L, "Headlamp", 10, "outdoor"));
+        when(productRepository.findAll()).thenReturn(catalog);
+        index = new ProductAutocompleteIndex(new ProductSnapshotStore(productRepository));
+    }
+
+    @Test
+    void testPrefixesCompleteNameWordsAndTags() {
+        assertEquals(List.of(2L, 1L, 5L), ids(index.suggest("head", 10, 0)));
+        assertEquals(List.of(4L, 3L), ids(index.suggest("LAP", 10, 0)));
+        assertEquals(List.of(2L, 1L), ids(index.suggest("aud", 10, 0)));
+        assertTrue(index.suggest("phones", 10, 0).isEmpty());
+        assertTrue(index.suggest(" - ", 10, 1).isEmpty());
+    }
+
+    @Test
+    void testMostPopularFirstWithinLimit() {
+        List<ProductSuggestion> suggestions = index.suggest("h", 2, 0);
+
+        assertEquals(List.of(2L, 1L), ids(suggestions));
+        assertEquals("Wired Headset", suggestions.get(0).getName());
+        assertEquals(80, suggestions.get(0).getPopularity());
+        assertEquals(0, suggestions.get(0).getEdits());
+        assertTrue(index.suggest("h", 0, 0).isEmpty());
+    }
+
+    @Test
+    void testTyposAreToleratedWithinTheEditBound() {
+        // Substitution, transposition and a missing character
+        assertEquals(List.of(4L, 3L), ids(index.suggest("lep", 10, 1)));
+        assertEquals(List.of(4L, 3L), ids(index.suggest("lapotp", 10, 1)));
+        assertEquals(List.of(4L, 3L), ids(index.suggest("laptp", 10, 1)));
+        assertTrue(index.suggest("lep", 10, 0).isEmpty());
+        // The first character has to be right
+        assertTrue(index.suggest("kaptop", 10, 2).isEmpty());
+
+        // Closer matches rank above more popular ones
+        List<ProductSuggestion> suggestions = index.suggest("headsat", 10, 2);
+        assertEquals(List.of(2L, 5L), ids(suggestions));
+        assertEquals(List.of(1, 2), suggestions.stream().map(ProductSuggestion::getEdits).collect(Collectors.toList()));
+    }
+
+    @Test
+    void testShortWordsAllowFewerEdits() {
+        assertEquals(0, ProductAutocompleteIndex.allowedEdits(2));
+        assertEquals(1, ProductAutocompleteIndex.allowedEdits(5));
+        assertEquals(2, ProductAutocompleteIndex.allowedEdits(6));
+        // "ha" would match every two-letter prefix with one edit
+        assertTrue(index.suggest("ha", 10, 2).isEmpty());
+    }
+
+    @Test
+    void testEarlierWordsMustMatchExactly() {
+        assertEquals(List.of(1L), ids(index.suggest("wireless hea", 10, 1)));
+        assertEquals(List.of(3L), ids(index.suggest("stand lap", 10, 0)));
+        assertTrue(index.suggest("wirless hea", 10, 1).isEmpty());
+    }
+
+    @Test
+    void testChangesAreAppliedIncrementally() {
+        assertEquals(5, index.size());
+
+        index.onProductChange(ProductChangeEvent.updated(catalog.get(4), product(5L, "Headlamp", 99, "outdoor")));
+        index.onProductChange(ProductChangeEvent.deleted(catalog.get(1)));
+        index.onProductChange(ProductChangeEvent.created(product(6L, "Monitor Headrest", 60)));
+        index.onProductChange(ProductChangeEvent.updated(catalog.get(2), product(3L, "Monitor Stand", 20, "desk")));
+
+        assertEquals(List.of(5L, 6L, 1L), ids(index.suggest("head", 10, 0)));
+        assertEquals(List.of(4L), ids(index.suggest("lap", 10, 0)));
+        assertEquals(List.of(6L, 3L), ids(index.suggest("mon", 10, 0)));
+        assertTrue(index.suggest("wired", 10, 0).isEmpty());
+        assertEquals(5, index.size());
+        verify(productRepository, times(1)).findAll();
+    }
+
+    @Test
+    void testCachedTopListsStayExactUnderChurn() {
+        List<String> words = List.of("alpha", "alpine", "alps", "beta", "bet", "better", "gamma", "gam", "game", "games");
+        Random random = new Random(7);
+        Map<Long, Product> live = new HashMap<>();
+        for (long id = 1; id <= 200; id++) {
+            Product product = randomProduct(id, words, random);
+            catalog.add(product);
+            live.put(id, product);
+        }
+        catalog.removeIf(product -> product.getId() <= 5);
+        live.keySet().removeIf(id -> id <= 5);
+        assertEquals(200 - 5, index.size());
+
+        for (int i = 0; i < 400; i++) {
+            long id = 6 + random.nextInt(220);
+            Product old = live.get(id);
+            if (old != null && random.nextInt(4) == 0) {
+                index.onProductChange(ProductChangeEvent.deleted(old));
+                live.remove(id);
+            } else {
+                Product changed = randomProduct(id, words, random);
+                index.onProductChange(old != null ? ProductChangeEvent.updated(old, changed) : ProductChangeEvent.created(changed));
+                live.put(id, changed);
+            }
+        }
+
+        for (String query : List.of("a", "al", "alp", "be", "bett", "ga", "gam", "game", "gamer", "alpah", "bata", "gmaes", "z")) {
+            for (int maxEdits = 0; maxEdits <= 2; maxEdits++) {
+                int edits = Math.min(maxEdits, ProductAutocompleteIndex.allowedEdits(query.length()));
+                assertEquals(expected(live.values(), query, edits, 10), ids(index.suggest(query, 10, maxEdits)),
+                        query + " with " + maxEdits + " edits");
+            }
+        }
+    }
+
+    /**
+     * Brute force: the closest prefix of any word of each product starting with the same
+     * character, then popularity
+     */
+    private static List<Long> expected(Iterable<Product> products, String query, int maxEdits, int limit) {
+        Map<Product, Integer> distances = new HashMap<>();
+        for (Product product : products) {
+            List<String> keys = new ArrayList<>(SearchText.tokenize(product.getName()));
+            product.getTags().forEach(tag -> keys.addAll(SearchText.tokenize(tag)));
+            int best = Integer.MAX_VALUE;
+            for (String key : keys) {
+                if (key.charAt(0) != query.charAt(0)) {
+                    continue;
+                }
+                for (int end = 1; end <= key.length(); end++) {
+                    best = Math.min(best, distance(query, key.substring(0, end)));
+                }
+            }
+            if (best <= maxEdits) {
+                distances.put(product, best);
+            }
+        }
+        return distances.entrySet().stream()
+                .sorted(Comparator.comparing((Map.Entry<Product, Integer> entry) -> entry.getValue())
+                        .thenComparing(entry -> -entry.getKey().getPopularity())
+                        .thenComparing(entry -> entry.getKey().getId()))
+                .limit(limit)
+                .map(entry -> entry.getKey().getId())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Edit distance counting adjacent transpositions as one edit
+     */
+    private static int distance(String a, String b) {
+        int[][] d = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) {
+            for (int j = 0; j <= b.length(); j++) {
+                if (i == 0 || j == 0) {
+                    d[i][j] = i + j;
+                    continue;
+                }
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                d[i][j] = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1), d[i - 1][j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    d[i][j] = Math.min(d[i][j], d[i - 2][j - 2] + 1);
+                }
+            }
+        }
+        return d[a.length()][b.length()];
+    }
+
+    private static Product randomProduct(long id, List<String> words, Random random) {
+        String name = words.get(random.nextInt(words.size())) + " " + words.get(random.nextInt(words.size()));
+        return product(id, name, random.nextInt(50), words.get(random.nextInt(words.size())));
+    }
+
+    private static Product product(Long id, String name, int popularity, String... tags) {
+        return new Product(id, name, null, 10.0, "Electronics", true, 4.0f,
+                new ArrayList<>(List.of(tags)), 10, popularity);
+    }
+
+    private static List<Long> ids(List<ProductSuggestion> suggestions) {
+        return suggestions.stream().map(ProductSuggestion::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.graphql.service;
+
+import com.example.graphql.model.Product;
+import com.example.graphql.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductByIdCacheTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private ProductByIdCache cache;
+    private Product laptop;
+
+    @BeforeEach
+    void setUp() {
+        cache = new ProductByIdCache(productRepository, 100, Duration.ofMinutes(5));
+        laptop = new Product(1L, "Laptop", "Portable", 1200.0, "Electronics", true);
+    }
+
+    @Test
+    void testRepeatedLookupsHitTheCache() {
+        when(productRepository.findById(1L)).thenReturn(Optional.of(laptop));
+
+        assertSame(laptop, cache.get(1L).orElseThrow());
+        assertSame(laptop, cache.get(1L).orElseThrow());
+
+        verify(productRepository, times(1)).findById(1L);
+        assertEquals(1, cache.getStats().hitCount());
+        assertEquals(1, cache.getStats().missCount());
+    }
+
+    @Test
+    void testUnknownIdsAreNotCached() {
+        when(productRepository.findById(42L)).thenReturn(Optional.empty());
+
+        assertTrue(cache.get(42L).isEmpty());
+        assertTrue(cache.get(42L).isEmpty());
+
+        verify(productRepository, times(2)).findById(42L);
+    }
+
+    @Test
+    void testConcurrentMissesShareOneLoad() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(productRepository.findById(1L)).thenAnswer(invocation -> {
+            loading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.of(laptop);
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Optional<Product>>> results = new ArrayList<>();
+            results.add(executor.submit(() -> cache.get(1L)));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < 7; i++) {
+                results.add(executor.submit(() -> cache.get(1L)));
+            }
+            release.countDown();
+
+            for (Future<Optional<Product>> result : results) {
+                assertSame(laptop, result.get(5, TimeUnit.SECONDS).orElseThrow());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        verify(productRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    void testUpdateAndDeleteEvictTheProduct() {
+        Product renamed = new Product(1L, "Laptop Pro", "Portable", 1300.0, "Electronics", true);
+        when(productRepository.findById(1L)).thenReturn(Optional.of(laptop)).thenReturn(Optional.of(renamed));
+
+        cache.get(1L);
+        cache.onProductChange(ProductChangeEvent.updated(laptop, renamed));
+        assertSame(renamed, cache.get(1L).orElseThrow());
+
+        cache.onProductChange(ProductChangeEvent.deleted(renamed));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testZeroSizeDisablesCaching() {
+        ProductByIdCache disabled = new ProductByIdCache(productRepository, 0, Duration.ofMinutes(5));
+        when(productRepository.findById(1L)).thenReturn(Optional.of(laptop));
+
+        disabled.get(1L);
+        disabled.get(1L);
+
+        verify(productRepository, times(2)).findById(1L);
+    }
+}
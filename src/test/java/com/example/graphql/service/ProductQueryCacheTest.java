@@ -0,0 +1,239 @@
+package com.example.graphql.service;
+
+import com.example.graphql.dto.PageInfo;
+import com.example.graphql.dto.PageInput;
+import com.example.graphql.dto.AttributeFilter;
+import com.example.graphql.dto.ProductFilter;
+import com.example.graphql.dto.ProductPage;
+import com.example.graphql.dto.ProductSort;
+import com.example.graphql.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductQueryCacheTest {
+
+    private ProductQueryCache cache;
+    private AtomicInteger loads;
+    private Product laptop;
+    private Product blender;
+
+    @BeforeEach
+    void setUp() {
+        cache = new ProductQueryCache(1000, Duration.ofMinutes(10));
+        loads = new AtomicInteger();
+        laptop = new Product(1L, "Laptop", "Portable", 1200.0, "Electronics", true);
+        blender = new Product(2L, "Blender", "Kitchen blender", 80.0, "Kitchen", true);
+    }
+
+    private Supplier<ProductPage> loader(Product... products) {
+        return () -> {
+            loads.incrementAndGet();
+            List<Product> content = Arrays.asList(products);
+            return new ProductPage(content, new PageInfo(content.size(), 1, 0, 10));
+        };
+    }
+
+    private ProductFilter categories(String... categories) {
+        ProductFilter filter = new ProductFilter();
+        filter.setCategories(Arrays.asList(categories));
+        return filter;
+    }
+
+    @Test
+    void testRepeatedQueryIsServedFromCache() {
+        ProductPage first = cache.get(categories("Electronics"), null, null, loader(laptop));
+        ProductPage second = cache.get(categories("Electronics"), null, null, loader(laptop));
+
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getStats().hitCount());
+        assertEquals(0.5, cache.getStats().hitRate(), 0.001);
+    }
+
+    @Test
+    void testEquivalentQueriesShareOneEntry() {
+        ProductFilter first = categories("Kitchen", "Electronics");
+        first.setNameContains("LAP");
+        ProductFilter second = categories("Electronics", "Kitchen", "Electronics");
+        second.setNameContains("lap");
+        second.setHasTags(List.of());
+        PageInput defaultPage = new PageInput();
+
+        cache.get(first, null, null, loader(laptop));
+        cache.get(second, new ProductSort(), defaultPage, loader(laptop));
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void testDifferentPagesAndSortsAreCachedSeparately() {
+        PageInput secondPage = new PageInput();
+        secondPage.setPage(1);
+        ProductSort byPrice = new ProductSort();
+        byPrice.setField(ProductSort.ProductSortField.PRICE);
+
+        cache.get(null, null, null, loader(laptop));
+        cache.get(null, null, secondPage, loader(blender));
+        cache.get(null, byPrice, null, loader(blender));
+
+        assertEquals(3, loads.get());
+        assertEquals(3, cache.size());
+    }
+
+    @Test
+    void testPopularityFloorsAreCachedSeparately() {
+        ProductFilter popular = categories("Electronics");
+        popular.setMinPopularity(50);
+        ProductFilter anyPopularity = categories("Electronics");
+
+        cache.get(popular, null, null, loader());
+        cache.get(anyPopularity, null, null, loader(laptop));
+
+        assertEquals(2, loads.get());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void testUpdateEvictsOnlyMatchingFilters() {
+        cache.get(categories("Electronics"), null, null, loader(laptop));
+        cache.get(categories("Kitchen"), null, null, loader(blender));
+
+        Product cheaperBlender = new Product(2L, "Blender", "Kitchen blender", 70.0, "Kitchen", true);
+        cache.onProductChange(ProductChangeEvent.updated(blender, cheaperBlender));
+
+        cache.get(categories("Electronics"), null, null, loader(laptop));
+        cache.get(categories("Kitchen"), null, null, loader(blender));
+        assertEquals(3, loads.get(), "only the Kitchen page should be reloaded");
+    }
+
+    @Test
+    void testSearchPagesAreSharedAndEvictedByTerms() {
+        ProductFilter portable = new ProductFilter();
+        portable.setSearch("portable laptop");
+        ProductFilter reordered = new ProductFilter();
+        reordered.setSearch("Laptop, PORTABLE");
+        ProductFilter kitchen = new ProductFilter();
+        kitchen.setSearch("kitchen");
+
+        cache.get(portable, null, null, loader(laptop));
+        cache.get(reordered, null, null, loader(laptop));
+        cache.get(kitchen, null, null, loader(blender));
+        assertEquals(2, loads.get());
+
+        Product renamedBlender = new Product(2L, "Blender Pro", "Kitchen blender", 80.0, "Kitchen", true);
+        cache.onProductChange(ProductChangeEvent.updated(blender, renamedBlender));
+
+        assertEquals(1, cache.size(), "only the kitchen search should be evicted");
+    }
+
+    @Test
+    void testAttributeFiltersAreSharedAndEvictedByValue() {
+        ProductFilter silver = new ProductFilter();
+        silver.setAttributes(List.of(new AttributeFilter("color", null, List.of("silver", "gold"), null, null)));
+        ProductFilter reordered = new ProductFilter();
+        reordered.setAttributes(List.of(new AttributeFilter("color", null, List.of("gold", "silver"), null, null)));
+        ProductFilter heavy = new ProductFilter();
+        heavy.setAttributes(List.of(new AttributeFilter("weight", null, null, 10.0, null)));
+
+        cache.get(silver, null, null, loader());
+        cache.get(reordered, null, null, loader());
+        cache.get(heavy, null, null, loader());
+        assertEquals(2, loads.get());
+
+        Product paintedBlender = new Product(2L, "Blender", "Kitchen blender", 80.0, "Kitchen", true);
+        paintedBlender.setCustomAttributes(Map.of("color", "silver"));
+        cache.onProductChange(ProductChangeEvent.updated(blender, paintedBlender));
+
+        assertEquals(1, cache.size(), "only the silver page should be evicted");
+    }
+
+    @Test
+    void testProductMovingIntoFilterEvictsIt() {
+        cache.get(categories("Electronics"), null, null, loader(laptop));
+
+        Product recategorized = new Product(2L, "Blender", "Kitchen blender", 80.0, "Electronics", true);
+        cache.onProductChange(ProductChangeEvent.updated(blender, recategorized));
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testCreateAndDeleteEvictUnfilteredPages() {
+        cache.get(null, null, null, loader(laptop, blender));
+        cache.onProductChange(ProductChangeEvent.created(new Product(3L, "Phone", "Smart", 600.0, "Electronics", true)));
+        assertEquals(0, cache.size());
+
+        cache.get(null, null, null, loader(laptop, blender));
+        cache.onProductChange(ProductChangeEvent.deleted(blender));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testLoadRacingWithInvalidationIsNotCached() {
+        cache.get(null, null, null, () -> {
+            // A mutation commits while the page is being loaded
+            cache.onProductChange(ProductChangeEvent.created(laptop));
+            return loader(laptop).get();
+        });
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testInvalidationBetweenLoadAndPutIsNotLost() throws Exception {
+        CountDownLatch storing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Product> content = List.of(laptop);
+        // The cache weighs the page as it stores it, so the load is held right before the put
+        ProductPage page = new ProductPage(content, new PageInfo(1, 1, 0, 10)) {
+            @Override
+            public List<Product> getContent() {
+                storing.countDown();
+                await(release);
+                return content;
+            }
+        };
+        Thread load = new Thread(() -> cache.get(null, null, null, () -> page));
+        load.start();
+        assertTrue(storing.await(5, TimeUnit.SECONDS));
+
+        // A mutation commits while the loaded page is being stored
+        Thread invalidation = new Thread(() -> cache.onProductChange(ProductChangeEvent.created(laptop)));
+        invalidation.start();
+        invalidation.join(200);
+        release.countDown();
+        load.join(5000);
+        invalidation.join(5000);
+
+        assertEquals(0, cache.size());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    void testZeroWeightDisablesCaching() {
+        ProductQueryCache disabled = new ProductQueryCache(0, Duration.ofMinutes(10));
+
+        disabled.get(null, null, null, loader(laptop));
+        disabled.get(null, null, null, loader(laptop));
+
+        assertEquals(2, loads.get());
+    }
+}
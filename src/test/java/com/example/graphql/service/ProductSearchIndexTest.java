@@ -0,0 +1,113 @@
+package com.example.graphql.service;
+
+import com.example.graphql.model.Product;
+import com.example.graphql.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductSearchIndexTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private ProductSnapshotStore snapshotStore;
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        List<Product> products = new ArrayList<>(List.of(
+                new Product(1L, "Wireless Headphones", "Noise cancelling over-ear headphones", 199.0, "Electronics", true),
+                new Product(2L, "Bluetooth Speaker", "Portable speaker, pairs with wireless headphones", 89.0, "Electronics", true),
+                new Product(3L, "Laptop Stand", "Aluminium stand for any laptop", 45.0, "Accessories", true),
+                new Product(4L, "Gaming Laptop", "Fast laptop with a wireless mouse", 1500.0, "Electronics", true)));
+        when(productRepository.findAll()).thenReturn(products);
+        snapshotStore = new ProductSnapshotStore(productRepository);
+        index = new ProductSearchIndex(snapshotStore);
+    }
+
+    @Test
+    void testEveryTermMustMatch() {
+        assertArrayEquals(new long[]{1, 2, 4}, index.findMatches("wireless"));
+        assertArrayEquals(new long[]{1, 2}, index.findMatches("Wireless HEADPHONES"));
+        assertArrayEquals(new long[0], index.findMatches("wireless keyboard"));
+        // A query without terms is not a clause
+        assertNull(index.findMatches(" , "));
+    }
+
+    @Test
+    void testTermsMatchAsWordPrefixes() {
+        assertArrayEquals(new long[]{3, 4}, index.findMatches("lap"));
+        assertArrayEquals(new long[]{1, 2}, index.findMatches("head"));
+        // Prefixes of words only, not arbitrary substrings
+        assertArrayEquals(new long[0], index.findMatches("phones"));
+    }
+
+    @Test
+    void testNameMatchesRankAboveDescriptionMatches() {
+        List<Long> ranked = ids(index.search("headphones", 10, id -> true));
+
+        assertEquals(List.of(1L, 2L), ranked);
+    }
+
+    @Test
+    void testExactMatchesRankAbovePrefixMatches() {
+        assertEquals(4, index.size());
+        index.onProductChange(ProductChangeEvent.created(new Product(5L, "Laptops Bundle", null, 2000.0, "Electronics", true)));
+
+        List<ProductSearchIndex.Hit> hits = index.search("laptop", 10, id -> true);
+
+        assertEquals(5L, hits.get(hits.size() - 1).getProductId());
+        for (int i = 1; i < hits.size(); i++) {
+            assertTrue(hits.get(i - 1).getScore() >= hits.get(i).getScore());
+        }
+    }
+
+    @Test
+    void testSearchAppliesLimitAndAcceptedIds() {
+        assertEquals(2, index.search("wireless", 2, id -> true).size());
+        assertEquals(List.of(4L), ids(index.search("wireless", 10, id -> id > 2)));
+        assertTrue(index.search("wireless", 0, id -> true).isEmpty());
+    }
+
+    @Test
+    void testChangesAreAppliedIncrementally() {
+        assertEquals(4, index.size());
+
+        Product renamed = new Product(3L, "Monitor Stand", "Steel stand", 45.0, "Accessories", true);
+        index.onProductChange(ProductChangeEvent.updated(
+                new Product(3L, "Laptop Stand", "Aluminium stand for any laptop", 45.0, "Accessories", true), renamed));
+        index.onProductChange(ProductChangeEvent.deleted(new Product(1L, "Wireless Headphones", null, 199.0, "Electronics", true)));
+        index.onProductChange(ProductChangeEvent.created(new Product(6L, "Wireless Charger", null, 30.0, "Electronics", true)));
+
+        assertArrayEquals(new long[]{4}, index.findMatches("laptop"));
+        assertArrayEquals(new long[]{3}, index.findMatches("monitor"));
+        assertArrayEquals(new long[]{2, 4, 6}, index.findMatches("wireless"));
+        assertArrayEquals(new long[0], index.findMatches("aluminium"));
+        assertEquals(4, index.size());
+        // Built once from the snapshot, then kept current from events
+        verify(productRepository, times(1)).findAll();
+    }
+
+    @Test
+    void testChangesBeforeTheFirstSearchComeFromTheSnapshot() {
+        // The catalog loaded for the build already reflects committed changes
+        index.onProductChange(ProductChangeEvent.created(new Product(7L, "Ignored", null, 1.0, "Electronics", true)));
+
+        assertArrayEquals(new long[0], index.findMatches("ignored"));
+    }
+
+    private static List<Long> ids(List<ProductSearchIndex.Hit> hits) {
+        return hits.stream().map(ProductSearchIndex.Hit::getProductId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.graphql.service;
+
+import com.example.graphql.config.WebSocketSubscriptionConfig;
+import com.example.graphql.dto.PageInfo;
+import com.example.graphql.dto.ProductFilter;
+import com.example.graphql.dto.ProductPage;
+import com.example.graphql.model.Product;
+import com.example.graphql.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductServiceTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private WebSocketSubscriptionConfig.ProductSubscriptionPublisher publisher;
+
+    private ProductQueryCache queryCache;
+    private ProductService productService;
+    private Product laptop;
+
+    @BeforeEach
+    void setUp() {
+        queryCache = new ProductQueryCache(1000, Duration.ofMinutes(10));
+        // Change events go straight to the query cache, as they do after commit in the application
+        ProductSubscriptionService subscriptionService = new ProductSubscriptionService(publisher,
+                event -> queryCache.onProductChange((ProductChangeEvent) event));
+        productService = new ProductService(productRepository, subscriptionService, queryCache,
+                mock(ProductByIdCache.class), mock(ProductSearchIndex.class), mock(AttributeTypeRegistry.class));
+
+        laptop = new Product(1L, "Laptop", "Portable", 1200.0, "Electronics", true);
+        laptop.setStockQuantity(20);
+        laptop.setPopularity(80);
+        laptop.setCreatedAtTimestamp(LocalDateTime.of(2024, 3, 1, 12, 0));
+        laptop.setUpdatedAtTimestamp(LocalDateTime.of(2024, 3, 1, 12, 0));
+    }
+
+    @Test
+    void testUpdateOutOfADateBoundedPageEvictsIt() {
+        ProductFilter recentElectronics = new ProductFilter();
+        recentElectronics.setCategories(Arrays.asList("Electronics"));
+        recentElectronics.setCreatedAfter("2024-01-01");
+        cachePage(recentElectronics, laptop);
+
+        when(productRepository.findById(1L)).thenReturn(Optional.of(laptop));
+        when(productRepository.save(any(Product.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        Product details = new Product(1L, "Laptop", "Portable", 1200.0, "Kitchen", true);
+        productService.updateProduct(1L, details);
+
+        // The product no longer matches, but it did before the update, so the page is evicted
+        assertEquals(0, queryCache.size());
+    }
+
+    private void cachePage(ProductFilter filter, Product... products) {
+        List<Product> content = List.of(products);
+        queryCache.get(filter, null, null, () -> new ProductPage(content, new PageInfo(content.size(), 1, 0, 10)));
+        assertEquals(1, queryCache.size());
+    }
+}
@@ -0,0 +1,248 @@
+package com.example.graphql.service;
+
+import com.example.graphql.model.Product;
+import com.example.graphql.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductSnapshotStoreTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private ProductSnapshotStore store;
+    private Product laptop;
+    private Product blender;
+
+    @BeforeEach
+    void setUp() {
+        store = new ProductSnapshotStore(productRepository);
+        laptop = new Product(1L, "Laptop", "Portable", 1200.0, "Electronics", true);
+        blender = new Product(2L, "Blender", "Kitchen blender", 80.0, "Kitchen", false);
+        laptop.setUpdatedAtTimestamp(LocalDateTime.of(2024, 3, 1, 12, 0));
+        blender.setUpdatedAtTimestamp(LocalDateTime.of(2024, 3, 2, 9, 30));
+    }
+
+    @Test
+    void testSnapshotIsReusedUntilProductsChange() {
+        when(productRepository.findAll()).thenReturn(new ArrayList<>(Arrays.asList(laptop, blender)));
+
+        ProductSnapshot first = store.getSnapshot();
+
+        assertSame(first, store.getSnapshot());
+        assertEquals(2, first.size());
+        verify(productRepository, times(1)).findAll();
+    }
+
+    @Test
+    void testChangesAreAppliedWithoutReloading() {
+        when(productRepository.findAll()).thenReturn(new ArrayList<>(Arrays.asList(laptop, blender)));
+        ProductSnapshot original = store.getSnapshot();
+
+        Product cheaperLaptop = new Product(1L, "Laptop", "Portable", 999.0, "Electronics", true);
+        Product phone = new Product(3L, "Phone", "Smartphone", 600.0, "Electronics", true);
+        store.onProductChange(ProductChangeEvent.updated(laptop, cheaperLaptop));
+        store.onProductChange(ProductChangeEvent.deleted(blender));
+        store.onProductChange(ProductChangeEvent.created(phone));
+        ProductSnapshot updated = store.getSnapshot();
+
+        assertNotSame(original, updated);
+        assertEquals(List.of(cheaperLaptop, phone), updated.getProducts());
+        assertEquals(999.0, updated.getPrice(0), 0.001);
+        assertEquals(ProductSnapshot.NO_CATEGORY, updated.findCategoryId("Kitchen"));
+        // The original snapshot is immutable, so readers holding it are unaffected
+        assertEquals(2, original.size());
+        verify(productRepository, times(1)).findAll();
+    }
+
+    @Test
+    void testChangesBeforeFirstLoadAreIgnored() {
+        store.onProductChange(ProductChangeEvent.created(laptop));
+        when(productRepository.findAll()).thenReturn(new ArrayList<>(Arrays.asList(laptop, blender)));
+
+        assertEquals(List.of(laptop, blender), store.getSnapshot().getProducts());
+    }
+
+    @Test
+    void testOffHeapCatalogIsReusedAfterRestart(@TempDir Path directory) {
+        Path path = directory.resolve("products.bin");
+        when(productRepository.findByIdGreaterThanOrderByIdAsc(eq(Long.MIN_VALUE), any(Pageable.class)))
+                .thenReturn(List.of(laptop, blender));
+
+        ProductSnapshot written = new ProductSnapshotStore(productRepository, path, null).getSnapshot();
+
+        assertTrue(written.isOffHeap());
+        assertTrue(Files.exists(path));
+        assertEquals(2, written.size());
+        assertEquals("Blender", written.getProduct(1).getName());
+
+        // A new store over the same file maps it instead of reading the products again
+        stubCatalogStamp(2L, 2L, blender.getUpdatedAtTimestamp());
+        ProductSnapshot restarted = new ProductSnapshotStore(productRepository, path, null).getSnapshot();
+
+        assertTrue(restarted.isOffHeap());
+        assertEquals(1200.0, restarted.getPrice(0), 0.001);
+        assertEquals(List.of(1L, 2L), restarted.getProducts().stream().map(Product::getId).toList());
+        verify(productRepository, times(1)).findByIdGreaterThanOrderByIdAsc(anyLong(), any(Pageable.class));
+        verify(productRepository, never()).findAll();
+    }
+
+    @Test
+    void testStaleOffHeapCatalogIsRebuilt(@TempDir Path directory) {
+        Path path = directory.resolve("products.bin");
+        when(productRepository.findByIdGreaterThanOrderByIdAsc(eq(Long.MIN_VALUE), any(Pageable.class)))
+                .thenReturn(List.of(laptop));
+        new ProductSnapshotStore(productRepository, path, null).getSnapshot();
+
+        stubCatalogStamp(2L, 2L, blender.getUpdatedAtTimestamp());
+        when(productRepository.findByIdGreaterThanOrderByIdAsc(eq(Long.MIN_VALUE), any(Pageable.class)))
+                .thenReturn(List.of(laptop, blender));
+        ProductSnapshot rebuilt = new ProductSnapshotStore(productRepository, path, null).getSnapshot();
+
+        assertEquals(2, rebuilt.size());
+    }
+
+    @Test
+    void testOffHeapCatalogWithEditedProductsIsRebuilt(@TempDir Path directory) {
+        Path path = directory.resolve("products.bin");
+        when(productRepository.findByIdGreaterThanOrderByIdAsc(eq(Long.MIN_VALUE), any(Pageable.class)))
+                .thenReturn(List.of(laptop, blender));
+        new ProductSnapshotStore(productRepository, path, null).getSnapshot();
+
+        // Same number of products, but the laptop was repriced after the file was written
+        Product cheaperLaptop = new Product(1L, "Laptop", "Portable", 999.0, "Electronics", true);
+        cheaperLaptop.setUpdatedAtTimestamp(LocalDateTime.of(2024, 3, 5, 8, 0));
+        stubCatalogStamp(2L, 2L, cheaperLaptop.getUpdatedAtTimestamp());
+        when(productRepository.findByIdGreaterThanOrderByIdAsc(eq(Long.MIN_VALUE), any(Pageable.class)))
+                .thenReturn(List.of(cheaperLaptop, blender));
+        ProductSnapshot rebuilt = new ProductSnapshotStore(productRepository, path, null).getSnapshot();
+
+        assertEquals(999.0, rebuilt.getPrice(0), 0.001);
+    }
+
+    @Test
+    void testOffHeapCatalogWithReplacedProductsIsRebuilt(@TempDir Path directory) {
+        Path path = directory.resolve("products.bin");
+        when(productRepository.findByIdGreaterThanOrderByIdAsc(eq(Long.MIN_VALUE), any(Pageable.class)))
+                .thenReturn(List.of(laptop, blender));
+        new ProductSnapshotStore(productRepository, path, null).getSnapshot();
+
+        // The blender was deleted and a phone created, leaving the count unchanged
+        Product phone = new Product(3L, "Phone", "Smartphone", 600.0, "Electronics", true);
+        stubCatalogStamp(2L, 3L, blender.getUpdatedAtTimestamp());
+        when(productRepository.findByIdGreaterThanOrderByIdAsc(eq(Long.MIN_VALUE), any(Pageable.class)))
+                .thenReturn(List.of(laptop, phone));
+        ProductSnapshot rebuilt = new ProductSnapshotStore(productRepository, path, null).getSnapshot();
+
+        assertEquals(List.of(1L, 3L), rebuilt.getProducts().stream().map(Product::getId).toList());
+    }
+
+    @Test
+    void testChangesAreAppliedToOffHeapCatalog(@TempDir Path directory) throws IOException {
+        Path path = directory.resolve("products.bin");
+        when(productRepository.findByIdGreaterThanOrderByIdAsc(eq(Long.MIN_VALUE), any(Pageable.class)))
+                .thenReturn(List.of(laptop, blender));
+        store = new ProductSnapshotStore(productRepository, path, null);
+        ProductSnapshot original = store.getSnapshot();
+
+        Product cheaperLaptop = new Product(1L, "Laptop", "Portable", 999.0, "Electronics", true);
+        Product phone = new Product(3L, "Phone", "Smartphone", 600.0, "Electronics", true);
+        store.onProductChange(ProductChangeEvent.updated(laptop, cheaperLaptop));
+        store.onProductChange(ProductChangeEvent.deleted(blender));
+        store.onProductChange(ProductChangeEvent.created(phone));
+        ProductSnapshot updated = store.getSnapshot();
+
+        assertTrue(updated.isOffHeap());
+        assertEquals(List.of(1L, 3L), updated.getProducts().stream().map(Product::getId).toList());
+        assertEquals(999.0, updated.getPrice(0), 0.001);
+        assertEquals("phone", updated.getLowerCaseName(1));
+        assertEquals(ProductSnapshot.NO_CATEGORY, updated.findCategoryId("Kitchen"));
+        assertEquals(1, updated.getCategoryCount());
+        // The changes are patched over the file on heap, leaving the file as it was:
+        // two products on heap and two rows of the file no longer read
+        assertEquals(4, updated.getPatchedRowCount());
+        assertEquals(1200.0, MappedProductFile.open(path).getPrice(0), 0.001);
+        assertEquals("Blender", original.getProduct(1).getName());
+
+        store.compact();
+        ProductSnapshot compacted = store.getSnapshot();
+
+        assertEquals(0, compacted.getPatchedRowCount());
+        assertEquals(List.of(1L, 3L), compacted.getProducts().stream().map(Product::getId).toList());
+        // The replaced file stays mapped for readers holding the patched snapshot
+        assertEquals("Blender", original.getProduct(1).getName());
+        assertEquals(999.0, updated.getPrice(0), 0.001);
+        // The rewritten file is what a restart maps
+        MappedProductFile rewritten = MappedProductFile.open(path);
+        assertEquals(2, rewritten.size());
+        assertEquals(999.0, rewritten.getPrice(0), 0.001);
+    }
+
+    @Test
+    void testPatchesStackOverOffHeapCatalog(@TempDir Path directory) {
+        when(productRepository.findByIdGreaterThanOrderByIdAsc(eq(Long.MIN_VALUE), any(Pageable.class)))
+                .thenReturn(List.of(laptop, blender));
+        store = new ProductSnapshotStore(productRepository, directory.resolve("products.bin"), null);
+        store.getSnapshot();
+
+        Product phone = new Product(3L, "Phone", "Smartphone", 600.0, "Phones", true);
+        store.onProductChange(ProductChangeEvent.created(phone));
+        store.getSnapshot();
+        Product cheaperBlender = new Product(2L, "Blender", "Kitchen blender", 60.0, "Kitchen", false);
+        store.onProductChange(ProductChangeEvent.updated(blender, cheaperBlender));
+        ProductSnapshot patched = store.getSnapshot();
+
+        // The phone patched by the first batch is carried over by the second
+        assertEquals(List.of(1L, 2L, 3L), patched.getProducts().stream().map(Product::getId).toList());
+        assertEquals(60.0, patched.getPrice(1), 0.001);
+        assertEquals("Phones", patched.getCategory(patched.getCategoryId(2)));
+        assertEquals("Kitchen", patched.getCategory(patched.getCategoryId(1)));
+        assertEquals(3, patched.getPatchedRowCount());
+    }
+
+    @Test
+    void testOffHeapCatalogIsRewrittenInTheBackground(@TempDir Path directory) throws Exception {
+        Path path = directory.resolve("products.bin");
+        when(productRepository.findByIdGreaterThanOrderByIdAsc(eq(Long.MIN_VALUE), any(Pageable.class)))
+                .thenReturn(List.of(laptop, blender));
+        store = new ProductSnapshotStore(productRepository, path, null);
+        store.getSnapshot();
+
+        for (long id = 3; id < 3 + 1024; id++) {
+            store.onProductChange(ProductChangeEvent.created(new Product(id, "Cable " + id, null, 5.0, "Cables", true)));
+        }
+        store.getSnapshot();
+
+        // The patched rows reached the threshold, so the next readers get the rewritten file
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (store.getSnapshot().getPatchedRowCount() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, store.getSnapshot().getPatchedRowCount());
+        assertEquals(1026, MappedProductFile.open(path).size());
+        store.shutdown();
+    }
+
+    private void stubCatalogStamp(long count, long maxId, LocalDateTime maxUpdatedAt) {
+        when(productRepository.findCatalogStamp())
+                .thenReturn(Collections.singletonList(new Object[]{count, maxId, maxUpdatedAt}));
+    }
+}
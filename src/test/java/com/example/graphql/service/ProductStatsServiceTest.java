@@ -6,7 +6,6 @@ import com.example.graphql.model.Product;
 import com.example.graphql.repository.ProductRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
@@ -26,10 +25,6 @@ public class ProductStatsServiceTest {
     @Mock
     private ProductRepository productRepository;
 
-    @Mock
-    private DynamicQueryService dynamicQueryService;
-
-    @InjectMocks
     private ProductStatsService productStatsService;
 
     private List<Product> testProducts;
@@ -37,6 +32,9 @@ public class ProductStatsServiceTest {
     @BeforeEach
     public void setup() {
         MockitoAnnotations.openMocks(this);
+        ProductSnapshotStore snapshotStore = new ProductSnapshotStore(productRepository);
+        productStatsService = new ProductStatsService(
+                new DynamicQueryService(productRepository, snapshotStore), new CatalogScanCoordinator(snapshotStore));
         
         // Create test products
         testProducts = new ArrayList<>();
@@ -94,17 +92,14 @@ public class ProductStatsServiceTest {
     @Test
     public void testGetStatsByCategory() {
         // Configure mock repository
-        when(productRepository.findByCategory("Electronics")).thenReturn(
-            testProducts.stream()
-                .filter(p -> "Electronics".equals(p.getCategory()))
-                .toList()
-        );
+        when(productRepository.findAll()).thenReturn(testProducts);
         
         // Call the method
         ProductStats stats = productStatsService.getStatsByCategory("Electronics");
         
-        // Verify repository was called
-        verify(productRepository).findByCategory("Electronics");
+        // Verify the category was selected from the catalog snapshot
+        verify(productRepository).findAll();
+        verify(productRepository, never()).findByCategory(any());
         
         // Verify the statistics
         assertEquals(2, stats.getCount());
@@ -113,6 +108,9 @@ public class ProductStatsServiceTest {
         assertEquals(200.0, stats.getMaxPrice(), 0.01);
         assertEquals(2, stats.getInStockCount());
         assertEquals(0, stats.getOutOfStockCount());
+        
+        // Unknown categories have no products
+        assertEquals(0, productStatsService.getStatsByCategory("Garden").getCount());
     }
     
     @Test
@@ -121,22 +119,14 @@ public class ProductStatsServiceTest {
         ProductFilter filter = new ProductFilter();
         filter.setInStock(true);
         
-        // Configure mocks
+        // Configure mock repository
         when(productRepository.findAll()).thenReturn(testProducts);
         
-        // Only in-stock products should pass the filter
-        when(dynamicQueryService.applyFilter(any(), eq(filter))).thenReturn(
-            testProducts.stream()
-                .filter(Product::isInStock)
-                .toList()
-        );
-        
-        // Call the method
+        // Call the method; only in-stock products should pass the filter
         ProductStats stats = productStatsService.getStatsByFilter(filter);
         
-        // Verify repository and service were called
+        // Verify repository was called
         verify(productRepository).findAll();
-        verify(dynamicQueryService).applyFilter(testProducts, filter);
         
         // Verify the statistics
         assertEquals(2, stats.getCount());
@@ -11,6 +11,7 @@ import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -21,11 +22,17 @@ public class ProductSubscriptionServiceTest {
     @Mock
     private WebSocketSubscriptionConfig.ProductSubscriptionPublisher publisher;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private ProductSubscriptionService subscriptionService;
     
     @Captor
     private ArgumentCaptor<ProductPriceChange> priceChangeCaptor;
+
+    @Captor
+    private ArgumentCaptor<ProductChangeEvent> changeEventCaptor;
     
     private Product originalProduct;
     private Product updatedProduct;
@@ -169,6 +176,37 @@ public class ProductSubscriptionServiceTest {
         
         // Verify that update notification was sent
         verify(publisher).publishProductUpdate(newProduct);
+        
+        // Verify that in-process listeners were told about the creation
+        verify(eventPublisher).publishEvent(changeEventCaptor.capture());
+        assertTrue(changeEventCaptor.getValue().isCreation());
+        assertEquals(newProduct, changeEventCaptor.getValue().getNewProduct());
+    }
+    
+    @Test
+    void testHandleProductUpdate_PublishesChangeEvent() {
+        subscriptionService.handleProductUpdate(originalProduct, updatedProduct);
+        
+        verify(eventPublisher).publishEvent(changeEventCaptor.capture());
+        ProductChangeEvent event = changeEventCaptor.getValue();
+        assertEquals(originalProduct, event.getOldProduct());
+        assertEquals(updatedProduct, event.getNewProduct());
+        assertEquals(1L, event.getProductId());
+    }
+    
+    @Test
+    void testHandleProductUpdate_DeletionPublishesDeleteEvent() {
+        Product deleted = new Product();
+        deleted.setId(1L);
+        deleted.setPrice(89.99);
+        deleted.setStockQuantity(0);
+        deleted.setOperation("DELETED");
+        
+        subscriptionService.handleProductUpdate(originalProduct, deleted);
+        
+        verify(eventPublisher).publishEvent(changeEventCaptor.capture());
+        assertTrue(changeEventCaptor.getValue().isDeletion());
+        assertEquals(originalProduct, changeEventCaptor.getValue().getOldProduct());
     }
     
     @Test
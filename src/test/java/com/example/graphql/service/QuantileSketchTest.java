@@ -0,0 +1,108 @@
+package com.example.graphql.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuantileSketchTest {
+
+    @Test
+    void testQuantilesAreWithinTheRankError() {
+        for (int k : new int[]{50, 400}) {
+            QuantileSketch sketch = new QuantileSketch(k);
+            Random random = new Random(k);
+            double[] values = new double[300_000];
+            for (int i = 0; i < values.length; i++) {
+                // Skewed, with many duplicates
+                values[i] = Math.floor(Math.exp(random.nextGaussian() * 2) * 100) / 100;
+                sketch.add(values[i]);
+            }
+            Arrays.sort(values);
+
+            assertEquals(values.length, sketch.count());
+            for (double fraction = 0.01; fraction < 1; fraction += 0.01) {
+                double estimate = sketch.quantile(fraction);
+                // The estimate's rank range, given duplicates, must come close to the target rank
+                double lowest = lowerBound(values, estimate) / (double) values.length;
+                double highest = upperBound(values, estimate) / (double) values.length;
+                double error = fraction < lowest ? lowest - fraction : fraction > highest ? fraction - highest : 0;
+                assertTrue(error <= sketch.rankError(), "k " + k + ", quantile " + fraction + ": rank error " + error);
+            }
+            assertEquals(values[0], sketch.quantile(0));
+            assertEquals(values[values.length - 1], sketch.quantile(1));
+        }
+    }
+
+    @Test
+    void testSmallStreamsAreExact() {
+        QuantileSketch sketch = new QuantileSketch(QuantileSketch.MIN_K * 4);
+        for (int value = 10; value >= 1; value--) {
+            sketch.add(value);
+        }
+        sketch.add(Double.NaN);
+
+        assertEquals(10, sketch.count());
+        assertEquals(5.0, sketch.quantile(0.5));
+        assertEquals(1.0, sketch.quantile(0.05));
+        assertEquals(10.0, sketch.quantile(0.95));
+        assertTrue(Double.isNaN(new QuantileSketch(100).quantile(0.5)));
+    }
+
+    @Test
+    void testMergedSketchesCoverBothStreams() {
+        QuantileSketch low = new QuantileSketch(200);
+        QuantileSketch high = new QuantileSketch(200);
+        for (int i = 0; i < 100_000; i++) {
+            low.add(i);
+            high.add(100_000 + i);
+        }
+
+        low.merge(high);
+
+        assertEquals(200_000, low.count());
+        assertEquals(100_000, low.quantile(0.5), 200_000 * low.rankError());
+        assertEquals(180_000, low.quantile(0.9), 200_000 * low.rankError());
+        assertThrows(IllegalArgumentException.class, () -> low.merge(new QuantileSketch(100)));
+    }
+
+    @Test
+    void testKForRankError() {
+        int k = QuantileSketch.kFor(0.01);
+        assertTrue(QuantileSketch.rankError(k) <= 0.01);
+        assertTrue(QuantileSketch.rankError(k - 1) > 0.01);
+        assertEquals(QuantileSketch.MIN_K, QuantileSketch.kFor(0.9));
+        assertThrows(IllegalArgumentException.class, () -> QuantileSketch.kFor(0));
+        assertThrows(IllegalArgumentException.class, () -> new QuantileSketch(2));
+    }
+
+    private static int lowerBound(double[] sorted, double value) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sorted[middle] < value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static int upperBound(double[] sorted, double value) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sorted[middle] <= value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
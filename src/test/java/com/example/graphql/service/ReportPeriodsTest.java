@@ -0,0 +1,61 @@
+package com.example.graphql.service;
+
+import com.example.graphql.dto.TimeframeType;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReportPeriodsTest {
+
+    private static final LocalDate START = LocalDate.of(2023, 1, 18);
+    private static final LocalDate END = LocalDate.of(2025, 3, 5);
+
+    @Test
+    void testEveryDayIsIndexedIntoThePeriodContainingIt() {
+        for (TimeframeType timeframe : TimeframeType.values()) {
+            ReportPeriods periods = ReportPeriods.of(timeframe, START, END);
+            assertEquals(END, periods.getEnd(periods.size() - 1), timeframe.name());
+            for (int period = 0; period < periods.size(); period++) {
+                if (period > 0) {
+                    assertEquals(periods.getEnd(period - 1).plusDays(1), periods.getStart(period), timeframe.name());
+                }
+                for (LocalDate day = periods.getStart(period); !day.isAfter(periods.getEnd(period)); day = day.plusDays(1)) {
+                    assertEquals(period, periods.indexOf(day), timeframe + " " + day);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testPeriodsAreLabelledPerTimeframe() {
+        ReportPeriods daily = ReportPeriods.of(TimeframeType.DAILY, START, END);
+        assertEquals(778, daily.size());
+        assertEquals("2023-01-18", daily.getLabel(0));
+
+        ReportPeriods weekly = ReportPeriods.of(TimeframeType.WEEKLY, START, END);
+        assertEquals("Week 2023-01-18 to 2023-01-24", weekly.getLabel(0));
+        assertEquals("Week 2025-03-05 to 2025-03-05", weekly.getLabel(weekly.size() - 1));
+
+        ReportPeriods monthly = ReportPeriods.of(TimeframeType.MONTHLY, START, END);
+        assertEquals(27, monthly.size());
+        assertEquals("JANUARY 2023", monthly.getLabel(0));
+        assertEquals(LocalDate.of(2023, 1, 1), monthly.getStart(0));
+
+        ReportPeriods quarterly = ReportPeriods.of(TimeframeType.QUARTERLY, START, END);
+        assertEquals(9, quarterly.size());
+        assertEquals("Q1 2023", quarterly.getLabel(0));
+        assertEquals("Q1 2025", quarterly.getLabel(8));
+
+        ReportPeriods yearly = ReportPeriods.of(TimeframeType.YEARLY, START, END);
+        assertEquals(3, yearly.size());
+        assertEquals("2024", yearly.getLabel(1));
+
+        ReportPeriods custom = ReportPeriods.of(TimeframeType.CUSTOM, START, END);
+        assertEquals(1, custom.size());
+        assertEquals("2023-01-18 to 2025-03-05", custom.getLabel(0));
+
+        assertEquals(0, ReportPeriods.of(TimeframeType.DAILY, END, START).size());
+    }
+}
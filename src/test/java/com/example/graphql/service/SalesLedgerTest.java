@@ -0,0 +1,202 @@
+package com.example.graphql.service;
+
+import com.example.graphql.dto.ProductFilter;
+import com.example.graphql.dto.SaleInput;
+import com.example.graphql.dto.SalesReportPeriod;
+import com.example.graphql.dto.TimeframeType;
+import com.example.graphql.model.Product;
+import com.example.graphql.model.Sale;
+import com.example.graphql.model.SalesGrain;
+import com.example.graphql.model.SalesRollup;
+import com.example.graphql.repository.ProductRepository;
+import com.example.graphql.repository.SaleRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Records sales into the ledger and checks the rollups and the reports read from them
+ * against totals computed from the recorded sales
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.show-sql=false",
+        "logging.level.org.springframework=INFO",
+        "logging.level.com.example.graphql=INFO"
+})
+class SalesLedgerTest {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private SaleRepository saleRepository;
+
+    private SalesLedgerService ledger;
+    private ReportingService reportingService;
+    private final List<Product> products = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        products.add(new Product(null, "Laptop", null, 1000.0, "Electronics", true));
+        products.add(new Product(null, "Kettle", null, 40.0, "Kitchen", true));
+        products.add(new Product(null, "Toaster", null, 25.0, "Kitchen", true));
+        productRepository.saveAllAndFlush(products);
+
+        ProductSnapshotStore store = new ProductSnapshotStore(productRepository);
+        ledger = new SalesLedgerService(saleRepository, productRepository);
+        reportingService = new ReportingService(new DynamicQueryService(productRepository, store),
+                new CatalogScanCoordinator(store), saleRepository, new SalesReportExecutor(4, 8));
+    }
+
+    @Test
+    void testRecordedSaleIsAddedToEveryRollup() {
+        Sale sale = ledger.recordSale(new SaleInput(id(1), 3, null, "2024-05-15T10:30:00"));
+
+        assertNotNull(sale.getId());
+        assertEquals(40.0, sale.getUnitPrice());
+        assertEquals(120.0, sale.getRevenue());
+        assertEquals("2024-05-15T10:30:00", sale.getSoldAt());
+
+        ledger.recordSale(new SaleInput(id(1), null, 35.0, "2024-05-17"));
+        assertRollup(SalesGrain.DAY, "2024-05-15", 1, 3, 120.0);
+        assertRollup(SalesGrain.DAY, "2024-05-17", 1, 1, 35.0);
+        assertRollup(SalesGrain.WEEK, "2024-05-13", 2, 4, 155.0);
+        assertRollup(SalesGrain.MONTH, "2024-05-01", 2, 4, 155.0);
+        assertRollup(SalesGrain.QUARTER, "2024-04-01", 2, 4, 155.0);
+        assertRollup(SalesGrain.YEAR, "2024-01-01", 2, 4, 155.0);
+        assertEquals(2, saleRepository.count());
+    }
+
+    @Test
+    void testReportsMatchTheRecordedSales() {
+        List<SaleInput> sales = randomSales(2000);
+        assertEquals(sales.size(), ledger.recordSales(sales));
+        assertEquals(sales.size(), saleRepository.count());
+
+        List<SalesReportPeriod> monthly = reportingService.generateSalesReportByTimeframe(
+                TimeframeType.MONTHLY, "2023-01-01", "2024-12-31", null);
+        assertEquals(24, monthly.size());
+        for (int month = 0; month < 24; month++) {
+            LocalDate start = LocalDate.of(2023, 1, 1).plusMonths(month);
+            assertPeriod(sales, start, start.plusMonths(1).minusDays(1), null, monthly.get(month));
+        }
+
+        // Weeks starting on a Wednesday are read as days and whole weeks
+        ProductFilter kitchen = new ProductFilter();
+        kitchen.setCategories(List.of("Kitchen"));
+        List<SalesReportPeriod> weekly = reportingService.generateSalesReportByTimeframe(
+                TimeframeType.WEEKLY, "2024-02-07", "2024-04-30", kitchen);
+        assertEquals(12, weekly.size());
+        for (int week = 0; week < weekly.size(); week++) {
+            LocalDate start = LocalDate.of(2024, 2, 7).plusWeeks(week);
+            LocalDate end = start.plusDays(6).isAfter(LocalDate.of(2024, 4, 30)) ? LocalDate.of(2024, 4, 30) : start.plusDays(6);
+            assertPeriod(sales, start, end, "Kitchen", weekly.get(week));
+        }
+
+        SalesReportPeriod custom = reportingService.generateSalesReportByTimeframe(
+                TimeframeType.CUSTOM, "2023-03-30", "2024-07-02", null).get(0);
+        assertPeriod(sales, LocalDate.of(2023, 3, 30), LocalDate.of(2024, 7, 2), null, custom);
+    }
+
+    @Test
+    void testTopSellingProductsAreRankedByUnits() {
+        ledger.recordSales(List.of(
+                new SaleInput(id(0), 1, null, "2024-01-10"),
+                new SaleInput(id(1), 5, null, "2024-01-10"),
+                new SaleInput(id(2), 2, null, "2024-01-11"),
+                new SaleInput(id(2), 3, 20.0, "2024-01-12")));
+
+        SalesReportPeriod period = reportingService.generateSalesReportByTimeframe(
+                TimeframeType.MONTHLY, "2024-01-01", "2024-01-31", null).get(0);
+        assertEquals("JANUARY 2024", period.getPeriod());
+        assertEquals(4, period.getTotalSales());
+        assertEquals(1000.0 + 200.0 + 50.0 + 60.0, period.getTotalRevenue(), 1e-9);
+        assertEquals(period.getTotalRevenue() / 4, period.getAverageOrderValue(), 1e-9);
+        // Kettle and Toaster sold 5 units each, so the lower id comes first
+        assertEquals(List.of("Kettle", "Toaster", "Laptop"), period.getTopSellingProducts().stream()
+                .map(SalesReportPeriod.TopSellingProduct::getProductName).collect(Collectors.toList()));
+        assertEquals(110.0, period.getTopSellingProducts().get(1).getRevenue(), 1e-9);
+
+        SalesReportPeriod empty = reportingService.generateSalesReportByTimeframe(
+                TimeframeType.CUSTOM, "2024-02-01", "2024-02-29", null).get(0);
+        assertEquals(0, empty.getTotalSales());
+        assertEquals(0.0, empty.getAverageOrderValue());
+        assertTrue(empty.getTopSellingProducts().isEmpty());
+    }
+
+    @Test
+    void testRejectsInvalidSales() {
+        assertThrows(IllegalArgumentException.class, () -> ledger.recordSale(new SaleInput("999999", 1, null, null)));
+        assertThrows(IllegalArgumentException.class, () -> ledger.recordSale(new SaleInput("abc", 1, null, null)));
+        assertThrows(IllegalArgumentException.class, () -> ledger.recordSale(new SaleInput(id(0), 0, null, null)));
+        assertThrows(IllegalArgumentException.class, () -> ledger.recordSale(new SaleInput(id(0), 1, -1.0, null)));
+        assertThrows(IllegalArgumentException.class, () -> ledger.recordSale(new SaleInput(id(0), 1, null, "yesterday")));
+        assertThrows(IllegalArgumentException.class, () -> ledger.recordSales(List.of(
+                new SaleInput(id(0), 1, null, "2024-01-01"), new SaleInput(id(0), 1, null, "2024-13-01"))));
+        assertEquals(0, saleRepository.count());
+        assertEquals(0, ledger.recordSales(List.of()));
+    }
+
+    private List<SaleInput> randomSales(int count) {
+        Random random = new Random(7);
+        List<SaleInput> sales = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            LocalDate day = LocalDate.of(2023, 1, 1).plusDays(random.nextInt(731));
+            sales.add(new SaleInput(id(random.nextInt(products.size())), 1 + random.nextInt(4),
+                    random.nextBoolean() ? null : 5.0 + random.nextInt(20), day + "T12:00:00"));
+        }
+        return sales;
+    }
+
+    private void assertPeriod(List<SaleInput> sales, LocalDate start, LocalDate end, String category, SalesReportPeriod period) {
+        int orders = 0;
+        double revenue = 0;
+        long[] units = new long[products.size()];
+        for (SaleInput sale : sales) {
+            LocalDate day = LocalDate.parse(sale.getSoldAt().substring(0, 10));
+            int index = indexOf(sale.getProductId());
+            Product product = products.get(index);
+            if (!day.isBefore(start) && !day.isAfter(end) && (category == null || category.equals(product.getCategory()))) {
+                orders++;
+                revenue += sale.getQuantity() * (sale.getUnitPrice() != null ? sale.getUnitPrice() : product.getPrice());
+                units[index] += sale.getQuantity();
+            }
+        }
+        assertEquals(orders, period.getTotalSales(), period.getPeriod());
+        assertEquals(revenue, period.getTotalRevenue(), 1e-6, period.getPeriod());
+        for (SalesReportPeriod.TopSellingProduct top : period.getTopSellingProducts()) {
+            assertEquals(units[indexOf(top.getProductId())], top.getUnitsSold(), period.getPeriod());
+        }
+    }
+
+    private void assertRollup(SalesGrain grain, String periodStart, long orders, long units, double revenue) {
+        List<SalesRollup> rollups = saleRepository.findRollups(grain, List.of(LocalDate.parse(periodStart)));
+        assertEquals(1, rollups.size(), grain + " " + periodStart);
+        assertEquals(products.get(1).getId(), rollups.get(0).getProductId());
+        assertEquals(orders, rollups.get(0).getOrders());
+        assertEquals(units, rollups.get(0).getUnits());
+        assertEquals(revenue, rollups.get(0).getRevenue(), 1e-9);
+    }
+
+    private int indexOf(String productId) {
+        for (int i = 0; i < products.size(); i++) {
+            if (products.get(i).getId().toString().equals(productId)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException(productId);
+    }
+
+    private String id(int index) {
+        return products.get(index).getId().toString();
+    }
+}
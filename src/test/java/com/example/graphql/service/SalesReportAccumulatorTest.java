@@ -0,0 +1,84 @@
+package com.example.graphql.service;
+
+import com.example.graphql.dto.SalesReportPeriod;
+import com.example.graphql.dto.TimeframeType;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SalesReportAccumulatorTest {
+
+    private static final ReportPeriods PERIODS = ReportPeriods.of(TimeframeType.DAILY,
+            LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 3));
+
+    @Test
+    void testSalesAreSummedPerPeriodAndProduct() {
+        SalesReportAccumulator accumulator = new SalesReportAccumulator(0, 3, new long[]{10, 20, 30});
+        accumulator.add(0, 0, 2, 5, 50.0);
+        accumulator.add(0, 1, 1, 3, 90.0);
+        // A second rollup of the same product and period
+        accumulator.add(0, 1, 2, 2, 60.0);
+        accumulator.add(2, 2, 1, 1, 7.5);
+
+        List<SalesReportPeriod> report = accumulator.toReport(PERIODS, 5, product -> "Product " + product);
+        assertEquals(List.of("2024-01-01", "2024-01-02", "2024-01-03"),
+                report.stream().map(SalesReportPeriod::getPeriod).collect(Collectors.toList()));
+
+        SalesReportPeriod first = report.get(0);
+        assertEquals(5, first.getTotalSales());
+        assertEquals(200.0, first.getTotalRevenue());
+        assertEquals(40.0, first.getAverageOrderValue());
+        // Both products sold 5 units, so the lower id comes first
+        assertEquals(List.of("10", "20"), first.getTopSellingProducts().stream()
+                .map(SalesReportPeriod.TopSellingProduct::getProductId).collect(Collectors.toList()));
+        assertEquals("Product 1", first.getTopSellingProducts().get(1).getProductName());
+        assertEquals(150.0, first.getTopSellingProducts().get(1).getRevenue());
+
+        assertEquals(0, report.get(1).getTotalSales());
+        assertEquals(0.0, report.get(1).getAverageOrderValue());
+        assertTrue(report.get(1).getTopSellingProducts().isEmpty());
+        assertEquals(1, report.get(2).getTopSellingProducts().get(0).getUnitsSold());
+    }
+
+    @Test
+    void testTopProductsMatchAFullSort() {
+        Random random = new Random(3);
+        int products = 200;
+        long[] ids = IntStream.range(0, products).mapToLong(i -> 1000 - i * 3L).toArray();
+        long[][] units = new long[3][products];
+        boolean[][] sold = new boolean[3][products];
+        SalesReportAccumulator accumulator = new SalesReportAccumulator(0, 3, ids);
+        for (int i = 0; i < 5000; i++) {
+            int period = random.nextInt(3);
+            int product = random.nextInt(products);
+            long quantity = random.nextInt(4);
+            units[period][product] += quantity;
+            sold[period][product] = true;
+            accumulator.add(period, product, 1, quantity, quantity * 2.0);
+        }
+
+        List<SalesReportPeriod> report = accumulator.toReport(PERIODS, 7, product -> null);
+        for (int period = 0; period < 3; period++) {
+            long[] periodUnits = units[period];
+            boolean[] periodSold = sold[period];
+            List<String> expected = IntStream.range(0, products).boxed()
+                    .filter(product -> periodSold[product])
+                    .sorted(Comparator.comparingLong((Integer product) -> periodUnits[product]).reversed()
+                            .thenComparingLong(product -> ids[product]))
+                    .limit(7)
+                    .map(product -> String.valueOf(ids[product]))
+                    .collect(Collectors.toList());
+            List<String> actual = new ArrayList<>();
+            report.get(period).getTopSellingProducts().forEach(top -> actual.add(top.getProductId()));
+            assertEquals(expected, actual);
+        }
+    }
+}
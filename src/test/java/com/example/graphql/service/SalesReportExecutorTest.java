@@ -0,0 +1,112 @@
+package com.example.graphql.service;
+
+import com.example.graphql.dto.SalesReportPeriod;
+import com.example.graphql.dto.TimeframeType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SalesReportExecutorTest {
+
+    private static final ReportPeriods PERIODS = ReportPeriods.of(TimeframeType.DAILY,
+            LocalDate.of(2022, 1, 1), LocalDate.of(2023, 12, 31));
+    private static final long[] PRODUCT_IDS = LongStream.rangeClosed(1, 300).map(id -> id * 7).toArray();
+
+    private final SalesReportExecutor sequential = new SalesReportExecutor(1);
+    private final SalesReportExecutor parallel = new SalesReportExecutor(4, 64);
+
+    @AfterEach
+    void shutdown() {
+        parallel.shutdown();
+    }
+
+    @Test
+    void testParallelReportMatchesTheSequentialOne() {
+        List<SalesReportPeriod> expected = sequential.execute(PERIODS, rollups(), PRODUCT_IDS, 5, this::name);
+        List<SalesReportPeriod> actual = parallel.execute(PERIODS, rollups(), PRODUCT_IDS, 5, this::name);
+
+        assertEquals(PERIODS.size(), actual.size());
+        assertEquals(describe(expected), describe(actual));
+        assertEquals(0, actual.get(PERIODS.indexOf(LocalDate.of(2022, 6, 15))).getTotalSales());
+    }
+
+    @Test
+    void testSequentialRangesMatchOneAccumulator() {
+        List<SalesReportPeriod> expected = new SalesReportExecutor(1, Integer.MAX_VALUE)
+                .execute(PERIODS, rollups(), PRODUCT_IDS, 5, this::name);
+        List<SalesReportPeriod> actual = new SalesReportExecutor(1, 64).execute(PERIODS, rollups(), PRODUCT_IDS, 5, this::name);
+
+        assertEquals(describe(expected), describe(actual));
+    }
+
+    @Test
+    void testSmallReportsRunOnTheCallingThread() {
+        ReportRollups rollups = new ReportRollups();
+        rollups.add(1, 0, 2, 3, 30.0);
+        rollups.add(0, 1, 1, 1, 5.0);
+
+        List<SalesReportPeriod> report = parallel.execute(PERIODS, rollups, PRODUCT_IDS, 5, this::name);
+        assertEquals(PERIODS.size(), report.size());
+        assertEquals(1, report.get(0).getTotalSales());
+        assertEquals("14", report.get(0).getTopSellingProducts().get(0).getProductId());
+        assertEquals(30.0, report.get(1).getTotalRevenue());
+    }
+
+    @Test
+    void testRollupsAreSortedByPeriod() {
+        ReportRollups rollups = new ReportRollups();
+        rollups.add(2, 0, 1, 1, 1.0);
+        rollups.add(0, 1, 1, 1, 1.0);
+        rollups.add(2, 2, 1, 1, 1.0);
+
+        int[] offsets = rollups.sortByPeriod(4);
+        assertArrayEquals(new int[]{0, 1, 1, 3, 3}, offsets);
+
+        SalesReportAccumulator lastPeriods = new SalesReportAccumulator(2, 2, PRODUCT_IDS);
+        rollups.addTo(lastPeriods, offsets[2], offsets[4]);
+        List<SalesReportPeriod> report = lastPeriods.toReport(PERIODS, 5, this::name);
+        assertEquals(List.of("2022-01-03", "2022-01-04"),
+                report.stream().map(SalesReportPeriod::getPeriod).collect(Collectors.toList()));
+        // Both sold one unit, so the lower id comes first
+        assertEquals(List.of("7", "21"), report.get(0).getTopSellingProducts().stream()
+                .map(SalesReportPeriod.TopSellingProduct::getProductId).collect(Collectors.toList()));
+    }
+
+    /**
+     * Rollups of random products on random days, leaving June 2022 without sales, and
+     * read twice a day so periods repeat products
+     */
+    private static ReportRollups rollups() {
+        SplittableRandom random = new SplittableRandom(11);
+        ReportRollups rollups = new ReportRollups();
+        for (int i = 0; i < 20_000; i++) {
+            LocalDate day = LocalDate.of(2022, 1, 1).plusDays(random.nextInt(PERIODS.size()));
+            if (day.getYear() == 2022 && day.getMonthValue() == 6) {
+                continue;
+            }
+            long units = 1 + random.nextInt(5);
+            rollups.add(PERIODS.indexOf(day), random.nextInt(PRODUCT_IDS.length), 1, units, units * 9.5);
+        }
+        return rollups;
+    }
+
+    private String name(int product) {
+        return "Product " + product;
+    }
+
+    private static List<String> describe(List<SalesReportPeriod> report) {
+        return report.stream()
+                .map(period -> period.getPeriod() + " " + period.getTotalSales() + " " + period.getTotalRevenue() + " "
+                        + period.getTopSellingProducts().stream()
+                        .map(top -> top.getProductId() + ":" + top.getProductName() + ":" + top.getUnitsSold() + ":" + top.getRevenue())
+                        .collect(Collectors.joining(",")))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.graphql.service;
+
+import com.example.graphql.dto.ProductFilter;
+import com.example.graphql.model.Product;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VectorizedFilterTest {
+
+    private static final List<String> CATEGORIES = List.of("Electronics", "Kitchen", "Books");
+
+    @Test
+    void testKernelsAgreeWithRowByRowEvaluation() {
+        Random random = new Random(42);
+        // Not a multiple of 64, so the partial last word is covered
+        List<Product> products = new ArrayList<>();
+        for (long id = 1; id <= 1000; id++) {
+            Product product = new Product(id, "Product " + id, null,
+                    random.nextInt(10) == 0 ? null : random.nextDouble() * 1000,
+                    random.nextInt(10) == 0 ? null : CATEGORIES.get(random.nextInt(CATEGORIES.size())),
+                    random.nextBoolean());
+            product.setRating(random.nextInt(10) == 0 ? null : random.nextFloat() * 5);
+            product.setStockQuantity(random.nextInt(100));
+            product.setInStock(random.nextBoolean());
+            product.setPopularity(random.nextInt(100));
+            products.add(product);
+        }
+        ProductSnapshot snapshot = ProductSnapshot.of(products);
+
+        for (int i = 0; i < 200; i++) {
+            ProductFilter filter = new ProductFilter();
+            if (random.nextBoolean()) {
+                filter.setMinPrice(random.nextDouble() * 1000);
+            }
+            if (random.nextBoolean()) {
+                filter.setMaxPrice(random.nextDouble() * 1000);
+            }
+            if (random.nextBoolean()) {
+                filter.setMinRating(random.nextDouble() * 5);
+            }
+            if (random.nextBoolean()) {
+                filter.setInStock(random.nextBoolean());
+            }
+            if (random.nextBoolean()) {
+                filter.setCategories(List.of(CATEGORIES.get(random.nextInt(CATEGORIES.size())), "Toys"));
+            }
+            if (random.nextBoolean()) {
+                filter.setMinStockQuantity(random.nextInt(100));
+            }
+            if (random.nextBoolean()) {
+                filter.setMinPopularity(random.nextInt(100));
+            }
+
+            BitSet selected = VectorizedFilter.compile(snapshot, filter, null).execute();
+
+            BitSet expected = new BitSet();
+            for (int row = 0; row < products.size(); row++) {
+                if (matches(products.get(row), filter)) {
+                    expected.set(row);
+                }
+            }
+            assertEquals(expected, selected);
+        }
+    }
+
+    @Test
+    void testOnlyActiveClausesCompileToKernels() {
+        ProductSnapshot snapshot = ProductSnapshot.of(List.of(new Product(1L, "Laptop", null, 1200.0, "Electronics", true)));
+        ProductFilter filter = new ProductFilter();
+        filter.setMinPrice(100.0);
+        filter.setMaxPrice(2000.0);
+        filter.setInStock(true);
+
+        assertEquals(2, VectorizedFilter.compile(snapshot, filter, null).getKernelCount());
+        assertEquals(3, VectorizedFilter.compile(snapshot, filter, row -> true).getKernelCount());
+        assertEquals(0, VectorizedFilter.compile(snapshot, null, null).getKernelCount());
+    }
+
+    @Test
+    void testComparisonEdgeCases() {
+        Product free = new Product(1L, "Free", null, 0.0, "Electronics", true);
+        Product negativeZero = new Product(2L, "Negative zero", null, -0.0, "Electronics", true);
+        Product unpriced = new Product(3L, "Unpriced", null, null, "Electronics", true);
+        Product backordered = new Product(4L, "Backordered", null, 10.0, "Electronics", true);
+        backordered.setStockQuantity(Integer.MIN_VALUE);
+        ProductSnapshot snapshot = ProductSnapshot.of(List.of(free, negativeZero, unpriced, backordered));
+
+        ProductFilter exactlyZero = new ProductFilter();
+        exactlyZero.setMinPrice(0.0);
+        exactlyZero.setMaxPrice(-0.0);
+        assertEquals(BitSet.valueOf(new long[]{0b0011}), VectorizedFilter.compile(snapshot, exactlyZero, null).execute());
+
+        ProductFilter anyStock = new ProductFilter();
+        anyStock.setMinStockQuantity(Integer.MIN_VALUE);
+        assertEquals(4, VectorizedFilter.compile(snapshot, anyStock, null).execute().cardinality());
+        anyStock.setMinStockQuantity(Integer.MIN_VALUE + 1);
+        assertEquals(BitSet.valueOf(new long[]{0b0111}), VectorizedFilter.compile(snapshot, anyStock, null).execute());
+    }
+
+    @Test
+    void testCreatedAtKernelAppliesInclusiveBounds() {
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        List<Product> products = new ArrayList<>();
+        for (long id = 0; id < 100; id++) {
+            Product product = new Product(id, "Product " + id, null, 10.0, "Electronics", true);
+            product.setCreatedAtTimestamp(id == 99 ? null : start.plusDays(id));
+            products.add(product);
+        }
+        ProductSnapshot snapshot = ProductSnapshot.of(products);
+
+        ProductFilter filter = new ProductFilter();
+        filter.setCreatedAfter("2024-01-11");
+        filter.setCreatedBefore("2024-01-20T00:00:00");
+        BitSet expected = new BitSet();
+        expected.set(10, 20);
+        assertEquals(expected, VectorizedFilter.compile(snapshot, filter, null).execute());
+
+        // An open upper bound still excludes the product without a creation date
+        filter.setCreatedBefore(null);
+        expected.set(10, 99);
+        assertEquals(expected, VectorizedFilter.compile(snapshot, filter, null).execute());
+
+        filter.setCreatedBefore("2023-12-31");
+        assertTrue(VectorizedFilter.compile(snapshot, filter, null).execute().isEmpty());
+    }
+
+    @Test
+    void testSearchMatchesKeepRowsByProductId() {
+        List<Product> products = new ArrayList<>();
+        for (long id = 100; id > 0; id--) {
+            products.add(new Product(id, "Product " + id, null, (double) id, "Electronics", true));
+        }
+        ProductSnapshot snapshot = ProductSnapshot.of(products);
+        ProductFilter filter = new ProductFilter();
+        filter.setMinPrice(50.0);
+
+        BitSet selected = VectorizedFilter.compile(snapshot, filter, new long[]{3, 50, 70, 1000}, null).execute();
+
+        // Rows are in descending id order
+        BitSet expected = new BitSet();
+        expected.set(100 - 50);
+        expected.set(100 - 70);
+        assertEquals(expected, selected);
+        assertTrue(VectorizedFilter.compile(snapshot, filter, new long[0], null).execute().isEmpty());
+    }
+
+    @Test
+    void testUnknownCategoriesSelectNothing() {
+        ProductSnapshot snapshot = ProductSnapshot.of(List.of(new Product(1L, "Laptop", null, 1200.0, "Electronics", true)));
+        ProductFilter filter = new ProductFilter();
+        filter.setCategories(List.of("Toys"));
+
+        assertTrue(VectorizedFilter.compile(snapshot, filter, null).execute().isEmpty());
+    }
+
+    @Test
+    void testRecordFilterOnlySeesSurvivingRows() {
+        List<Product> products = new ArrayList<>();
+        for (long id = 0; id < 130; id++) {
+            products.add(new Product(id, "Product " + id, null, (double) id, "Electronics", true));
+        }
+        ProductSnapshot snapshot = ProductSnapshot.of(products);
+        ProductFilter filter = new ProductFilter();
+        filter.setMinPrice(100.0);
+        BitSet checked = new BitSet();
+
+        BitSet selected = VectorizedFilter.compile(snapshot, filter, row -> {
+            checked.set(row);
+            return row % 2 == 0;
+        }).execute();
+
+        BitSet survivors = new BitSet();
+        survivors.set(100, 130);
+        assertEquals(survivors, checked);
+        assertEquals(15, selected.cardinality());
+    }
+
+    private static boolean matches(Product product, ProductFilter filter) {
+        double price = product.getPrice() != null ? product.getPrice() : Double.NaN;
+        return (filter.getMinPrice() == null || price >= filter.getMinPrice())
+                && (filter.getMaxPrice() == null || price <= filter.getMaxPrice())
+                && (filter.getMinRating() == null || (product.getRating() != null && product.getRating() >= filter.getMinRating()))
+                && (filter.getInStock() == null || filter.getInStock() == product.isInStock())
+                && (filter.getCategories() == null || (product.getCategory() != null && filter.getCategories().contains(product.getCategory())))
+                && (filter.getMinStockQuantity() == null || product.getStockQuantity() >= filter.getMinStockQuantity())
+                && (filter.getMinPopularity() == null || product.getPopularity() >= filter.getMinPopularity());
+    }
+}